@@ -0,0 +1,66 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.backup;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import java.util.Map.Entry;
+import javax.inject.Inject;
+import org.joda.time.DateTime;
+
+/** Metrics for the computation of commit log checkpoints. */
+public class CommitLogCheckpointMetrics {
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("bucket", "Commit log bucket ID."));
+
+  // Allows values between 1 ms and 2^16 ms, i.e. about a minute, after which commit logs are
+  // lagging by more than a checkpoint interval.
+  private static final DistributionFitter LAG_FITTER = ExponentialFitter.create(16, 2.0, 1.0);
+
+  private static final EventMetric bucketLag =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/commit_logs/checkpoint/bucket_lag",
+              "Time between the latest commit log in a bucket and that bucket's checkpoint time",
+              "milliseconds",
+              LABEL_DESCRIPTORS,
+              LAG_FITTER);
+
+  @Inject
+  CommitLogCheckpointMetrics() {}
+
+  /**
+   * Records how far each bucket's checkpoint time trails the last commit log written to it.
+   *
+   * <p>A bucket lags when a concurrent commit to some bucket forced the checkpoint threshold below
+   * its latest commit; consistently lagging buckets indicate write contention.
+   */
+  void recordBucketLags(
+      ImmutableMap<Integer, DateTime> lastWrittenTimes,
+      ImmutableMap<Integer, DateTime> bucketCheckpointTimes) {
+    for (Entry<Integer, DateTime> entry : bucketCheckpointTimes.entrySet()) {
+      DateTime lastWrittenTime = lastWrittenTimes.get(entry.getKey());
+      bucketLag.record(
+          lastWrittenTime.getMillis() - entry.getValue().getMillis(),
+          String.valueOf(entry.getKey()));
+    }
+  }
+}
@@ -14,6 +14,7 @@
 
 package google.registry.backup;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.Maps.transformValues;
 import static google.registry.model.ofy.CommitLogBucket.getBucketKey;
@@ -21,6 +22,7 @@ import static google.registry.util.DateTimeUtils.END_OF_TIME;
 import static google.registry.util.DateTimeUtils.earliestOf;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import com.googlecode.objectify.Key;
 import google.registry.model.ofy.CommitLogBucket;
@@ -29,7 +31,6 @@ import google.registry.model.ofy.CommitLogManifest;
 import google.registry.model.ofy.Ofy;
 import google.registry.util.Clock;
 import java.util.List;
-import java.util.Map.Entry;
 import javax.inject.Inject;
 import org.joda.time.DateTime;
 
@@ -96,6 +97,7 @@ class CommitLogCheckpointStrategy {
 
   @Inject Ofy ofy;
   @Inject Clock clock;
+  @Inject CommitLogCheckpointMetrics metrics;
   @Inject CommitLogCheckpointStrategy() {}
 
   /** Compute and return a new CommitLogCheckpoint for the current point in time. */
@@ -103,9 +105,10 @@ class CommitLogCheckpointStrategy {
     DateTime checkpointTime = clock.nowUtc();
     ImmutableMap<Integer, DateTime> firstPassTimes = readBucketTimestamps();
     DateTime threshold = readNewCommitLogsAndFindThreshold(firstPassTimes);
-    return CommitLogCheckpoint.create(
-        checkpointTime,
-        computeBucketCheckpointTimes(firstPassTimes, threshold));
+    ImmutableMap<Integer, DateTime> bucketCheckpointTimes =
+        computeBucketCheckpointTimes(firstPassTimes, threshold);
+    metrics.recordBucketLags(firstPassTimes, bucketCheckpointTimes);
+    return CommitLogCheckpoint.create(checkpointTime, bucketCheckpointTimes);
   }
 
   /**
@@ -131,21 +134,15 @@ class CommitLogCheckpointStrategy {
    */
   @VisibleForTesting
   DateTime readNewCommitLogsAndFindThreshold(ImmutableMap<Integer, DateTime> bucketTimes) {
+    // Start the queries for all buckets before reading any of their results. Objectify issues
+    // query RPCs asynchronously and only blocks once a result list is first accessed, so this runs
+    // the per-bucket queries concurrently instead of one after another.
+    ImmutableList<List<Key<CommitLogManifest>>> manifestKeysByBucket =
+        bucketTimes.entrySet().stream()
+            .map(entry -> loadFirstManifestKeyAfter(entry.getKey(), entry.getValue()))
+            .collect(toImmutableList());
     DateTime timeBeforeAllNewCommits = END_OF_TIME;
-    for (Entry<Integer, DateTime> entry : bucketTimes.entrySet()) {
-      Key<CommitLogBucket> bucketKey = getBucketKey(entry.getKey());
-      DateTime bucketTime = entry.getValue();
-      // Add 1 to handle START_OF_TIME since 0 isn't a valid id - filter then uses >= instead of >.
-      Key<CommitLogManifest> keyForFilter =
-          Key.create(CommitLogManifest.create(bucketKey, bucketTime.plusMillis(1), null));
-      List<Key<CommitLogManifest>> manifestKeys =
-          ofy.load()
-              .type(CommitLogManifest.class)
-              .ancestor(bucketKey)
-              .filterKey(">=", keyForFilter)
-              .limit(1)
-              .keys()
-              .list();
+    for (List<Key<CommitLogManifest>> manifestKeys : manifestKeysByBucket) {
       if (!manifestKeys.isEmpty()) {
         timeBeforeAllNewCommits = earliestOf(
             timeBeforeAllNewCommits,
@@ -155,6 +152,25 @@ class CommitLogCheckpointStrategy {
     return timeBeforeAllNewCommits;
   }
 
+  /**
+   * Starts an asynchronous query for the key of the first commit log in the given bucket that is
+   * after the given time.
+   */
+  private List<Key<CommitLogManifest>> loadFirstManifestKeyAfter(
+      int bucketNum, DateTime bucketTime) {
+    Key<CommitLogBucket> bucketKey = getBucketKey(bucketNum);
+    // Add 1 to handle START_OF_TIME since 0 isn't a valid id - filter then uses >= instead of >.
+    Key<CommitLogManifest> keyForFilter =
+        Key.create(CommitLogManifest.create(bucketKey, bucketTime.plusMillis(1), null));
+    return ofy.load()
+        .type(CommitLogManifest.class)
+        .ancestor(bucketKey)
+        .filterKey(">=", keyForFilter)
+        .limit(1)
+        .keys()
+        .list();
+  }
+
   /**
    * Returns the bucket checkpoint times produced by clamping the given set of bucket timestamps to
    * at most the given threshold value.
@@ -18,19 +18,25 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.backup.BackupUtils.createDeserializingIterator;
 
+import com.google.common.collect.AbstractIterator;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.google.common.collect.Streams;
 import google.registry.model.ImmutableObject;
 import google.registry.model.ofy.CommitLogCheckpoint;
 import google.registry.model.ofy.CommitLogManifest;
 import google.registry.model.ofy.CommitLogMutation;
 import java.io.BufferedInputStream;
+import java.io.Closeable;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.io.UncheckedIOException;
 import java.nio.channels.Channels;
 import java.nio.channels.ReadableByteChannel;
-import java.util.Iterator;
+import java.util.stream.Stream;
 
 /**
  * Helpers for reading CommitLog records from a file.
@@ -57,41 +63,41 @@ public final class CommitLogImports {
    */
   public static ImmutableList<ImmutableList<VersionedEntity>> loadEntitiesByTransaction(
       InputStream inputStream) {
-    try (AppEngineEnvironment appEngineEnvironment = new AppEngineEnvironment();
-        InputStream input = new BufferedInputStream(inputStream)) {
-      Iterator<ImmutableObject> commitLogs = createDeserializingIterator(input);
-      checkState(commitLogs.hasNext());
-      checkState(commitLogs.next() instanceof CommitLogCheckpoint);
-
-      ImmutableList.Builder<ImmutableList<VersionedEntity>> resultBuilder =
-          new ImmutableList.Builder<>();
-      ImmutableList.Builder<VersionedEntity> currentTransactionBuilder =
-          new ImmutableList.Builder<>();
-
-      while (commitLogs.hasNext()) {
-        ImmutableObject currentObject = commitLogs.next();
-        if (currentObject instanceof CommitLogManifest) {
-          // CommitLogManifest means we are starting a new transaction
-          addIfNonempty(resultBuilder, currentTransactionBuilder);
-          currentTransactionBuilder = new ImmutableList.Builder<>();
-          VersionedEntity.fromManifest((CommitLogManifest) currentObject)
-              .forEach(currentTransactionBuilder::add);
-        } else if (currentObject instanceof CommitLogMutation) {
-          currentTransactionBuilder.add(
-              VersionedEntity.fromMutation((CommitLogMutation) currentObject));
-        } else {
-          throw new IllegalStateException(
-              String.format("Unknown entity type %s in commit logs", currentObject.getClass()));
-        }
-      }
-      // Add the last transaction in (if it's not empty)
-      addIfNonempty(resultBuilder, currentTransactionBuilder);
-      return resultBuilder.build();
-    } catch (IOException e) {
-      throw new RuntimeException(e);
+    try (Stream<ImmutableList<VersionedEntity>> transactions =
+        streamEntitiesByTransaction(inputStream)) {
+      return transactions.collect(toImmutableList());
     }
   }
 
+  /**
+   * Lazily decodes entities in an {@code inputStream} (from a single CommitLog file), one
+   * transaction at a time.
+   *
+   * <p>This is the streaming counterpart of {@link #loadEntitiesByTransaction}: only the
+   * transaction currently being decoded is held in memory, so memory use is bounded by the size of
+   * the largest transaction rather than that of the whole file. The {@code inputStream} is closed
+   * once the returned stream is exhausted, or when it is closed, whichever comes first; callers
+   * that may stop early should close the stream.
+   *
+   * <p>The returned stream is sequential, but it doesn't depend on any thread-local state between
+   * elements, so independent files may be decoded concurrently on different threads.
+   */
+  public static Stream<ImmutableList<VersionedEntity>> streamEntitiesByTransaction(
+      InputStream inputStream) {
+    TransactionIterator transactions = new TransactionIterator(inputStream);
+    return Streams.stream(transactions).onClose(transactions::close);
+  }
+
+  /**
+   * Lazily decodes entities in an {@code inputStream} (from a single CommitLog file).
+   *
+   * <p>This is the streaming counterpart of {@link #loadEntities(InputStream)}; see {@link
+   * #streamEntitiesByTransaction} for how the {@code inputStream} is closed.
+   */
+  public static Stream<VersionedEntity> streamEntities(InputStream inputStream) {
+    return streamEntitiesByTransaction(inputStream).flatMap(ImmutableList::stream);
+  }
+
   /**
    * Returns entities in an {@code inputStream} (from a single CommitLog file) as an {@link
    * ImmutableList} of {@link VersionedEntity} records. Upon completion the {@code inputStream} is
@@ -106,9 +112,9 @@ public final class CommitLogImports {
    * entity keys, whereas each {@code CommitLogMutation} contains one whole entity.
    */
   public static ImmutableList<VersionedEntity> loadEntities(InputStream inputStream) {
-    return loadEntitiesByTransaction(inputStream).stream()
-        .flatMap(ImmutableList::stream)
-        .collect(toImmutableList());
+    try (Stream<VersionedEntity> entities = streamEntities(inputStream)) {
+      return entities.collect(toImmutableList());
+    }
   }
 
   /** Covenience method that adapts {@link #loadEntities(InputStream)} to a {@link File}. */
@@ -128,12 +134,74 @@ public final class CommitLogImports {
     return loadEntities(Channels.newInputStream(channel));
   }
 
-  private static void addIfNonempty(
-      ImmutableList.Builder<ImmutableList<VersionedEntity>> resultBuilder,
-      ImmutableList.Builder<VersionedEntity> currentTransactionBuilder) {
-    ImmutableList<VersionedEntity> currentTransaction = currentTransactionBuilder.build();
-    if (!currentTransaction.isEmpty()) {
-      resultBuilder.add(currentTransaction);
+  /**
+   * Iterator over the non-empty transactions in a CommitLog file.
+   *
+   * <p>The placeholder {@link AppEngineEnvironment} needed for deserialization is only installed
+   * for the duration of each {@link #computeNext} call, so that the iterator may be consumed on a
+   * thread other than the one that created it, and never leaks the environment if abandoned.
+   */
+  private static class TransactionIterator extends AbstractIterator<ImmutableList<VersionedEntity>>
+      implements Closeable {
+
+    private final InputStream input;
+    private PeekingIterator<ImmutableObject> commitLogs;
+
+    TransactionIterator(InputStream inputStream) {
+      this.input = new BufferedInputStream(inputStream);
+    }
+
+    @Override
+    protected ImmutableList<VersionedEntity> computeNext() {
+      try (AppEngineEnvironment appEngineEnvironment = new AppEngineEnvironment()) {
+        if (commitLogs == null) {
+          commitLogs = Iterators.peekingIterator(createDeserializingIterator(input));
+          checkState(commitLogs.hasNext());
+          checkState(commitLogs.next() instanceof CommitLogCheckpoint);
+        }
+        while (commitLogs.hasNext()) {
+          ImmutableList<VersionedEntity> transaction = readTransaction();
+          if (!transaction.isEmpty()) {
+            return transaction;
+          }
+        }
+      } catch (RuntimeException e) {
+        close();
+        throw e;
+      }
+      close();
+      return endOfData();
+    }
+
+    /** Reads one transaction, i.e. an optional manifest followed by any number of mutations. */
+    private ImmutableList<VersionedEntity> readTransaction() {
+      ImmutableList.Builder<VersionedEntity> transaction = new ImmutableList.Builder<>();
+      ImmutableObject currentObject = commitLogs.next();
+      while (true) {
+        if (currentObject instanceof CommitLogManifest) {
+          VersionedEntity.fromManifest((CommitLogManifest) currentObject)
+              .forEach(transaction::add);
+        } else if (currentObject instanceof CommitLogMutation) {
+          transaction.add(VersionedEntity.fromMutation((CommitLogMutation) currentObject));
+        } else {
+          throw new IllegalStateException(
+              String.format("Unknown entity type %s in commit logs", currentObject.getClass()));
+        }
+        // CommitLogManifest means we are starting a new transaction
+        if (!commitLogs.hasNext() || commitLogs.peek() instanceof CommitLogManifest) {
+          return transaction.build();
+        }
+        currentObject = commitLogs.next();
+      }
+    }
+
+    @Override
+    public void close() {
+      try {
+        input.close();
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
     }
   }
 }
@@ -35,8 +35,6 @@ import com.google.appengine.tools.cloudstorage.GcsFileOptions;
 import com.google.appengine.tools.cloudstorage.GcsFilename;
 import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.common.collect.ImmutableList;
-import com.google.common.collect.ImmutableSet;
-import com.google.common.collect.Streams;
 import com.google.common.flogger.FluentLogger;
 import com.googlecode.objectify.Key;
 import google.registry.config.RegistryConfig.Config;
@@ -152,13 +150,14 @@ public final class ExportCommitLogDiffAction implements Runnable {
     // transaction-consistent by virtue of our checkpoint strategy and our customized Ofy; see
     // CommitLogCheckpointStrategy for the proof. We break ties by sorting on bucket ID to ensure
     // a deterministic order.
-    return upperCheckpoint
-        .getBucketTimestamps()
-        .keySet()
-        .stream()
-        .flatMap(
-            bucketNum ->
-                Streams.stream(loadDiffKeysFromBucket(lowerCheckpoint, upperCheckpoint, bucketNum)))
+    //
+    // Start the (asynchronous) queries for every bucket before reading any of them.
+    ImmutableList<List<Key<CommitLogManifest>>> diffKeysByBucket =
+        upperCheckpoint.getBucketTimestamps().keySet().stream()
+            .map(bucketNum -> loadDiffKeysFromBucket(lowerCheckpoint, upperCheckpoint, bucketNum))
+            .collect(toImmutableList());
+    return diffKeysByBucket.stream()
+        .flatMap(List::stream)
         .sorted(
             comparingLong(Key<CommitLogManifest>::getId)
                 .thenComparingLong(a -> a.getParent().getId()))
@@ -166,13 +165,13 @@ public final class ExportCommitLogDiffAction implements Runnable {
   }
 
   /**
-   * Loads the diff keys for one bucket.
+   * Starts an asynchronous load of the diff keys for one bucket.
    *
    * @param lowerCheckpoint exclusive lower bound on keys in this diff, or null if no lower bound
    * @param upperCheckpoint inclusive upper bound on keys in this diff
    * @param bucketNum the bucket to load diff keys from
    */
-  private Iterable<Key<CommitLogManifest>> loadDiffKeysFromBucket(
+  private List<Key<CommitLogManifest>> loadDiffKeysFromBucket(
       @Nullable CommitLogCheckpoint lowerCheckpoint,
       CommitLogCheckpoint upperCheckpoint,
       int bucketNum) {
@@ -189,7 +188,7 @@ public final class ExportCommitLogDiffAction implements Runnable {
     DateTime upperBound = upperCheckpoint.getBucketTimestamps().get(bucketNum).plusMillis(1);
     // If the lower and upper bounds are equal, there can't be any results, so skip the query.
     if (lowerBound.equals(upperBound)) {
-      return ImmutableSet.of();
+      return ImmutableList.of();
     }
     Key<CommitLogBucket> bucketKey = getBucketKey(bucketNum);
     return ofy().load()
@@ -197,7 +196,8 @@ public final class ExportCommitLogDiffAction implements Runnable {
         .ancestor(bucketKey)
         .filterKey(">=", CommitLogManifest.createKey(bucketKey, lowerBound))
         .filterKey("<", CommitLogManifest.createKey(bucketKey, upperBound))
-        .keys();
+        .keys()
+        .list();
   }
 
   /** Writes a chunks-worth of manifests and associated mutations to GCS. */
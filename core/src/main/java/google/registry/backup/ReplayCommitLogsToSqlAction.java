@@ -14,6 +14,7 @@
 
 package google.registry.backup;
 
+import static com.google.common.util.concurrent.Futures.getUnchecked;
 import static google.registry.backup.ExportCommitLogDiffAction.DIFF_FILE_PREFIX;
 import static google.registry.model.ofy.EntityWritePriorities.getEntityPriority;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -27,6 +28,9 @@ import com.google.appengine.tools.cloudstorage.GcsFileMetadata;
 import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.ListeningExecutorService;
+import google.registry.backup.BackupModule.Backups;
 import google.registry.config.RegistryConfig;
 import google.registry.model.server.Lock;
 import google.registry.model.translators.VKeyTranslatorFactory;
@@ -42,9 +46,12 @@ import google.registry.util.RequestStatusChecker;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.channels.Channels;
+import java.util.ArrayDeque;
+import java.util.Deque;
 import java.util.Optional;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletResponse;
+import org.hibernate.Session;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
@@ -63,11 +70,16 @@ public class ReplayCommitLogsToSqlAction implements Runnable {
       1024 * 1024; // Buffer 1mb at a time, for no particular reason.
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final Duration LEASE_LENGTH = standardHours(1);
+  // Number of upcoming files to read and decode while the current one is being replayed.
+  private static final int FILES_TO_PREFETCH = 4;
+  // Maximum number of consecutive writes to the same table sent to SQL as one JDBC batch.
+  private static final int JDBC_BATCH_SIZE = 50;
 
   @Inject GcsService gcsService;
   @Inject Response response;
   @Inject RequestStatusChecker requestStatusChecker;
   @Inject GcsDiffFileLister diffLister;
+  @Inject @Backups ListeningExecutorService executor;
 
   @Inject
   ReplayCommitLogsToSqlAction() {}
@@ -110,32 +122,53 @@ public class ReplayCommitLogsToSqlAction implements Runnable {
     // will try later -- this is likely because an export hasn't finished yet.
     ImmutableList<GcsFileMetadata> commitLogFiles =
         diffLister.listDiffFiles(fromTime, /* current time */ null);
-    for (GcsFileMetadata metadata : commitLogFiles) {
-      // One transaction per GCS file
-      jpaTm().transact(() -> processFile(metadata));
+    // Read and decode upcoming files in the background while the current one is written to SQL.
+    // Files are still replayed strictly in order, one transaction per file, so that the checkpoint
+    // only ever advances past fully replayed files.
+    Deque<ListenableFuture<ImmutableList<ImmutableList<VersionedEntity>>>> prefetched =
+        new ArrayDeque<>();
+    int nextFileToPrefetch = 0;
+    try {
+      for (GcsFileMetadata metadata : commitLogFiles) {
+        while (nextFileToPrefetch < commitLogFiles.size()
+            && prefetched.size() < FILES_TO_PREFETCH) {
+          GcsFileMetadata upcoming = commitLogFiles.get(nextFileToPrefetch++);
+          prefetched.add(executor.submit(() -> loadFile(upcoming)));
+        }
+        ImmutableList<ImmutableList<VersionedEntity>> allTransactions =
+            getUnchecked(prefetched.remove());
+        // One transaction per GCS file
+        jpaTm().transact(() -> processFile(metadata, allTransactions));
+      }
+    } finally {
+      prefetched.forEach(future -> future.cancel(true));
     }
     logger.atInfo().log("Replayed %d commit log files to SQL successfully.", commitLogFiles.size());
   }
 
-  private void processFile(GcsFileMetadata metadata) {
+  private ImmutableList<ImmutableList<VersionedEntity>> loadFile(GcsFileMetadata metadata) {
     try (InputStream input =
         Channels.newInputStream(
             gcsService.openPrefetchingReadChannel(metadata.getFilename(), 0, BLOCK_SIZE))) {
-      // Load and process the Datastore transactions one at a time
-      ImmutableList<ImmutableList<VersionedEntity>> allTransactions =
-          CommitLogImports.loadEntitiesByTransaction(input);
-      allTransactions.forEach(this::replayTransaction);
-      // if we succeeded, set the last-seen time
-      DateTime checkpoint =
-          DateTime.parse(
-              metadata.getFilename().getObjectName().substring(DIFF_FILE_PREFIX.length()));
-      SqlReplayCheckpoint.set(checkpoint);
-      logger.atInfo().log("Replayed %d transactions from commit log file.", allTransactions.size());
+      return CommitLogImports.loadEntitiesByTransaction(input);
     } catch (IOException e) {
       throw new RuntimeException(e);
     }
   }
 
+  private void processFile(
+      GcsFileMetadata metadata, ImmutableList<ImmutableList<VersionedEntity>> allTransactions) {
+    // Only batch the replay's own writes, leaving other Cloud SQL transactions unaffected.
+    jpaTm().getEntityManager().unwrap(Session.class).setJdbcBatchSize(JDBC_BATCH_SIZE);
+    // Process the Datastore transactions one at a time
+    allTransactions.forEach(this::replayTransaction);
+    // if we succeeded, set the last-seen time
+    DateTime checkpoint =
+        DateTime.parse(metadata.getFilename().getObjectName().substring(DIFF_FILE_PREFIX.length()));
+    SqlReplayCheckpoint.set(checkpoint);
+    logger.atInfo().log("Replayed %d transactions from commit log file.", allTransactions.size());
+  }
+
   private void replayTransaction(ImmutableList<VersionedEntity> transaction) {
     transaction.stream()
         .sorted(ReplayCommitLogsToSqlAction::compareByWeight)
@@ -183,8 +216,16 @@ public class ReplayCommitLogsToSqlAction implements Runnable {
     }
   }
 
+  /**
+   * Orders entities by write priority, then groups entities of the same kind together.
+   *
+   * <p>The grouping doesn't affect correctness (entities of equal priority don't depend on each
+   * other), but it lets Hibernate send consecutive writes to the same table as one JDBC batch.
+   */
   private static int compareByWeight(VersionedEntity a, VersionedEntity b) {
-    return getEntityPriority(a.key().getKind(), !a.getEntity().isPresent())
-        - getEntityPriority(b.key().getKind(), !b.getEntity().isPresent());
+    int byPriority =
+        getEntityPriority(a.key().getKind(), !a.getEntity().isPresent())
+            - getEntityPriority(b.key().getKind(), !b.getEntity().isPresent());
+    return (byPriority != 0) ? byPriority : a.key().getKind().compareTo(b.key().getKind());
   }
 }
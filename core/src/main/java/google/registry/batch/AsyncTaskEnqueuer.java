@@ -15,14 +15,29 @@
 package google.registry.batch;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Suppliers.memoize;
+import static com.google.common.collect.ImmutableListMultimap.toImmutableListMultimap;
+import static com.google.common.collect.Lists.partition;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_CLAIMS;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_SUNRISE;
+import static google.registry.util.DateTimeUtils.earliestOf;
 import static google.registry.util.DateTimeUtils.isBeforeOrAt;
 
 import com.google.appengine.api.taskqueue.Queue;
+import com.google.appengine.api.taskqueue.TaskAlreadyExistsException;
 import com.google.appengine.api.taskqueue.TaskOptions;
 import com.google.appengine.api.taskqueue.TaskOptions.Method;
 import com.google.appengine.api.taskqueue.TransientFailureException;
 import com.google.common.base.Joiner;
+import com.google.common.base.Splitter;
+import com.google.common.base.Supplier;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableListMultimap;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.collect.Streams;
 import com.google.common.flogger.FluentLogger;
 import com.googlecode.objectify.Key;
 import google.registry.config.RegistryConfig.Config;
@@ -30,16 +45,31 @@ import google.registry.model.EppResource;
 import google.registry.model.ImmutableObject;
 import google.registry.model.eppcommon.Trid;
 import google.registry.model.host.HostResource;
+import google.registry.model.server.PendingTask;
 import google.registry.persistence.VKey;
 import google.registry.schema.domain.RegistryLock;
 import google.registry.util.AppEngineServiceUtils;
 import google.registry.util.Retrier;
+import google.registry.util.TaskQueueUtils;
+import java.util.List;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
-/** Helper class to enqueue tasks for handling asynchronous operations in flows. */
+/**
+ * Helper class to enqueue tasks for handling asynchronous operations in flows.
+ *
+ * <p>When the outbox is enabled, tasks that are due later are saved as {@link PendingTask}s in the
+ * caller's transaction and later added to their queues by {@link DispatchPendingTasksAction}. Each
+ * pending task is its own root entity, so every such task a flow enqueues adds one more entity
+ * group to that flow's transaction, and counts against Datastore's limit of 25 entity groups per
+ * cross-group transaction.
+ *
+ * <p>Tasks that are already due, such as DNS refreshes for renamed hosts, are always added to their
+ * queues directly. The dispatcher only runs once a minute, so routing them through the outbox would
+ * delay them by up to that long.
+ */
 public final class AsyncTaskEnqueuer {
 
   /** The HTTP parameter names used by async flows. */
@@ -61,11 +91,12 @@ public final class AsyncTaskEnqueuer {
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final Duration MAX_ASYNC_ETA = Duration.standardDays(30);
+  private static final String RESAVE_TASK_ID_PREFIX = "resave_";
 
   private final Duration asyncDeleteDelay;
+  private final boolean asyncTaskOutboxEnabled;
   private final Queue asyncActionsPushQueue;
-  private final Queue asyncDeletePullQueue;
-  private final Queue asyncDnsRefreshPullQueue;
+  private final ImmutableMap<String, Queue> queuesByName;
   private final AppEngineServiceUtils appEngineServiceUtils;
   private final Retrier retrier;
 
@@ -74,13 +105,22 @@ public final class AsyncTaskEnqueuer {
       @Named(QUEUE_ASYNC_ACTIONS) Queue asyncActionsPushQueue,
       @Named(QUEUE_ASYNC_DELETE) Queue asyncDeletePullQueue,
       @Named(QUEUE_ASYNC_HOST_RENAME) Queue asyncDnsRefreshPullQueue,
+      @Named(QUEUE_SUNRISE) Queue lordnSunrisePullQueue,
+      @Named(QUEUE_CLAIMS) Queue lordnClaimsPullQueue,
       @Config("asyncDeleteFlowMapreduceDelay") Duration asyncDeleteDelay,
+      @Config("asyncTaskOutboxEnabled") boolean asyncTaskOutboxEnabled,
       AppEngineServiceUtils appEngineServiceUtils,
       Retrier retrier) {
     this.asyncActionsPushQueue = asyncActionsPushQueue;
-    this.asyncDeletePullQueue = asyncDeletePullQueue;
-    this.asyncDnsRefreshPullQueue = asyncDnsRefreshPullQueue;
+    this.queuesByName =
+        ImmutableMap.of(
+            QUEUE_ASYNC_ACTIONS, asyncActionsPushQueue,
+            QUEUE_ASYNC_DELETE, asyncDeletePullQueue,
+            QUEUE_ASYNC_HOST_RENAME, asyncDnsRefreshPullQueue,
+            QUEUE_SUNRISE, lordnSunrisePullQueue,
+            QUEUE_CLAIMS, lordnClaimsPullQueue);
     this.asyncDeleteDelay = asyncDeleteDelay;
+    this.asyncTaskOutboxEnabled = asyncTaskOutboxEnabled;
     this.appEngineServiceUtils = appEngineServiceUtils;
     this.retrier = retrier;
   }
@@ -110,18 +150,74 @@ public final class AsyncTaskEnqueuer {
       return;
     }
     logger.atInfo().log("Enqueuing async re-save of %s to run at %s.", entityKey, whenToResave);
-    String backendHostname = appEngineServiceUtils.getServiceHostname("backend");
-    TaskOptions task =
-        TaskOptions.Builder.withUrl(PATH_RESAVE_ENTITY)
-            .method(Method.POST)
-            .header("Host", backendHostname)
-            .countdownMillis(etaDuration.getMillis())
-            .param(PARAM_RESOURCE_KEY, entityKey.getString())
-            .param(PARAM_REQUESTED_TIME, now.toString());
+    if (useOutbox(firstResave, now)) {
+      saveResaveTask(entityKey, now, whenToResave);
+    } else {
+      enqueue(createResaveTask(entityKey, now, whenToResave), now);
+    }
+  }
+
+  /**
+   * Saves a pending re-save task, merged with any re-save task for the same entity that's still
+   * pending so that the entity is only re-saved once at each distinct time.
+   */
+  private void saveResaveTask(
+      Key<ImmutableObject> entityKey, DateTime now, ImmutableSortedSet<DateTime> whenToResave) {
+    tm().transact(
+            () -> {
+              PendingTask existingTask =
+                  ofy()
+                      .load()
+                      .key(PendingTask.createKey(RESAVE_TASK_ID_PREFIX + entityKey.getString()))
+                      .now();
+              PendingTask newTask =
+                  (existingTask == null)
+                      ? createResaveTask(entityKey, now, whenToResave)
+                      : createResaveTask(
+                          entityKey,
+                          earliestOf(
+                              now,
+                              DateTime.parse(existingTask.getParams().get(PARAM_REQUESTED_TIME))),
+                          ImmutableSortedSet.<DateTime>naturalOrder()
+                              .addAll(whenToResave)
+                              .addAll(getResaveTimes(existingTask))
+                              .build());
+              ofy().saveWithoutBackup().entity(newTask);
+            });
+  }
+
+  private static PendingTask createResaveTask(
+      Key<ImmutableObject> entityKey,
+      DateTime requestedTime,
+      ImmutableSortedSet<DateTime> whenToResave) {
+    DateTime firstResave = whenToResave.first();
+    ImmutableMap.Builder<String, String> params =
+        new ImmutableMap.Builder<String, String>()
+            .put(PARAM_RESOURCE_KEY, entityKey.getString())
+            .put(PARAM_REQUESTED_TIME, requestedTime.toString());
     if (whenToResave.size() > 1) {
-      task.param(PARAM_RESAVE_TIMES, Joiner.on(',').join(whenToResave.tailSet(firstResave, false)));
+      params.put(
+          PARAM_RESAVE_TIMES, Joiner.on(',').join(whenToResave.tailSet(firstResave, false)));
+    }
+    return PendingTask.create(
+        RESAVE_TASK_ID_PREFIX + entityKey.getString(),
+        QUEUE_ASYNC_ACTIONS,
+        PATH_RESAVE_ENTITY,
+        firstResave,
+        params.build());
+  }
+
+  /** Returns all the re-save times of a pending re-save task. */
+  private static ImmutableSortedSet<DateTime> getResaveTimes(PendingTask task) {
+    ImmutableSortedSet.Builder<DateTime> resaveTimes =
+        ImmutableSortedSet.<DateTime>naturalOrder().add(task.getEta());
+    String laterResaveTimes = task.getParams().get(PARAM_RESAVE_TIMES);
+    if (laterResaveTimes != null) {
+      Splitter.on(',')
+          .split(laterResaveTimes)
+          .forEach(resaveTime -> resaveTimes.add(DateTime.parse(resaveTime)));
     }
-    addTaskToQueueWithRetry(asyncActionsPushQueue, task);
+    return resaveTimes.build();
   }
 
   /** Enqueues a task to asynchronously delete a contact or host, by key. */
@@ -135,28 +231,49 @@ public final class AsyncTaskEnqueuer {
     logger.atInfo().log(
         "Enqueuing async deletion of %s on behalf of registrar %s.",
         resourceKey, requestingClientId);
-    TaskOptions task =
-        TaskOptions.Builder.withMethod(Method.PULL)
-            .countdownMillis(asyncDeleteDelay.getMillis())
-            .param(PARAM_RESOURCE_KEY, resourceKey.getString())
-            .param(PARAM_REQUESTING_CLIENT_ID, requestingClientId)
-            .param(PARAM_SERVER_TRANSACTION_ID, trid.getServerTransactionId())
-            .param(PARAM_IS_SUPERUSER, Boolean.toString(isSuperuser))
-            .param(PARAM_REQUESTED_TIME, now.toString());
+    ImmutableMap.Builder<String, String> params =
+        new ImmutableMap.Builder<String, String>()
+            .put(PARAM_RESOURCE_KEY, resourceKey.getString())
+            .put(PARAM_REQUESTING_CLIENT_ID, requestingClientId)
+            .put(PARAM_SERVER_TRANSACTION_ID, trid.getServerTransactionId())
+            .put(PARAM_IS_SUPERUSER, Boolean.toString(isSuperuser))
+            .put(PARAM_REQUESTED_TIME, now.toString());
     trid.getClientTransactionId()
-        .ifPresent(clTrid -> task.param(PARAM_CLIENT_TRANSACTION_ID, clTrid));
-    addTaskToQueueWithRetry(asyncDeletePullQueue, task);
+        .ifPresent(clTrid -> params.put(PARAM_CLIENT_TRANSACTION_ID, clTrid));
+    enqueue(
+        PendingTask.create(QUEUE_ASYNC_DELETE, null, now.plus(asyncDeleteDelay), params.build()),
+        now);
   }
 
   /** Enqueues a task to asynchronously refresh DNS for a renamed host. */
   public void enqueueAsyncDnsRefresh(HostResource host, DateTime now) {
     VKey<HostResource> hostKey = host.createVKey();
     logger.atInfo().log("Enqueuing async DNS refresh for renamed host %s.", hostKey);
-    addTaskToQueueWithRetry(
-        asyncDnsRefreshPullQueue,
-        TaskOptions.Builder.withMethod(Method.PULL)
-            .param(PARAM_HOST_KEY, hostKey.getOfyKey().getString())
-            .param(PARAM_REQUESTED_TIME, now.toString()));
+    enqueue(
+        PendingTask.create(
+            QUEUE_ASYNC_HOST_RENAME,
+            null,
+            now,
+            ImmutableMap.of(
+                PARAM_HOST_KEY,
+                hostKey.getOfyKey().getString(),
+                PARAM_REQUESTED_TIME,
+                now.toString())),
+        now);
+  }
+
+  /**
+   * Enqueues a pull task in one of the LORDN queues, carrying a line of CSV to upload for the given
+   * TLD.
+   *
+   * @see google.registry.tmch.LordnTaskUtils#enqueueDomainBaseTask
+   */
+  public void enqueueLordnTask(String queueName, String tld, String csvLine, DateTime now) {
+    checkArgument(
+        queueName.equals(QUEUE_SUNRISE) || queueName.equals(QUEUE_CLAIMS),
+        "Not a LORDN queue: %s",
+        queueName);
+    enqueue(PendingTask.createPullTask(queueName, tld, csvLine, now), now);
   }
 
   /**
@@ -185,6 +302,86 @@ public final class AsyncTaskEnqueuer {
             .countdownMillis(countdown.getMillis()));
   }
 
+  /**
+   * Adds pending tasks to their queues, using one task queue API call per queue for each batch of
+   * tasks.
+   *
+   * <p>Each task is named after its pending task, so tasks that were already added by an earlier
+   * attempt are skipped.
+   */
+  void addToQueues(Iterable<PendingTask> pendingTasks, DateTime now) {
+    Supplier<String> backendHostname = memoize(this::getBackendHostname);
+    ImmutableListMultimap<String, TaskOptions> tasksByQueue =
+        Streams.stream(pendingTasks)
+            .collect(
+                toImmutableListMultimap(
+                    PendingTask::getQueueName,
+                    pendingTask ->
+                        toTaskOptions(pendingTask, backendHostname, now)
+                            .taskName(pendingTask.getTaskName())));
+    tasksByQueue
+        .asMap()
+        .forEach(
+            (queueName, tasks) -> {
+              Queue queue = queuesByName.get(queueName);
+              checkArgument(queue != null, "Unknown async task queue %s", queueName);
+              for (List<TaskOptions> batch :
+                  partition(ImmutableList.copyOf(tasks), TaskQueueUtils.getBatchSize())) {
+                try {
+                  retrier.callWithRetry(() -> queue.add(batch), TransientFailureException.class);
+                } catch (TaskAlreadyExistsException e) {
+                  // The other tasks in the batch are still added.
+                  logger.atInfo().withCause(e).log(
+                      "Some tasks were already in queue %s.", queueName);
+                }
+              }
+            });
+  }
+
+  /**
+   * Whether a task due at the given time is saved as a {@link PendingTask} rather than added to
+   * its queue directly.
+   */
+  private boolean useOutbox(DateTime eta, DateTime now) {
+    // Cloud SQL has no outbox table yet, so keep enqueuing tasks directly there.
+    return asyncTaskOutboxEnabled && tm().isOfy() && eta.isAfter(now);
+  }
+
+  /**
+   * Saves a pending task to the outbox, or adds it to its queue right away if it's already due or
+   * the outbox is disabled.
+   */
+  private void enqueue(PendingTask pendingTask, DateTime now) {
+    if (useOutbox(pendingTask.getEta(), now)) {
+      tm().transact(() -> ofy().saveWithoutBackup().entity(pendingTask));
+    } else {
+      addTaskToQueueWithRetry(
+          queuesByName.get(pendingTask.getQueueName()),
+          toTaskOptions(pendingTask, this::getBackendHostname, now));
+    }
+  }
+
+  private String getBackendHostname() {
+    return appEngineServiceUtils.getServiceHostname("backend");
+  }
+
+  private static TaskOptions toTaskOptions(
+      PendingTask pendingTask, Supplier<String> backendHostname, DateTime now) {
+    TaskOptions task =
+        pendingTask.getPath().isPresent()
+            ? TaskOptions.Builder.withUrl(pendingTask.getPath().get())
+                .method(Method.POST)
+                .header("Host", backendHostname.get())
+            : TaskOptions.Builder.withMethod(Method.PULL);
+    if (pendingTask.getEta().isAfter(now)) {
+      task.countdownMillis(new Duration(now, pendingTask.getEta()).getMillis());
+    }
+    pendingTask.getParams().forEach(task::param);
+    pendingTask.getTag().ifPresent(task::tag);
+    pendingTask.getPayload().ifPresent(task::payload);
+    return task;
+  }
+
   /**
    * Adds a task to a queue with retrying, to avoid aborting the entire flow over a transient issue
    * enqueuing a task.
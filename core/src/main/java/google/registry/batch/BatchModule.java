@@ -29,6 +29,8 @@ import static google.registry.request.RequestParameters.extractOptionalParameter
 import static google.registry.request.RequestParameters.extractRequiredDatetimeParameter;
 import static google.registry.request.RequestParameters.extractRequiredParameter;
 import static google.registry.request.RequestParameters.extractSetOfDatetimeParameters;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_CLAIMS;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_SUNRISE;
 
 import com.google.appengine.api.taskqueue.Queue;
 import com.google.common.collect.ImmutableSet;
@@ -123,4 +125,16 @@ public class BatchModule {
   static Queue provideAsyncHostRenamePullQueue() {
     return getQueue(QUEUE_ASYNC_HOST_RENAME);
   }
+
+  @Provides
+  @Named(QUEUE_SUNRISE)
+  static Queue provideLordnSunrisePullQueue() {
+    return getQueue(QUEUE_SUNRISE);
+  }
+
+  @Provides
+  @Named(QUEUE_CLAIMS)
+  static Queue provideLordnClaimsPullQueue() {
+    return getQueue(QUEUE_CLAIMS);
+  }
 }
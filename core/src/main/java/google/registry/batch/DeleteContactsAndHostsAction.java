@@ -28,6 +28,7 @@ import static google.registry.batch.AsyncTaskEnqueuer.PARAM_REQUESTING_CLIENT_ID
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_RESOURCE_KEY;
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_SERVER_TRANSACTION_ID;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_DELETE;
+import static google.registry.model.EppResourceUtils.getLinkedDomainKeys;
 import static google.registry.model.EppResourceUtils.isActive;
 import static google.registry.model.EppResourceUtils.isDeleted;
 import static google.registry.model.ResourceTransferUtils.denyPendingTransfer;
@@ -56,9 +57,11 @@ import com.google.appengine.tools.mapreduce.Mapper;
 import com.google.appengine.tools.mapreduce.Reducer;
 import com.google.appengine.tools.mapreduce.ReducerInput;
 import com.google.auto.value.AutoValue;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.HashMultiset;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Iterators;
 import com.google.common.collect.Multiset;
 import com.google.common.flogger.FluentLogger;
@@ -106,8 +109,11 @@ import org.joda.time.DateTime;
 import org.joda.time.Duration;
 
 /**
- * A mapreduce that processes batch asynchronous deletions of contact and host resources by mapping
- * over all domains and checking for any references to the contacts/hosts in pending deletion.
+ * An action that processes batch asynchronous deletions of contact and host resources.
+ *
+ * <p>References to the contacts/hosts in pending deletion are first looked up using the indexes on
+ * domains. Deletions that can't be settled that way are handled by a mapreduce that maps over all
+ * domains and checks for any references to the contacts/hosts in pending deletion.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -122,6 +128,7 @@ public class DeleteContactsAndHostsAction implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final int MAX_REDUCE_SHARDS = 50;
   private static final int DELETES_PER_SHARD = 5;
+  @VisibleForTesting static final int INDEXED_LOOKUP_LIMIT = 5;
 
   @Inject AsyncTaskMetrics asyncTaskMetrics;
   @Inject Clock clock;
@@ -192,8 +199,80 @@ public class DeleteContactsAndHostsAction implements Runnable {
       logger.atInfo().log(
           "Processing asynchronous deletion of %d contacts and %d hosts: %s",
           kindCounts.count(KIND_CONTACT), kindCounts.count(KIND_HOST), resourceKeys.build());
-      runMapreduce(deletionRequests, lock);
+      ImmutableList<DeletionRequest> requestsNeedingScan =
+          processWithIndexedLookups(deletionRequests);
+      if (requestsNeedingScan.isEmpty()) {
+        logRespondAndUnlock(
+            INFO, "Processed all async deletions using indexed reference lookups.", lock);
+      } else {
+        runMapreduce(requestsNeedingScan, lock);
+      }
+    }
+  }
+
+  /**
+   * Processes the deletion requests that can be settled by looking up referencing domains by index,
+   * and returns the rest, which need a scan over all domains.
+   *
+   * <p>A referencing domain found by the lookup is loaded and checked before being trusted, so a
+   * resource found to be referenced is unmarked for deletion right away. Finding no reference is
+   * never enough to delete a resource, though: Datastore queries are only eventually consistent,
+   * and the lookup may have been cut short by {@link #INDEXED_LOOKUP_LIMIT}. This action and its
+   * mapreduce only run against Datastore, so those resources are always left to the scan.
+   */
+  private ImmutableList<DeletionRequest> processWithIndexedLookups(
+      ImmutableList<DeletionRequest> deletionRequests) {
+    ImmutableList.Builder<DeletionRequest> requestsNeedingScan = new ImmutableList.Builder<>();
+    for (DeletionRequest deletionRequest : deletionRequests) {
+      ReferenceLookupResult result =
+          lookUpActiveReferences(deletionRequest.key(), deletionRequest.lastUpdateTime());
+      if (result == ReferenceLookupResult.REFERENCED) {
+        DeleteEppResourceReducer.processDeletionRequest(deletionRequest, false);
+      } else {
+        requestsNeedingScan.add(deletionRequest);
+      }
     }
+    return requestsNeedingScan.build();
+  }
+
+  /** The result of looking up the active domains that reference a contact or host by index. */
+  enum ReferenceLookupResult {
+    /** An active domain that references the resource was found. */
+    REFERENCED,
+
+    /** All of the domains that the index links to the resource were checked, and none were. */
+    UNREFERENCED,
+
+    /** No active referencing domain was found, but the lookup hit its limit before checking all. */
+    INCONCLUSIVE
+  }
+
+  /**
+   * Looks up whether the resource with the given key is referenced by a domain that was active at
+   * the given time, checking at most {@link #INDEXED_LOOKUP_LIMIT} of the domains linked to it.
+   */
+  @VisibleForTesting
+  static ReferenceLookupResult lookUpActiveReferences(
+      Key<? extends EppResource> resourceKey, DateTime lastUpdateTime) {
+    return tm().doTransactionless(
+            () -> {
+              ImmutableSet<VKey<DomainBase>> domainKeys =
+                  getLinkedDomainKeys(
+                      VKey.from(resourceKey), lastUpdateTime, INDEXED_LOOKUP_LIMIT);
+              boolean isReferenced =
+                  tm().loadByKeys(domainKeys).values().stream()
+                      .anyMatch(
+                          domain ->
+                              isActive(domain, lastUpdateTime)
+                                  && DeleteContactsAndHostsMapper.isLinked(domain, resourceKey));
+              if (isReferenced) {
+                return ReferenceLookupResult.REFERENCED;
+              }
+              // Other linked domains may exist beyond the limit, and any of them might be active.
+              return (domainKeys.size() >= INDEXED_LOOKUP_LIMIT)
+                  ? ReferenceLookupResult.INCONCLUSIVE
+                  : ReferenceLookupResult.UNREFERENCED;
+            });
   }
 
   /**
@@ -281,7 +360,7 @@ public class DeleteContactsAndHostsAction implements Runnable {
     }
 
     /** Determine whether the target resource is a linked resource on the domain. */
-    private boolean isLinked(DomainBase domain, Key<? extends EppResource> resourceKey) {
+    static boolean isLinked(DomainBase domain, Key<? extends EppResource> resourceKey) {
       if (resourceKey.getKind().equals(KIND_CONTACT)) {
         return domain
             .getReferencedContacts()
@@ -310,6 +389,17 @@ public class DeleteContactsAndHostsAction implements Runnable {
     @Override
     public void reduce(final DeletionRequest deletionRequest, ReducerInput<Boolean> values) {
       final boolean hasNoActiveReferences = !Iterators.contains(values, true);
+      DeletionResult result = processDeletionRequest(deletionRequest, hasNoActiveReferences);
+      String resourceNamePlural = deletionRequest.key().getKind() + "s";
+      getContext().incrementCounter(result.type().renderCounterText(resourceNamePlural));
+    }
+
+    /**
+     * Deletes the resource if it has no active references, or unmarks it for deletion otherwise,
+     * and removes the deletion request from the queue.
+     */
+    static DeletionResult processDeletionRequest(
+        DeletionRequest deletionRequest, boolean hasNoActiveReferences) {
       logger.atInfo().log("Processing async deletion request for %s", deletionRequest.key());
       DeletionResult result =
           tm()
@@ -324,14 +414,13 @@ public class DeleteContactsAndHostsAction implements Runnable {
           deletionRequest.getMetricOperationType(),
           result.getMetricOperationResult(),
           deletionRequest.requestedTime());
-      String resourceNamePlural = deletionRequest.key().getKind() + "s";
-      getContext().incrementCounter(result.type().renderCounterText(resourceNamePlural));
       logger.atInfo().log(
           "Result of async deletion for resource %s: %s",
           deletionRequest.key(), result.pollMessageText());
+      return result;
     }
 
-    private DeletionResult attemptToDeleteResource(
+    private static DeletionResult attemptToDeleteResource(
         DeletionRequest deletionRequest, boolean hasNoActiveReferences) {
       DateTime now = tm().getTransactionTime();
       EppResource resource =
@@ -438,7 +527,8 @@ public class DeleteContactsAndHostsAction implements Runnable {
      * Determine the proper history entry type for the delete operation, as a function of
      * whether or not the delete was successful.
      */
-    private HistoryEntry.Type getHistoryEntryType(EppResource resource, boolean successfulDelete) {
+    private static HistoryEntry.Type getHistoryEntryType(
+        EppResource resource, boolean successfulDelete) {
       if (resource instanceof ContactResource) {
         return successfulDelete ? CONTACT_DELETE : CONTACT_DELETE_FAILURE;
       } else if (resource instanceof HostResource) {
@@ -449,7 +539,7 @@ public class DeleteContactsAndHostsAction implements Runnable {
     }
 
     /** Perform any type-specific tasks on the resource to be deleted (and/or its dependencies). */
-    private void performDeleteTasks(
+    private static void performDeleteTasks(
         EppResource existingResource,
         EppResource deletedResource,
         DateTime deletionTime,
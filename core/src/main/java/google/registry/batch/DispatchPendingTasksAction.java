@@ -0,0 +1,121 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.batch;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.Lists.partition;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.Iterators;
+import com.google.common.flogger.FluentLogger;
+import com.googlecode.objectify.Key;
+import google.registry.model.server.PendingTask;
+import google.registry.request.Action;
+import google.registry.request.auth.Auth;
+import google.registry.util.Clock;
+import google.registry.util.TaskQueueUtils;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import javax.inject.Inject;
+import org.joda.time.DateTime;
+import org.joda.time.Duration;
+
+/**
+ * Action that adds the {@link PendingTask}s saved by flows to their task queues.
+ *
+ * <p>Tasks are dispatched shortly before they are due, in batches of the largest size the task
+ * queue API accepts. A pending task is only deleted once its task has been added, and only if it
+ * wasn't replaced in the meantime; since each task is named after the version of the pending task
+ * it came from, dispatching the same version again (e.g. after a failure) is a no-op.
+ *
+ * <p>This action's supported method is GET rather than POST because it gets invoked via cron.
+ */
+@Action(
+    service = Action.Service.BACKEND,
+    path = "/_dr/cron/dispatchPendingTasks",
+    method = Action.Method.GET,
+    automaticallyPrintOk = true,
+    auth = Auth.AUTH_INTERNAL_OR_ADMIN)
+public final class DispatchPendingTasksAction implements Runnable {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /**
+   * How far ahead of their ETA tasks are dispatched.
+   *
+   * <p>This should be longer than the interval between runs of this action, so that tasks are
+   * added to their queues before they are due and then run on time.
+   */
+  private static final Duration DISPATCH_HORIZON = Duration.standardMinutes(2);
+
+  /** The maximum number of entity groups that a Datastore transaction can touch. */
+  private static final int MAX_ENTITY_GROUPS_PER_TRANSACTION = 25;
+
+  @Inject AsyncTaskEnqueuer asyncTaskEnqueuer;
+  @Inject Clock clock;
+  @Inject DispatchPendingTasksAction() {}
+
+  @Override
+  public void run() {
+    DateTime now = clock.nowUtc();
+    // This query is eventually consistent, so it may miss recently saved tasks (which are then
+    // picked up by the next run) or return recently deleted ones (which are skipped when loaded).
+    Iterator<Key<PendingTask>> keys =
+        ofy()
+            .load()
+            .type(PendingTask.class)
+            .filter("eta <=", now.plus(DISPATCH_HORIZON))
+            .keys()
+            .iterator();
+    int dispatched = 0;
+    Iterator<List<Key<PendingTask>>> batches =
+        Iterators.partition(keys, TaskQueueUtils.getBatchSize());
+    while (batches.hasNext()) {
+      ImmutableList<PendingTask> pendingTasks =
+          ImmutableList.copyOf(ofy().load().keys(batches.next()).values());
+      asyncTaskEnqueuer.addToQueues(pendingTasks, now);
+      partition(pendingTasks, MAX_ENTITY_GROUPS_PER_TRANSACTION)
+          .forEach(DispatchPendingTasksAction::deleteDispatchedTasks);
+      dispatched += pendingTasks.size();
+      ofy().clearSessionCache();
+    }
+    logger.atInfo().log("Dispatched %d pending tasks.", dispatched);
+  }
+
+  /** Deletes pending tasks that have been dispatched, unless they were replaced since. */
+  private static void deleteDispatchedTasks(List<PendingTask> dispatchedTasks) {
+    tm().transact(
+            () -> {
+              Map<Key<PendingTask>, PendingTask> currentTasks =
+                  ofy()
+                      .load()
+                      .keys(dispatchedTasks.stream().map(Key::create).collect(toImmutableList()));
+              ofy()
+                  .deleteWithoutBackup()
+                  .entities(
+                      dispatchedTasks.stream()
+                          .filter(
+                              task -> {
+                                PendingTask currentTask = currentTasks.get(Key.create(task));
+                                return currentTask != null
+                                    && currentTask.getTaskName().equals(task.getTaskName());
+                              })
+                          .collect(toImmutableList()));
+            });
+  }
+}
@@ -0,0 +1,313 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.batch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static google.registry.model.index.EppResourceIndexBucket.getAllBuckets;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+
+import com.google.appengine.api.datastore.Cursor;
+import com.google.appengine.api.datastore.QueryResultIterator;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
+import com.google.common.collect.Streams;
+import com.google.common.flogger.FluentLogger;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.cmd.Query;
+import google.registry.model.EppResource;
+import google.registry.model.contact.ContactResource;
+import google.registry.model.domain.DomainBase;
+import google.registry.model.host.HostResource;
+import google.registry.model.index.EppResourceIndex;
+import google.registry.model.index.EppResourceIndexBucket;
+import google.registry.persistence.VKey;
+import google.registry.util.Concurrent;
+import java.util.Iterator;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.persistence.TypedQuery;
+
+/**
+ * Scans EPP resources in parallel within a single request, without the App Engine mapreduce
+ * framework.
+ *
+ * <p>The resources are split into key-range partitions which are processed concurrently, each on
+ * its own thread, in batches of keys:
+ *
+ * <ul>
+ *   <li>In Datastore, each {@link EppResourceIndexBucket} is a partition, so the work is spread the
+ *       same way as with {@link google.registry.mapreduce.inputs.EppResourceInputs}.
+ *   <li>In Cloud SQL, each resource table is split into contiguous ranges of repo IDs of roughly
+ *       equal size, which are then paged through in primary key order.
+ * </ul>
+ *
+ * <p>This is meant for jobs that are small enough to finish within a request, for which the startup
+ * cost and shard skew of a mapreduce dominate. When no App Engine thread factory is available (e.g.
+ * in tests and tools) the partitions are processed sequentially on the calling thread.
+ */
+public class EppResourceScanner {
+
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  private static final int DEFAULT_THREAD_COUNT = 10;
+  private static final int DEFAULT_BATCH_SIZE = 100;
+
+  private static final ImmutableSet<Class<? extends EppResource>> ALL_RESOURCE_CLASSES =
+      ImmutableSet.of(ContactResource.class, DomainBase.class, HostResource.class);
+
+  private int threadCount = DEFAULT_THREAD_COUNT;
+  private int batchSize = DEFAULT_BATCH_SIZE;
+
+  @Inject
+  EppResourceScanner() {}
+
+  /** Sets the maximum number of partitions to process concurrently. */
+  public EppResourceScanner setThreadCount(int threadCount) {
+    checkArgument(threadCount > 0, "Thread count must be positive");
+    this.threadCount = threadCount;
+    return this;
+  }
+
+  /** Sets the maximum number of keys passed to the processor at once. */
+  public EppResourceScanner setBatchSize(int batchSize) {
+    checkArgument(batchSize > 0, "Batch size must be positive");
+    this.batchSize = batchSize;
+    return this;
+  }
+
+  /**
+   * Passes the keys of all resources of the given types to {@code processor} in batches, and
+   * returns the number of keys processed.
+   *
+   * <p>Passing {@code EppResource.class} scans resources of every type. The processor may be called
+   * concurrently from several threads, and is responsible for its own transactions. If it throws,
+   * the scan is aborted and the exception is rethrown once the running partitions finish.
+   */
+  public long scan(
+      ImmutableSet<Class<? extends EppResource>> resourceClasses,
+      Consumer<ImmutableList<VKey<? extends EppResource>>> processor) {
+    ImmutableSet<Class<? extends EppResource>> classesToScan =
+        resourceClasses.contains(EppResource.class) ? ALL_RESOURCE_CLASSES : resourceClasses;
+    ImmutableList<Supplier<Iterator<VKey<? extends EppResource>>>> partitions =
+        tm().isOfy() ? getDatastorePartitions(classesToScan) : getSqlPartitions(classesToScan);
+    logger.atInfo().log(
+        "Scanning %s in %d partitions with %d threads.",
+        classesToScan, partitions.size(), threadCount);
+    return Concurrent.transform(
+            partitions, threadCount, partition -> processPartition(partition.get(), processor))
+        .stream()
+        .mapToLong(Long::longValue)
+        .sum();
+  }
+
+  private long processPartition(
+      Iterator<VKey<? extends EppResource>> keys,
+      Consumer<ImmutableList<VKey<? extends EppResource>>> processor) {
+    long count = 0;
+    Iterator<List<VKey<? extends EppResource>>> batches = Iterators.partition(keys, batchSize);
+    while (batches.hasNext()) {
+      ImmutableList<VKey<? extends EppResource>> batch = ImmutableList.copyOf(batches.next());
+      processor.accept(batch);
+      count += batch.size();
+    }
+    return count;
+  }
+
+  /** Returns one partition per {@link EppResourceIndexBucket}. */
+  private ImmutableList<Supplier<Iterator<VKey<? extends EppResource>>>> getDatastorePartitions(
+      ImmutableSet<Class<? extends EppResource>> resourceClasses) {
+    ImmutableSet<String> kinds =
+        resourceClasses.stream().map(Key::getKind).collect(toImmutableSet());
+    return Streams.stream(getAllBuckets())
+        .map(
+            bucket ->
+                (Supplier<Iterator<VKey<? extends EppResource>>>)
+                    () -> new DatastoreBucketIterator(bucket, kinds))
+        .collect(toImmutableList());
+  }
+
+  /** Returns up to {@link #threadCount} repo ID ranges per resource table. */
+  private ImmutableList<Supplier<Iterator<VKey<? extends EppResource>>>> getSqlPartitions(
+      ImmutableSet<Class<? extends EppResource>> resourceClasses) {
+    ImmutableList.Builder<Supplier<Iterator<VKey<? extends EppResource>>>> partitions =
+        new ImmutableList.Builder<>();
+    for (Class<? extends EppResource> resourceClass : resourceClasses) {
+      String entityName =
+          jpaTm()
+              .transact(
+                  () -> jpaTm().getEntityManager().getMetamodel().entity(resourceClass).getName());
+      ImmutableList<String> splitPoints = getSqlSplitPoints(entityName);
+      for (int i = 0; i <= splitPoints.size(); i++) {
+        String start = (i == 0) ? null : splitPoints.get(i - 1);
+        String end = (i == splitPoints.size()) ? null : splitPoints.get(i);
+        partitions.add(() -> new SqlRangeIterator(resourceClass, entityName, start, end));
+      }
+    }
+    return partitions.build();
+  }
+
+  /**
+   * Returns the repo IDs that split the given table into ranges of roughly equal size.
+   *
+   * <p>Tables too small to fill a batch per thread are split into fewer ranges.
+   */
+  private ImmutableList<String> getSqlSplitPoints(String entityName) {
+    return jpaTm()
+        .transact(
+            () -> {
+              long count =
+                  jpaTm()
+                      .getEntityManager()
+                      .createQuery("SELECT COUNT(*) FROM " + entityName, Long.class)
+                      .getSingleResult();
+              long numRanges = Math.max(1, Math.min(threadCount, count / batchSize));
+              ImmutableList.Builder<String> splitPoints = new ImmutableList.Builder<>();
+              for (long i = 1; i < numRanges; i++) {
+                splitPoints.add(
+                    jpaTm()
+                        .getEntityManager()
+                        .createQuery(
+                            "SELECT repoId FROM " + entityName + " ORDER BY repoId", String.class)
+                        .setFirstResult((int) (i * count / numRanges))
+                        .setMaxResults(1)
+                        .getSingleResult());
+              }
+              return splitPoints.build();
+            });
+  }
+
+  /**
+   * Pages through the keys in an {@link EppResourceIndexBucket}, using a cursor to start each page.
+   *
+   * <p>Each page is read by its own query, so that no one query has to stay open for as long as it
+   * takes to process the whole bucket, which could exceed the Datastore query deadline.
+   */
+  private class DatastoreBucketIterator extends AbstractIterator<VKey<? extends EppResource>> {
+
+    private final Key<EppResourceIndexBucket> bucket;
+    private final ImmutableSet<String> kinds;
+
+    @Nullable private Cursor cursor;
+    private Iterator<VKey<? extends EppResource>> page = Iterators.emptyIterator();
+    private boolean isLastPage;
+
+    DatastoreBucketIterator(Key<EppResourceIndexBucket> bucket, ImmutableSet<String> kinds) {
+      this.bucket = bucket;
+      this.kinds = kinds;
+    }
+
+    @Override
+    protected VKey<? extends EppResource> computeNext() {
+      if (!page.hasNext() && !isLastPage) {
+        ImmutableList<VKey<? extends EppResource>> keys = loadNextPage();
+        isLastPage = keys.size() < batchSize;
+        page = keys.iterator();
+      }
+      return page.hasNext() ? page.next() : endOfData();
+    }
+
+    private ImmutableList<VKey<? extends EppResource>> loadNextPage() {
+      Query<EppResourceIndex> query =
+          ofy()
+              .load()
+              .type(EppResourceIndex.class)
+              .ancestor(bucket)
+              .filter("kind in", kinds)
+              .limit(batchSize);
+      QueryResultIterator<EppResourceIndex> results =
+          ((cursor == null) ? query : query.startAt(cursor)).iterator();
+      ImmutableList.Builder<VKey<? extends EppResource>> keys = new ImmutableList.Builder<>();
+      while (results.hasNext()) {
+        keys.add(VKey.from(results.next().getKey()));
+      }
+      cursor = results.getCursor();
+      return keys.build();
+    }
+  }
+
+  /** Pages through the repo IDs in {@code [start, end)} of a table, in primary key order. */
+  private class SqlRangeIterator extends AbstractIterator<VKey<? extends EppResource>> {
+
+    private final Class<? extends EppResource> resourceClass;
+    private final String entityName;
+    @Nullable private final String start;
+    @Nullable private final String end;
+
+    @Nullable private String lastRepoId;
+    private Iterator<String> page = Iterators.emptyIterator();
+    private boolean isLastPage;
+
+    SqlRangeIterator(
+        Class<? extends EppResource> resourceClass,
+        String entityName,
+        @Nullable String start,
+        @Nullable String end) {
+      this.resourceClass = resourceClass;
+      this.entityName = entityName;
+      this.start = start;
+      this.end = end;
+    }
+
+    @Override
+    protected VKey<? extends EppResource> computeNext() {
+      if (!page.hasNext() && !isLastPage) {
+        ImmutableList<String> repoIds = jpaTm().transact(this::loadNextPage);
+        isLastPage = repoIds.size() < batchSize;
+        page = repoIds.iterator();
+      }
+      if (!page.hasNext()) {
+        return endOfData();
+      }
+      lastRepoId = page.next();
+      return VKey.create(resourceClass, lastRepoId);
+    }
+
+    private ImmutableList<String> loadNextPage() {
+      StringBuilder queryString = new StringBuilder("SELECT repoId FROM ").append(entityName);
+      String lowerBound = (lastRepoId != null) ? lastRepoId : start;
+      if (lowerBound != null) {
+        queryString
+            .append(" WHERE repoId ")
+            .append(lastRepoId != null ? ">" : ">=")
+            .append(" :lower");
+      }
+      if (end != null) {
+        queryString.append(lowerBound != null ? " AND" : " WHERE").append(" repoId < :upper");
+      }
+      queryString.append(" ORDER BY repoId");
+      TypedQuery<String> query =
+          jpaTm()
+              .getEntityManager()
+              .createQuery(queryString.toString(), String.class)
+              .setMaxResults(batchSize);
+      if (lowerBound != null) {
+        query.setParameter("lower", lowerBound);
+      }
+      if (end != null) {
+        query.setParameter("upper", end);
+      }
+      return ImmutableList.copyOf(query.getResultList());
+    }
+  }
+}
@@ -155,31 +155,45 @@ public class ExpandRecurringBillingEventsAction implements Runnable {
       }
       int numBillingEventsSaved = 0;
       try {
+        final Registry tld = Registry.get(getTldFromDomainName(recurring.getTargetId()));
+
+        // Determine the complete set of times at which this recurring event should occur (up to
+        // and including the runtime of the mapreduce).
+        Iterable<DateTime> eventTimes =
+            recurring
+                .getRecurrenceTimeOfYear()
+                .getInstancesInRange(
+                    Range.closed(
+                        recurring.getEventTime(),
+                        earliestOf(recurring.getRecurrenceEndTime(), executeTime)));
+
+        // Convert these event times to billing times
+        final ImmutableSet<DateTime> billingTimes =
+            getBillingTimesInScope(eventTimes, cursorTime, executeTime, tld);
+
+        // Most recurring events don't bill at all in a given window, so skip the transaction and
+        // the query for existing OneTimes entirely for those.
+        if (billingTimes.isEmpty()) {
+          getContext().incrementCounter("Recurring billing events with nothing to expand");
+          return;
+        }
         numBillingEventsSaved =
             tm().transactNew(
                     () -> {
                       ImmutableSet.Builder<OneTime> syntheticOneTimesBuilder =
                           new ImmutableSet.Builder<>();
-                      final Registry tld =
-                          Registry.get(getTldFromDomainName(recurring.getTargetId()));
-
-                      // Determine the complete set of times at which this recurring event should
-                      // occur (up to and including the runtime of the mapreduce).
-                      Iterable<DateTime> eventTimes =
-                          recurring
-                              .getRecurrenceTimeOfYear()
-                              .getInstancesInRange(
-                                  Range.closed(
-                                      recurring.getEventTime(),
-                                      earliestOf(recurring.getRecurrenceEndTime(), executeTime)));
-
-                      // Convert these event times to billing times
-                      final ImmutableSet<DateTime> billingTimes =
-                          getBillingTimesInScope(eventTimes, cursorTime, executeTime, tld);
 
+                      // Only OneTimes billed within the window can match one of the billing times,
+                      // so there's no need to load the domain's whole billing history. This query
+                      // needs the ancestor index on OneTime.billingTime to be serving.
                       Key<? extends EppResource> domainKey = recurring.getParentKey().getParent();
                       Iterable<OneTime> oneTimesForDomain =
-                          ofy().load().type(OneTime.class).ancestor(domainKey);
+                          ofy()
+                              .load()
+                              .type(OneTime.class)
+                              .ancestor(domainKey)
+                              .filter("billingTime >=", cursorTime)
+                              .filter("billingTime <", executeTime);
 
                       // Determine the billing times that already have OneTime events persisted.
                       ImmutableSet<DateTime> existingBillingTimes =
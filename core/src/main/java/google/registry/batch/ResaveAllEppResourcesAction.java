@@ -18,21 +18,40 @@ import static google.registry.mapreduce.MapreduceRunner.PARAM_FAST;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.google.appengine.api.datastore.EntityNotFoundException;
+import com.google.appengine.api.datastore.EntityTranslator;
 import com.google.appengine.tools.mapreduce.Mapper;
+import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.ImmutableSortedSet;
+import com.google.common.flogger.FluentLogger;
+import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
+import com.google.common.util.concurrent.RateLimiter;
 import com.googlecode.objectify.Key;
+import google.registry.config.RegistryConfig.Config;
 import google.registry.mapreduce.MapreduceRunner;
 import google.registry.mapreduce.inputs.EppResourceInputs;
 import google.registry.model.EppResource;
+import google.registry.persistence.VKey;
 import google.registry.request.Action;
 import google.registry.request.Parameter;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
+import java.util.Date;
+import java.util.Optional;
+import java.util.concurrent.atomic.AtomicLong;
 import javax.inject.Inject;
 
 /**
  * A mapreduce that re-saves all EppResources, projecting them forward to the current time.
  *
+ * <p>When Cloud SQL is the primary database, the resources are instead scanned within the request
+ * using {@link EppResourceScanner}.
+ *
  * <p>This is useful for completing data migrations on EppResource fields that are accomplished
  * with @OnSave or @OnLoad annotations, and also guarantees that all EppResources will get fresh
  * commit logs (for backup purposes). Additionally, pending actions such as transfers or grace
@@ -42,13 +61,19 @@ import javax.inject.Inject;
  * run internally, or by pretending to be internal by setting the X-AppEngine-QueueName header,
  * which only admin users can do.
  *
- * <p>If the <code>?fast=true</code> querystring parameter is passed, then entities that are not
- * changed by {@link EppResource#cloneProjectedAtTime} will not be re-saved. This helps prevent
- * mutation load on the DB and has the beneficial side effect of writing out smaller commit logs.
- * Note that this does NOT pick up mutations caused by migrations using the {@link
- * com.googlecode.objectify.annotation.OnLoad} annotation, so if you are running a one-off schema
- * migration, do not use fast mode. Fast mode defaults to false for this reason, but is used by the
- * monthly invocation of the mapreduce.
+ * <p>If the <code>?fast=true</code> querystring parameter is passed, then entities whose stored
+ * form would not change will not be re-saved. In Datastore, this compares a fingerprint of the raw
+ * entity as it was read with one of the entity that would be written in its place, leaving out the
+ * update timestamp and commit log revisions that every save refreshes, so it picks up changes made
+ * by {@link com.googlecode.objectify.annotation.OnLoad} and {@link
+ * com.googlecode.objectify.annotation.OnSave} migrations and by changes to field mappings, as well
+ * as by {@link EppResource#cloneProjectedAtTime}. In Cloud SQL, only the changes made by {@link
+ * EppResource#cloneProjectedAtTime} are considered. This helps prevent mutation load on the DB and
+ * has the beneficial side effect of writing out smaller commit logs. Without fast mode, every
+ * resource is re-saved, which guarantees fresh commit logs for all of them.
+ *
+ * <p>Writes are throttled to {@code resaveMaxWritesPerSecond} (in YAML) in total across all shards
+ * or threads, to protect the latency of frontend requests.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -56,8 +81,27 @@ import javax.inject.Inject;
     auth = Auth.AUTH_INTERNAL_OR_ADMIN)
 public class ResaveAllEppResourcesAction implements Runnable {
 
+  private static final FluentLogger logger = FluentLogger.forEnclosingClass();
+
+  /** The Datastore property that {@link google.registry.model.BackupGroupRoot} saves on writes. */
+  private static final String UPDATE_TIMESTAMP_PROPERTY = "updateTimestamp";
+
+  /**
+   * The Datastore properties whose values are computed afresh on every save, and so always differ
+   * between the stored entity and the one that would replace it.
+   *
+   * <p>Besides the update timestamp, {@link
+   * google.registry.model.translators.CommitLogRevisionsTranslatorFactory} adds the saving
+   * transaction's commit log to the {@code revisions} map, which is stored as the {@code
+   * revisions.key} and {@code revisions.value} properties.
+   */
+  private static final ImmutableSet<String> SAVE_TIME_PROPERTIES =
+      ImmutableSet.of(UPDATE_TIMESTAMP_PROPERTY, "revisions");
+
   @Inject MapreduceRunner mrRunner;
+  @Inject EppResourceScanner scanner;
   @Inject Response response;
+  @Inject @Config("resaveMaxWritesPerSecond") int maxWritesPerSecond;
 
   @Inject
   @Parameter(PARAM_FAST)
@@ -77,16 +121,148 @@ public class ResaveAllEppResourcesAction implements Runnable {
 
   @Override
   public void run() {
+    if (!tm().isOfy()) {
+      // The mapreduce inputs can only read from Datastore, so scan Cloud SQL directly.
+      resaveWithScanner();
+      return;
+    }
     mrRunner
         .setJobName("Re-save all EPP resources")
         .setModuleName("backend")
         .setDefaultMapShards(NUM_SHARDS)
         .runMapOnly(
-            new ResaveAllEppResourcesActionMapper(isFast),
+            new ResaveAllEppResourcesActionMapper(isFast, (double) maxWritesPerSecond / NUM_SHARDS),
             ImmutableList.of(EppResourceInputs.createKeyInput(EppResource.class)))
         .sendLinkToMapreduceConsole(response);
   }
 
+  private void resaveWithScanner() {
+    // The scanner's threads share one rate limiter, so the limit applies to the whole scan.
+    RateLimiter writeLimiter = RateLimiter.create(maxWritesPerSecond);
+    AtomicLong numResaved = new AtomicLong();
+    long numScanned =
+        scanner.scan(
+            ImmutableSet.of(EppResource.class),
+            keys ->
+                keys.forEach(
+                    key -> {
+                      if (resave(key, isFast, writeLimiter)) {
+                        numResaved.incrementAndGet();
+                      }
+                    }));
+    String message =
+        String.format(
+            "Re-saved %d of %d EPP resources, skipped %d with no changes.",
+            numResaved.get(), numScanned, numScanned - numResaved.get());
+    logger.atInfo().log(message);
+    response.setPayload(message);
+  }
+
+  /**
+   * Re-saves the resource with the given key projected to the current time, unless in fast mode
+   * and that wouldn't change it, and returns whether it was re-saved.
+   *
+   * <p>Each write is followed by acquiring a permit from {@code writeLimiter}, so that the caller
+   * is held to the limiter's rate of writes, while unchanged resources are skipped at full speed.
+   */
+  private static boolean resave(
+      VKey<? extends EppResource> key, boolean isFast, RateLimiter writeLimiter) {
+    // The raw entity is read outside of the transaction, since the transaction can only read the
+    // entity through Objectify, which applies @OnLoad migrations to it.
+    Optional<StoredVersion> storedVersion =
+        (isFast && tm().isOfy()) ? loadStoredVersion(key.getOfyKey()) : Optional.empty();
+    boolean resaved =
+        tm().transact(
+                () -> {
+                  EppResource originalResource = tm().loadByKey(key);
+                  EppResource projectedResource =
+                      originalResource.cloneProjectedAtTime(tm().getTransactionTime());
+                  if (isFast && isUnchanged(originalResource, projectedResource, storedVersion)) {
+                    return false;
+                  }
+                  tm().put(projectedResource);
+                  return true;
+                });
+    if (resaved) {
+      writeLimiter.acquire();
+    }
+    return resaved;
+  }
+
+  /**
+   * Returns whether saving {@code projectedResource} would leave what's stored for {@code
+   * originalResource} unchanged.
+   */
+  private static boolean isUnchanged(
+      EppResource originalResource,
+      EppResource projectedResource,
+      Optional<StoredVersion> storedVersion) {
+    if (!tm().isOfy()) {
+      return originalResource.equals(projectedResource);
+    }
+    // Every save sets a new update timestamp, so if it matches, the fingerprint was taken of the
+    // same version of the entity as the one loaded in this transaction.
+    return storedVersion.isPresent()
+        && storedVersion
+            .get()
+            .updateTime()
+            .equals(originalResource.getUpdateTimestamp().getTimestamp().toDate())
+        && storedVersion.get().fingerprint().equals(fingerprint(ofy().toEntity(projectedResource)));
+  }
+
+  /** Loads the raw Datastore entity with the given key, and returns its stored version. */
+  private static Optional<StoredVersion> loadStoredVersion(Key<?> key) {
+    try {
+      Entity entity = DatastoreServiceFactory.getDatastoreService().get(key.getRaw());
+      return Optional.of(
+          StoredVersion.create(
+              (Date) entity.getProperty(UPDATE_TIMESTAMP_PROPERTY), fingerprint(entity)));
+    } catch (EntityNotFoundException e) {
+      return Optional.empty();
+    }
+  }
+
+  /**
+   * Returns a fingerprint of the content of the given raw entity, apart from the {@link
+   * #SAVE_TIME_PROPERTIES}.
+   *
+   * <p>The properties are copied in sorted order, so that two entities with the same content
+   * always serialize to the same bytes regardless of the order in which their properties were set.
+   */
+  private static HashCode fingerprint(Entity entity) {
+    Entity canonicalEntity = new Entity(entity.getKey());
+    for (String name : ImmutableSortedSet.copyOf(entity.getProperties().keySet())) {
+      if (isSaveTimeProperty(name)) {
+        continue;
+      }
+      if (entity.isUnindexedProperty(name)) {
+        canonicalEntity.setUnindexedProperty(name, entity.getProperty(name));
+      } else {
+        canonicalEntity.setProperty(name, entity.getProperty(name));
+      }
+    }
+    return Hashing.sha256().hashBytes(EntityTranslator.convertToPb(canonicalEntity).toByteArray());
+  }
+
+  /** Returns whether the given property, or the embedded field it belongs to, is set on save. */
+  private static boolean isSaveTimeProperty(String name) {
+    int dot = name.indexOf('.');
+    return SAVE_TIME_PROPERTIES.contains(dot < 0 ? name : name.substring(0, dot));
+  }
+
+  /** The update timestamp and content fingerprint of a resource as stored in Datastore. */
+  @AutoValue
+  abstract static class StoredVersion {
+
+    abstract Date updateTime();
+
+    abstract HashCode fingerprint();
+
+    static StoredVersion create(Date updateTime, HashCode fingerprint) {
+      return new AutoValue_ResaveAllEppResourcesAction_StoredVersion(updateTime, fingerprint);
+    }
+  }
+
   /** Mapper to re-save all EPP resources. */
   public static class ResaveAllEppResourcesActionMapper
       extends Mapper<Key<EppResource>, Void, Void> {
@@ -94,26 +270,22 @@ public class ResaveAllEppResourcesAction implements Runnable {
     private static final long serialVersionUID = -7721628665138087001L;
 
     private final boolean isFast;
+    private final double maxWritesPerSecond;
+
+    /** The shard's rate limiter, which isn't serializable and so is created on first use. */
+    private transient RateLimiter writeLimiter;
 
-    ResaveAllEppResourcesActionMapper(boolean isFast) {
+    ResaveAllEppResourcesActionMapper(boolean isFast, double maxWritesPerSecond) {
       this.isFast = isFast;
+      this.maxWritesPerSecond = maxWritesPerSecond;
     }
 
     @Override
     public final void map(final Key<EppResource> resourceKey) {
-      boolean resaved =
-          tm().transact(
-                  () -> {
-                    EppResource originalResource = ofy().load().key(resourceKey).now();
-                    EppResource projectedResource =
-                        originalResource.cloneProjectedAtTime(tm().getTransactionTime());
-                    if (isFast && originalResource.equals(projectedResource)) {
-                      return false;
-                    } else {
-                      ofy().save().entity(projectedResource).now();
-                      return true;
-                    }
-                  });
+      if (writeLimiter == null) {
+        writeLimiter = RateLimiter.create(maxWritesPerSecond);
+      }
+      boolean resaved = resave(VKey.from(resourceKey), isFast, writeLimiter);
       getContext()
           .incrementCounter(
               String.format(
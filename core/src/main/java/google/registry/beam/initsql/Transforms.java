@@ -263,7 +263,7 @@ public final class Transforms {
     return processFiles(
         new BackupFileReader(
             file ->
-                CommitLogImports.loadEntities(file.open()).stream()
+                CommitLogImports.streamEntities(file.open())
                     .filter(e -> kinds.contains(e.key().getKind()))
                     .iterator()));
   }
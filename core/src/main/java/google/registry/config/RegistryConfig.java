@@ -14,6 +14,7 @@
 
 package google.registry.config;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Suppliers.memoize;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.ImmutableSortedMap.toImmutableSortedMap;
@@ -44,6 +45,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
+import java.util.zip.Deflater;
 import javax.annotation.Nullable;
 import javax.inject.Named;
 import javax.inject.Qualifier;
@@ -881,6 +883,22 @@ public final class RegistryConfig {
       return URI.create(config.rde.uploadUrl);
     }
 
+    /**
+     * Returns the deflate level used to compress RyDE deposits.
+     *
+     * @see google.registry.rde.RydeEncoder.Builder#setCompressionLevel
+     */
+    @Provides
+    @Config("rdeCompressionLevel")
+    public static int provideRdeCompressionLevel(RegistryConfigSettings config) {
+      int level = config.rde.compressionLevel;
+      checkArgument(
+          level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+          "rde.compressionLevel must be between -1 and 9, but was %s",
+          level);
+      return level;
+    }
+
     /**
      * Whether or not the registrar console is enabled.
      *
@@ -1149,6 +1167,45 @@ public final class RegistryConfig {
       return Duration.standardSeconds(config.misc.asyncDeleteDelaySeconds);
     }
 
+    /**
+     * Whether flows save their asynchronous tasks as pending tasks in Datastore rather than adding
+     * them to their task queues directly.
+     *
+     * <p>Pending tasks are saved in the same transaction as the rest of the flow's changes, and are
+     * added to their queues in batches by a cron job, which keeps task queue API latency out of
+     * flows. Tasks that are already due are still added directly, so as not to wait for the cron.
+     *
+     * @see google.registry.batch.AsyncTaskEnqueuer
+     * @see google.registry.batch.DispatchPendingTasksAction
+     */
+    @Provides
+    @Config("asyncTaskOutboxEnabled")
+    public static boolean provideAsyncTaskOutboxEnabled(RegistryConfigSettings config) {
+      return config.misc.asyncTaskOutboxEnabled;
+    }
+
+    /**
+     * The maximum number of TLDs whose domain lists are exported concurrently in incremental mode.
+     *
+     * @see google.registry.export.ExportDomainListsAction
+     */
+    @Provides
+    @Config("domainListsExportThreadCount")
+    public static int provideDomainListsExportThreadCount(RegistryConfigSettings config) {
+      return config.misc.domainListsExportThreadCount;
+    }
+
+    /**
+     * The maximum number of EPP resources re-saved per second by the re-save all job.
+     *
+     * @see google.registry.batch.ResaveAllEppResourcesAction
+     */
+    @Provides
+    @Config("resaveMaxWritesPerSecond")
+    public static int provideResaveMaxWritesPerSecond(RegistryConfigSettings config) {
+      return config.misc.resaveMaxWritesPerSecond;
+    }
+
     /**
      * The server ID used in the 'svID' element of an EPP 'greeting'.
      *
@@ -1418,6 +1475,14 @@ public final class RegistryConfig {
    *
    * <p><b>Warning:</b> This can be raised but never lowered.
    *
+   * <p>Raising it can be done online, without pausing writes: checkpoints record a timestamp per
+   * bucket, and a bucket missing from an older checkpoint is exported from the start of time. To
+   * keep checkpoints consistent, the new value must be deployed to the service that computes
+   * checkpoints before (or together with) any service that writes commit logs, so that no commit
+   * log is written to a bucket that the checkpoint computation doesn't know about yet. Buckets that
+   * are hot enough to need this show up as lagging in the {@code
+   * /commit_logs/checkpoint/bucket_lag} metric.
+   *
    * @see google.registry.model.ofy.CommitLogBucket
    */
   public static int getCommitLogBucketCount() {
@@ -1499,6 +1564,9 @@ public final class RegistryConfig {
 
   /**
    * Returns the maximum number of premium list entries across all TLDs to keep in in-memory cache.
+   *
+   * <p>Premium lists are cached as whole price tables in a single cache segment, so this must be
+   * larger than the total size of the premium lists in use.
    */
   public static int getStaticPremiumListMaxCachedEntries() {
     return CONFIG_SETTINGS.get().caching.staticPremiumListMaxCachedEntries;
@@ -1525,6 +1593,16 @@ public final class RegistryConfig {
     return CONFIG_SETTINGS.get().caching.eppResourceMaxCachedEntries;
   }
 
+  /** Returns the amount of time an unlimited-use allocation token should be cached in memory. */
+  public static Duration getAllocationTokenCachingDuration() {
+    return Duration.standardSeconds(CONFIG_SETTINGS.get().caching.allocationTokenCachingSeconds);
+  }
+
+  /** Returns the maximum number of unlimited-use allocation tokens to keep in in-memory cache. */
+  public static int getAllocationTokenMaxCachedEntries() {
+    return CONFIG_SETTINGS.get().caching.allocationTokenMaxCachedEntries;
+  }
+
   /** Returns the email address that outgoing emails from the app are sent from. */
   public static InternetAddress getGSuiteOutgoingEmailAddress() {
     return parseEmailAddress(CONFIG_SETTINGS.get().gSuite.outgoingEmailAddress);
@@ -150,6 +150,8 @@ public class RegistryConfigSettings {
     public boolean eppResourceCachingEnabled;
     public int eppResourceCachingSeconds;
     public int eppResourceMaxCachedEntries;
+    public int allocationTokenCachingSeconds;
+    public int allocationTokenMaxCachedEntries;
   }
 
   /** Configuration for ICANN monthly reporting. */
@@ -169,6 +171,7 @@ public class RegistryConfigSettings {
     public String reportUrlPrefix;
     public String uploadUrl;
     public String sshIdentityEmailAddress;
+    public int compressionLevel;
   }
 
   /** Configuration for the web-based registrar console. */
@@ -201,6 +204,9 @@ public class RegistryConfigSettings {
     public String spec11OutgoingEmailAddress;
     public List<String> spec11BccEmailAddresses;
     public int asyncDeleteDelaySeconds;
+    public boolean asyncTaskOutboxEnabled;
+    public int domainListsExportThreadCount;
+    public int resaveMaxWritesPerSecond;
     public int transientFailureRetries;
   }
 
@@ -16,11 +16,17 @@ package google.registry.export;
 
 import static com.google.appengine.tools.cloudstorage.GcsServiceFactory.createGcsService;
 import static com.google.common.base.Verify.verifyNotNull;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.mapreduce.inputs.EppResourceInputs.createEntityInput;
 import static google.registry.model.EppResourceUtils.isActive;
+import static google.registry.model.common.Cursor.CursorType.EXPORT_DOMAIN_LISTS;
+import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.model.registry.Registries.getTldsOfType;
+import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.request.Action.Method.POST;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toCollection;
 import static org.joda.time.DateTimeZone.UTC;
 
 import com.google.appengine.tools.cloudstorage.GcsFilename;
@@ -33,33 +39,53 @@ import com.google.common.base.Joiner;
 import com.google.common.base.Suppliers;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterators;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.net.MediaType;
+import com.googlecode.objectify.Key;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.gcs.GcsUtils;
 import google.registry.mapreduce.MapreduceRunner;
+import google.registry.model.CreateAutoTimestamp;
+import google.registry.model.common.Cursor;
+import google.registry.model.common.Cursor.CursorType;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.registry.Registry;
 import google.registry.model.registry.Registry.TldType;
 import google.registry.request.Action;
+import google.registry.request.Parameter;
 import google.registry.request.Response;
 import google.registry.request.auth.Auth;
+import google.registry.schema.cursor.CursorDao;
 import google.registry.storage.drive.DriveConnection;
+import google.registry.util.Clock;
+import google.registry.util.Concurrent;
 import google.registry.util.NonFinalForTesting;
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStreamReader;
 import java.io.ObjectInputStream;
 import java.io.OutputStream;
 import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
 import java.io.Writer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.TreeSet;
 import java.util.function.Supplier;
 import javax.inject.Inject;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 
 /**
  * A mapreduce that exports the list of active domains on all real TLDs to Google Drive and GCS.
  *
  * <p>Each TLD's active domain names are exported as a newline-delimited flat text file with the
  * name TLD.txt into the domain-lists bucket. Note that this overwrites the files in place.
+ *
+ * <p>If the {@code incremental} parameter is set, the mapreduce isn't run. Instead each TLD's
+ * previous export is updated with the domains created or deleted since then, and only rewritten if
+ * anything changed. See {@link #runIncrementally}.
  */
 @Action(
     service = Action.Service.BACKEND,
@@ -71,15 +97,38 @@ public class ExportDomainListsAction implements Runnable {
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
   private static final int MAX_NUM_REDUCE_SHARDS = 100;
 
+  /**
+   * How far before the previous run's cursor changed domains are looked for.
+   *
+   * <p>A domain's creation and deletion times are set at its transaction's start, so a transaction
+   * that was still in flight when the cursor was saved can commit changes timestamped before it.
+   * Applying the same change twice is harmless, since each domain is added or removed based on its
+   * current state.
+   */
+  private static final Duration CHANGE_QUERY_OVERLAP = Duration.standardMinutes(10);
+
+  /** The number of domains loaded from Datastore at a time when building a list from scratch. */
+  private static final int FULL_EXPORT_BATCH_SIZE = 500;
+
+  public static final String INCREMENTAL_PARAM = "incremental";
+
   @Inject MapreduceRunner mrRunner;
   @Inject Response response;
+  @Inject Clock clock;
+  @Inject GcsUtils gcsUtils;
   @Inject @Config("domainListsGcsBucket") String gcsBucket;
   @Inject @Config("gcsBufferSize") int gcsBufferSize;
+  @Inject @Config("domainListsExportThreadCount") int threadCount;
+  @Inject @Parameter(INCREMENTAL_PARAM) boolean incremental;
   @Inject ExportDomainListsAction() {}
 
   @Override
   public void run() {
     ImmutableSet<String> realTlds = getTldsOfType(TldType.REAL);
+    if (incremental) {
+      runIncrementally(realTlds);
+      return;
+    }
     logger.atInfo().log("Exporting domain lists for tlds %s", realTlds);
     mrRunner
         .setJobName("Export domain lists")
@@ -92,6 +141,202 @@ public class ExportDomainListsAction implements Runnable {
         .sendLinkToMapreduceConsole(response);
   }
 
+  /**
+   * Brings each TLD's exported list up to date with the domains created or deleted since the
+   * previous incremental export, using the list in GCS as the starting point.
+   *
+   * <p>TLDs are exported in parallel, and each TLD's {@link CursorType#EXPORT_DOMAIN_LISTS} cursor
+   * only advances once its list has been written out, so a failed export is redone from the same
+   * point when the task is retried.
+   */
+  private void runIncrementally(ImmutableSet<String> realTlds) {
+    DateTime now = clock.nowUtc();
+    logger.atInfo().log(
+        "Incrementally exporting domain lists for tlds %s with %d threads", realTlds, threadCount);
+    int numDomains =
+        Concurrent.transform(realTlds, threadCount, tld -> exportIncrementally(tld, now)).stream()
+            .mapToInt(Integer::intValue)
+            .sum();
+    response.setPayload(
+        String.format("Exported %d domains on %d TLDs.", numDomains, realTlds.size()));
+  }
+
+  /** Exports the active domains on the given TLD, and returns how many there are. */
+  private int exportIncrementally(String tld, DateTime now) {
+    Registry registry = Registry.get(tld);
+    Cursor cursor = ofy().load().key(Cursor.createKey(EXPORT_DOMAIN_LISTS, registry)).now();
+    CursorDao.loadAndCompare(cursor, tld);
+    GcsFilename filename = getGcsFilename(gcsBucket, tld);
+    TreeSet<String> domains;
+    boolean changed;
+    // A TLD with no active domains has an empty list, which is still a valid starting point.
+    if (cursor == null || !gcsUtils.exists(filename)) {
+      logger.atInfo().log("Building domain list for TLD %s from scratch.", tld);
+      domains = loadActiveDomainNames(tld, now);
+      changed = true;
+    } else {
+      domains = readDomainList(filename);
+      ImmutableSet<DomainBase> changedDomains =
+          loadChangedDomains(tld, cursor.getCursorTime().minus(CHANGE_QUERY_OVERLAP), now);
+      // A name can belong to several of the changed domains, e.g. one that was deleted and then
+      // re-registered, so a name stays on the list if any domain with that name is still active,
+      // regardless of the order the domains come back in.
+      ImmutableSet<String> activeNames =
+          changedDomains.stream()
+              .filter(domain -> isActive(domain, now))
+              .map(DomainBase::getDomainName)
+              .collect(toImmutableSet());
+      changed = false;
+      for (DomainBase domain : changedDomains) {
+        String domainName = domain.getDomainName();
+        changed |=
+            activeNames.contains(domainName)
+                ? domains.add(domainName)
+                : domains.remove(domainName);
+      }
+    }
+    if (changed) {
+      String domainsList = Joiner.on('\n').join(domains);
+      logger.atInfo().log("Exporting %d domains for TLD %s to GCS and Drive.", domains.size(), tld);
+      // The GCS file is written last because the next run starts from it, so any failure before
+      // then leaves the list marked as changed when the task is retried.
+      try {
+        exportToDrive(ExportDomainListsReducer.driveConnectionSupplier.get(), tld, domainsList);
+        exportToGcs(gcsUtils, filename, domainsList);
+      } catch (IOException e) {
+        throw new UncheckedIOException(
+            String.format("Error exporting registered domains for TLD %s", tld), e);
+      }
+    } else {
+      logger.atInfo().log("Domain list for TLD %s is unchanged.", tld);
+    }
+    tm().transact(
+            () -> CursorDao.saveCursor(Cursor.create(EXPORT_DOMAIN_LISTS, now, registry), tld));
+    return domains.size();
+  }
+
+  private TreeSet<String> readDomainList(GcsFilename filename) {
+    try (BufferedReader reader =
+        new BufferedReader(new InputStreamReader(gcsUtils.openInputStream(filename), UTF_8))) {
+      return reader.lines().collect(toCollection(TreeSet::new));
+    } catch (IOException e) {
+      throw new UncheckedIOException("Error reading domain list " + filename, e);
+    }
+  }
+
+  /** Returns the names of all domains on the given TLD that are active at the given time. */
+  private static TreeSet<String> loadActiveDomainNames(String tld, DateTime now) {
+    if (!tm().isOfy()) {
+      return jpaTm()
+          .transact(
+              () ->
+                  jpaTm()
+                      .getEntityManager()
+                      .createQuery(
+                          "SELECT fullyQualifiedDomainName FROM Domain WHERE tld = :tld"
+                              + " AND deletionTime > :now",
+                          String.class)
+                      .setParameter("tld", tld)
+                      .setParameter("now", now)
+                      .getResultStream()
+                      .collect(toCollection(TreeSet::new)));
+    }
+    TreeSet<String> domains = new TreeSet<>();
+    Iterator<List<Key<DomainBase>>> batches =
+        Iterators.partition(
+            ofy()
+                .load()
+                .type(DomainBase.class)
+                .filter("tld", tld)
+                .filter("deletionTime >", now)
+                .keys()
+                .iterator(),
+            FULL_EXPORT_BATCH_SIZE);
+    while (batches.hasNext()) {
+      ofy().load().keys(batches.next()).values().stream()
+          .filter(domain -> isActive(domain, now))
+          .forEach(domain -> domains.add(domain.getDomainName()));
+      ofy().clearSessionCache();
+    }
+    return domains;
+  }
+
+  /**
+   * Returns the domains on the given TLD that were created after {@code since}, or whose deletion
+   * time is after {@code since} and no later than {@code now}.
+   *
+   * <p>Domains are only ever added to or removed from a TLD's list by these two events; a pending
+   * delete stays on the list until its deletion time, which is when it shows up here.
+   */
+  private static ImmutableSet<DomainBase> loadChangedDomains(
+      String tld, DateTime since, DateTime now) {
+    if (!tm().isOfy()) {
+      return jpaTm()
+          .transact(
+              () ->
+                  jpaTm()
+                      .getEntityManager()
+                      .createQuery(
+                          "FROM Domain WHERE tld = :tld AND (creationTime > :createdSince"
+                              + " OR (deletionTime > :deletedSince AND deletionTime <= :now))",
+                          DomainBase.class)
+                      .setParameter("tld", tld)
+                      .setParameter("createdSince", CreateAutoTimestamp.create(since))
+                      .setParameter("deletedSince", since)
+                      .setParameter("now", now)
+                      .getResultStream()
+                      .collect(toImmutableSet()));
+    }
+    // Start both queries before reading either of them, so that they run concurrently.
+    List<DomainBase> created =
+        ofy()
+            .load()
+            .type(DomainBase.class)
+            .filter("tld", tld)
+            .filter("creationTime >", since)
+            .list();
+    List<DomainBase> deleted =
+        ofy()
+            .load()
+            .type(DomainBase.class)
+            .filter("tld", tld)
+            .filter("deletionTime >", since)
+            .filter("deletionTime <=", now)
+            .list();
+    return new ImmutableSet.Builder<DomainBase>().addAll(created).addAll(deleted).build();
+  }
+
+  private static GcsFilename getGcsFilename(String gcsBucket, String tld) {
+    return new GcsFilename(gcsBucket, tld + ".txt");
+  }
+
+  private static void exportToGcs(GcsUtils cloudStorage, GcsFilename filename, String domains)
+      throws IOException {
+    try (OutputStream gcsOutput = cloudStorage.openOutputStream(filename);
+        Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8)) {
+      osWriter.write(domains);
+    }
+  }
+
+  private static void exportToDrive(DriveConnection driveConnection, String tld, String domains)
+      throws IOException {
+    Registry registry = Registry.get(tld);
+    if (registry.getDriveFolderId() == null) {
+      logger.atInfo().log(
+          "Skipping registered domains export for TLD %s because Drive folder isn't specified",
+          tld);
+    } else {
+      String resultMsg =
+          driveConnection.createOrUpdateFile(
+              ExportDomainListsReducer.REGISTERED_DOMAINS_FILENAME,
+              ExportDomainListsReducer.EXPORT_MIME_TYPE,
+              registry.getDriveFolderId(),
+              domains.getBytes(UTF_8));
+      logger.atInfo().log(
+          "Exporting registered domains succeeded for TLD %s, response was: %s", tld, resultMsg);
+    }
+  }
+
   static class ExportDomainListsMapper extends Mapper<DomainBase, String, String> {
 
     private static final long serialVersionUID = -7312206212434039854L;
@@ -150,22 +395,7 @@ public class ExportDomainListsAction implements Runnable {
     private void exportToDrive(String tld, String domains) {
       verifyNotNull(driveConnection, "expecting non-null driveConnection");
       try {
-        Registry registry = Registry.get(tld);
-        if (registry.getDriveFolderId() == null) {
-          logger.atInfo().log(
-              "Skipping registered domains export for TLD %s because Drive folder isn't specified",
-              tld);
-        } else {
-          String resultMsg =
-              driveConnection.createOrUpdateFile(
-                  REGISTERED_DOMAINS_FILENAME,
-                  EXPORT_MIME_TYPE,
-                  registry.getDriveFolderId(),
-                  domains.getBytes(UTF_8));
-          logger.atInfo().log(
-              "Exporting registered domains succeeded for TLD %s, response was: %s",
-              tld, resultMsg);
-        }
+        ExportDomainListsAction.exportToDrive(driveConnection, tld, domains);
       } catch (Throwable e) {
         logger.atSevere().withCause(e).log(
             "Error exporting registered domains for TLD %s to Drive", tld);
@@ -174,12 +404,11 @@ public class ExportDomainListsAction implements Runnable {
     }
 
     private void exportToGcs(String tld, String domains) {
-      GcsFilename filename = new GcsFilename(gcsBucket, tld + ".txt");
       GcsUtils cloudStorage =
           new GcsUtils(createGcsService(RetryParams.getDefaultInstance()), gcsBufferSize);
-      try (OutputStream gcsOutput = cloudStorage.openOutputStream(filename);
-          Writer osWriter = new OutputStreamWriter(gcsOutput, UTF_8)) {
-        osWriter.write(domains);
+      try {
+        ExportDomainListsAction.exportToGcs(
+            cloudStorage, getGcsFilename(gcsBucket, tld), domains);
       } catch (IOException e) {
         logger.atSevere().withCause(e).log(
             "Error exporting registered domains for TLD %s to GCS.", tld);
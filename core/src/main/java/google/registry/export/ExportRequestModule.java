@@ -19,6 +19,7 @@ import static google.registry.export.BigqueryPollJobAction.JOB_ID_HEADER;
 import static google.registry.export.BigqueryPollJobAction.PROJECT_ID_HEADER;
 import static google.registry.export.CheckBackupAction.CHECK_BACKUP_KINDS_TO_LOAD_PARAM;
 import static google.registry.export.CheckBackupAction.CHECK_BACKUP_NAME_PARAM;
+import static google.registry.export.ExportDomainListsAction.INCREMENTAL_PARAM;
 import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_DATASET_ID_PARAM;
 import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_KIND_PARAM;
 import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_TABLE_ID_PARAM;
@@ -26,6 +27,7 @@ import static google.registry.export.UpdateSnapshotViewAction.UPDATE_SNAPSHOT_VI
 import static google.registry.export.UploadDatastoreBackupAction.UPLOAD_BACKUP_FOLDER_PARAM;
 import static google.registry.export.UploadDatastoreBackupAction.UPLOAD_BACKUP_ID_PARAM;
 import static google.registry.export.UploadDatastoreBackupAction.UPLOAD_BACKUP_KINDS_PARAM;
+import static google.registry.request.RequestParameters.extractBooleanParameter;
 import static google.registry.request.RequestParameters.extractRequiredHeader;
 import static google.registry.request.RequestParameters.extractRequiredParameter;
 
@@ -93,6 +95,12 @@ public final class ExportRequestModule {
     return extractRequiredParameter(req, CHECK_BACKUP_KINDS_TO_LOAD_PARAM);
   }
 
+  @Provides
+  @Parameter(INCREMENTAL_PARAM)
+  static boolean provideIncremental(HttpServletRequest req) {
+    return extractBooleanParameter(req, INCREMENTAL_PARAM);
+  }
+
   @Provides
   @Header(CHAINED_TASK_QUEUE_HEADER)
   static String provideChainedTaskQueue(HttpServletRequest req) {
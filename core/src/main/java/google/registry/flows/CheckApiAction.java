@@ -16,9 +16,13 @@ package google.registry.flows;
 
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.net.HttpHeaders.ACCESS_CONTROL_ALLOW_ORIGIN;
+import static google.registry.flows.CheckApiMetrics.Lookup.PRICING;
+import static google.registry.flows.CheckApiMetrics.Lookup.REGISTRATION;
+import static google.registry.flows.CheckApiMetrics.Lookup.RESERVATION;
 import static google.registry.flows.domain.DomainFlowUtils.validateDomainName;
 import static google.registry.flows.domain.DomainFlowUtils.validateDomainNameWithIdnTables;
 import static google.registry.flows.domain.DomainFlowUtils.verifyNotInPredelegation;
+import static google.registry.model.registry.label.PremiumListDualDao.getPremiumPriceFromPrimary;
 import static google.registry.model.registry.label.ReservationType.getTypeOfHighestSeverity;
 import static google.registry.model.registry.label.ReservedList.getReservationTypes;
 import static google.registry.monitoring.whitebox.CheckApiMetric.Availability.AVAILABLE;
@@ -42,10 +46,12 @@ import com.google.common.net.InternetDomainName;
 import com.google.common.net.MediaType;
 import dagger.Module;
 import dagger.Provides;
+import google.registry.flows.CheckApiMetrics.Lookup;
 import google.registry.flows.domain.DomainFlowUtils.BadCommandForRegistryPhaseException;
 import google.registry.flows.domain.DomainFlowUtils.InvalidIdnDomainLabelException;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.index.ForeignKeyIndex;
+import google.registry.model.pricing.StaticPremiumListPricingEngine;
 import google.registry.model.registry.Registry;
 import google.registry.model.registry.label.ReservationType;
 import google.registry.monitoring.whitebox.CheckApiMetric;
@@ -58,6 +64,7 @@ import google.registry.request.auth.Auth;
 import google.registry.util.Clock;
 import java.util.Map;
 import java.util.Optional;
+import java.util.function.Supplier;
 import javax.inject.Inject;
 import javax.servlet.http.HttpServletRequest;
 import org.joda.time.DateTime;
@@ -124,11 +131,11 @@ public class CheckApiAction implements Runnable {
         return fail("Check in this TLD is not allowed in the current registry phase");
       }
 
-      boolean isRegistered = checkExists(domainString, now);
+      boolean isRegistered = timeLookup(REGISTRATION, () -> checkExists(domainString, now));
       Optional<String> reservedError = Optional.empty();
       boolean isReserved = false;
       if (!isRegistered) {
-        reservedError = checkReserved(domainName);
+        reservedError = timeLookup(RESERVATION, () -> checkReserved(domainName));
         isReserved = reservedError.isPresent();
       }
       Availability availability = isRegistered ? REGISTERED : (isReserved ? RESERVED : AVAILABLE);
@@ -138,7 +145,7 @@ public class CheckApiAction implements Runnable {
       metricBuilder.status(SUCCESS).availability(availability);
       responseBuilder.put("status", "success").put("available", availability.equals(AVAILABLE));
 
-      boolean isPremium = isDomainPremium(domainString, now);
+      boolean isPremium = timeLookup(PRICING, () -> checkPremium(domainName, registry, now));
       metricBuilder.tier(isPremium ? PREMIUM : STANDARD);
       responseBuilder.put("tier", isPremium ? "premium" : "standard");
       if (!AVAILABLE.equals(availability)) {
@@ -155,6 +162,16 @@ public class CheckApiAction implements Runnable {
     }
   }
 
+  /** Performs one of the lookups needed to answer the check, and records how long it took. */
+  private <T> T timeLookup(Lookup lookup, Supplier<T> supplier) {
+    DateTime start = clock.nowUtc();
+    try {
+      return supplier.get();
+    } finally {
+      checkApiMetrics.recordLookupTime(lookup, clock.nowUtc().getMillis() - start.getMillis());
+    }
+  }
+
   private boolean checkExists(String domainString, DateTime now) {
     return !ForeignKeyIndex.loadCached(DomainBase.class, ImmutableList.of(domainString), now)
         .isEmpty();
@@ -169,6 +186,20 @@ public class CheckApiAction implements Runnable {
     return Optional.empty();
   }
 
+  /**
+   * Returns whether the domain is premium.
+   *
+   * <p>For TLDs priced from their premium list, this is a lookup in the primary database's cached
+   * price table of the list, without the comparison against the secondary database that pricing
+   * through the engine does. Other pricing engines are asked directly.
+   */
+  private boolean checkPremium(InternetDomainName domainName, Registry registry, DateTime now) {
+    if (StaticPremiumListPricingEngine.NAME.equals(registry.getPremiumPricingEngineClassName())) {
+      return getPremiumPriceFromPrimary(domainName.parts().get(0), registry).isPresent();
+    }
+    return isDomainPremium(domainName.toString(), now);
+  }
+
   private Map<String, Object> fail(String reason) {
     return ImmutableMap.of("status", "error", "reason", reason);
   }
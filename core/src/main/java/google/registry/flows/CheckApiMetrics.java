@@ -49,6 +49,35 @@ public class CheckApiMetrics {
               LABEL_DESCRIPTORS,
               DEFAULT_FITTER);
 
+  private static final ImmutableSet<LabelDescriptor> LOOKUP_LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("lookup", "The lookup made to answer the check."));
+
+  private static final EventMetric lookupTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/check_api/lookup_time",
+              "CheckApi Lookup Time",
+              "milliseconds",
+              LOOKUP_LABEL_DESCRIPTORS,
+              DEFAULT_FITTER);
+
+  /** The lookups made to answer a check, each of which has its time recorded separately. */
+  enum Lookup {
+    REGISTRATION("registration"),
+    RESERVATION("reservation"),
+    PRICING("pricing");
+
+    private final String displayLabel;
+
+    Lookup(String displayLabel) {
+      this.displayLabel = displayLabel;
+    }
+
+    String getDisplayLabel() {
+      return displayLabel;
+    }
+  }
+
   @Inject
   CheckApiMetrics() {}
 
@@ -67,4 +96,9 @@ public class CheckApiMetrics {
         metric.availability().map(Availability::getDisplayLabel).orElse(""),
         metric.status().getDisplayLabel());
   }
+
+  /** Records the time taken by one of the lookups made to answer a check. */
+  void recordLookupTime(Lookup lookup, long elapsedMillis) {
+    lookupTime.record(elapsedMillis, lookup.getDisplayLabel());
+  }
 }
@@ -125,6 +125,7 @@ public final class DomainCheckFlow implements Flow {
   @Inject AllocationTokenFlowUtils allocationTokenFlowUtils;
   @Inject DomainCheckFlowCustomLogic flowCustomLogic;
   @Inject DomainPricingLogic pricingLogic;
+  @Inject FeeCheckMetrics feeCheckMetrics;
 
   @Inject
   DomainCheckFlow() {}
@@ -260,6 +261,11 @@ public final class DomainCheckFlow implements Flow {
     ImmutableMap<String, EppResource> domainObjs =
         loadDomainsForRestoreChecks(feeCheck, domainNames, existingDomains);
 
+    // Each name's premium prices are only looked up once by the pricing logic, however many of its
+    // commands and periods are fee checked.
+    ImmutableSet.Builder<String> pricedTlds = new ImmutableSet.Builder<>();
+    int prices = 0;
+    DateTime pricingStartTime = clock.nowUtc();
     for (FeeCheckCommandExtensionItem feeCheckItem : feeCheck.getItems()) {
       for (String domainName : getDomainNamesToCheckForFee(feeCheckItem, domainNames.keySet())) {
         FeeCheckResponseExtensionItem.Builder<?> builder = feeCheckItem.createResponseBuilder();
@@ -274,8 +280,12 @@ public final class DomainCheckFlow implements Flow {
             allocationToken,
             availableDomains.contains(domainName));
         responseItems.add(builder.setDomainNameIfSupported(domainName).build());
+        pricedTlds.add(domainNames.get(domainName).parent().toString());
+        prices++;
       }
     }
+    feeCheckMetrics.recordPricing(
+        pricedTlds.build(), prices, clock.nowUtc().getMillis() - pricingStartTime.getMillis());
     return ImmutableList.of(feeCheck.createResponse(responseItems.build()));
   }
 
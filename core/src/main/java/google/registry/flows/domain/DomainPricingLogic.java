@@ -15,8 +15,10 @@
 package google.registry.flows.domain;
 
 import static google.registry.flows.domain.DomainFlowUtils.zeroInCurrency;
-import static google.registry.pricing.PricingEngineProxy.getPricesForDomainName;
 
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.HashBasedTable;
+import com.google.common.collect.Table;
 import com.google.common.net.InternetDomainName;
 import google.registry.flows.EppException;
 import google.registry.flows.EppException.CommandUseErrorException;
@@ -33,9 +35,11 @@ import google.registry.model.domain.fee.Fee;
 import google.registry.model.domain.token.AllocationToken;
 import google.registry.model.pricing.PremiumPricingEngine.DomainPrices;
 import google.registry.model.registry.Registry;
+import google.registry.pricing.PricingEngineProxy;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
 import java.util.Optional;
+import java.util.function.BiFunction;
 import javax.inject.Inject;
 import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
@@ -45,12 +49,25 @@ import org.joda.time.DateTime;
  * Provides pricing for create, renew, etc, operations, with call-outs that can be customized by
  * providing a {@link DomainPricingCustomLogic} implementation that operates on cross-TLD or per-TLD
  * logic.
+ *
+ * <p>The premium prices of each domain name are only looked up once per flow for any given time,
+ * so flows that price many commands on the same names (such as domain checks with fee extension
+ * queries for several commands and periods) don't repeat the lookup for every command.
  */
 @FlowScope
 public final class DomainPricingLogic {
 
   @Inject DomainPricingCustomLogic customLogic;
 
+  /** Looks up the prices of a domain name at a given time from its TLD's pricing engine. */
+  @VisibleForTesting
+  BiFunction<String, DateTime, DomainPrices> pricingEngineLookup =
+      PricingEngineProxy::getPricesForDomainName;
+
+  /** The prices that have already been looked up in this flow, by domain name and price time. */
+  private final Table<String, DateTime, DomainPrices> pricesByNameAndTime =
+      HashBasedTable.create();
+
   @Inject
   DomainPricingLogic() {}
 
@@ -75,7 +92,7 @@ public final class DomainPricingLogic {
     if (isAnchorTenant) {
       createFeeOrCredit = Fee.create(zeroInCurrency(currency), FeeType.CREATE, false);
     } else {
-      DomainPrices domainPrices = getPricesForDomainName(domainName, dateTime);
+      DomainPrices domainPrices = getDomainPrices(domainName, dateTime);
       Money domainCreateCost =
           getDomainCreateCostWithDiscount(domainPrices, years, allocationToken);
       createFeeOrCredit =
@@ -106,7 +123,7 @@ public final class DomainPricingLogic {
   @SuppressWarnings("unused")
   FeesAndCredits getRenewPrice(Registry registry, String domainName, DateTime dateTime, int years)
       throws EppException {
-    DomainPrices domainPrices = getPricesForDomainName(domainName, dateTime);
+    DomainPrices domainPrices = getDomainPrices(domainName, dateTime);
     BigDecimal renewCost = domainPrices.getRenewCost().multipliedBy(years).getAmount();
     return customLogic.customizeRenewPrice(
         RenewPriceParameters.newBuilder()
@@ -126,7 +143,7 @@ public final class DomainPricingLogic {
   FeesAndCredits getRestorePrice(
       Registry registry, String domainName, DateTime dateTime, boolean isExpired)
       throws EppException {
-    DomainPrices domainPrices = getPricesForDomainName(domainName, dateTime);
+    DomainPrices domainPrices = getDomainPrices(domainName, dateTime);
     FeesAndCredits.Builder feesAndCredits =
         new FeesAndCredits.Builder()
             .setCurrency(registry.getCurrency())
@@ -149,7 +166,7 @@ public final class DomainPricingLogic {
   /** Returns a new transfer price for the pricer. */
   FeesAndCredits getTransferPrice(Registry registry, String domainName, DateTime dateTime)
       throws EppException {
-    DomainPrices domainPrices = getPricesForDomainName(domainName, dateTime);
+    DomainPrices domainPrices = getDomainPrices(domainName, dateTime);
     return customLogic.customizeTransferPrice(
         TransferPriceParameters.newBuilder()
             .setFeesAndCredits(
@@ -185,6 +202,16 @@ public final class DomainPricingLogic {
             .build());
   }
 
+  /** Returns the prices for the given domain name, looking them up only once per flow. */
+  private DomainPrices getDomainPrices(String domainName, DateTime dateTime) {
+    DomainPrices prices = pricesByNameAndTime.get(domainName, dateTime);
+    if (prices == null) {
+      prices = pricingEngineLookup.apply(domainName, dateTime);
+      pricesByNameAndTime.put(domainName, dateTime, prices);
+    }
+    return prices;
+  }
+
   /** Returns the domain create cost with allocation-token-related discounts applied. */
   private Money getDomainCreateCostWithDiscount(
       DomainPrices domainPrices, int years, Optional<AllocationToken> allocationToken)
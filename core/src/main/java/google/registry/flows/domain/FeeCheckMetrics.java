@@ -0,0 +1,69 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.domain;
+
+import static com.google.monitoring.metrics.EventMetric.DEFAULT_FITTER;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.FibonacciFitter;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import javax.inject.Inject;
+
+/** Instrumentation for the pricing of fee extension queries in domain checks. */
+public class FeeCheckMetrics {
+
+  /** The TLD label value used for checks of domain names on more than one TLD. */
+  static final String MULTIPLE_TLDS = "(multiple)";
+
+  private static final ImmutableSet<LabelDescriptor> LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("tld", "The TLD of the fee checked domain names."));
+
+  /** A Fibonacci fitter, which gives good resolution for the small counts that are typical. */
+  private static final DistributionFitter FITTER_PRICE_COUNT = FibonacciFitter.create(10000);
+
+  @VisibleForTesting
+  static final EventMetric pricingTime =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/domain_check/fee_pricing_time",
+              "Time taken to price all of the fee queries of a domain check",
+              "milliseconds",
+              LABEL_DESCRIPTORS,
+              DEFAULT_FITTER);
+
+  @VisibleForTesting
+  static final EventMetric priceCount =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/epp/domain_check/fee_price_count",
+              "Number of prices computed for the fee queries of a domain check",
+              "count",
+              LABEL_DESCRIPTORS,
+              FITTER_PRICE_COUNT);
+
+  @Inject
+  FeeCheckMetrics() {}
+
+  /** Records the pricing of all of the fee queries of a single domain check. */
+  void recordPricing(ImmutableSet<String> tlds, int prices, long elapsedMillis) {
+    String tld = (tlds.size() == 1) ? tlds.iterator().next() : MULTIPLE_TLDS;
+    pricingTime.record(elapsedMillis, tld);
+    priceCount.record(prices, tld);
+  }
+}
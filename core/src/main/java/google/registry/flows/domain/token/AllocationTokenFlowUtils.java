@@ -15,7 +15,6 @@
 package google.registry.flows.domain.token;
 
 import static com.google.common.base.Preconditions.checkArgument;
-import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
@@ -84,16 +83,38 @@ public class AllocationTokenFlowUtils {
           ImmutableMap.copyOf(Maps.toMap(domainNames, ignored -> e.getMessage())));
     }
 
+    // The registrar and promotion checks don't depend on the domain name, so only do them once
+    Optional<String> registrarError = Optional.empty();
+    try {
+      validateTokenForRegistrar(tokenEntity, clientId);
+    } catch (EppException e) {
+      registrarError = Optional.of(e.getMessage());
+    }
+    Optional<String> promotionError = Optional.empty();
+    try {
+      validateTokenInPromotion(tokenEntity, now);
+    } catch (EppException e) {
+      promotionError = Optional.of(e.getMessage());
+    }
+
     // If the token is only invalid for some domain names (e.g. an invalid TLD), include those error
     // results for only those domain names
     ImmutableList.Builder<InternetDomainName> validDomainNames = new ImmutableList.Builder<>();
     ImmutableMap.Builder<InternetDomainName, String> resultsBuilder = new ImmutableMap.Builder<>();
     for (InternetDomainName domainName : domainNames) {
-      try {
-        validateToken(domainName, tokenEntity, clientId, now);
+      Optional<String> error = registrarError;
+      if (!error.isPresent()) {
+        try {
+          validateTokenForDomainName(domainName, tokenEntity);
+          error = promotionError;
+        } catch (EppException e) {
+          error = Optional.of(e.getMessage());
+        }
+      }
+      if (error.isPresent()) {
+        resultsBuilder.put(domainName, error.get());
+      } else {
         validDomainNames.add(domainName);
-      } catch (EppException e) {
-        resultsBuilder.put(domainName, e.getMessage());
       }
     }
 
@@ -124,10 +145,21 @@ public class AllocationTokenFlowUtils {
   private void validateToken(
       InternetDomainName domainName, AllocationToken token, String clientId, DateTime now)
       throws EppException {
+    validateTokenForRegistrar(token, clientId);
+    validateTokenForDomainName(domainName, token);
+    validateTokenInPromotion(token, now);
+  }
+
+  private static void validateTokenForRegistrar(AllocationToken token, String clientId)
+      throws EppException {
     if (!token.getAllowedRegistrarIds().isEmpty()
         && !token.getAllowedRegistrarIds().contains(clientId)) {
       throw new AllocationTokenNotValidForRegistrarException();
     }
+  }
+
+  private static void validateTokenForDomainName(
+      InternetDomainName domainName, AllocationToken token) throws EppException {
     if (!token.getAllowedTlds().isEmpty()
         && !token.getAllowedTlds().contains(domainName.parent().toString())) {
       throw new AllocationTokenNotValidForTldException();
@@ -136,6 +168,10 @@ public class AllocationTokenFlowUtils {
         && !token.getDomainName().get().equals(domainName.toString())) {
       throw new AllocationTokenNotValidForDomainException();
     }
+  }
+
+  private static void validateTokenInPromotion(AllocationToken token, DateTime now)
+      throws EppException {
     // Tokens without status transitions will just have a single-entry NOT_STARTED map, so only
     // check the status transitions map if it's non-trivial.
     if (token.getTokenStatusTransitions().size() > 1
@@ -144,7 +180,12 @@ public class AllocationTokenFlowUtils {
     }
   }
 
-  /** Loads a given token and validates that it is not redeemed */
+  /**
+   * Loads a given token and validates that it is not redeemed.
+   *
+   * <p>Unlimited-use tokens may come from an in-memory cache, see {@link
+   * AllocationToken#loadCached}.
+   */
   private AllocationToken loadToken(String token) throws EppException {
     if (Strings.isNullOrEmpty(token)) {
       // We load the token directly from the input XML. If it's null or empty we should throw
@@ -152,8 +193,7 @@ public class AllocationTokenFlowUtils {
       // See https://tools.ietf.org/html/draft-ietf-regext-allocation-token-04#section-2.1
       throw new InvalidAllocationTokenException();
     }
-    Optional<AllocationToken> maybeTokenEntity =
-        tm().loadByKeyIfPresent(VKey.create(AllocationToken.class, token));
+    Optional<AllocationToken> maybeTokenEntity = AllocationToken.loadCached(token);
     if (!maybeTokenEntity.isPresent()) {
       throw new InvalidAllocationTokenException();
     }
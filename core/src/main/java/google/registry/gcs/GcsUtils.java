@@ -98,6 +98,16 @@ public class GcsUtils {
     return builder.build();
   }
 
+  /** Returns {@code true} if a file exists on Google Cloud Storage, even if it's empty. */
+  public boolean exists(GcsFilename file) {
+    try {
+      return gcsService.getMetadata(file) != null;
+    } catch (IOException e) {
+      logger.atWarning().withCause(e).log("Failed to check if GCS file exists");
+      return false;
+    }
+  }
+
   /** Returns {@code true} if a file exists and is non-empty on Google Cloud Storage. */
   public boolean existsAndNotEmpty(GcsFilename file) {
     GcsFileMetadata metadata;
@@ -15,16 +15,26 @@
 package google.registry.model;
 
 import static com.google.common.base.Suppliers.memoizeWithExpiration;
+import static com.google.common.base.Throwables.throwIfUnchecked;
 import static google.registry.config.RegistryConfig.getSingletonCacheRefreshDuration;
 import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static org.joda.time.Duration.ZERO;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
+import com.google.common.base.Ticker;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import org.joda.time.Duration;
 
 /** Utility methods related to caching Datastore entities. */
 public class CacheUtils {
 
+  /** The key of the single entry of the caches backing {@link #tryMemoizeWithRefresh}. */
+  private static final Object SINGLETON_KEY = new Object();
+
   /**
    * Memoize a supplier, with a short expiration specified in the environment config.
    *
@@ -45,4 +55,61 @@ public class CacheUtils {
         ? original
         : memoizeWithExpiration(original, expiration.getMillis(), MILLISECONDS);
   }
+
+  /**
+   * Memoize a supplier, refreshing it after the short expiration specified in the environment
+   * config.
+   *
+   * <p>Unlike {@link #memoizeWithShortExpiration}, once the value has been loaded only the first
+   * caller after it goes stale waits for it to be reloaded, while concurrent callers keep getting
+   * the previous value. If the reload fails, the previous value is kept until the next caller tries
+   * again. Use this for values that are read by nearly every request, where a reload that blocks
+   * every request thread on an instance shows up as a latency spike.
+   */
+  public static <T> Supplier<T> memoizeWithShortRefresh(Supplier<T> original) {
+    return tryMemoizeWithRefresh(getSingletonCacheRefreshDuration(), original);
+  }
+
+  /**
+   * Memoize a supplier, refreshing it after the given duration as described in {@link
+   * #memoizeWithShortRefresh}. If the duration is zero (likely happens in a unit test), it returns
+   * the original supplier.
+   */
+  public static <T> Supplier<T> tryMemoizeWithRefresh(Duration refresh, Supplier<T> original) {
+    return tryMemoizeWithRefresh(refresh, original, Ticker.systemTicker());
+  }
+
+  @VisibleForTesting
+  static <T> Supplier<T> tryMemoizeWithRefresh(
+      Duration refresh, Supplier<T> original, Ticker ticker) {
+    if (refresh.isEqual(ZERO)) {
+      return original;
+    }
+    LoadingCache<Object, T> cache =
+        CacheBuilder.newBuilder()
+            .refreshAfterWrite(java.time.Duration.ofMillis(refresh.getMillis()))
+            .ticker(ticker)
+            .build(CacheLoader.from(original));
+    return () -> {
+      try {
+        return cache.getUnchecked(SINGLETON_KEY);
+      } catch (UncheckedExecutionException e) {
+        throwIfUnchecked(e.getCause());
+        throw e;
+      }
+    };
+  }
+
+  /**
+   * Returns a {@link CacheBuilder} whose entries are refreshed after the short expiration specified
+   * in the environment config, as described in {@link #memoizeWithShortRefresh}. If the expiration
+   * is zero (likely happens in a unit test), entries aren't cached at all.
+   */
+  public static CacheBuilder<Object, Object> newCacheBuilderWithShortRefresh() {
+    java.time.Duration refresh =
+        java.time.Duration.ofMillis(getSingletonCacheRefreshDuration().getMillis());
+    return refresh.isZero()
+        ? CacheBuilder.newBuilder().expireAfterWrite(refresh)
+        : CacheBuilder.newBuilder().refreshAfterWrite(refresh);
+  }
 }
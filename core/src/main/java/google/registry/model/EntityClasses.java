@@ -46,6 +46,7 @@ import google.registry.model.reporting.HistoryEntry;
 import google.registry.model.server.KmsSecret;
 import google.registry.model.server.KmsSecretRevision;
 import google.registry.model.server.Lock;
+import google.registry.model.server.PendingTask;
 import google.registry.model.server.ServerSecret;
 import google.registry.model.smd.SignedMarkRevocationList;
 import google.registry.model.tmch.ClaimsListShard;
@@ -91,6 +92,7 @@ public final class EntityClasses {
           KmsSecret.class,
           KmsSecretRevision.class,
           Lock.class,
+          PendingTask.class,
           PollMessage.class,
           PollMessage.Autorenew.class,
           PollMessage.OneTime.class,
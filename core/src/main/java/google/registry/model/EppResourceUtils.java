@@ -15,6 +15,7 @@
 package google.registry.model;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Suppliers.memoize;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
@@ -24,7 +25,9 @@ import static google.registry.util.DateTimeUtils.isAtOrAfter;
 import static google.registry.util.DateTimeUtils.isBeforeOrAt;
 import static google.registry.util.DateTimeUtils.latestOf;
 
+import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.flogger.FluentLogger;
 import com.googlecode.objectify.Key;
@@ -46,7 +49,9 @@ import google.registry.model.transfer.DomainTransferData;
 import google.registry.model.transfer.TransferData;
 import google.registry.model.transfer.TransferStatus;
 import google.registry.persistence.VKey;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
 import java.util.function.Function;
@@ -309,55 +314,89 @@ public final class EppResourceUtils {
    */
   public static <T extends EppResource>
       Result<T> loadAtPointInTime(final T resource, final DateTime timestamp) {
-    // If we're before the resource creation time, don't try to find a "most recent revision".
-    if (timestamp.isBefore(resource.getCreationTime())) {
-      return new ResultNow<>(null);
-    }
-    // If the resource was not modified after the requested time, then use it as-is, otherwise find
-    // the most recent revision asynchronously, and return an async result that wraps that revision
-    // and returns it projected forward to exactly the desired timestamp, or null if the resource is
-    // deleted at that timestamp.
-    final Result<T> loadResult =
-        isAtOrAfter(timestamp, resource.getUpdateTimestamp().getTimestamp())
-            ? new ResultNow<>(resource)
-            : loadMostRecentRevisionAtTime(resource, timestamp);
-    return () -> {
-      T loadedResource = loadResult.now();
-      return (loadedResource == null) ? null
-          : (isActive(loadedResource, timestamp)
-              ? cloneProjectedAtTime(loadedResource, timestamp)
-              : null);
-    };
+    return loadAtPointsInTime(resource, ImmutableSet.of(timestamp)).get(timestamp);
   }
 
   /**
-   * Returns an asynchronous result holding the most recent Datastore revision of a given
-   * EppResource before or at the provided timestamp using the EppResource revisions map, falling
-   * back to using the earliest revision or the resource as-is if there are no revisions.
+   * Rewinds an {@link EppResource} object to each of several points in time.
+   *
+   * <p>This is equivalent to calling {@link #loadAtPointInTime} once for each timestamp, except
+   * that timestamps which resolve to the same Datastore revision share a single asynchronous key
+   * fetch, and that revision is only deserialized once. This matters for bulk jobs like RDE staging
+   * that need the same resource at many nearby watermarks.
    *
+   * @return a map from each of {@code timestamps} to an asynchronous operation returning resource
+   *     at that time, or {@code null} if resource is deleted or not yet created
    * @see #loadAtPointInTime(EppResource, DateTime)
    */
-  private static <T extends EppResource> Result<T> loadMostRecentRevisionAtTime(
-      final T resource, final DateTime timestamp) {
-    final Key<T> resourceKey = Key.create(resource);
-    final Key<CommitLogManifest> revision = findMostRecentRevisionAtTime(resource, timestamp);
-    if (revision == null) {
-      logger.atSevere().log("No revision found for %s, falling back to resource.", resourceKey);
-      return new ResultNow<>(resource);
+  public static <T extends EppResource> ImmutableMap<DateTime, Result<T>> loadAtPointsInTime(
+      final T resource, ImmutableSet<DateTime> timestamps) {
+    Map<Key<CommitLogManifest>, Result<T>> revisionLoads = new HashMap<>();
+    ImmutableMap.Builder<DateTime, Result<T>> results = new ImmutableMap.Builder<>();
+    for (DateTime timestamp : timestamps) {
+      // If we're before the resource creation time, don't try to find a "most recent revision".
+      if (timestamp.isBefore(resource.getCreationTime())) {
+        results.put(timestamp, new ResultNow<>(null));
+        continue;
+      }
+      // If the resource was not modified after the requested time, then use it as-is, otherwise
+      // find the most recent revision asynchronously, and return an async result that wraps that
+      // revision and returns it projected forward to exactly the desired timestamp, or null if the
+      // resource is deleted at that timestamp.
+      final Result<T> loadResult;
+      if (isAtOrAfter(timestamp, resource.getUpdateTimestamp().getTimestamp())) {
+        loadResult = new ResultNow<>(resource);
+      } else {
+        Key<CommitLogManifest> revision = findMostRecentRevisionAtTime(resource, timestamp);
+        loadResult =
+            (revision == null)
+                ? fallBackToResource(resource)
+                : revisionLoads.computeIfAbsent(revision, r -> loadRevision(resource, r));
+      }
+      results.put(
+          timestamp,
+          () -> {
+            T loadedResource = loadResult.now();
+            return (loadedResource == null)
+                ? null
+                : (isActive(loadedResource, timestamp)
+                    ? cloneProjectedAtTime(loadedResource, timestamp)
+                    : null);
+          });
     }
+    return results.build();
+  }
+
+  private static <T extends EppResource> Result<T> fallBackToResource(T resource) {
+    logger.atSevere().log(
+        "No revision found for %s, falling back to resource.", Key.create(resource));
+    return new ResultNow<>(resource);
+  }
+
+  /**
+   * Returns an asynchronous, memoized result holding the Datastore revision of a given EppResource
+   * stored in the given commit log, falling back to the resource as-is if it can't be found.
+   *
+   * @see #loadAtPointsInTime(EppResource, ImmutableSet)
+   */
+  private static <T extends EppResource> Result<T> loadRevision(
+      final T resource, final Key<CommitLogManifest> revision) {
+    final Key<T> resourceKey = Key.create(resource);
     final Result<CommitLogMutation> mutationResult =
         ofy().load().key(CommitLogMutation.createKey(revision, resourceKey));
-    return () -> {
-      CommitLogMutation mutation = mutationResult.now();
-      if (mutation != null) {
-        return ofy().load().fromEntity(mutation.getEntity());
-      }
-      logger.atSevere().log(
-          "Couldn't load mutation for revision at %s for %s, falling back to resource."
-              + " Revision: %s",
-          timestamp, resourceKey, revision);
-      return resource;
-    };
+    Supplier<T> loadedResource =
+        memoize(
+            () -> {
+              CommitLogMutation mutation = mutationResult.now();
+              if (mutation != null) {
+                return ofy().load().fromEntity(mutation.getEntity());
+              }
+              logger.atSevere().log(
+                  "Couldn't load mutation for %s, falling back to resource. Revision: %s",
+                  resourceKey, revision);
+              return resource;
+            });
+    return loadedResource::get;
   }
 
   @Nullable
@@ -84,6 +84,13 @@ public class Cursor extends ImmutableObject implements DatastoreOnlyEntity {
      */
     SYNC_REGISTRAR_SHEET(EntityGroupRoot.class),
 
+    /**
+     * Cursor for incremental exports by {@link google.registry.export.ExportDomainListsAction}.
+     * The DateTime stored is the time as of which the TLD's exported domain list was last brought
+     * up to date.
+     */
+    EXPORT_DOMAIN_LISTS(Registry.class),
+
     /** Cursor for tracking monthly uploads of ICANN transaction reports. */
     ICANN_UPLOAD_TX(Registry.class),
 
@@ -59,7 +59,11 @@ import org.joda.time.DateTime;
       @Index(columnList = "deletionTime"),
       @Index(columnList = "domainName"),
       @Index(columnList = "tld"),
-      @Index(columnList = "autorenewEndTime")
+      @Index(columnList = "autorenewEndTime"),
+      @Index(name = "domain_admin_contact_idx", columnList = "adminContact"),
+      @Index(name = "domain_billing_contact_idx", columnList = "billingContact"),
+      @Index(name = "domain_registrant_contact_idx", columnList = "registrantContact"),
+      @Index(name = "domain_tech_contact_idx", columnList = "techContact")
     })
 @WithStringVKey
 @ExternalMessagingName("domain")
@@ -77,7 +81,10 @@ public class DomainBase extends DomainContent
   @ElementCollection
   @JoinTable(
       name = "DomainHost",
-      indexes = {@Index(columnList = "domain_repo_id,host_repo_id", unique = true)})
+      indexes = {
+        @Index(columnList = "domain_repo_id,host_repo_id", unique = true),
+        @Index(name = "domainhost_host_repo_id_idx", columnList = "host_repo_id")
+      })
   @Access(AccessType.PROPERTY)
   @Column(name = "host_repo_id")
   public Set<VKey<HostResource>> getNsHosts() {
@@ -16,16 +16,21 @@ package google.registry.model.domain.token;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static google.registry.config.RegistryConfig.getAllocationTokenCachingDuration;
+import static google.registry.config.RegistryConfig.getAllocationTokenMaxCachedEntries;
 import static google.registry.model.domain.token.AllocationToken.TokenStatus.CANCELLED;
 import static google.registry.model.domain.token.AllocationToken.TokenStatus.ENDED;
 import static google.registry.model.domain.token.AllocationToken.TokenStatus.NOT_STARTED;
 import static google.registry.model.domain.token.AllocationToken.TokenStatus.VALID;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.util.CollectionUtils.forceEmptyToNull;
 import static google.registry.util.CollectionUtils.nullToEmptyImmutableCopy;
 import static google.registry.util.PreconditionsUtils.checkArgumentNotNull;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Strings;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
 import com.google.common.collect.ImmutableMultimap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSortedMap;
@@ -51,6 +56,7 @@ import google.registry.persistence.DomainHistoryVKey;
 import google.registry.persistence.VKey;
 import google.registry.persistence.WithStringVKey;
 import google.registry.schema.replay.DatastoreAndSqlEntity;
+import google.registry.util.NonFinalForTesting;
 import java.util.Optional;
 import java.util.Set;
 import javax.annotation.Nullable;
@@ -61,6 +67,7 @@ import javax.persistence.EnumType;
 import javax.persistence.Enumerated;
 import javax.persistence.Table;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 
 /** An entity representing an allocation token. */
 @ReportedOn
@@ -243,6 +250,49 @@ public class AllocationToken extends BackupGroupRoot implements Buildable, Datas
     return VKey.create(AllocationToken.class, getToken(), Key.create(this));
   }
 
+  /**
+   * A cache of the unlimited-use tokens that have been loaded, keyed by token string.
+   *
+   * <p>Only unlimited-use tokens are cached, since they are never modified by flows, and the same
+   * few promotional tokens are used over and over during a campaign. Single-use tokens are always
+   * loaded, so that their redemption stays transactional. Changes made to a cached token by the
+   * {@code nomulus} tool take effect once the cached copy expires.
+   */
+  @NonFinalForTesting
+  private static Cache<String, AllocationToken> unlimitedUseTokenCache =
+      createUnlimitedUseTokenCache(getAllocationTokenCachingDuration());
+
+  private static Cache<String, AllocationToken> createUnlimitedUseTokenCache(Duration expiry) {
+    return CacheBuilder.newBuilder()
+        .expireAfterWrite(java.time.Duration.ofMillis(expiry.getMillis()))
+        .maximumSize(getAllocationTokenMaxCachedEntries())
+        .build();
+  }
+
+  @VisibleForTesting
+  public static void setUnlimitedUseTokenCacheForTest(Optional<Duration> expiry) {
+    Duration effectiveExpiry = expiry.orElse(getAllocationTokenCachingDuration());
+    unlimitedUseTokenCache = createUnlimitedUseTokenCache(effectiveExpiry);
+  }
+
+  /**
+   * Loads the given token, using the cache if it is an unlimited-use token.
+   *
+   * <p>Tokens that don't exist aren't cached, so a newly created token can be used right away.
+   */
+  public static Optional<AllocationToken> loadCached(String token) {
+    AllocationToken cachedToken = unlimitedUseTokenCache.getIfPresent(token);
+    if (cachedToken != null) {
+      return Optional.of(cachedToken);
+    }
+    Optional<AllocationToken> loadedToken =
+        tm().loadByKeyIfPresent(VKey.create(AllocationToken.class, token));
+    loadedToken
+        .filter(tokenEntity -> TokenType.UNLIMITED_USE.equals(tokenEntity.getTokenType()))
+        .ifPresent(tokenEntity -> unlimitedUseTokenCache.put(token, tokenEntity));
+    return loadedToken;
+  }
+
   @Override
   public Builder asBuilder() {
     return new Builder(clone(this));
@@ -28,7 +28,7 @@ import static com.google.common.collect.Ordering.natural;
 import static com.google.common.collect.Sets.immutableEnumSet;
 import static com.google.common.io.BaseEncoding.base64;
 import static google.registry.config.RegistryConfig.getDefaultRegistrarWhoisServer;
-import static google.registry.model.CacheUtils.memoizeWithShortExpiration;
+import static google.registry.model.CacheUtils.memoizeWithShortRefresh;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.model.registry.Registries.assertTldsExist;
@@ -225,7 +225,7 @@ public class Registrar extends ImmutableObject
    * query inside an unrelated client-affecting transaction.
    */
   private static final Supplier<ImmutableMap<String, Registrar>> CACHE_BY_CLIENT_ID =
-      memoizeWithShortExpiration(
+      memoizeWithShortRefresh(
           () -> tm().doTransactionless(() -> Maps.uniqueIndex(loadAll(), Registrar::getClientId)));
 
   @Parent @Transient Key<EntityGroupRoot> parent = getCrossTldKey();
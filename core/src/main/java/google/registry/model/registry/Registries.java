@@ -21,7 +21,7 @@ import static com.google.common.base.Predicates.not;
 import static com.google.common.base.Strings.emptyToNull;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static com.google.common.collect.Maps.filterValues;
-import static google.registry.model.CacheUtils.memoizeWithShortExpiration;
+import static google.registry.model.CacheUtils.memoizeWithShortRefresh;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
@@ -54,7 +54,7 @@ public final class Registries {
    * query inside an unrelated client-affecting transaction.
    */
   private static Supplier<ImmutableMap<String, TldType>> createFreshCache() {
-    return memoizeWithShortExpiration(
+    return memoizeWithShortRefresh(
         () ->
             tm().doTransactionless(
                     () -> {
@@ -0,0 +1,130 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry.label;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+import com.google.auto.value.AutoValue;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import google.registry.model.registry.label.DomainLabelMetrics.MetricsReservedListMatch;
+import google.registry.model.registry.label.ReservedList.ReservedListEntry;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.function.Function;
+
+/**
+ * The reserved lists of a TLD, merged into a single index from each label to its reservations.
+ *
+ * <p>Looking up a label costs a single hash lookup and returns precomputed sets, instead of a
+ * lookup in each of the TLD's lists. An instance is immutable, and is replaced whenever the TLD's
+ * lists or any of their loaded revisions change; see {@link #isCompiledFrom}.
+ */
+final class CompiledReservedLists {
+
+  private static final Reservations NO_RESERVATIONS =
+      Reservations.create(ImmutableSet.of(), ImmutableSet.of());
+
+  private final ImmutableSet<Key<ReservedList>> listKeys;
+  private final ImmutableList<ReservedList> lists;
+  private final ImmutableMap<String, Reservations> reservationsByLabel;
+
+  private CompiledReservedLists(
+      ImmutableSet<Key<ReservedList>> listKeys,
+      ImmutableList<ReservedList> lists,
+      ImmutableMap<String, Reservations> reservationsByLabel) {
+    this.listKeys = listKeys;
+    this.lists = lists;
+    this.reservationsByLabel = reservationsByLabel;
+  }
+
+  /**
+   * Merges the given reserved lists, which must have been loaded for the given keys in the same
+   * order.
+   */
+  static CompiledReservedLists compile(
+      ImmutableSet<Key<ReservedList>> listKeys, ImmutableList<ReservedList> lists) {
+    checkArgument(
+        listKeys.size() == lists.size(),
+        "Expected %s reserved lists, got %s",
+        listKeys.size(),
+        lists.size());
+    Map<String, ImmutableSet.Builder<ReservationType>> typesByLabel = new HashMap<>();
+    Map<String, ImmutableSet.Builder<MetricsReservedListMatch>> matchesByLabel = new HashMap<>();
+    for (ReservedList list : lists) {
+      for (ReservedListEntry entry : list.getReservedListEntries().values()) {
+        typesByLabel
+            .computeIfAbsent(entry.getLabel(), label -> new ImmutableSet.Builder<>())
+            .add(entry.getValue());
+        matchesByLabel
+            .computeIfAbsent(entry.getLabel(), label -> new ImmutableSet.Builder<>())
+            .add(MetricsReservedListMatch.create(list.getName(), entry.getValue()));
+      }
+    }
+    ImmutableMap.Builder<String, Reservations> reservationsByLabel = new ImmutableMap.Builder<>();
+    typesByLabel.forEach(
+        (label, types) ->
+            reservationsByLabel.put(
+                label, Reservations.create(types.build(), matchesByLabel.get(label).build())));
+    return new CompiledReservedLists(listKeys, lists, reservationsByLabel.build());
+  }
+
+  /**
+   * Returns whether this was compiled from the lists with the given keys, and from the same loaded
+   * revisions of them as returned by {@code listLoader}.
+   *
+   * <p>Loaded revisions are compared by identity, so a list that was reloaded is always recompiled,
+   * even if it didn't change.
+   */
+  boolean isCompiledFrom(
+      ImmutableSet<Key<ReservedList>> currentListKeys,
+      Function<Key<ReservedList>, ReservedList> listLoader) {
+    if (!listKeys.equals(currentListKeys)) {
+      return false;
+    }
+    Iterator<ReservedList> compiledLists = lists.iterator();
+    for (Key<ReservedList> listKey : listKeys) {
+      if (listLoader.apply(listKey) != compiledLists.next()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  /** Returns the reservations of the given label, which are empty if it isn't reserved. */
+  Reservations get(String label) {
+    return reservationsByLabel.getOrDefault(label, NO_RESERVATIONS);
+  }
+
+  /** The reservations of a label across all of a TLD's reserved lists. */
+  @AutoValue
+  abstract static class Reservations {
+
+    /** The distinct reservation types of the label. */
+    abstract ImmutableSet<ReservationType> reservationTypes();
+
+    /** The matches of the label to record in {@link DomainLabelMetrics}. */
+    abstract ImmutableSet<MetricsReservedListMatch> metricMatches();
+
+    static Reservations create(
+        ImmutableSet<ReservationType> reservationTypes,
+        ImmutableSet<MetricsReservedListMatch> metricMatches) {
+      return new AutoValue_CompiledReservedLists_Reservations(reservationTypes, metricMatches);
+    }
+  }
+}
@@ -27,19 +27,16 @@ class DomainLabelMetrics {
 
   /** Possible premium list check outcomes. */
   enum PremiumListCheckOutcome {
-    /** Bloom filter knows it is not premium */
-    BLOOM_FILTER_NEGATIVE,
-
-    /** Bloom filter thinks it might be premium, but it was already negatively cached */
+    /** Not premium, and the price table was already in the cache */
     CACHED_NEGATIVE,
 
-    /** Bloom filter thinks it might be premium, and it is, and was already in the cache */
+    /** Premium, and the price table was already in the cache */
     CACHED_POSITIVE,
 
-    /** Bloom filter thinks it might be premium, but it is not (though wasn't in the cache) */
+    /** Not premium, and the price table had to be loaded */
     UNCACHED_NEGATIVE,
 
-    /** Bloom filter thinks it might be premium, and it is, but wasn't in the cache */
+    /** Premium, and the price table had to be loaded */
     UNCACHED_POSITIVE
   }
 
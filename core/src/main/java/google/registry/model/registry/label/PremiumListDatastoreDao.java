@@ -22,7 +22,6 @@ import static google.registry.config.RegistryConfig.getSingletonCachePersistDura
 import static google.registry.config.RegistryConfig.getStaticPremiumListMaxCachedEntries;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.ObjectifyService.ofy;
-import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.BLOOM_FILTER_NEGATIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.CACHED_NEGATIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.CACHED_POSITIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.UNCACHED_NEGATIVE;
@@ -102,63 +101,48 @@ public class PremiumListDatastoreDao {
   }
 
   /**
-   * In-memory cache for {@link PremiumListRevision}s, used for retrieving Bloom filters quickly.
-   *
-   * <p>This is cached for a long duration (essentially indefinitely) because a given {@link
-   * PremiumListRevision} is immutable and cannot ever be changed once created, so its cache need
-   * not ever expire.
-   */
-  static final LoadingCache<Key<PremiumListRevision>, PremiumListRevision>
-      premiumListRevisionsCache =
-          CacheBuilder.newBuilder()
-              .expireAfterWrite(
-                  java.time.Duration.ofMillis(getSingletonCachePersistDuration().getMillis()))
-              .build(
-                  new CacheLoader<Key<PremiumListRevision>, PremiumListRevision>() {
-                    @Override
-                    public PremiumListRevision load(final Key<PremiumListRevision> revisionKey) {
-                      return ofyTm().doTransactionless(() -> ofy().load().key(revisionKey).now());
-                    }
-                  });
-
-  /**
-   * In-memory cache for {@link PremiumListEntry}s for a given label and {@link PremiumListRevision}
-   *
-   * <p>Because the PremiumList itself makes up part of the PremiumListRevision's key, this is
-   * specific to a given premium list. Premium list entries might not be present, as indicated by
-   * the Optional wrapper, and we want to cache that as well.
+   * In-memory cache for the {@link PremiumPriceTable}s of {@link PremiumListRevision}s.
    *
    * <p>This is cached for a long duration (essentially indefinitely) because a given {@link
    * PremiumListRevision} and its child {@link PremiumListEntry}s are immutable and cannot ever be
    * changed once created, so the cache need not ever expire.
    *
-   * <p>A maximum size is set here on the cache because it can potentially grow too big to fit in
-   * memory if there are a large number of distinct premium list entries being queried (both those
-   * that exist, as well as those that might exist according to the Bloom filter, must be cached).
-   * The entries judged least likely to be accessed again will be evicted first.
+   * <p>The cache is bounded by the total number of entries in its tables, so that the tables of
+   * revisions that are no longer in use are evicted. Guava splits a cache's maximum weight evenly
+   * between its segments, so the cache has a single segment in order for the whole bound to be
+   * available to any one table. The bound must still be larger than the sum of the premium lists in
+   * use, or their tables would keep evicting each other and be rebuilt on lookups.
    */
   @NonFinalForTesting
-  static LoadingCache<Key<PremiumListEntry>, Optional<PremiumListEntry>> premiumListEntriesCache =
-      createPremiumListEntriesCache(getSingletonCachePersistDuration());
+  static LoadingCache<Key<PremiumListRevision>, PremiumPriceTable> priceTablesCache =
+      createPriceTablesCache(getSingletonCachePersistDuration());
 
   @VisibleForTesting
-  public static void setPremiumListEntriesCacheForTest(Optional<Duration> expiry) {
+  public static void setPriceTablesCacheForTest(Optional<Duration> expiry) {
     Duration effectiveExpiry = expiry.orElse(getSingletonCachePersistDuration());
-    premiumListEntriesCache = createPremiumListEntriesCache(effectiveExpiry);
+    priceTablesCache = createPriceTablesCache(effectiveExpiry);
+  }
+
+  @VisibleForTesting
+  static LoadingCache<Key<PremiumListRevision>, PremiumPriceTable> createPriceTablesCache(
+      Duration cachePersistDuration) {
+    return createPriceTablesCache(cachePersistDuration, getStaticPremiumListMaxCachedEntries());
   }
 
   @VisibleForTesting
-  static LoadingCache<Key<PremiumListEntry>, Optional<PremiumListEntry>>
-      createPremiumListEntriesCache(Duration cachePersistDuration) {
+  static LoadingCache<Key<PremiumListRevision>, PremiumPriceTable> createPriceTablesCache(
+      Duration cachePersistDuration, long maxCachedEntries) {
     return CacheBuilder.newBuilder()
         .expireAfterWrite(java.time.Duration.ofMillis(cachePersistDuration.getMillis()))
-        .maximumSize(getStaticPremiumListMaxCachedEntries())
+        // Reads don't lock, and tables are rarely loaded, so one segment adds little contention.
+        .concurrencyLevel(1)
+        .maximumWeight(maxCachedEntries)
+        .weigher((Key<PremiumListRevision> revisionKey, PremiumPriceTable table) -> table.size())
         .build(
-            new CacheLoader<Key<PremiumListEntry>, Optional<PremiumListEntry>>() {
+            new CacheLoader<Key<PremiumListRevision>, PremiumPriceTable>() {
               @Override
-              public Optional<PremiumListEntry> load(final Key<PremiumListEntry> entryKey) {
-                return ofyTm()
-                    .doTransactionless(() -> Optional.ofNullable(ofy().load().key(entryKey).now()));
+              public PremiumPriceTable load(final Key<PremiumListRevision> revisionKey) {
+                return ofyTm().doTransactionless(() -> loadPriceTableUncached(revisionKey));
               }
             });
   }
@@ -187,19 +171,19 @@ public class PremiumListDatastoreDao {
         return Optional.empty();
       }
     }
-    PremiumListRevision revision;
-    try {
-      revision = premiumListRevisionsCache.get(premiumList.getRevisionKey());
-    } catch (InvalidCacheLoadException | ExecutionException e) {
-      throw new RuntimeException(
-          "Could not load premium list revision " + premiumList.getRevisionKey(), e);
+    Key<PremiumListRevision> revisionKey = premiumList.getRevisionKey();
+    // getIfPresent() returns null if the key is not in the cache
+    PremiumPriceTable priceTable = priceTablesCache.getIfPresent(revisionKey);
+    boolean wasCached = priceTable != null;
+    if (!wasCached) {
+      try {
+        priceTable = priceTablesCache.get(revisionKey);
+      } catch (InvalidCacheLoadException | ExecutionException e) {
+        throw new RuntimeException("Could not load premium price table " + revisionKey, e);
+      }
     }
-    checkState(
-        revision.getProbablePremiumLabels() != null,
-        "Probable premium labels Bloom filter is null on revision '%s'",
-        premiumList.getRevisionKey());
 
-    CheckResults checkResults = checkStatus(revision, label);
+    CheckResults checkResults = checkStatus(priceTable, label, wasCached);
     DomainLabelMetrics.recordPremiumListCheckOutcome(
         tld,
         premiumList.getName(),
@@ -256,6 +240,7 @@ public class PremiumListDatastoreDao {
                       .build();
               ofy().save().entities(newList, newRevision);
               premiumListCache.invalidate(premiumList.getName());
+              priceTablesCache.invalidate(newRevisionKey);
               return newList;
             });
   }
@@ -270,11 +255,10 @@ public class PremiumListDatastoreDao {
             ofy().load().type(PremiumListEntry.class).ancestor(premiumList.revisionKey).keys(),
             TRANSACTION_BATCH_SIZE)) {
       ofyTm().transactNew(() -> ofy().delete().keys(batch));
-      batch.forEach(premiumListEntriesCache::invalidate);
     }
     ofyTm().transactNew(() -> ofy().delete().key(premiumList.getRevisionKey()));
     premiumListCache.invalidate(premiumList.getName());
-    premiumListRevisionsCache.invalidate(premiumList.getRevisionKey());
+    priceTablesCache.invalidate(premiumList.getRevisionKey());
   }
 
   /** Re-parents the given {@link PremiumListEntry}s on the given {@link PremiumListRevision}. */
@@ -320,33 +304,24 @@ public class PremiumListDatastoreDao {
         "Premium list creation time concurrently edited");
   }
 
-  private static CheckResults checkStatus(PremiumListRevision premiumListRevision, String label) {
-    if (!premiumListRevision.getProbablePremiumLabels().mightContain(label)) {
-      return CheckResults.create(BLOOM_FILTER_NEGATIVE, Optional.empty());
+  /** Loads all of the entries of the given revision into a {@link PremiumPriceTable}. */
+  private static PremiumPriceTable loadPriceTableUncached(Key<PremiumListRevision> revisionKey) {
+    PremiumPriceTable.Builder builder = new PremiumPriceTable.Builder();
+    for (PremiumListEntry entry :
+        ofy().load().type(PremiumListEntry.class).ancestor(revisionKey).iterable()) {
+      builder.put(entry.getLabel(), entry.getValue());
     }
+    return builder.build();
+  }
 
-    Key<PremiumListEntry> entryKey =
-        Key.create(Key.create(premiumListRevision), PremiumListEntry.class, label);
-    try {
-      // getIfPresent() returns null if the key is not in the cache
-      Optional<PremiumListEntry> entry = premiumListEntriesCache.getIfPresent(entryKey);
-      if (entry != null) {
-        if (entry.isPresent()) {
-          return CheckResults.create(CACHED_POSITIVE, Optional.of(entry.get().getValue()));
-        } else {
-          return CheckResults.create(CACHED_NEGATIVE, Optional.empty());
-        }
-      }
-
-      entry = premiumListEntriesCache.get(entryKey);
-      if (entry.isPresent()) {
-        return CheckResults.create(UNCACHED_POSITIVE, Optional.of(entry.get().getValue()));
-      } else {
-        return CheckResults.create(UNCACHED_NEGATIVE, Optional.empty());
-      }
-    } catch (InvalidCacheLoadException | ExecutionException e) {
-      throw new RuntimeException("Could not load premium list entry " + entryKey, e);
-    }
+  private static CheckResults checkStatus(
+      PremiumPriceTable priceTable, String label, boolean wasCached) {
+    Optional<Money> price = priceTable.getPrice(label);
+    PremiumListCheckOutcome checkOutcome =
+        price.isPresent()
+            ? (wasCached ? CACHED_POSITIVE : UNCACHED_POSITIVE)
+            : (wasCached ? CACHED_NEGATIVE : UNCACHED_NEGATIVE);
+    return CheckResults.create(checkOutcome, price);
   }
 
   /** Value type class used by {@link #checkStatus} to return the results of a premiumness check. */
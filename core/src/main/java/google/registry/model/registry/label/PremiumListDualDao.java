@@ -67,14 +67,7 @@ public class PremiumListDualDao {
       return Optional.empty();
     }
     String premiumListName = registry.getPremiumList().getName();
-    Optional<Money> primaryResult;
-    // TODO(gbrodman): Use Sarah's DB scheduler instead of this isOfy check
-    if (tm().isOfy()) {
-      primaryResult =
-          PremiumListDatastoreDao.getPremiumPrice(premiumListName, label, registry.getTldStr());
-    } else {
-      primaryResult = PremiumListSqlDao.getPremiumPrice(premiumListName, label);
-    }
+    Optional<Money> primaryResult = getPremiumPriceFromPrimary(label, registry);
     // Also load the value from the secondary DB, compare the two results, and log if different.
     // TODO(gbrodman): Use Sarah's DB scheduler instead of this isOfy check
     if (tm().isOfy()) {
@@ -112,6 +105,27 @@ public class PremiumListDualDao {
     return primaryResult;
   }
 
+  /**
+   * Returns the premium price for the specified label and registry from the primary database only.
+   *
+   * <p>Returns absent if the label is not premium or there is no premium list for this registry.
+   *
+   * <p>Unlike {@link #getPremiumPrice}, this doesn't also load the price from the secondary
+   * database to compare it, so it is only a lookup in the primary database's cached price table.
+   */
+  public static Optional<Money> getPremiumPriceFromPrimary(String label, Registry registry) {
+    if (registry.getPremiumList() == null) {
+      return Optional.empty();
+    }
+    String premiumListName = registry.getPremiumList().getName();
+    // TODO(gbrodman): Use Sarah's DB scheduler instead of this isOfy check
+    if (tm().isOfy()) {
+      return PremiumListDatastoreDao.getPremiumPrice(premiumListName, label, registry.getTldStr());
+    } else {
+      return PremiumListSqlDao.getPremiumPrice(premiumListName, label);
+    }
+  }
+
   /**
    * Saves the given list data to both primary and secondary databases.
    *
@@ -0,0 +1,160 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry.label;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkState;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.primitives.UnsignedBytes;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.joda.money.CurrencyUnit;
+import org.joda.money.Money;
+
+/**
+ * An immutable table of the prices of all of the labels in one revision of a premium list.
+ *
+ * <p>The labels are stored as UTF-8 in a single byte array, in sorted order, and the prices as
+ * amounts in their currencies' minor units. A table holds no objects per entry, so even very large
+ * lists take little memory and add nothing to garbage collection, and a lookup is a binary search
+ * that gives an exact answer without going to the database.
+ */
+public final class PremiumPriceTable {
+
+  /** The concatenated UTF-8 encodings of the labels, sorted by {@link #compareLabel}. */
+  private final byte[] labels;
+
+  /** The offset of each label in {@link #labels}, followed by the length of that array. */
+  private final int[] labelOffsets;
+
+  /** The price of each label, in the minor units of its currency. */
+  private final long[] amountsMinor;
+
+  /** The index of the currency of each label's price in {@link #currencies}. */
+  private final byte[] currencyIndexes;
+
+  private final CurrencyUnit[] currencies;
+
+  private PremiumPriceTable(
+      byte[] labels,
+      int[] labelOffsets,
+      long[] amountsMinor,
+      byte[] currencyIndexes,
+      CurrencyUnit[] currencies) {
+    this.labels = labels;
+    this.labelOffsets = labelOffsets;
+    this.amountsMinor = amountsMinor;
+    this.currencyIndexes = currencyIndexes;
+    this.currencies = currencies;
+  }
+
+  /** Returns the premium price of the given label, or absent if the label is not premium. */
+  public Optional<Money> getPrice(String label) {
+    byte[] encodedLabel = label.getBytes(UTF_8);
+    int low = 0;
+    int high = amountsMinor.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareLabel(middle, encodedLabel);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return Optional.of(
+            Money.ofMinor(currencies[currencyIndexes[middle]], amountsMinor[middle]));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Returns the number of labels in this table. */
+  public int size() {
+    return amountsMinor.length;
+  }
+
+  /** Compares the label at the given index with the given encoded label, byte by byte. */
+  private int compareLabel(int index, byte[] encodedLabel) {
+    int start = labelOffsets[index];
+    int length = labelOffsets[index + 1] - start;
+    int commonLength = Math.min(length, encodedLabel.length);
+    for (int i = 0; i < commonLength; i++) {
+      int comparison = UnsignedBytes.compare(labels[start + i], encodedLabel[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return length - encodedLabel.length;
+  }
+
+  /** A builder for constructing {@link PremiumPriceTable} objects. */
+  public static class Builder {
+
+    private final Map<String, Money> prices = new HashMap<>();
+
+    /** Adds the price of a label, which must not have been added already. */
+    public Builder put(String label, Money price) {
+      checkArgument(prices.put(label, price) == null, "Duplicate premium label %s", label);
+      return this;
+    }
+
+    public PremiumPriceTable build() {
+      List<byte[]> encodedLabels = new ArrayList<>(prices.size());
+      Map<byte[], Money> pricesByEncodedLabel = new HashMap<>();
+      int totalLength = 0;
+      for (Map.Entry<String, Money> entry : prices.entrySet()) {
+        byte[] encodedLabel = entry.getKey().getBytes(UTF_8);
+        encodedLabels.add(encodedLabel);
+        pricesByEncodedLabel.put(encodedLabel, entry.getValue());
+        totalLength += encodedLabel.length;
+      }
+      encodedLabels.sort(UnsignedBytes.lexicographicalComparator());
+
+      byte[] labels = new byte[totalLength];
+      int[] labelOffsets = new int[encodedLabels.size() + 1];
+      long[] amountsMinor = new long[encodedLabels.size()];
+      byte[] currencyIndexes = new byte[encodedLabels.size()];
+      List<CurrencyUnit> currencies = new ArrayList<>();
+      int offset = 0;
+      for (int i = 0; i < encodedLabels.size(); i++) {
+        byte[] encodedLabel = encodedLabels.get(i);
+        System.arraycopy(encodedLabel, 0, labels, offset, encodedLabel.length);
+        labelOffsets[i] = offset;
+        offset += encodedLabel.length;
+        // Arrays use identity for equals() and hashCode(), so this finds the exact array added.
+        Money price = pricesByEncodedLabel.get(encodedLabel);
+        amountsMinor[i] = price.getAmountMinorLong();
+        int currencyIndex = currencies.indexOf(price.getCurrencyUnit());
+        if (currencyIndex < 0) {
+          checkState(currencies.size() <= Byte.MAX_VALUE, "Too many currencies in premium list");
+          currencyIndex = currencies.size();
+          currencies.add(price.getCurrencyUnit());
+        }
+        currencyIndexes[i] = (byte) currencyIndex;
+      }
+      labelOffsets[encodedLabels.size()] = offset;
+      return new PremiumPriceTable(
+          labels,
+          labelOffsets,
+          amountsMinor,
+          currencyIndexes,
+          currencies.toArray(new CurrencyUnit[0]));
+    }
+  }
+}
@@ -16,12 +16,11 @@ package google.registry.model.registry.label;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
-import static com.google.common.collect.ImmutableSet.toImmutableSet;
+import static com.google.common.collect.ImmutableList.toImmutableList;
 import static google.registry.config.RegistryConfig.getDomainLabelListCacheDuration;
 import static google.registry.model.registry.label.ReservationType.FULLY_BLOCKED;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.util.CollectionUtils.nullToEmpty;
-import static org.joda.time.DateTimeZone.UTC;
 
 import com.google.common.base.Splitter;
 import com.google.common.cache.CacheBuilder;
@@ -37,11 +36,12 @@ import com.googlecode.objectify.annotation.Mapify;
 import com.googlecode.objectify.mapper.Mapper;
 import google.registry.model.Buildable;
 import google.registry.model.registry.Registry;
-import google.registry.model.registry.label.DomainLabelMetrics.MetricsReservedListMatch;
+import google.registry.model.registry.label.CompiledReservedLists.Reservations;
 import google.registry.schema.replay.NonReplicatedEntity;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
 import javax.annotation.Nullable;
 import javax.persistence.CollectionTable;
@@ -52,7 +52,6 @@ import javax.persistence.Index;
 import javax.persistence.JoinColumn;
 import javax.persistence.MapKeyColumn;
 import javax.persistence.Table;
-import org.joda.time.DateTime;
 
 /**
  * A list of reserved domain labels that are blocked from being registered for various reasons.
@@ -189,56 +188,55 @@ public final class ReservedList
     if (label.length() == 0) {
       return ImmutableSet.of(FULLY_BLOCKED);
     }
-    return getReservedListEntries(label, tld)
-        .stream()
-        .map(ReservedListEntry::getValue)
-        .collect(toImmutableSet());
+    return getReservations(label, tld).reservationTypes();
   }
 
   /**
-   * Helper function to retrieve the entries associated with this label and TLD, or an empty set if
-   * no such entry exists.
+   * Helper function to retrieve the reservations of this label across all of the TLD's reserved
+   * lists, which are empty if it isn't in any of them.
    */
-  private static ImmutableSet<ReservedListEntry> getReservedListEntries(String label, String tld) {
-    DateTime startTime = DateTime.now(UTC);
+  private static Reservations getReservations(String label, String tld) {
+    long startNanos = System.nanoTime();
     Registry registry = Registry.get(checkNotNull(tld, "tld must not be null"));
-    ImmutableSet.Builder<ReservedListEntry> entriesBuilder = new ImmutableSet.Builder<>();
-    ImmutableSet.Builder<MetricsReservedListMatch> metricMatchesBuilder =
-        new ImmutableSet.Builder<>();
-
-    // Loop through all reservation lists and add each of them.
-    for (ReservedList rl : loadReservedLists(registry.getReservedLists())) {
-      if (rl.getReservedListEntries().containsKey(label)) {
-        ReservedListEntry entry = rl.getReservedListEntries().get(label);
-        entriesBuilder.add(entry);
-        metricMatchesBuilder.add(
-            MetricsReservedListMatch.create(rl.getName(), entry.reservationType));
-      }
-    }
-    ImmutableSet<ReservedListEntry> entries = entriesBuilder.build();
+    Reservations reservations = getCompiledReservedLists(registry).get(label);
     DomainLabelMetrics.recordReservedListCheckOutcome(
-        tld, metricMatchesBuilder.build(), DateTime.now(UTC).getMillis() - startTime.getMillis());
-    return entries;
+        tld, reservations.metricMatches(), (System.nanoTime() - startNanos) / 1e6);
+    return reservations;
   }
 
-  private static ImmutableSet<ReservedList> loadReservedLists(
-      ImmutableSet<Key<ReservedList>> reservedListKeys) {
-    return reservedListKeys
-        .stream()
-        .map(
-            (listKey) -> {
-              try {
-                return cache.get(listKey.getName());
-              } catch (ExecutionException e) {
-                throw new UncheckedExecutionException(
-                    String.format(
-                        "Could not load the reserved list '%s' from the cache", listKey.getName()),
-                    e);
-              }
-            })
-        .collect(toImmutableSet());
+  /**
+   * Returns the merged index of the TLD's reserved lists, recompiling it if the TLD's lists, or the
+   * revisions of them in the cache, have changed since it was last compiled.
+   */
+  private static CompiledReservedLists getCompiledReservedLists(Registry registry) {
+    ImmutableSet<Key<ReservedList>> listKeys = registry.getReservedLists();
+    CompiledReservedLists compiledLists = compiledListsByTld.get(registry.getTldStr());
+    if (compiledLists == null
+        || !compiledLists.isCompiledFrom(listKeys, ReservedList::loadReservedList)) {
+      // Concurrent requests may both compile the lists, in which case the last one wins.
+      compiledLists =
+          CompiledReservedLists.compile(
+              listKeys,
+              listKeys.stream().map(ReservedList::loadReservedList).collect(toImmutableList()));
+      compiledListsByTld.put(registry.getTldStr(), compiledLists);
+    }
+    return compiledLists;
   }
 
+  private static ReservedList loadReservedList(Key<ReservedList> listKey) {
+    try {
+      return cache.get(listKey.getName());
+    } catch (ExecutionException e) {
+      throw new UncheckedExecutionException(
+          String.format("Could not load the reserved list '%s' from the cache", listKey.getName()),
+          e);
+    }
+  }
+
+  /** The compiled reserved lists of each TLD, by TLD name. */
+  private static final ConcurrentHashMap<String, CompiledReservedLists> compiledListsByTld =
+      new ConcurrentHashMap<>();
+
   private static LoadingCache<String, ReservedList> cache =
       CacheBuilder.newBuilder()
           .expireAfterWrite(
@@ -0,0 +1,154 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.server;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static google.registry.util.CollectionUtils.nullToEmptyImmutableCopy;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import com.googlecode.objectify.Key;
+import com.googlecode.objectify.annotation.Entity;
+import com.googlecode.objectify.annotation.Id;
+import com.googlecode.objectify.annotation.Index;
+import google.registry.model.ImmutableObject;
+import google.registry.model.annotations.NotBackedUp;
+import google.registry.model.annotations.NotBackedUp.Reason;
+import google.registry.schema.replay.DatastoreOnlyEntity;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import javax.annotation.Nullable;
+import org.joda.time.DateTime;
+
+/**
+ * An asynchronous task that has been committed to, but not yet added to its task queue.
+ *
+ * <p>Flows save these in the same transaction as the rest of their changes rather than calling the
+ * task queue API themselves, and a cron job later adds them to their queues in large batches. See
+ * {@link google.registry.batch.AsyncTaskEnqueuer}.
+ */
+@Entity
+@NotBackedUp(reason = Reason.TRANSIENT)
+public class PendingTask extends ImmutableObject implements DatastoreOnlyEntity {
+
+  /**
+   * The ID of this pending task.
+   *
+   * <p>Tasks which should be collapsed into one while they are pending share an ID, and all other
+   * tasks use their task name.
+   */
+  @Id String id;
+
+  /**
+   * The name of the task, which is unique per version of this entity.
+   *
+   * <p>This is used as the App Engine task name, so that a task added to its queue more than once
+   * (e.g. because deleting this entity failed after dispatching it) only runs once.
+   */
+  String taskName;
+
+  /** The name of the queue that the task belongs in. */
+  String queueName;
+
+  /** The path of the action that handles a push task, or null for a pull task. */
+  @Nullable String path;
+
+  /** The earliest time at which the task should run. */
+  @Index DateTime eta;
+
+  /** The HTTP parameters of the task. */
+  Map<String, String> params;
+
+  /** The tag of a pull task, which consumers can lease tasks by, or null if it has none. */
+  @Nullable String tag;
+
+  /** The payload of a pull task, or null if it carries its data in its parameters instead. */
+  @Nullable String payload;
+
+  public String getId() {
+    return id;
+  }
+
+  public String getTaskName() {
+    return taskName;
+  }
+
+  public String getQueueName() {
+    return queueName;
+  }
+
+  public Optional<String> getPath() {
+    return Optional.ofNullable(path);
+  }
+
+  public DateTime getEta() {
+    return eta;
+  }
+
+  public ImmutableMap<String, String> getParams() {
+    return nullToEmptyImmutableCopy(params);
+  }
+
+  public Optional<String> getTag() {
+    return Optional.ofNullable(tag);
+  }
+
+  public Optional<String> getPayload() {
+    return Optional.ofNullable(payload);
+  }
+
+  /** Creates a pending task which is never collapsed into another one. */
+  public static PendingTask create(
+      String queueName, @Nullable String path, DateTime eta, ImmutableMap<String, String> params) {
+    return create(null, queueName, path, eta, params);
+  }
+
+  /**
+   * Creates a pending task with the given ID, which replaces any other pending task with the same
+   * ID, or one with a unique ID if the given ID is null.
+   */
+  public static PendingTask create(
+      @Nullable String id,
+      String queueName,
+      @Nullable String path,
+      DateTime eta,
+      ImmutableMap<String, String> params) {
+    checkArgument(!Strings.isNullOrEmpty(queueName), "queueName cannot be null or empty");
+    PendingTask instance = new PendingTask();
+    instance.taskName = UUID.randomUUID().toString();
+    instance.id = (id == null) ? instance.taskName : id;
+    instance.queueName = queueName;
+    instance.path = path;
+    instance.eta = eta;
+    instance.params = params;
+    return instance;
+  }
+
+  /** Creates a pending pull task with the given tag and payload, and no parameters. */
+  public static PendingTask createPullTask(
+      String queueName, String tag, String payload, DateTime eta) {
+    PendingTask instance = create(queueName, null, eta, ImmutableMap.of());
+    instance.tag = checkNotNull(tag, "tag");
+    instance.payload = checkNotNull(payload, "payload");
+    return instance;
+  }
+
+  /** Creates a key for the pending task with the given ID. */
+  public static Key<PendingTask> createKey(String id) {
+    return Key.create(PendingTask.class, id);
+  }
+}
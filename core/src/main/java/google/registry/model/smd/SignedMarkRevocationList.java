@@ -15,6 +15,7 @@
 package google.registry.model.smd;
 
 import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
 import static google.registry.model.CacheUtils.memoizeWithShortExpiration;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.util.DateTimeUtils.isBeforeOrAt;
@@ -35,6 +36,7 @@ import google.registry.model.annotations.NotBackedUp.Reason;
 import google.registry.model.common.EntityGroupRoot;
 import google.registry.schema.replay.NonReplicatedEntity;
 import java.util.Map;
+import javax.annotation.Nullable;
 import javax.persistence.CollectionTable;
 import javax.persistence.Column;
 import javax.persistence.ElementCollection;
@@ -95,6 +97,15 @@ public class SignedMarkRevocationList extends ImmutableObject implements NonRepl
   @Column(name = "revocationTime", nullable = false)
   Map</*@MatchesPattern("[0-9]+-[0-9]+")*/ String, DateTime> revokes;
 
+  /**
+   * The compact index of the revocations of a list loaded by {@link #get}, or null for all other
+   * lists.
+   *
+   * <p>When this is set, {@link #revokes} is null, so that the live revocation list is only held
+   * in memory in its compact form.
+   */
+  @Ignore @Transient @Nullable SmdRevocationIndex revocationIndex;
+
   /** Indicates that this is a shard rather than a "full" list. */
   @Ignore @Transient boolean isShard;
 
@@ -103,7 +114,7 @@ public class SignedMarkRevocationList extends ImmutableObject implements NonRepl
    * single {@link SignedMarkRevocationList} object.
    */
   private static final Supplier<SignedMarkRevocationList> CACHE =
-      memoizeWithShortExpiration(SignedMarkRevocationListDao::load);
+      memoizeWithShortExpiration(() -> SignedMarkRevocationListDao.load().toIndexedList());
 
   /** Return a single logical instance that combines all Datastore shards. */
   public static SignedMarkRevocationList get() {
@@ -119,9 +130,25 @@ public class SignedMarkRevocationList extends ImmutableObject implements NonRepl
     return instance;
   }
 
+  /** Returns a copy of this list that holds its revocations in a {@link SmdRevocationIndex}. */
+  private SignedMarkRevocationList toIndexedList() {
+    if (revocationIndex != null) {
+      return this;
+    }
+    SignedMarkRevocationList instance = new SignedMarkRevocationList();
+    instance.revisionId = revisionId;
+    instance.creationTime = creationTime;
+    instance.revocationIndex = new SmdRevocationIndex.Builder().putAll(revokes).build();
+    return instance;
+  }
+
   /** Returns {@code true} if the SMD ID has been revoked at the given point in time. */
   public boolean isSmdRevoked(String smdId, DateTime now) {
-    DateTime revoked = revokes.get(checkNotNull(smdId, "smdId"));
+    checkNotNull(smdId, "smdId");
+    DateTime revoked =
+        (revocationIndex == null)
+            ? revokes.get(smdId)
+            : revocationIndex.getRevocationTime(smdId).orElse(null);
     return revoked != null && isBeforeOrAt(revoked, now);
   }
 
@@ -132,15 +159,35 @@ public class SignedMarkRevocationList extends ImmutableObject implements NonRepl
 
   /** Returns the number of revocations. */
   public int size() {
-    return revokes.size();
+    return (revocationIndex == null) ? revokes.size() : revocationIndex.size();
+  }
+
+  /**
+   * Returns a map from all of the revoked SMD IDs to their revocation times.
+   *
+   * <p>For the list returned by {@link #get}, this builds the map from the compact index, so it
+   * should only be used when the entire list is required.
+   */
+  public ImmutableMap<String, DateTime> getRevokes() {
+    return (revocationIndex == null) ? ImmutableMap.copyOf(revokes) : revocationIndex.toMap();
   }
 
   /** Save this list to Datastore in sharded form and to Cloud SQL. Returns {@code this}. */
   public SignedMarkRevocationList save() {
+    checkState(revocationIndex == null, "Cannot save a revocation list that was loaded by get()");
     SignedMarkRevocationListDao.save(this);
     return this;
   }
 
+  /**
+   * Saves this list like {@link #save}, but only to the databases whose latest list has a
+   * different creation time. Returns whether it was saved to the primary database.
+   */
+  public boolean saveIfChanged() {
+    checkState(revocationIndex == null, "Cannot save a revocation list that was loaded by get()");
+    return SignedMarkRevocationListDao.saveIfChanged(this);
+  }
+
   /** As a safety mechanism, fail if someone tries to save this class directly. */
   @OnSave
   void disallowUnshardedSaves() {
@@ -19,6 +19,7 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.collect.ImmutableList.toImmutableList;
 import static com.google.common.collect.Iterables.isEmpty;
 import static google.registry.model.DatabaseMigrationUtils.suppressExceptionUnlessInTest;
+import static google.registry.model.common.DatabaseTransitionSchedule.PrimaryDatabase.CLOUD_SQL;
 import static google.registry.model.common.DatabaseTransitionSchedule.PrimaryDatabase.DATASTORE;
 import static google.registry.model.common.EntityGroupRoot.getCrossTldKey;
 import static google.registry.model.ofy.ObjectifyService.allocateId;
@@ -195,6 +196,83 @@ public class SignedMarkRevocationListDao {
     }
   }
 
+  /**
+   * Saves the given {@link SignedMarkRevocationList} to each database whose latest list has a
+   * different creation time, i.e. is a different list, and returns whether it was saved to the
+   * primary database.
+   *
+   * <p>Only the creation time of the latest list in each database is loaded, not its revocations,
+   * and a database with no list yet is always written. This lets a list whose secondary write
+   * failed be written again when the same list is downloaded again. As with {@link #save}, a
+   * failure to check or write the secondary database is logged but not thrown.
+   */
+  static boolean saveIfChanged(SignedMarkRevocationList signedMarkRevocationList) {
+    PrimaryDatabase primaryDatabase =
+        tm().transactNew(
+                () ->
+                    DatabaseMigrationUtils.getPrimaryDatabase(
+                        TransitionId.SIGNED_MARK_REVOCATION_LIST));
+    DateTime creationTime = signedMarkRevocationList.creationTime;
+    if (!isSavedIn(primaryDatabase, creationTime)) {
+      save(signedMarkRevocationList);
+      return true;
+    }
+    PrimaryDatabase secondaryDatabase = primaryDatabase.equals(DATASTORE) ? CLOUD_SQL : DATASTORE;
+    suppressExceptionUnlessInTest(
+        () -> {
+          if (!isSavedIn(secondaryDatabase, creationTime)) {
+            if (secondaryDatabase.equals(DATASTORE)) {
+              saveToDatastore(signedMarkRevocationList.revokes, creationTime);
+            } else {
+              saveToCloudSql(signedMarkRevocationList);
+            }
+          }
+        },
+        String.format(
+            "Error inserting missing signed mark revocations into secondary database (%s).",
+            secondaryDatabase.equals(DATASTORE) ? "Datastore" : "Cloud SQL"));
+    return false;
+  }
+
+  /** Returns whether the latest list in the given database has the given creation time. */
+  private static boolean isSavedIn(PrimaryDatabase database, DateTime creationTime) {
+    Optional<DateTime> latestCreationTime =
+        database.equals(DATASTORE)
+            ? loadCreationTimeFromDatastore()
+            : loadCreationTimeFromCloudSql();
+    return latestCreationTime.map(creationTime::equals).orElse(false);
+  }
+
+  /** Loads the creation time of the list in Datastore from one of its shards. */
+  private static Optional<DateTime> loadCreationTimeFromDatastore() {
+    return tm().transactNewReadOnly(
+            () ->
+                Optional.ofNullable(
+                        ofy()
+                            .load()
+                            .type(SignedMarkRevocationList.class)
+                            .ancestor(getCrossTldKey())
+                            .first()
+                            .now())
+                    .map(shard -> shard.creationTime));
+  }
+
+  /** Loads the creation time of the latest revision of the list in Cloud SQL. */
+  private static Optional<DateTime> loadCreationTimeFromCloudSql() {
+    return jpaTm()
+        .transact(
+            () ->
+                jpaTm()
+                    .getEntityManager()
+                    .createQuery(
+                        "SELECT creationTime FROM SignedMarkRevocationList"
+                            + " ORDER BY revisionId DESC",
+                        DateTime.class)
+                    .setMaxResults(1)
+                    .getResultStream()
+                    .findFirst());
+  }
+
   private static void saveToCloudSql(SignedMarkRevocationList signedMarkRevocationList) {
     jpaTm().transact(() -> jpaTm().getEntityManager().persist(signedMarkRevocationList));
     logger.atInfo().log(
@@ -0,0 +1,234 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.smd;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static org.joda.time.DateTimeZone.UTC;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import org.joda.time.DateTime;
+
+/**
+ * An immutable index from revoked SMD IDs to their revocation times, stored compactly.
+ *
+ * <p>SMD IDs are a pair of numbers separated by a hyphen (e.g. "0000001681375789102250-65535"),
+ * so rather than holding every ID as a string, each number is packed into a long and the pairs
+ * are kept sorted in a single array so that they can be binary searched. The number of digits in
+ * each part is kept alongside, so that zero-padded IDs remain distinct from unpadded ones. The
+ * rare ID that doesn't fit this form is held in an ordinary map instead.
+ */
+final class SmdRevocationIndex {
+
+  /** The most digits a part of an ID can have, not counting leading zeros, to fit in a long. */
+  private static final int MAX_SIGNIFICANT_DIGITS = 18;
+
+  /** The most digits a part of an ID can have, including leading zeros. */
+  private static final int MAX_WIDTH = 0x7f;
+
+  /** The two parts of each packed ID, in order, sorted by {@link #compareId}. */
+  private final long[] idParts;
+
+  /** The widths of the two parts of each packed ID, as {@code (firstWidth << 7) | secondWidth}. */
+  private final short[] idWidths;
+
+  /** The revocation time of each packed ID, in milliseconds since the epoch. */
+  private final long[] revocationMillis;
+
+  /** The revocation times of the IDs that couldn't be packed. */
+  private final ImmutableMap<String, DateTime> unpackedRevocations;
+
+  private SmdRevocationIndex(
+      long[] idParts,
+      short[] idWidths,
+      long[] revocationMillis,
+      ImmutableMap<String, DateTime> unpackedRevocations) {
+    this.idParts = idParts;
+    this.idWidths = idWidths;
+    this.revocationMillis = revocationMillis;
+    this.unpackedRevocations = unpackedRevocations;
+  }
+
+  /** Returns the revocation time of the given SMD ID, or absent if it hasn't been revoked. */
+  Optional<DateTime> getRevocationTime(String smdId) {
+    PackedId packedId = PackedId.parse(smdId);
+    if (packedId == null) {
+      return Optional.ofNullable(unpackedRevocations.get(smdId));
+    }
+    int low = 0;
+    int high = idWidths.length - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareId(middle, packedId);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return Optional.of(new DateTime(revocationMillis[middle], UTC));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Returns the number of revoked SMD IDs in this index. */
+  int size() {
+    return idWidths.length + unpackedRevocations.size();
+  }
+
+  /** Returns a map of all of the SMD IDs in this index to their revocation times. */
+  ImmutableMap<String, DateTime> toMap() {
+    ImmutableMap.Builder<String, DateTime> builder = new ImmutableMap.Builder<>();
+    for (int i = 0; i < idWidths.length; i++) {
+      PackedId packedId = new PackedId(idParts[2 * i], idParts[2 * i + 1], idWidths[i]);
+      builder.put(packedId.toString(), new DateTime(revocationMillis[i], UTC));
+    }
+    return builder.putAll(unpackedRevocations).build();
+  }
+
+  /** Compares the packed ID at the given index with the given packed ID. */
+  private int compareId(int index, PackedId packedId) {
+    int comparison = Long.compare(idParts[2 * index], packedId.first);
+    if (comparison == 0) {
+      comparison = Long.compare(idParts[2 * index + 1], packedId.second);
+    }
+    return (comparison == 0) ? Short.compare(idWidths[index], packedId.widths) : comparison;
+  }
+
+  /** An SMD ID in its packed form. */
+  private static class PackedId {
+
+    static final Comparator<PackedId> ORDERING =
+        Comparator.comparingLong((PackedId id) -> id.first)
+            .thenComparingLong(id -> id.second)
+            .thenComparingInt(id -> id.widths);
+
+    final long first;
+    final long second;
+    final short widths;
+
+    PackedId(long first, long second, short widths) {
+      this.first = first;
+      this.second = second;
+      this.widths = widths;
+    }
+
+    /** Returns the packed form of the given SMD ID, or null if it can't be packed. */
+    static PackedId parse(String smdId) {
+      int hyphen = smdId.indexOf('-');
+      if (hyphen < 0) {
+        return null;
+      }
+      long first = parsePart(smdId, 0, hyphen);
+      long second = parsePart(smdId, hyphen + 1, smdId.length());
+      if (first < 0 || second < 0) {
+        return null;
+      }
+      return new PackedId(
+          first, second, (short) ((hyphen << 7) | (smdId.length() - hyphen - 1)));
+    }
+
+    /** Returns the value of the given range of digits, or -1 if it can't be packed. */
+    private static long parsePart(String smdId, int start, int end) {
+      if (end == start || end - start > MAX_WIDTH) {
+        return -1;
+      }
+      long value = 0;
+      int significantDigits = 0;
+      for (int i = start; i < end; i++) {
+        char c = smdId.charAt(i);
+        if (c < '0' || c > '9') {
+          return -1;
+        }
+        if (value > 0 || c != '0') {
+          significantDigits++;
+        }
+        value = value * 10 + (c - '0');
+        if (significantDigits > MAX_SIGNIFICANT_DIGITS) {
+          return -1;
+        }
+      }
+      return value;
+    }
+
+    @Override
+    public String toString() {
+      return Strings.padStart(Long.toString(first), widths >> 7, '0')
+          + '-'
+          + Strings.padStart(Long.toString(second), widths & MAX_WIDTH, '0');
+    }
+  }
+
+  /** A builder for constructing {@link SmdRevocationIndex} objects. */
+  static class Builder {
+
+    private final List<Entry> entries = new ArrayList<>();
+    private final Map<String, DateTime> unpackedRevocations = new HashMap<>();
+
+    /** Adds all of the given SMD IDs and revocation times, none of which may be added already. */
+    Builder putAll(Map<String, DateTime> revokes) {
+      revokes.forEach(
+          (smdId, revocationTime) -> {
+            PackedId packedId = PackedId.parse(smdId);
+            if (packedId == null) {
+              checkArgument(
+                  unpackedRevocations.put(smdId, revocationTime) == null,
+                  "Duplicate revoked SMD ID %s",
+                  smdId);
+            } else {
+              entries.add(new Entry(packedId, revocationTime.getMillis()));
+            }
+          });
+      return this;
+    }
+
+    SmdRevocationIndex build() {
+      entries.sort(Comparator.comparing((Entry entry) -> entry.id, PackedId.ORDERING));
+      long[] idParts = new long[2 * entries.size()];
+      short[] idWidths = new short[entries.size()];
+      long[] revocationMillis = new long[entries.size()];
+      for (int i = 0; i < entries.size(); i++) {
+        Entry entry = entries.get(i);
+        checkArgument(
+            i == 0 || PackedId.ORDERING.compare(entries.get(i - 1).id, entry.id) != 0,
+            "Duplicate revoked SMD ID %s",
+            entry.id);
+        idParts[2 * i] = entry.id.first;
+        idParts[2 * i + 1] = entry.id.second;
+        idWidths[i] = entry.id.widths;
+        revocationMillis[i] = entry.revocationMillis;
+      }
+      return new SmdRevocationIndex(
+          idParts, idWidths, revocationMillis, ImmutableMap.copyOf(unpackedRevocations));
+    }
+
+    /** A packed SMD ID and its revocation time, before they are sorted into the index. */
+    private static class Entry {
+      final PackedId id;
+      final long revocationMillis;
+
+      Entry(PackedId id, long revocationMillis) {
+        this.id = id;
+        this.revocationMillis = revocationMillis;
+      }
+    }
+  }
+}
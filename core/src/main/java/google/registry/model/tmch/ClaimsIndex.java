@@ -0,0 +1,197 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tmch;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.nio.charset.StandardCharsets.UTF_8;
+
+import com.google.common.collect.ImmutableMap;
+import com.google.common.primitives.UnsignedBytes;
+import java.io.ByteArrayOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * An immutable index from domain labels to their TMCH claim keys, stored compactly.
+ *
+ * <p>The claims list has millions of entries, which take several times their size in memory as a
+ * map of strings. Instead, the labels are stored as UTF-8 in a single byte array, sorted so that
+ * they can be binary searched, and the claim keys are stored the same way in the order of their
+ * labels. Claim keys consist of a directory path that many keys have in common followed by a
+ * unique name (e.g. "2013112500/7/4/8/dIHW0DiuybvhdP8kIz"), so each distinct directory is only
+ * stored once and shared by all of the keys in it.
+ */
+final class ClaimsIndex {
+
+  /** The concatenated UTF-8 encodings of the labels, sorted by {@link #compareLabel}. */
+  private final byte[] labels;
+
+  /** The offset of each label in {@link #labels}, followed by the length of that array. */
+  private final int[] labelOffsets;
+
+  /** The distinct directories of the claim keys, including their trailing slashes. */
+  private final String[] keyDirectories;
+
+  /** The index of the directory of each label's claim key in {@link #keyDirectories}. */
+  private final int[] keyDirectoryIndexes;
+
+  /** The concatenated UTF-8 encodings of the claim keys, less their directories. */
+  private final byte[] keyNames;
+
+  /** The offset of each claim key's name in {@link #keyNames}, followed by its length. */
+  private final int[] keyNameOffsets;
+
+  private ClaimsIndex(
+      byte[] labels,
+      int[] labelOffsets,
+      String[] keyDirectories,
+      int[] keyDirectoryIndexes,
+      byte[] keyNames,
+      int[] keyNameOffsets) {
+    this.labels = labels;
+    this.labelOffsets = labelOffsets;
+    this.keyDirectories = keyDirectories;
+    this.keyDirectoryIndexes = keyDirectoryIndexes;
+    this.keyNames = keyNames;
+    this.keyNameOffsets = keyNameOffsets;
+  }
+
+  /** Returns the claim key of the given label, or absent if the label has no claims. */
+  Optional<String> getClaimKey(String label) {
+    byte[] encodedLabel = label.getBytes(UTF_8);
+    int low = 0;
+    int high = size() - 1;
+    while (low <= high) {
+      int middle = (low + high) >>> 1;
+      int comparison = compareLabel(middle, encodedLabel);
+      if (comparison < 0) {
+        low = middle + 1;
+      } else if (comparison > 0) {
+        high = middle - 1;
+      } else {
+        return Optional.of(getClaimKey(middle));
+      }
+    }
+    return Optional.empty();
+  }
+
+  /** Returns the number of labels in this index. */
+  int size() {
+    return keyDirectoryIndexes.length;
+  }
+
+  /** Returns a map of all of the labels in this index to their claim keys, in label order. */
+  ImmutableMap<String, String> toMap() {
+    ImmutableMap.Builder<String, String> builder = new ImmutableMap.Builder<>();
+    for (int i = 0; i < size(); i++) {
+      builder.put(
+          new String(labels, labelOffsets[i], labelOffsets[i + 1] - labelOffsets[i], UTF_8),
+          getClaimKey(i));
+    }
+    return builder.build();
+  }
+
+  private String getClaimKey(int index) {
+    int start = keyNameOffsets[index];
+    return keyDirectories[keyDirectoryIndexes[index]]
+        + new String(keyNames, start, keyNameOffsets[index + 1] - start, UTF_8);
+  }
+
+  /** Compares the label at the given index with the given encoded label, byte by byte. */
+  private int compareLabel(int index, byte[] encodedLabel) {
+    int start = labelOffsets[index];
+    int length = labelOffsets[index + 1] - start;
+    int commonLength = Math.min(length, encodedLabel.length);
+    for (int i = 0; i < commonLength; i++) {
+      int comparison = UnsignedBytes.compare(labels[start + i], encodedLabel[i]);
+      if (comparison != 0) {
+        return comparison;
+      }
+    }
+    return length - encodedLabel.length;
+  }
+
+  /** A builder for constructing {@link ClaimsIndex} objects. */
+  static class Builder {
+
+    private final List<Entry> entries = new ArrayList<>();
+
+    /** Adds all of the given labels and claim keys, none of which may have been added already. */
+    Builder putAll(Map<String, String> labelsToKeys) {
+      labelsToKeys.forEach(
+          (label, claimKey) -> entries.add(new Entry(label.getBytes(UTF_8), claimKey)));
+      return this;
+    }
+
+    ClaimsIndex build() {
+      entries.sort(
+          Comparator.comparing(
+              (Entry entry) -> entry.label, UnsignedBytes.lexicographicalComparator()));
+      ByteArrayOutputStream labels = new ByteArrayOutputStream();
+      int[] labelOffsets = new int[entries.size() + 1];
+      Map<String, Integer> directoryIndexes = new HashMap<>();
+      List<String> keyDirectories = new ArrayList<>();
+      int[] keyDirectoryIndexes = new int[entries.size()];
+      ByteArrayOutputStream keyNames = new ByteArrayOutputStream();
+      int[] keyNameOffsets = new int[entries.size() + 1];
+      for (int i = 0; i < entries.size(); i++) {
+        Entry entry = entries.get(i);
+        checkArgument(
+            i == 0 || !Arrays.equals(entries.get(i - 1).label, entry.label),
+            "Duplicate claims label %s",
+            new String(entry.label, UTF_8));
+        labelOffsets[i] = labels.size();
+        labels.write(entry.label, 0, entry.label.length);
+        int nameStart = entry.claimKey.lastIndexOf('/') + 1;
+        String directory = entry.claimKey.substring(0, nameStart);
+        Integer directoryIndex = directoryIndexes.get(directory);
+        if (directoryIndex == null) {
+          directoryIndex = keyDirectories.size();
+          directoryIndexes.put(directory, directoryIndex);
+          keyDirectories.add(directory);
+        }
+        keyDirectoryIndexes[i] = directoryIndex;
+        keyNameOffsets[i] = keyNames.size();
+        byte[] name = entry.claimKey.substring(nameStart).getBytes(UTF_8);
+        keyNames.write(name, 0, name.length);
+      }
+      labelOffsets[entries.size()] = labels.size();
+      keyNameOffsets[entries.size()] = keyNames.size();
+      return new ClaimsIndex(
+          labels.toByteArray(),
+          labelOffsets,
+          keyDirectories.toArray(new String[0]),
+          keyDirectoryIndexes,
+          keyNames.toByteArray(),
+          keyNameOffsets);
+    }
+
+    /** A label and its claim key, before they are sorted into the index. */
+    private static class Entry {
+      final byte[] label;
+      final String claimKey;
+
+      Entry(byte[] label, String claimKey) {
+        this.label = label;
+        this.claimKey = claimKey;
+      }
+    }
+  }
+}
@@ -23,6 +23,7 @@ import com.google.common.flogger.FluentLogger;
 import google.registry.util.NonFinalForTesting;
 import java.util.Optional;
 import javax.persistence.EntityManager;
+import org.joda.time.DateTime;
 
 /** Data access object for {@link ClaimsListShard}. */
 public class ClaimsListDao {
@@ -56,6 +57,49 @@ public class ClaimsListDao {
     }
   }
 
+  /**
+   * Tries to save the given {@link ClaimsListShard} into Cloud SQL, unless the latest revision there
+   * was generated by TMDB at the same time, i.e. is the same list. As with {@link #trySave}, errors
+   * are logged rather than thrown.
+   *
+   * <p>This lets a list whose Cloud SQL write failed during the dual-write phase be written again
+   * once it's already in Datastore.
+   */
+  public static void trySaveIfMissing(ClaimsListShard claimsList) {
+    try {
+      Optional<DateTime> latestTmdbGenerationTime = getLatestTmdbGenerationTime();
+      if (latestTmdbGenerationTime.isPresent()
+          && latestTmdbGenerationTime.get().equals(claimsList.getTmdbGenerationTime())) {
+        logger.atInfo().log(
+            "Claims list created at %s is already in Cloud SQL.",
+            claimsList.getTmdbGenerationTime());
+        return;
+      }
+    } catch (Throwable e) {
+      logger.atSevere().withCause(e).log("Error loading latest claims list from Cloud SQL");
+      return;
+    }
+    trySave(claimsList);
+  }
+
+  /**
+   * Returns the TMDB generation time of the most recent revision of the {@link ClaimsListShard} in
+   * Cloud SQL, if there is one, without loading its claims.
+   */
+  private static Optional<DateTime> getLatestTmdbGenerationTime() {
+    return jpaTm()
+        .transact(
+            () ->
+                jpaTm()
+                    .getEntityManager()
+                    .createQuery(
+                        "SELECT creationTime FROM ClaimsList ORDER BY revisionId DESC",
+                        DateTime.class)
+                    .setMaxResults(1)
+                    .getResultStream()
+                    .findFirst());
+  }
+
   /**
    * Returns the most recent revision of the {@link ClaimsListShard} in Cloud SQL, if it exists.
    * TODO(b/177569979): Change this method to package level access after dual-read phase.
@@ -18,6 +18,7 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Throwables.throwIfUnchecked;
 import static com.google.common.base.Verify.verify;
+import static com.google.common.collect.ImmutableMap.toImmutableMap;
 import static google.registry.model.CacheUtils.memoizeWithShortExpiration;
 import static google.registry.model.ofy.ObjectifyService.allocateId;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -27,9 +28,6 @@ import static google.registry.util.DateTimeUtils.START_OF_TIME;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
 import com.google.common.collect.ImmutableMap;
-import com.google.common.collect.MapDifference;
-import com.google.common.collect.MapDifference.ValueDifference;
-import com.google.common.collect.Maps;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.util.concurrent.UncheckedExecutionException;
 import com.googlecode.objectify.Key;
@@ -51,7 +49,6 @@ import google.registry.util.CollectionUtils;
 import google.registry.util.Concurrent;
 import google.registry.util.Retrier;
 import google.registry.util.SystemSleeper;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
@@ -138,6 +135,14 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
   @Column(name = "claimKey", nullable = false)
   Map<String, String> labelsToKeys;
 
+  /**
+   * The compact index of the claims of a list loaded by {@link #get}, or null for all other lists.
+   *
+   * <p>When this is set, {@link #labelsToKeys} is null, so that the live claims list is only held
+   * in memory in its compact form.
+   */
+  @Ignore @Transient @Nullable ClaimsIndex claimsIndex;
+
   /** Indicates that this is a shard rather than a "full" list. */
   @Ignore @Transient boolean isShard = false;
 
@@ -147,7 +152,7 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
     // Find the most recent revision.
     Key<ClaimsListRevision> revisionKey = getCurrentRevision();
 
-    Map<String, String> combinedLabelsToKeys = new HashMap<>();
+    ClaimsIndex.Builder combinedClaims = new ClaimsIndex.Builder();
     DateTime creationTime = START_OF_TIME;
     if (revisionKey != null) {
       // Grab all of the keys for the shards that belong to the current revision.
@@ -183,7 +188,7 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
       if (!shards.isEmpty()) {
         creationTime = shards.get(0).creationTime;
         for (ClaimsListShard shard : shards) {
-          combinedLabelsToKeys.putAll(shard.labelsToKeys);
+          combinedClaims.putAll(shard.labelsToKeys);
           checkState(
               creationTime.equals(shard.creationTime),
               "Inconsistent claims list shard creation times.");
@@ -191,7 +196,9 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
       }
     }
 
-    ClaimsListShard datastoreList = create(creationTime, ImmutableMap.copyOf(combinedLabelsToKeys));
+    ClaimsListShard datastoreList = new ClaimsListShard();
+    datastoreList.creationTime = creationTime;
+    datastoreList.claimsIndex = combinedClaims.build();
     // Also load the list from Cloud SQL, compare the two lists, and log if different.
     try {
       loadAndCompareCloudSqlList(datastoreList);
@@ -205,28 +212,30 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
     Optional<ClaimsListShard> maybeCloudSqlList = ClaimsListDao.getLatestRevision();
     if (maybeCloudSqlList.isPresent()) {
       ClaimsListShard cloudSqlList = maybeCloudSqlList.get();
-      MapDifference<String, String> diff =
-          Maps.difference(datastoreList.labelsToKeys, cloudSqlList.getLabelsToKeys());
-      if (!diff.areEqual()) {
-        if (diff.entriesDiffering().size() > 10) {
+      ImmutableMap<String, String> differingKeys =
+          cloudSqlList.getLabelsToKeys().entrySet().stream()
+              .filter(
+                  entry ->
+                      !datastoreList
+                          .getClaimKey(entry.getKey())
+                          .map(entry.getValue()::equals)
+                          .orElse(false))
+              .collect(toImmutableMap(Map.Entry::getKey, Map.Entry::getValue));
+      if (datastoreList.size() != cloudSqlList.size() || !differingKeys.isEmpty()) {
+        if (differingKeys.size() > 10) {
           logger.atWarning().log(
               String.format(
                   "Unequal claims lists detected, Cloud SQL list with revision id %d has %d"
                       + " different records than the current Datastore list.",
-                  cloudSqlList.getRevisionId(), diff.entriesDiffering().size()));
+                  cloudSqlList.getRevisionId(), differingKeys.size()));
         } else {
           StringBuilder diffMessage = new StringBuilder("Unequal claims lists detected:\n");
-          diff.entriesDiffering().entrySet().stream()
-              .forEach(
-                  entry -> {
-                    String label = entry.getKey();
-                    ValueDifference<String> valueDiff = entry.getValue();
-                    diffMessage.append(
-                        String.format(
-                            "Domain label %s has key %s in Datastore and key %s in Cloud"
-                                + " SQL.\n",
-                            label, valueDiff.leftValue(), valueDiff.rightValue()));
-                  });
+          differingKeys.forEach(
+              (label, cloudSqlKey) ->
+                  diffMessage.append(
+                      String.format(
+                          "Domain label %s has key %s in Datastore and key %s in Cloud SQL.\n",
+                          label, datastoreList.getClaimKey(label).orElse(null), cloudSqlKey)));
           logger.atWarning().log(diffMessage.toString());
         }
       }
@@ -269,17 +278,24 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
 
   /** Returns the claim key for a given domain if there is one, empty otherwise. */
   public Optional<String> getClaimKey(String label) {
-    return Optional.ofNullable(labelsToKeys.get(label));
+    return (claimsIndex == null)
+        ? Optional.ofNullable(labelsToKeys.get(label))
+        : claimsIndex.getClaimKey(label);
   }
 
-  /** Returns an {@link Map} mapping domain label to its lookup key. */
+  /**
+   * Returns an {@link Map} mapping domain label to its lookup key.
+   *
+   * <p>For the list returned by {@link #get}, this builds the map from the compact index, so it
+   * should only be used when the entire list is required.
+   */
   public ImmutableMap<String, String> getLabelsToKeys() {
-    return ImmutableMap.copyOf(labelsToKeys);
+    return (claimsIndex == null) ? ImmutableMap.copyOf(labelsToKeys) : claimsIndex.toMap();
   }
 
   /** Returns the number of claims. */
   public int size() {
-    return labelsToKeys.size();
+    return (claimsIndex == null) ? labelsToKeys.size() : claimsIndex.size();
   }
 
   /**
@@ -287,6 +303,7 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
    * switching over to using them atomically, then deleting the old ones.
    */
   public void save() {
+    checkState(claimsIndex == null, "Cannot save a claims list that was loaded by get()");
     saveToDatastore(SHARD_SIZE);
     ClaimsListDao.trySave(this);
   }
@@ -403,6 +420,20 @@ public class ClaimsListShard extends ImmutableObject implements NonReplicatedEnt
     return singleton == null ? null : singleton.activeRevision;
   }
 
+  /**
+   * Returns the TMDB generation time of the current revision of the claims list in Datastore, if
+   * there is one, loading a single shard of it rather than the whole list.
+   */
+  public static Optional<DateTime> getCurrentTmdbGenerationTime() {
+    Key<ClaimsListRevision> revisionKey = getCurrentRevision();
+    if (revisionKey == null) {
+      return Optional.empty();
+    }
+    return Optional.ofNullable(
+            ofy().load().type(ClaimsListShard.class).ancestor(revisionKey).first().now())
+        .map(shard -> shard.creationTime);
+  }
+
   /** Exception when trying to directly save a {@link ClaimsListShard} without sharding. */
   public static class UnshardedSaveException extends RuntimeException {}
 }
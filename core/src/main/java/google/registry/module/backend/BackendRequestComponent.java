@@ -25,6 +25,7 @@ import google.registry.batch.DeleteContactsAndHostsAction;
 import google.registry.batch.DeleteExpiredDomainsAction;
 import google.registry.batch.DeleteLoadTestDataAction;
 import google.registry.batch.DeleteProberDataAction;
+import google.registry.batch.DispatchPendingTasksAction;
 import google.registry.batch.ExpandRecurringBillingEventsAction;
 import google.registry.batch.RefreshDnsOnHostRenameAction;
 import google.registry.batch.RelockDomainAction;
@@ -137,6 +138,8 @@ interface BackendRequestComponent {
 
   DeleteProberDataAction deleteProberDataAction();
 
+  DispatchPendingTasksAction dispatchPendingTasksAction();
+
   ExpandRecurringBillingEventsAction expandRecurringBillingEventsAction();
 
   ExportCommitLogDiffAction exportCommitLogDiffAction();
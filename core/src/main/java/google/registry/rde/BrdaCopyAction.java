@@ -14,6 +14,7 @@
 
 package google.registry.rde;
 
+import static com.google.appengine.api.ThreadManager.currentRequestThreadFactory;
 import static google.registry.model.rde.RdeMode.THIN;
 import static google.registry.request.Action.Method.POST;
 
@@ -67,6 +68,7 @@ public final class BrdaCopyAction implements Runnable {
 
   @Inject GcsUtils gcsUtils;
   @Inject @Config("brdaBucket") String brdaBucket;
+  @Inject @Config("rdeCompressionLevel") int compressionLevel;
   @Inject @Config("rdeBucket") String stagingBucket;
   @Inject @Parameter(RequestParameters.PARAM_TLD) String tld;
   @Inject @Parameter(RdeModule.PARAM_WATERMARK) DateTime watermark;
@@ -102,6 +104,8 @@ public final class BrdaCopyAction implements Runnable {
             .setRydeOutput(rydeOut, receiverKey)
             .setSignatureOutput(sigOut, signingKey)
             .setFileMetadata(prefix, xmlLength, watermark)
+            .setCompressionLevel(compressionLevel)
+            .setEncryptionThreadFactory(currentRequestThreadFactory())
             .build()) {
       ByteStreams.copy(ghostrydeDecoder, rydeEncoder);
     }
@@ -17,6 +17,7 @@ package google.registry.rde;
 import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.collect.ImmutableSet.toImmutableSet;
 import static google.registry.model.EppResourceUtils.loadAtPointInTime;
+import static google.registry.model.EppResourceUtils.loadAtPointsInTime;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 
@@ -25,7 +26,6 @@ import com.google.auto.value.AutoValue;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.ImmutableSetMultimap;
-import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.googlecode.objectify.Result;
 import google.registry.model.EppResource;
@@ -34,6 +34,7 @@ import google.registry.model.domain.DomainBase;
 import google.registry.model.host.HostResource;
 import google.registry.model.rde.RdeMode;
 import google.registry.model.registrar.Registrar;
+import google.registry.persistence.VKey;
 import google.registry.xml.ValidationMode;
 import java.util.HashMap;
 import java.util.Map;
@@ -123,9 +124,10 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
             .map(PendingDeposit::watermark)
             .collect(toImmutableSet());
 
-    // Launch asynchronous fetches of point-in-time representations of resource.
+    // Launch asynchronous fetches of point-in-time representations of resource. Watermarks that
+    // resolve to the same revision share a single fetch.
     ImmutableMap<DateTime, Result<EppResource>> resourceAtTimes =
-        ImmutableMap.copyOf(Maps.asMap(dates, input -> loadAtPointInTime(resource, input)));
+        loadAtPointsInTime(resource, dates);
 
     // Convert resource to an XML fragment for each watermark/mode pair lazily and cache the result.
     Fragmenter fragmenter = new Fragmenter(resourceAtTimes);
@@ -160,6 +162,7 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
   /** Loading cache that turns a resource into XML for the various points in time and modes. */
   private class Fragmenter {
     private final Map<WatermarkModePair, Optional<DepositFragment>> cache = new HashMap<>();
+    private final Map<VKey<DomainBase>, DomainBase> superordinateDomains = new HashMap<>();
     private final ImmutableMap<DateTime, Result<EppResource>> resourceAtTimes;
 
     long cacheHits = 0;
@@ -203,7 +206,10 @@ public final class RdeStagingMapper extends Mapper<EppResource, PendingDeposit,
                         host,
                         // Note that loadAtPointInTime() does cloneProjectedAtTime(watermark) for
                         // us.
-                        loadAtPointInTime(tm().loadByKey(host.getSuperordinateDomain()), watermark)
+                        loadAtPointInTime(
+                                superordinateDomains.computeIfAbsent(
+                                    host.getSuperordinateDomain(), key -> tm().loadByKey(key)),
+                                watermark)
                             .now())
                     : marshaller.marshalExternalHost(host));
         cache.put(WatermarkModePair.create(watermark, RdeMode.FULL), result);
@@ -14,6 +14,7 @@
 
 package google.registry.rde;
 
+import static com.google.appengine.api.ThreadManager.currentRequestThreadFactory;
 import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
 import static com.google.appengine.api.taskqueue.TaskOptions.Builder.withUrl;
 import static com.google.appengine.tools.cloudstorage.GcsServiceFactory.createGcsService;
@@ -43,6 +44,7 @@ import google.registry.request.RequestParameters;
 import google.registry.request.lock.LockHandler;
 import google.registry.schema.cursor.CursorDao;
 import google.registry.tldconfig.idn.IdnTableEnum;
+import google.registry.util.PipelinedOutputStream;
 import google.registry.util.TaskQueueUtils;
 import google.registry.xjc.rdeheader.XjcRdeHeader;
 import google.registry.xjc.rdeheader.XjcRdeHeaderElement;
@@ -56,6 +58,7 @@ import java.security.Security;
 import java.util.Iterator;
 import java.util.Optional;
 import java.util.concurrent.Callable;
+import java.util.concurrent.ThreadFactory;
 import javax.inject.Inject;
 import org.bouncycastle.jce.provider.BouncyCastleProvider;
 import org.bouncycastle.openpgp.PGPPublicKey;
@@ -69,6 +72,12 @@ public final class RdeStagingReducer extends Reducer<PendingDeposit, DepositFrag
 
   private static final FluentLogger logger = FluentLogger.forEnclosingClass();
 
+  /** Size of the chunks of deposit XML handed off to the encoder thread. */
+  private static final int PIPELINE_CHUNK_SIZE = 1024 * 1024;
+
+  /** Number of chunks that may be waiting for the encoder thread before the reducer blocks. */
+  private static final int PIPELINE_MAX_PENDING_CHUNKS = 8;
+
   private final TaskQueueUtils taskQueueUtils;
   private final LockHandler lockHandler;
   private final int gcsBufferSize;
@@ -151,7 +160,8 @@ public final class RdeStagingReducer extends Reducer<PendingDeposit, DepositFrag
     try (OutputStream gcsOutput = cloudStorage.openOutputStream(xmlFilename);
         OutputStream lengthOutput = cloudStorage.openOutputStream(xmlLengthFilename);
         OutputStream ghostrydeEncoder = Ghostryde.encoder(gcsOutput, stagingKey, lengthOutput);
-        Writer output = new OutputStreamWriter(ghostrydeEncoder, UTF_8)) {
+        OutputStream pipeline = openPipeline(ghostrydeEncoder);
+        Writer output = new OutputStreamWriter(pipeline, UTF_8)) {
 
       // Output the top portion of the XML document.
       output.write(marshaller.makeHeader(id, watermark, RdeResourceType.getUris(mode), revision));
@@ -245,6 +255,26 @@ public final class RdeStagingReducer extends Reducer<PendingDeposit, DepositFrag
             });
   }
 
+  /**
+   * Moves compression and encryption of the deposit onto a separate thread.
+   *
+   * <p>A Ghostryde file is a single OpenPGP message, so the compressed and encrypted output of
+   * independently encoded ranges of fragments can't be concatenated into one valid deposit. What we
+   * can do is overlap reading fragments from the shuffle and converting them to UTF-8 (on the
+   * reducer thread) with compressing, encrypting and uploading them (on the encoder thread). The
+   * bytes reaching the encoder, and therefore the {@code .length} file, are unchanged.
+   *
+   * <p>If we can't get an App Engine request thread (e.g. in tests), the encoder is used directly.
+   */
+  private static OutputStream openPipeline(OutputStream ghostrydeEncoder) {
+    ThreadFactory threadFactory = currentRequestThreadFactory();
+    if (threadFactory == null) {
+      return ghostrydeEncoder;
+    }
+    return new PipelinedOutputStream(
+        ghostrydeEncoder, PIPELINE_CHUNK_SIZE, PIPELINE_MAX_PENDING_CHUNKS, threadFactory);
+  }
+
   /** Injectible factory for creating {@link RdeStagingReducer}. */
   static class Factory {
     @Inject TaskQueueUtils taskQueueUtils;
@@ -14,10 +14,12 @@
 
 package google.registry.rde;
 
+import static com.google.appengine.api.ThreadManager.currentRequestThreadFactory;
 import static com.google.appengine.api.taskqueue.TaskOptions.Builder.withUrl;
 import static com.google.common.base.Verify.verify;
 import static com.google.common.net.MediaType.PLAIN_TEXT_UTF_8;
 import static com.jcraft.jsch.ChannelSftp.OVERWRITE;
+import static com.jcraft.jsch.ChannelSftp.RESUME;
 import static google.registry.model.common.Cursor.CursorType.RDE_UPLOAD_SFTP;
 import static google.registry.model.common.Cursor.getCursorTimeOrStartOfTime;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -26,15 +28,15 @@ import static google.registry.persistence.transaction.TransactionManagerFactory.
 import static google.registry.request.Action.Method.POST;
 import static google.registry.schema.cursor.CursorDao.loadAndCompare;
 import static google.registry.util.DateTimeUtils.isBeforeOrAt;
-import static java.util.Arrays.asList;
 
 import com.google.appengine.api.taskqueue.Queue;
 import com.google.appengine.tools.cloudstorage.GcsFilename;
-import com.google.common.annotations.VisibleForTesting;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.io.ByteStreams;
+import com.jcraft.jsch.ChannelSftp;
 import com.jcraft.jsch.JSch;
 import com.jcraft.jsch.JSchException;
+import com.jcraft.jsch.SftpException;
 import com.jcraft.jsch.SftpProgressMonitor;
 import dagger.Lazy;
 import google.registry.config.RegistryConfig.Config;
@@ -57,13 +59,13 @@ import google.registry.schema.cursor.CursorDao;
 import google.registry.util.Clock;
 import google.registry.util.Retrier;
 import google.registry.util.TaskQueueUtils;
-import google.registry.util.TeeOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
+import java.util.concurrent.atomic.AtomicBoolean;
 import javax.inject.Inject;
 import javax.inject.Named;
 import org.bouncycastle.openpgp.PGPKeyPair;
@@ -108,9 +110,11 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
   @Inject JSchSshSessionFactory jschSshSessionFactory;
   @Inject Response response;
   @Inject SftpProgressMonitor sftpProgressMonitor;
+  @Inject RdeUploadMetrics metrics;
   @Inject TaskQueueUtils taskQueueUtils;
   @Inject Retrier retrier;
   @Inject @Parameter(RequestParameters.PARAM_TLD) String tld;
+  @Inject @Config("rdeCompressionLevel") int compressionLevel;
   @Inject @Config("rdeBucket") String bucket;
   @Inject @Config("rdeInterval") Duration interval;
   @Inject @Config("rdeUploadLockTimeout") Duration timeout;
@@ -170,9 +174,30 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
     verifyFileExists(xmlLengthFilename);
     verifyFileExists(reportFilename);
     logger.atInfo().log("Commencing RDE upload for TLD '%s' to '%s'.", tld, uploadUrl);
-    final long xmlLength = readXmlLength(xmlLengthFilename);
+    // The RyDE and signature files on GCS double as the persisted state of an upload. Encryption is
+    // randomized, so a partial upload can only be resumed from the exact bytes it came from. The
+    // signature is written last, so if it exists the RyDE file is complete and any partial file on
+    // the SFTP server is a prefix of it.
+    GcsFilename rydeGcsFilename = new GcsFilename(bucket, name + ".ryde");
+    GcsFilename sigGcsFilename = new GcsFilename(bucket, name + ".sig");
+    final boolean rydeAlreadyStaged = gcsUtils.existsAndNotEmpty(sigGcsFilename);
+    if (rydeAlreadyStaged) {
+      logger.atInfo().log("Found existing %s; resuming its upload.", rydeGcsFilename);
+    } else {
+      final long xmlLength = readXmlLength(xmlLengthFilename);
+      encode(xmlFilename, xmlLength, watermark, name, rydeGcsFilename, sigGcsFilename);
+    }
+    // Set by upload() once this run has started writing the remote RyDE file, from which point a
+    // retry can resume it. Until then, any remote file may be left over from an earlier encoding.
+    AtomicBoolean resume = new AtomicBoolean(rydeAlreadyStaged);
     retrier.callWithRetry(
-        () -> upload(xmlFilename, xmlLength, watermark, name), JSchException.class);
+        () -> upload(rydeGcsFilename, sigGcsFilename, resume),
+        (thrown, failures, maxAttempts) ->
+            logger.atInfo().withCause(thrown).log(
+                "Upload attempt %d of %d failed; retrying.", failures, maxAttempts),
+        JSchException.class,
+        IOException.class,
+        SftpException.class);
     logger.atInfo().log(
         "Updating RDE cursor '%s' for TLD '%s' following successful upload.", RDE_UPLOAD_SFTP, tld);
     tm().transact(
@@ -186,14 +211,13 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
   }
 
   /**
-   * Performs a blocking upload of a cloud storage XML file to escrow provider, converting
-   * it to the RyDE format along the way by applying tar+compress+encrypt+sign, and saving the
-   * created RyDE file on GCS for future reference.
+   * Converts a cloud storage XML file to the RyDE format by applying tar+compress+encrypt+sign, and
+   * saves the created RyDE file and its detached signature on GCS.
    *
    * <p>This is done by layering a bunch of {@link java.io.FilterOutputStream FilterOutputStreams}
-   * on top of each other in reverse order that turn XML bytes into a RyDE file while
-   * simultaneously uploading it to the SFTP endpoint, and then using {@link ByteStreams#copy} to
-   * blocking-copy bytes from the cloud storage {@code InputStream} to the RyDE/SFTP pipeline.
+   * on top of each other in reverse order that turn XML bytes into a RyDE file, and then using
+   * {@link ByteStreams#copy} to blocking-copy bytes from the cloud storage {@code InputStream} to
+   * the RyDE pipeline.
    *
    * <p>In pseudo-shell, the whole process looks like the following:
    *
@@ -201,42 +225,90 @@ public final class RdeUploadAction implements Runnable, EscrowTask {
    *   gcs read $xmlFile \                                   # Get GhostRyDE from cloud storage.
    *     | decrypt | decompress \                            # Convert it to XML.
    *     | tar | file | compress | encrypt | sign /tmp/sig \ # Convert it to a RyDE file.
-   *     | tee gs://bucket/$rydeFilename.ryde \              # Save a copy of the RyDE file to GCS.
-   *     | sftp put $dstUrl/$rydeFilename.ryde \             # Upload to SFTP server.
-   *    && sftp put $dstUrl/$rydeFilename.sig </tmp/sig \    # Upload detached signature.
-   *    && cat /tmp/sig > gs://bucket/$rydeFilename.sig      # Save a copy of signature to GCS.
+   *     > gs://bucket/$rydeFilename.ryde \                  # Save the RyDE file to GCS.
+   *    && cat /tmp/sig > gs://bucket/$rydeFilename.sig      # Save the signature to GCS.
    *   }</pre>
    */
-  @VisibleForTesting
-  protected void upload(GcsFilename xmlFile, long xmlLength, DateTime watermark, String name)
-      throws Exception {
-    logger.atInfo().log("Uploading XML file '%s' to remote path '%s'.", xmlFile, uploadUrl);
+  private void encode(
+      GcsFilename xmlFile,
+      long xmlLength,
+      DateTime watermark,
+      String name,
+      GcsFilename rydeGcsFilename,
+      GcsFilename sigGcsFilename)
+      throws IOException {
+    logger.atInfo().log("Encoding XML file '%s' as '%s'.", xmlFile, rydeGcsFilename);
+    ByteArrayOutputStream sigOut = new ByteArrayOutputStream();
     try (InputStream gcsInput = gcsUtils.openInputStream(xmlFile);
-        InputStream ghostrydeDecoder = Ghostryde.decoder(gcsInput, stagingDecryptionKey)) {
-      try (JSchSshSession session = jschSshSessionFactory.create(lazyJsch.get(), uploadUrl);
-          JSchSftpChannel ftpChan = session.openSftpChannel()) {
-        ByteArrayOutputStream sigOut = new ByteArrayOutputStream();
-        String rydeFilename = name + ".ryde";
-        GcsFilename rydeGcsFilename = new GcsFilename(bucket, rydeFilename);
-        try (OutputStream ftpOutput =
-                ftpChan.get().put(rydeFilename, sftpProgressMonitor, OVERWRITE);
-            OutputStream gcsOutput = gcsUtils.openOutputStream(rydeGcsFilename);
-            TeeOutputStream teeOutput = new TeeOutputStream(asList(ftpOutput, gcsOutput));
-            RydeEncoder rydeEncoder =
-                new RydeEncoder.Builder()
-                    .setRydeOutput(teeOutput, receiverKey)
-                    .setSignatureOutput(sigOut, signingKey)
-                    .setFileMetadata(name, xmlLength, watermark)
-                    .build()) {
-            long bytesCopied = ByteStreams.copy(ghostrydeDecoder, rydeEncoder);
-            logger.atInfo().log("uploaded %,d bytes: %s", bytesCopied, rydeFilename);
-          }
-        String sigFilename = name + ".sig";
-        byte[] signature = sigOut.toByteArray();
-        gcsUtils.createFromBytes(new GcsFilename(bucket, sigFilename), signature);
-        ftpChan.get().put(new ByteArrayInputStream(signature), sigFilename);
-        logger.atInfo().log("uploaded %,d bytes: %s", signature.length, sigFilename);
+        InputStream ghostrydeDecoder = Ghostryde.decoder(gcsInput, stagingDecryptionKey);
+        OutputStream gcsOutput = gcsUtils.openOutputStream(rydeGcsFilename);
+        RydeEncoder rydeEncoder =
+            new RydeEncoder.Builder()
+                .setRydeOutput(gcsOutput, receiverKey)
+                .setSignatureOutput(sigOut, signingKey)
+                .setFileMetadata(name, xmlLength, watermark)
+                .setCompressionLevel(compressionLevel)
+                .setEncryptionThreadFactory(currentRequestThreadFactory())
+                .build()) {
+      long bytesCopied = ByteStreams.copy(ghostrydeDecoder, rydeEncoder);
+      logger.atInfo().log("encoded %,d bytes: %s", bytesCopied, rydeGcsFilename);
+    }
+    // Only write the signature once the RyDE file is complete; see runWithLock().
+    gcsUtils.createFromBytes(sigGcsFilename, sigOut.toByteArray());
+  }
+
+  /**
+   * Performs a blocking upload of a RyDE file and its signature from cloud storage to the escrow
+   * provider.
+   *
+   * <p>If {@code resume} is true, whatever portion of the RyDE file is already on the SFTP server
+   * is skipped, using the SFTP offset write supported by {@link ChannelSftp#RESUME}. This must only
+   * be used when that portion was uploaded from the same RyDE file. Otherwise the remote file is
+   * overwritten, and {@code resume} is set to true as soon as it has been opened for writing, so
+   * that a retry after a later failure resumes it rather than starting over.
+   */
+  private void upload(GcsFilename rydeGcsFilename, GcsFilename sigGcsFilename, AtomicBoolean resume)
+      throws Exception {
+    String rydeFilename = rydeGcsFilename.getObjectName();
+    String sigFilename = sigGcsFilename.getObjectName();
+    boolean resuming = resume.get();
+    logger.atInfo().log(
+        "Uploading RyDE file '%s' to remote path '%s'%s.",
+        rydeGcsFilename, uploadUrl, resuming ? ", resuming any partial upload" : "");
+    boolean succeeded = false;
+    try (JSchSshSession session = jschSshSessionFactory.create(lazyJsch.get(), uploadUrl);
+        JSchSftpChannel ftpChan = session.openSftpChannel()) {
+      long remoteSizeBefore = resuming ? getRemoteSize(ftpChan, rydeFilename) : 0;
+      DateTime startTime = clock.nowUtc();
+      try (InputStream gcsInput = gcsUtils.openInputStream(rydeGcsFilename);
+          OutputStream ftpOutput =
+              ftpChan.get().put(rydeFilename, sftpProgressMonitor, resuming ? RESUME : OVERWRITE)) {
+        // The remote file now only holds bytes of this RyDE file, so it is safe to resume.
+        resume.set(true);
+        ByteStreams.skipFully(gcsInput, remoteSizeBefore);
+        ByteStreams.copy(gcsInput, ftpOutput);
+      }
+      long bytesSent = getRemoteSize(ftpChan, rydeFilename) - remoteSizeBefore;
+      metrics.recordThroughput(tld, bytesSent, new Duration(startTime, clock.nowUtc()));
+      logger.atInfo().log("uploaded %,d bytes: %s", bytesSent, rydeFilename);
+      byte[] signature;
+      try (InputStream gcsInput = gcsUtils.openInputStream(sigGcsFilename)) {
+        signature = ByteStreams.toByteArray(gcsInput);
       }
+      ftpChan.get().put(new ByteArrayInputStream(signature), sigFilename);
+      logger.atInfo().log("uploaded %,d bytes: %s", signature.length, sigFilename);
+      succeeded = true;
+    } finally {
+      metrics.recordAttempt(tld, resuming, succeeded);
+    }
+  }
+
+  /** Returns the size of a file on the SFTP server, or zero if there's no such file. */
+  private static long getRemoteSize(JSchSftpChannel ftpChan, String filename) {
+    try {
+      return ftpChan.get().stat(filename).getSize();
+    } catch (SftpException e) {
+      return 0;
     }
   }
 
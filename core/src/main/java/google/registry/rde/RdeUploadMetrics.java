@@ -0,0 +1,74 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.rde;
+
+import com.google.common.collect.ImmutableSet;
+import com.google.monitoring.metrics.DistributionFitter;
+import com.google.monitoring.metrics.EventMetric;
+import com.google.monitoring.metrics.ExponentialFitter;
+import com.google.monitoring.metrics.IncrementableMetric;
+import com.google.monitoring.metrics.LabelDescriptor;
+import com.google.monitoring.metrics.MetricRegistryImpl;
+import javax.inject.Inject;
+import org.joda.time.Duration;
+
+/** Metrics for SFTP uploads of RDE deposits. */
+public class RdeUploadMetrics {
+
+  private static final ImmutableSet<LabelDescriptor> ATTEMPT_LABEL_DESCRIPTORS =
+      ImmutableSet.of(
+          LabelDescriptor.create("tld", "TLD"),
+          LabelDescriptor.create("resumed", "Whether the attempt resumed a partial upload."),
+          LabelDescriptor.create("outcome", "Whether the attempt succeeded."));
+
+  private static final ImmutableSet<LabelDescriptor> TLD_LABEL_DESCRIPTORS =
+      ImmutableSet.of(LabelDescriptor.create("tld", "TLD"));
+
+  // Allows values between 1 KiB/s and 1 KiB/s * 2^20, i.e. about 1 GiB/s.
+  private static final DistributionFitter THROUGHPUT_FITTER =
+      ExponentialFitter.create(20, 2.0, 1024.0);
+
+  private static final IncrementableMetric uploadAttempts =
+      MetricRegistryImpl.getDefault()
+          .newIncrementableMetric(
+              "/rde/upload/attempts",
+              "Count of RDE deposit SFTP upload attempts",
+              "count",
+              ATTEMPT_LABEL_DESCRIPTORS);
+
+  private static final EventMetric uploadThroughput =
+      MetricRegistryImpl.getDefault()
+          .newEventMetric(
+              "/rde/upload/throughput",
+              "Throughput of successful RDE deposit SFTP uploads",
+              "bytes per second",
+              TLD_LABEL_DESCRIPTORS,
+              THROUGHPUT_FITTER);
+
+  @Inject
+  RdeUploadMetrics() {}
+
+  /** Records the outcome of a single SFTP upload attempt. */
+  void recordAttempt(String tld, boolean resumed, boolean succeeded) {
+    uploadAttempts.increment(tld, String.valueOf(resumed), succeeded ? "SUCCESS" : "FAILURE");
+  }
+
+  /** Records the number of bytes sent by a successful upload attempt and how long it took. */
+  void recordThroughput(String tld, long bytesSent, Duration duration) {
+    // Avoid dividing by zero for tiny uploads.
+    long millis = Math.max(1, duration.getMillis());
+    uploadThroughput.record(bytesSent * 1000.0 / millis, tld);
+  }
+}
@@ -14,6 +14,7 @@
 
 package google.registry.rde;
 
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
 import static org.bouncycastle.bcpg.CompressionAlgorithmTags.ZIP;
 
 import google.registry.util.ImprovedInputStream;
@@ -21,6 +22,7 @@ import google.registry.util.ImprovedOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.util.zip.Deflater;
 import javax.annotation.CheckReturnValue;
 import javax.annotation.WillNotClose;
 import org.bouncycastle.openpgp.PGPCompressedData;
@@ -53,10 +55,25 @@ final class RydeCompression {
    */
   @CheckReturnValue
   static ImprovedOutputStream openCompressor(@WillNotClose OutputStream os) {
+    return openCompressor(os, DEFAULT_COMPRESSION);
+  }
+
+  /**
+   * Creates an OutputStream that compresses the data at the given {@link Deflater} level.
+   *
+   * <p>The level only trades CPU time for output size; any level produces a valid ZIP packet that
+   * decompresses to the same data.
+   *
+   * @param compressionLevel {@link Deflater#DEFAULT_COMPRESSION} or a level from {@link
+   *     Deflater#NO_COMPRESSION} to {@link Deflater#BEST_COMPRESSION}
+   */
+  @CheckReturnValue
+  static ImprovedOutputStream openCompressor(@WillNotClose OutputStream os, int compressionLevel) {
     try {
       return new ImprovedOutputStream(
           "RydeCompressor",
-          new PGPCompressedDataGenerator(COMPRESSION_ALGORITHM).open(os, new byte[BUFFER_SIZE]));
+          new PGPCompressedDataGenerator(COMPRESSION_ALGORITHM, compressionLevel)
+              .open(os, new byte[BUFFER_SIZE]));
     } catch (IOException | PGPException e) {
       throw new RuntimeException(e);
     }
@@ -19,19 +19,20 @@ import static google.registry.config.RegistryConfig.getSingletonCachePersistDura
 import static google.registry.config.RegistryConfig.getStaticPremiumListMaxCachedEntries;
 import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
 
-import com.google.auto.value.AutoValue;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.CacheLoader;
-import com.google.common.cache.CacheLoader.InvalidCacheLoadException;
 import com.google.common.cache.LoadingCache;
+import com.google.common.util.concurrent.UncheckedExecutionException;
 import google.registry.model.registry.label.PremiumList;
 import google.registry.model.registry.label.PremiumList.PremiumListEntry;
+import google.registry.model.registry.label.PremiumPriceTable;
 import google.registry.util.NonFinalForTesting;
-import java.math.BigDecimal;
 import java.util.List;
 import java.util.Optional;
 import java.util.concurrent.ExecutionException;
+import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.joda.time.Duration;
 
@@ -79,37 +80,46 @@ public class PremiumListSqlDao {
   }
 
   /**
-   * In-memory price cache for for a given premium list revision and domain label.
+   * In-memory cache for the {@link PremiumPriceTable}s of premium list revisions.
    *
-   * <p>Note that premium list revision ids are globally unique, so this cache is specific to a
-   * given premium list. Premium list entries might not be present, as indicated by the Optional
-   * wrapper, and we want to cache that as well.
+   * <p>Note that premium list revision ids are globally unique, so each table is specific to a
+   * given premium list. Every entry of the revision is in its table, so a label that is absent from
+   * the table is definitely not premium.
    *
    * <p>This is cached for a long duration (essentially indefinitely) because premium list revisions
    * are immutable and cannot ever be changed once created, so the cache need not ever expire.
    *
-   * <p>A maximum size is set here on the cache because it can potentially grow too big to fit in
-   * memory if there are a large number of distinct premium list entries being queried (both those
-   * that exist, as well as those that might exist according to the Bloom filter, must be cached).
-   * The entries judged least likely to be accessed again will be evicted first.
+   * <p>The cache is bounded by the total number of entries in its tables, so that the tables of
+   * revisions that are no longer in use are evicted. Guava splits a cache's maximum weight evenly
+   * between its segments, so the cache has a single segment in order for the whole bound to be
+   * available to any one table. The bound must still be larger than the sum of the premium lists in
+   * use, or their tables would keep evicting each other and be rebuilt on lookups.
    */
   @NonFinalForTesting
-  static LoadingCache<RevisionIdAndLabel, Optional<BigDecimal>> premiumEntryCache =
-      createPremiumEntryCache(getSingletonCachePersistDuration());
+  static Cache<Long, PremiumPriceTable> priceTablesCache =
+      createPriceTablesCache(getSingletonCachePersistDuration());
 
   @VisibleForTesting
-  static LoadingCache<RevisionIdAndLabel, Optional<BigDecimal>> createPremiumEntryCache(
-      Duration cachePersistDuration) {
+  public static void setPriceTablesCacheForTest(Optional<Duration> expiry) {
+    Duration effectiveExpiry = expiry.orElse(getSingletonCachePersistDuration());
+    priceTablesCache = createPriceTablesCache(effectiveExpiry);
+  }
+
+  @VisibleForTesting
+  static Cache<Long, PremiumPriceTable> createPriceTablesCache(Duration cachePersistDuration) {
+    return createPriceTablesCache(cachePersistDuration, getStaticPremiumListMaxCachedEntries());
+  }
+
+  @VisibleForTesting
+  static Cache<Long, PremiumPriceTable> createPriceTablesCache(
+      Duration cachePersistDuration, long maxCachedEntries) {
     return CacheBuilder.newBuilder()
         .expireAfterWrite(java.time.Duration.ofMillis(cachePersistDuration.getMillis()))
-        .maximumSize(getStaticPremiumListMaxCachedEntries())
-        .build(
-            new CacheLoader<RevisionIdAndLabel, Optional<BigDecimal>>() {
-              @Override
-              public Optional<BigDecimal> load(RevisionIdAndLabel revisionIdAndLabel) {
-                return getPriceForLabelUncached(revisionIdAndLabel);
-              }
-            });
+        // Reads don't lock, and tables are rarely loaded, so one segment adds little contention.
+        .concurrencyLevel(1)
+        .maximumWeight(maxCachedEntries)
+        .weigher((Long revisionId, PremiumPriceTable table) -> table.size())
+        .build();
   }
 
   /**
@@ -132,24 +142,15 @@ public class PremiumListSqlDao {
       return Optional.empty();
     }
     PremiumList loadedList = maybeLoadedList.get();
-    // Consult the bloom filter and immediately return if the label definitely isn't premium.
-    if (!loadedList.getBloomFilter().mightContain(label)) {
-      return Optional.empty();
-    }
-    RevisionIdAndLabel revisionIdAndLabel =
-        RevisionIdAndLabel.create(loadedList.getRevisionId(), label);
     try {
-      Optional<BigDecimal> price = premiumEntryCache.get(revisionIdAndLabel);
-      return price.map(
-          p ->
-              Money.of(
-                  loadedList.getCurrency(),
-                  p.setScale(loadedList.getCurrency().getDecimalPlaces())));
-    } catch (InvalidCacheLoadException | ExecutionException e) {
+      return priceTablesCache
+          .get(loadedList.getRevisionId(), () -> loadPriceTableUncached(loadedList))
+          .getPrice(label);
+    } catch (UncheckedExecutionException | ExecutionException e) {
       throw new RuntimeException(
           String.format(
-              "Could not load premium entry %s for list %s",
-              revisionIdAndLabel, loadedList.getName()),
+              "Could not load premium price table for revision %d of list %s",
+              loadedList.getRevisionId(), loadedList.getName()),
           e);
     }
   }
@@ -161,6 +162,9 @@ public class PremiumListSqlDao {
   public static PremiumList save(PremiumList premiumList) {
     jpaTm().transact(() -> jpaTm().getEntityManager().persist(premiumList));
     premiumListCache.invalidate(premiumList.getName());
+    // Revision ids are only reused when the database is reset (e.g. between tests), but a table
+    // left over from before the reset would then shadow the new revision's entries.
+    priceTablesCache.invalidate(premiumList.getRevisionId());
     return premiumList;
   }
 
@@ -203,35 +207,18 @@ public class PremiumListSqlDao {
   }
 
   /**
-   * Loads the price for the given revisionId + label combination. Note that this does a database
-   * retrieval so it should only be done in a cached context.
+   * Loads all of the entries of the given premium list into a {@link PremiumPriceTable}. Note that
+   * this does a database retrieval so it should only be done in a cached context.
    */
-  static Optional<BigDecimal> getPriceForLabelUncached(RevisionIdAndLabel revisionIdAndLabel) {
-    return jpaTm()
-        .transact(
-            () ->
-                jpaTm()
-                    .getEntityManager()
-                    .createQuery(
-                        "SELECT pe.price FROM PremiumEntry pe WHERE pe.revisionId = :revisionId"
-                            + " AND pe.domainLabel = :label",
-                        BigDecimal.class)
-                    .setParameter("revisionId", revisionIdAndLabel.revisionId())
-                    .setParameter("label", revisionIdAndLabel.label())
-                    .setMaxResults(1)
-                    .getResultStream()
-                    .findFirst());
-  }
-
-  @AutoValue
-  abstract static class RevisionIdAndLabel {
-    abstract long revisionId();
-
-    abstract String label();
-
-    static RevisionIdAndLabel create(long revisionId, String label) {
-      return new AutoValue_PremiumListSqlDao_RevisionIdAndLabel(revisionId, label);
+  private static PremiumPriceTable loadPriceTableUncached(PremiumList premiumList) {
+    CurrencyUnit currency = premiumList.getCurrency();
+    PremiumPriceTable.Builder builder = new PremiumPriceTable.Builder();
+    for (PremiumEntry entry : loadPremiumListEntriesUncached(premiumList)) {
+      builder.put(
+          entry.getDomainLabel(),
+          Money.of(currency, entry.getPrice().setScale(currency.getDecimalPlaces())));
     }
+    return builder.build();
   }
 
   private PremiumListSqlDao() {}
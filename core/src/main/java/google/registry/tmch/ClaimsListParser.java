@@ -15,10 +15,15 @@
 package google.registry.tmch;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static google.registry.tmch.TmchCsvUtils.parseDateTime;
+import static google.registry.tmch.TmchCsvUtils.splitRow;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharSource;
+import com.google.common.io.LineProcessor;
 import google.registry.model.tmch.ClaimsListShard;
+import java.io.IOException;
 import java.util.List;
 import org.joda.time.DateTime;
 
@@ -39,41 +44,69 @@ public class ClaimsListParser {
    * <p>Please note that this does <b>not</b> insert the object into Datastore.
    */
   public static ClaimsListShard parse(List<String> lines) {
-    ImmutableMap.Builder<String, String> builder = new ImmutableMap.Builder<>();
+    DnlLineProcessor processor = new DnlLineProcessor();
+    lines.forEach(processor::processLine);
+    return processor.getResult();
+  }
 
-    // First line: <version>,<DNL List creation datetime>
-    List<String> firstLine = Splitter.on(',').splitToList(lines.get(0));
-    checkArgument(firstLine.size() == 2, String.format(
-        "Line 1: Expected 2 elements, found %d", firstLine.size()));
+  /**
+   * Converts the DNL CSV file into a {@link ClaimsListShard} object, one line at a time.
+   *
+   * <p>Unlike {@link #parse(List)}, this never holds all of the lines of the file in memory.
+   *
+   * <p>Please note that this does <b>not</b> insert the object into Datastore.
+   */
+  public static ClaimsListShard parse(CharSource csv) throws IOException {
+    return csv.readLines(new DnlLineProcessor());
+  }
 
-    Integer version = Integer.valueOf(firstLine.get(0));
-    DateTime creationTime = DateTime.parse(firstLine.get(1));
-    checkArgument(version == 1, String.format(
-        "Line 1: Expected version 1, found %d", version));
+  /** Parses the lines of a DNL CSV file into a {@link ClaimsListShard}. */
+  private static class DnlLineProcessor implements LineProcessor<ClaimsListShard> {
 
-    // Second line contains headers: DNL,lookup-key,insertion-datetime
-    List<String> secondLine = Splitter.on(',').splitToList(lines.get(1));
-    checkArgument(secondLine.size() == 3, String.format(
-        "Line 2: Expected 3 elements, found %d", secondLine.size()));
-    checkArgument("DNL".equals(secondLine.get(0)), String.format(
-        "Line 2: Expected header \"DNL\", found \"%s\"", secondLine.get(0)));
-    checkArgument("lookup-key".equals(secondLine.get(1)), String.format(
-        "Line 2: Expected header \"lookup-key\", found \"%s\"", secondLine.get(1)));
-    checkArgument("insertion-datetime".equals(secondLine.get(2)), String.format(
-        "Line 2: Expected header \"insertion-datetime\", found \"%s\"", secondLine.get(2)));
+    private final ImmutableMap.Builder<String, String> builder = new ImmutableMap.Builder<>();
+    private DateTime creationTime;
+    private int lineNumber = 0;
 
-    // Subsequent lines: <DNL>,<lookup key>,<DNL insertion datetime>
-    for (int i = 2; i < lines.size(); i++) {
-      List<String> currentLine = Splitter.on(',').splitToList(lines.get(i));
-      checkArgument(currentLine.size() == 3, String.format(
-          "Line %d: Expected 3 elements, found %d", i + 1, currentLine.size()));
+    @Override
+    public boolean processLine(String line) {
+      lineNumber++;
+      if (lineNumber == 1) {
+        // First line: <version>,<DNL List creation datetime>
+        List<String> firstLine = Splitter.on(',').splitToList(line);
+        checkArgument(firstLine.size() == 2, String.format(
+            "Line 1: Expected 2 elements, found %d", firstLine.size()));
 
-      String label = currentLine.get(0);
-      String lookupKey = currentLine.get(1);
-      DateTime.parse(currentLine.get(2));  // This is the insertion time, currently unused.
-      builder.put(label, lookupKey);
+        Integer version = Integer.valueOf(firstLine.get(0));
+        creationTime = DateTime.parse(firstLine.get(1));
+        checkArgument(version == 1, String.format(
+            "Line 1: Expected version 1, found %d", version));
+      } else if (lineNumber == 2) {
+        // Second line contains headers: DNL,lookup-key,insertion-datetime
+        List<String> secondLine = Splitter.on(',').splitToList(line);
+        checkArgument(secondLine.size() == 3, String.format(
+            "Line 2: Expected 3 elements, found %d", secondLine.size()));
+        checkArgument("DNL".equals(secondLine.get(0)), String.format(
+            "Line 2: Expected header \"DNL\", found \"%s\"", secondLine.get(0)));
+        checkArgument("lookup-key".equals(secondLine.get(1)), String.format(
+            "Line 2: Expected header \"lookup-key\", found \"%s\"", secondLine.get(1)));
+        checkArgument("insertion-datetime".equals(secondLine.get(2)), String.format(
+            "Line 2: Expected header \"insertion-datetime\", found \"%s\"",
+            secondLine.get(2)));
+      } else {
+        // Subsequent lines: <DNL>,<lookup key>,<DNL insertion datetime>
+        String[] currentLine = splitRow(line, lineNumber, 3);
+        String label = currentLine[0];
+        String lookupKey = currentLine[1];
+        parseDateTime(currentLine[2]); // This is the insertion time, currently unused.
+        builder.put(label, lookupKey);
+      }
+      return true;
     }
 
-    return ClaimsListShard.create(creationTime, builder.build());
+    @Override
+    public ClaimsListShard getResult() {
+      checkArgument(lineNumber >= 2, "Expected at least 2 lines, found %s", lineNumber);
+      return ClaimsListShard.create(creationTime, builder.build());
+    }
   }
 }
@@ -17,6 +17,7 @@ package google.registry.tmch;
 import static com.google.common.base.MoreObjects.toStringHelper;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static google.registry.tmch.TmchCsvUtils.splitRow;
 
 import com.google.common.base.Ascii;
 import com.google.common.base.Splitter;
@@ -247,11 +248,9 @@ public final class LordnLog implements Iterable<Entry<String, LordnLog.Result>>
     // Subsequent lines: <roid>,<result code>
     ImmutableMap.Builder<String, Result> builder = new ImmutableMap.Builder<>();
     for (int i = 2; i < lines.size(); i++) {
-      List<String> currentLine = Splitter.on(',').splitToList(lines.get(i));
-      checkArgument(currentLine.size() == 2, String.format(
-          "Line %d: Expected 2 elements, found %d", i + 1, currentLine.size()));
-      String roid = currentLine.get(0);
-      int code = Integer.parseInt(currentLine.get(1));
+      String[] currentLine = splitRow(lines.get(i), i + 1, 2);
+      String roid = currentLine[0];
+      int code = Integer.parseInt(currentLine[1]);
       Result result = checkNotNull(RESULTS.get(code), "Line %s: Unknown result code: %s", i, code);
       builder.put(roid, result);
     }
@@ -14,13 +14,11 @@
 
 package google.registry.tmch;
 
-import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
 import static com.google.common.base.Preconditions.checkState;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 
-import com.google.appengine.api.taskqueue.TaskOptions;
-import com.google.appengine.api.taskqueue.TaskOptions.Method;
 import com.google.common.base.Joiner;
+import google.registry.batch.AsyncTaskEnqueuer;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.registrar.Registrar;
 import java.util.Optional;
@@ -45,22 +43,22 @@ public final class LordnTaskUtils {
 
   /**
    * Enqueues a task in the LORDN queue representing a line of CSV for LORDN export.
+   *
+   * <p>The task goes through the given {@link AsyncTaskEnqueuer}, so that when its outbox is
+   * enabled the line is saved in the same transaction as the domain rather than being added to the
+   * queue during the flow.
    */
-  public static void enqueueDomainBaseTask(DomainBase domain) {
+  public static void enqueueDomainBaseTask(AsyncTaskEnqueuer asyncTaskEnqueuer, DomainBase domain) {
     tm().assertInTransaction();
     // This method needs to use ofy transactionTime as the DomainBase's creationTime because
     // CreationTime isn't yet populated when this method is called during the resource flow.
-    String tld = domain.getTld();
+    DateTime now = tm().getTransactionTime();
     if (domain.getLaunchNotice() == null) {
-      getQueue(QUEUE_SUNRISE).add(TaskOptions.Builder
-          .withTag(tld)
-          .method(Method.PULL)
-          .payload(getCsvLineForSunriseDomain(domain, tm().getTransactionTime())));
+      asyncTaskEnqueuer.enqueueLordnTask(
+          QUEUE_SUNRISE, domain.getTld(), getCsvLineForSunriseDomain(domain, now), now);
     } else {
-      getQueue(QUEUE_CLAIMS).add(TaskOptions.Builder
-          .withTag(tld)
-          .method(Method.PULL)
-          .payload(getCsvLineForClaimsDomain(domain, tm().getTransactionTime())));
+      asyncTaskEnqueuer.enqueueLordnTask(
+          QUEUE_CLAIMS, domain.getTld(), getCsvLineForClaimsDomain(domain, now), now);
     }
   }
 
@@ -25,9 +25,9 @@ import static javax.servlet.http.HttpServletResponse.SC_OK;
 import com.google.appengine.api.urlfetch.HTTPRequest;
 import com.google.appengine.api.urlfetch.HTTPResponse;
 import com.google.appengine.api.urlfetch.URLFetchService;
-import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import com.google.common.io.ByteSource;
+import com.google.common.io.CharSource;
 import google.registry.config.RegistryConfig.Config;
 import google.registry.keyring.api.KeyModule.Key;
 import google.registry.util.UrlFetchException;
@@ -37,7 +37,6 @@ import java.net.URL;
 import java.security.Security;
 import java.security.SignatureException;
 import java.util.Arrays;
-import java.util.List;
 import java.util.Optional;
 import javax.annotation.Tainted;
 import javax.inject.Inject;
@@ -127,7 +126,11 @@ public final class Marksdb {
     return rsp.getContent();
   }
 
-  List<String> fetchSignedCsv(Optional<String> loginAndPassword, String csvPath, String sigPath)
+  /**
+   * Fetches a CSV file and its signature from MarksDB, verifies the signature, and returns the
+   * contents of the file, which callers can then parse one line at a time.
+   */
+  CharSource fetchSignedCsv(Optional<String> loginAndPassword, String csvPath, String sigPath)
       throws IOException, SignatureException, PGPException {
     checkArgument(
         loginAndPassword.isPresent(), "Cannot fetch from MarksDB without login credentials");
@@ -141,9 +144,7 @@ public final class Marksdb {
     logFetchedBytes(sigUrl, sig);
 
     pgpVerifySignature(csv, sig, marksdbPublicKey);
-    ImmutableList<String> lines = ByteSource.wrap(csv).asCharSource(US_ASCII).readLines();
-    logger.atInfo().log("Parsed %d lines.", lines.size());
-    return lines;
+    return ByteSource.wrap(csv).asCharSource(US_ASCII);
   }
 
   /**
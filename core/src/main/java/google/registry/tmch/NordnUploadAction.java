@@ -39,7 +39,6 @@ import com.google.appengine.api.urlfetch.HTTPRequest;
 import com.google.appengine.api.urlfetch.HTTPResponse;
 import com.google.appengine.api.urlfetch.URLFetchService;
 import com.google.apphosting.api.DeadlineExceededException;
-import com.google.common.base.Strings;
 import com.google.common.collect.ImmutableList;
 import com.google.common.flogger.FluentLogger;
 import google.registry.config.RegistryConfig.Config;
@@ -123,14 +122,28 @@ public final class NordnUploadAction implements Runnable {
   /**
    * Converts a list of queue tasks, each containing a row of CSV data, into a single newline-
    * delimited String.
+   *
+   * <p>The line count in the header only includes the tasks that have a row, since MarksDB rejects
+   * files whose line count doesn't match their contents. The rows are counted and measured before
+   * any are copied, so that the header and rows are written into one builder of the right size.
    */
   static String convertTasksToCsv(List<TaskHandle> tasks, DateTime now, String columns) {
-    String header = String.format("1,%s,%d\n%s\n", now, tasks.size(), columns);
-    StringBuilder csv = new StringBuilder(header);
+    int rowCount = 0;
+    int rowsLength = 0;
     for (TaskHandle task : checkNotNull(tasks)) {
-      String payload = new String(task.getPayload(), UTF_8);
-      if (!Strings.isNullOrEmpty(payload)) {
-        csv.append(payload).append("\n");
+      byte[] payload = task.getPayload();
+      if (payload != null && payload.length > 0) {
+        rowCount++;
+        // A UTF-8 row has at most as many chars as bytes, so this is an upper bound.
+        rowsLength += payload.length + 1;
+      }
+    }
+    String header = String.format("1,%s,%d\n%s\n", now, rowCount, columns);
+    StringBuilder csv = new StringBuilder(header.length() + rowsLength).append(header);
+    for (TaskHandle task : tasks) {
+      byte[] payload = task.getPayload();
+      if (payload != null && payload.length > 0) {
+        csv.append(new String(payload, UTF_8)).append('\n');
       }
     }
     return csv.toString();
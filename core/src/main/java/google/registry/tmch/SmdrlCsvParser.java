@@ -15,11 +15,16 @@
 package google.registry.tmch;
 
 import static com.google.common.base.Preconditions.checkArgument;
+import static google.registry.tmch.TmchCsvUtils.parseDateTime;
+import static google.registry.tmch.TmchCsvUtils.splitRow;
 import static org.joda.time.DateTimeZone.UTC;
 
 import com.google.common.base.Splitter;
 import com.google.common.collect.ImmutableMap;
+import com.google.common.io.CharSource;
+import com.google.common.io.LineProcessor;
 import google.registry.model.smd.SignedMarkRevocationList;
+import java.io.IOException;
 import java.util.List;
 import org.joda.time.DateTime;
 
@@ -36,36 +41,63 @@ public final class SmdrlCsvParser {
 
   /** Converts the lines from the DNL CSV file into a data structure. */
   public static SignedMarkRevocationList parse(List<String> lines) {
-    ImmutableMap.Builder<String, DateTime> revokes = new ImmutableMap.Builder<>();
+    SmdrlLineProcessor processor = new SmdrlLineProcessor();
+    lines.forEach(processor::processLine);
+    return processor.getResult();
+  }
+
+  /**
+   * Converts the SMDRL CSV file into a data structure, one line at a time.
+   *
+   * <p>Unlike {@link #parse(List)}, this never holds all of the lines of the file in memory.
+   */
+  public static SignedMarkRevocationList parse(CharSource csv) throws IOException {
+    return csv.readLines(new SmdrlLineProcessor());
+  }
 
-    // First line: <version>,<SMD Revocation List creation datetime>
-    List<String> firstLine = Splitter.on(',').splitToList(lines.get(0));
-    checkArgument(firstLine.size() == 2, String.format(
-        "Line 1: Expected 2 elements, found %d", firstLine.size()));
-    Integer version = Integer.valueOf(firstLine.get(0));
-    checkArgument(version == 1, String.format(
-        "Line 1: Expected version 1, found %d", version));
-    DateTime creationTime = DateTime.parse(firstLine.get(1)).withZone(UTC);
+  /** Parses the lines of an SMDRL CSV file into a {@link SignedMarkRevocationList}. */
+  private static class SmdrlLineProcessor implements LineProcessor<SignedMarkRevocationList> {
 
-    // Second line contains headers: smd-id,insertion-datetime
-    List<String> secondLine = Splitter.on(',').splitToList(lines.get(1));
-    checkArgument(secondLine.size() == 2, String.format(
-        "Line 2: Expected 2 elements, found %d", secondLine.size()));
-    checkArgument("smd-id".equals(secondLine.get(0)), String.format(
-        "Line 2: Expected header \"smd-id\", found \"%s\"", secondLine.get(0)));
-    checkArgument("insertion-datetime".equals(secondLine.get(1)), String.format(
-        "Line 2: Expected header \"insertion-datetime\", found \"%s\"", secondLine.get(1)));
+    private final ImmutableMap.Builder<String, DateTime> revokes = new ImmutableMap.Builder<>();
+    private DateTime creationTime;
+    private int lineNumber = 0;
 
-    // Subsequent lines: <smd-id>,<revoked SMD datetime>
-    for (int i = 2; i < lines.size(); i++) {
-      List<String> currentLine = Splitter.on(',').splitToList(lines.get(i));
-      checkArgument(currentLine.size() == 2, String.format(
-          "Line %d: Expected 2 elements, found %d", i + 1, currentLine.size()));
-      String smdId = currentLine.get(0);
-      DateTime revokedTime = DateTime.parse(currentLine.get(1));
-      revokes.put(smdId, revokedTime);
+    @Override
+    public boolean processLine(String line) {
+      lineNumber++;
+      if (lineNumber == 1) {
+        // First line: <version>,<SMD Revocation List creation datetime>
+        List<String> firstLine = Splitter.on(',').splitToList(line);
+        checkArgument(firstLine.size() == 2, String.format(
+            "Line 1: Expected 2 elements, found %d", firstLine.size()));
+        Integer version = Integer.valueOf(firstLine.get(0));
+        checkArgument(version == 1, String.format(
+            "Line 1: Expected version 1, found %d", version));
+        creationTime = DateTime.parse(firstLine.get(1)).withZone(UTC);
+      } else if (lineNumber == 2) {
+        // Second line contains headers: smd-id,insertion-datetime
+        List<String> secondLine = Splitter.on(',').splitToList(line);
+        checkArgument(secondLine.size() == 2, String.format(
+            "Line 2: Expected 2 elements, found %d", secondLine.size()));
+        checkArgument("smd-id".equals(secondLine.get(0)), String.format(
+            "Line 2: Expected header \"smd-id\", found \"%s\"", secondLine.get(0)));
+        checkArgument("insertion-datetime".equals(secondLine.get(1)), String.format(
+            "Line 2: Expected header \"insertion-datetime\", found \"%s\"",
+            secondLine.get(1)));
+      } else {
+        // Subsequent lines: <smd-id>,<revoked SMD datetime>
+        String[] currentLine = splitRow(line, lineNumber, 2);
+        String smdId = currentLine[0];
+        DateTime revokedTime = parseDateTime(currentLine[1]);
+        revokes.put(smdId, revokedTime);
+      }
+      return true;
     }
 
-    return SignedMarkRevocationList.create(creationTime, revokes.build());
+    @Override
+    public SignedMarkRevocationList getResult() {
+      checkArgument(lineNumber >= 2, "Expected at least 2 lines, found %s", lineNumber);
+      return SignedMarkRevocationList.create(creationTime, revokes.build());
+    }
   }
 }
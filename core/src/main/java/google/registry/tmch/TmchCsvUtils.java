@@ -0,0 +1,71 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.tmch;
+
+import com.google.common.base.CharMatcher;
+import org.joda.time.DateTime;
+import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.ISODateTimeFormat;
+
+/**
+ * Helpers for parsing the rows of the CSV files served by MarksDB.
+ *
+ * <p>These files can have millions of rows, so rows are split without going through a {@link
+ * com.google.common.base.Splitter} and its intermediate list, and timestamps are parsed with a
+ * single shared formatter rather than creating one per row as {@link DateTime#parse} does.
+ */
+final class TmchCsvUtils {
+
+  /** The formatter used by {@link DateTime#parse(String)}, which is immutable and thread-safe. */
+  private static final DateTimeFormatter DATE_TIME_PARSER =
+      ISODateTimeFormat.dateTimeParser().withOffsetParsed();
+
+  /**
+   * Splits a row of a CSV file on its commas into the given number of fields.
+   *
+   * @throws IllegalArgumentException if the row has a different number of fields
+   */
+  static String[] splitRow(String row, int lineNumber, int expectedFields) {
+    String[] fields = new String[expectedFields];
+    int start = 0;
+    for (int i = 0; i < expectedFields - 1; i++) {
+      int end = row.indexOf(',', start);
+      checkFieldCount(end >= 0, row, lineNumber, expectedFields);
+      fields[i] = row.substring(start, end);
+      start = end + 1;
+    }
+    checkFieldCount(row.indexOf(',', start) < 0, row, lineNumber, expectedFields);
+    fields[expectedFields - 1] = row.substring(start);
+    return fields;
+  }
+
+  private static void checkFieldCount(
+      boolean expression, String row, int lineNumber, int expectedFields) {
+    // Only count the fields on failure, since this is called for every field of every row.
+    if (!expression) {
+      throw new IllegalArgumentException(
+          String.format(
+              "Line %d: Expected %d elements, found %d",
+              lineNumber, expectedFields, CharMatcher.is(',').countIn(row) + 1));
+    }
+  }
+
+  /** Parses a timestamp in the same way as {@link DateTime#parse(String)}. */
+  static DateTime parseDateTime(String dateTime) {
+    return DATE_TIME_PARSER.parseDateTime(dateTime);
+  }
+
+  private TmchCsvUtils() {}
+}
@@ -18,12 +18,12 @@ import static google.registry.request.Action.Method.POST;
 
 import com.google.common.flogger.FluentLogger;
 import google.registry.keyring.api.KeyModule.Key;
+import google.registry.model.tmch.ClaimsListDao;
 import google.registry.model.tmch.ClaimsListShard;
 import google.registry.request.Action;
 import google.registry.request.auth.Auth;
 import java.io.IOException;
 import java.security.SignatureException;
-import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.bouncycastle.openpgp.PGPException;
@@ -48,13 +48,27 @@ public final class TmchDnlAction implements Runnable {
   /** Synchronously fetches latest domain name list and saves it to Datastore. */
   @Override
   public void run() {
-    List<String> lines;
+    ClaimsListShard claims;
     try {
-      lines = marksdb.fetchSignedCsv(marksdbDnlLoginAndPassword, DNL_CSV_PATH, DNL_SIG_PATH);
+      claims =
+          ClaimsListParser.parse(
+              marksdb.fetchSignedCsv(marksdbDnlLoginAndPassword, DNL_CSV_PATH, DNL_SIG_PATH));
     } catch (SignatureException | IOException | PGPException e) {
       throw new RuntimeException(e);
     }
-    ClaimsListShard claims = ClaimsListParser.parse(lines);
+    // MarksDB only generates a new list every so often, so most downloads are of the list that is
+    // already live, and there is no need to rewrite all of its shards. Only the generation time
+    // of the current list is loaded to check this, not its claims.
+    if (ClaimsListShard.getCurrentTmdbGenerationTime()
+        .map(claims.getTmdbGenerationTime()::equals)
+        .orElse(false)) {
+      logger.atInfo().log(
+          "Claims list created at %s is already in Datastore.", claims.getTmdbGenerationTime());
+      // The Cloud SQL write is only attempted after the Datastore one and its failure is just
+      // logged, so make sure that it eventually happens.
+      ClaimsListDao.trySaveIfMissing(claims);
+      return;
+    }
     claims.save();
     logger.atInfo().log(
         "Inserted %,d claims into Datastore, created at %s",
@@ -23,7 +23,6 @@ import google.registry.request.Action;
 import google.registry.request.auth.Auth;
 import java.io.IOException;
 import java.security.SignatureException;
-import java.util.List;
 import java.util.Optional;
 import javax.inject.Inject;
 import org.bouncycastle.openpgp.PGPException;
@@ -48,14 +47,22 @@ public final class TmchSmdrlAction implements Runnable {
   /** Synchronously fetches latest signed mark revocation list and saves it to Datastore. */
   @Override
   public void run() {
-    List<String> lines;
+    SignedMarkRevocationList smdrl;
     try {
-      lines = marksdb.fetchSignedCsv(marksdbSmdrlLoginAndPassword, SMDRL_CSV_PATH, SMDRL_SIG_PATH);
+      smdrl =
+          SmdrlCsvParser.parse(
+              marksdb.fetchSignedCsv(
+                  marksdbSmdrlLoginAndPassword, SMDRL_CSV_PATH, SMDRL_SIG_PATH));
     } catch (SignatureException | IOException | PGPException e) {
       throw new RuntimeException(e);
     }
-    SignedMarkRevocationList smdrl = SmdrlCsvParser.parse(lines);
-    smdrl.save();
+    // MarksDB only publishes a new list when an SMD is revoked, so most downloads are of the list
+    // that is already live, and there is no need to rewrite all of its revocations.
+    if (!smdrl.saveIfChanged()) {
+      logger.atInfo().log(
+          "SMD revocation list created at %s is already saved.", smdrl.getCreationTime());
+      return;
+    }
     logger.atInfo().log(
         "Inserted %,d smd revocations into Datastore, created at %s",
         smdrl.size(), smdrl.getCreationTime());
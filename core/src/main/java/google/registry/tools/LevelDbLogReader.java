@@ -14,19 +14,24 @@
 
 package google.registry.tools;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkState;
+import static java.nio.file.StandardOpenOption.READ;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.Lists;
-import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
 import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
 import java.nio.channels.ReadableByteChannel;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Arrays;
 import java.util.Iterator;
 import java.util.LinkedList;
 import java.util.Optional;
@@ -52,25 +57,38 @@ public final class LevelDbLogReader implements Iterator<byte[]> {
   @VisibleForTesting static final int BLOCK_SIZE = 32 * 1024;
   @VisibleForTesting static final int HEADER_SIZE = 7;
 
-  private final ByteArrayOutputStream recordContents = new ByteArrayOutputStream();
+  /**
+   * How much of a file to memory-map at a time, by default.
+   *
+   * <p>This must be a multiple of {@link #BLOCK_SIZE}, so that no block straddles two mappings.
+   */
+  @VisibleForTesting static final int MAPPING_SIZE = 2048 * BLOCK_SIZE;
+
   private final LinkedList<byte[]> recordList = Lists.newLinkedList();
+  private final BlockSource blockSource;
 
-  private final ByteBuffer byteBuffer = ByteBuffer.allocate(BLOCK_SIZE);
-  private final ReadableByteChannel channel;
+  /** Contents of the chunks read so far of a record that spans several blocks. */
+  private byte[] partialRecord = new byte[BLOCK_SIZE];
+
+  private int partialRecordSize;
+
+  private LevelDbLogReader(BlockSource blockSource) {
+    this.blockSource = blockSource;
+  }
 
   LevelDbLogReader(ReadableByteChannel channel) {
-    this.channel = channel;
+    this(new ChannelBlockSource(channel));
   }
 
   @Override
   public boolean hasNext() {
     while (recordList.isEmpty()) {
       try {
-        Optional<byte[]> block = readFromChannel();
+        Optional<ByteBuffer> block = blockSource.nextBlock();
         if (!block.isPresent()) {
           return false;
         }
-        if (block.get().length != BLOCK_SIZE) {
+        if (block.get().remaining() != BLOCK_SIZE) {
           throw new IllegalStateException("Data size is not multiple of " + BLOCK_SIZE);
         }
         processBlock(block.get());
@@ -88,47 +106,47 @@ public final class LevelDbLogReader implements Iterator<byte[]> {
   }
 
   /**
-   * Returns the next {@link #BLOCK_SIZE} bytes from the input channel, or {@link Optional#empty()}
-   * if there is no more data.
+   * Reads the records in a complete block, which must be exactly 32 KB.
+   *
+   * <p>The block is read in place, so the only copies made are of the record contents themselves.
    */
-  // TODO(weiminyu): use ByteBuffer directly.
-  private Optional<byte[]> readFromChannel() throws IOException {
-    while (channel.isOpen()) {
-      int bytesRead = channel.read(byteBuffer);
-      if (!byteBuffer.hasRemaining() || bytesRead < 0) {
-        byteBuffer.flip();
-        if (!byteBuffer.hasRemaining()) {
-          channel.close();
-          return Optional.empty();
-        }
-        byte[] result = new byte[byteBuffer.remaining()];
-        byteBuffer.get(result);
-        byteBuffer.clear();
-        return Optional.of(result);
-      }
-    }
-    return Optional.empty();
-  }
-
-  /** Read a complete block, which must be exactly 32 KB. */
-  private void processBlock(byte[] block) {
+  private void processBlock(ByteBuffer block) {
+    int blockStart = block.position();
     // Read records from the block until there is no longer enough space for a record (i.e. until
     // we're at HEADER_SIZE - 1 bytes from the end of the block).
     int i = 0;
     while (i < BLOCK_SIZE - (HEADER_SIZE - 1)) {
-      RecordHeader recordHeader = readRecordHeader(block, i);
+      RecordHeader recordHeader = readRecordHeader(block, blockStart + i);
       if (recordHeader.type == ChunkType.END) {
         // A type of zero indicates that we've reached the padding zeroes at the end of the block.
         break;
       }
+      ByteBuffer chunk = block.duplicate();
+      chunk.position(blockStart + i + HEADER_SIZE);
+      chunk.limit(chunk.position() + recordHeader.size);
 
-      // Copy the contents of the record into recordContents.
-      recordContents.write(block, i + HEADER_SIZE, recordHeader.size);
+      if (recordHeader.type == ChunkType.FULL && partialRecordSize == 0) {
+        // The common case: the record fits in this block, so copy it out directly.
+        byte[] record = new byte[recordHeader.size];
+        chunk.get(record);
+        recordList.add(record);
+      } else {
+        // Accumulate the chunks of a record that spans blocks.
+        if (partialRecordSize + recordHeader.size > partialRecord.length) {
+          partialRecord =
+              Arrays.copyOf(
+                  partialRecord,
+                  Math.max(partialRecord.length * 2, partialRecordSize + recordHeader.size));
+        }
+        chunk.get(partialRecord, partialRecordSize, recordHeader.size);
+        partialRecordSize += recordHeader.size;
 
-      // If this is the last (or only) chunk in the record, store the full contents into the List.
-      if (recordHeader.type == ChunkType.FULL || recordHeader.type == ChunkType.LAST) {
-        recordList.add(recordContents.toByteArray());
-        recordContents.reset();
+        // If this is the last (or only) chunk in the record, store the full contents into the
+        // List.
+        if (recordHeader.type == ChunkType.FULL || recordHeader.type == ChunkType.LAST) {
+          recordList.add(Arrays.copyOf(partialRecord, partialRecordSize));
+          partialRecordSize = 0;
+        }
       }
 
       i += recordHeader.size + HEADER_SIZE;
@@ -140,12 +158,12 @@ public final class LevelDbLogReader implements Iterator<byte[]> {
    *
    * <p>Java bytes are signed, which doesn't work very well for our bit-shifting operations.
    */
-  private int getUnsignedByte(byte[] block, int pos) {
-    return block[pos] & 0xFF;
+  private static int getUnsignedByte(ByteBuffer block, int pos) {
+    return block.get(pos) & 0xFF;
   }
 
   /** Reads the 7 byte record header. */
-  private RecordHeader readRecordHeader(byte[] block, int pos) {
+  private static RecordHeader readRecordHeader(ByteBuffer block, int pos) {
     // Read checksum (4 bytes, LE).
     int checksum =
         getUnsignedByte(block, pos)
@@ -170,9 +188,29 @@ public final class LevelDbLogReader implements Iterator<byte[]> {
     return new LevelDbLogReader(Channels.newChannel(source));
   }
 
-  /** Returns a {@link LevelDbLogReader} over a file specified by {@link Path}. */
+  /**
+   * Returns a {@link LevelDbLogReader} over a file specified by {@link Path}.
+   *
+   * <p>The file is memory-mapped rather than read through a stream, so its blocks are parsed in
+   * place without being copied onto the heap first.
+   */
   public static LevelDbLogReader from(Path path) throws IOException {
-    return from(Files.newInputStream(path));
+    return from(path, MAPPING_SIZE);
+  }
+
+  /**
+   * Returns a {@link LevelDbLogReader} over a file specified by {@link Path}, which is
+   * memory-mapped {@code mappingSize} bytes at a time.
+   */
+  @VisibleForTesting
+  static LevelDbLogReader from(Path path, int mappingSize) throws IOException {
+    checkArgument(
+        mappingSize > 0 && mappingSize % BLOCK_SIZE == 0,
+        "Mapping size must be a positive multiple of %s, got %s",
+        BLOCK_SIZE,
+        mappingSize);
+    return new LevelDbLogReader(
+        new MappedFileBlockSource(FileChannel.open(path, READ), mappingSize));
   }
 
   /** Returns a {@link LevelDbLogReader} over a file specified by {@code filename}. */
@@ -180,6 +218,91 @@ public final class LevelDbLogReader implements Iterator<byte[]> {
     return from(FileSystems.getDefault().getPath(filename));
   }
 
+  /**
+   * Source of consecutive blocks of LevelDb data.
+   *
+   * <p>Implementations close their input once all data have been read.
+   */
+  private interface BlockSource {
+
+    /**
+     * Returns a buffer whose remaining bytes are the next block, or {@link Optional#empty()} if
+     * there is no more data.
+     *
+     * <p>The buffer is only valid until the next call. The block is shorter than {@link
+     * #BLOCK_SIZE} only if the data ends with an incomplete block.
+     */
+    Optional<ByteBuffer> nextBlock() throws IOException;
+  }
+
+  /** Reads blocks from a channel into a reused direct buffer. */
+  private static final class ChannelBlockSource implements BlockSource {
+
+    private final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(BLOCK_SIZE);
+    private final ReadableByteChannel channel;
+
+    ChannelBlockSource(ReadableByteChannel channel) {
+      this.channel = channel;
+    }
+
+    @Override
+    public Optional<ByteBuffer> nextBlock() throws IOException {
+      if (!channel.isOpen()) {
+        return Optional.empty();
+      }
+      byteBuffer.clear();
+      while (byteBuffer.hasRemaining() && channel.read(byteBuffer) >= 0) {}
+      byteBuffer.flip();
+      if (!byteBuffer.hasRemaining()) {
+        channel.close();
+        return Optional.empty();
+      }
+      return Optional.of(byteBuffer);
+    }
+  }
+
+  /** Serves blocks directly out of memory-mapped regions of a file. */
+  private static final class MappedFileBlockSource implements BlockSource {
+
+    private final FileChannel fileChannel;
+    private final long fileSize;
+    private final int mappingSize;
+
+    private MappedByteBuffer mapping;
+    private long mappingStart;
+    private long position;
+
+    MappedFileBlockSource(FileChannel fileChannel, int mappingSize) throws IOException {
+      this.fileChannel = fileChannel;
+      this.fileSize = fileChannel.size();
+      this.mappingSize = mappingSize;
+    }
+
+    @Override
+    public Optional<ByteBuffer> nextBlock() throws IOException {
+      if (!fileChannel.isOpen()) {
+        return Optional.empty();
+      }
+      if (position >= fileSize) {
+        mapping = null;
+        fileChannel.close();
+        return Optional.empty();
+      }
+      if (mapping == null || position >= mappingStart + mapping.capacity()) {
+        mappingStart = position;
+        long mappingLength = Math.min(mappingSize, fileSize - position);
+        mapping = fileChannel.map(MapMode.READ_ONLY, position, mappingLength);
+      }
+      int offset = (int) (position - mappingStart);
+      int length = Math.min(BLOCK_SIZE, mapping.capacity() - offset);
+      position += length;
+      ByteBuffer block = mapping.duplicate();
+      block.position(offset);
+      block.limit(offset + length);
+      return Optional.of(block);
+    }
+  }
+
   /** Aggregates the fields in a record header. */
   private static final class RecordHeader {
     final int checksum;
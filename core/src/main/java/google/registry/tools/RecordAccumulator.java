@@ -14,6 +14,9 @@
 
 package google.registry.tools;
 
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.collect.ImmutableSet.toImmutableSet;
+
 import com.google.appengine.api.datastore.EntityTranslator;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
@@ -30,36 +33,49 @@ class RecordAccumulator {
     this.records = records;
   }
 
-  /** Recursively reads all records in the directory. */
+  /**
+   * Recursively reads all records in the directory.
+   *
+   * <p>Files are independent of one another, so they are read in parallel.
+   */
   public static RecordAccumulator readDirectory(File dir, Predicate<File> fileMatcher) {
-    ImmutableList.Builder<byte[]> builder = new ImmutableList.Builder<>();
+    return new RecordAccumulator(
+        findFiles(dir, fileMatcher).parallelStream()
+            .map(RecordAccumulator::readFile)
+            .flatMap(ImmutableList::stream)
+            .collect(toImmutableList()));
+  }
+
+  private static ImmutableList<File> findFiles(File dir, Predicate<File> fileMatcher) {
+    ImmutableList.Builder<File> builder = new ImmutableList.Builder<>();
     for (File child : dir.listFiles()) {
       if (child.isDirectory()) {
-        builder.addAll(readDirectory(child, fileMatcher).records);
+        builder.addAll(findFiles(child, fileMatcher));
       } else if (fileMatcher.test(child)) {
-        try {
-          builder.addAll(LevelDbLogReader.from(child.getPath()));
-        } catch (IOException e) {
-          throw new RuntimeException("IOException reading from file: " + child, e);
-        }
+        builder.add(child);
       }
     }
+    return builder.build();
+  }
 
-    return new RecordAccumulator(builder.build());
+  private static ImmutableList<byte[]> readFile(File file) {
+    try {
+      return ImmutableList.copyOf(LevelDbLogReader.from(file.toPath()));
+    } catch (IOException e) {
+      throw new RuntimeException("IOException reading from file: " + file, e);
+    }
   }
 
   /** Creates an {@link EntityWrapper} set from the current set of raw records. */
   ImmutableSet<EntityWrapper> getEntityWrapperSet() {
-    ImmutableSet.Builder<EntityWrapper> builder = new ImmutableSet.Builder<>();
-    for (byte[] rawRecord : records) {
-      // Parse the entity proto and create an Entity object from it.
-      EntityProto proto = new EntityProto();
-      proto.parseFrom(rawRecord);
-      EntityWrapper entity = new EntityWrapper(EntityTranslator.createFromPb(proto));
-
-      builder.add(entity);
-    }
-
-    return builder.build();
+    return records.parallelStream()
+        .map(
+            rawRecord -> {
+              // Parse the entity proto and create an Entity object from it.
+              EntityProto proto = new EntityProto();
+              proto.parseFrom(rawRecord);
+              return new EntityWrapper(EntityTranslator.createFromPb(proto));
+            })
+        .collect(toImmutableSet());
   }
 }
@@ -15,11 +15,11 @@
 package google.registry.xml;
 
 import static com.google.common.base.Throwables.throwIfInstanceOf;
-import static com.google.common.base.Verify.verify;
 import static google.registry.xml.ValidationMode.LENIENT;
 import static google.registry.xml.ValidationMode.STRICT;
 import static java.nio.charset.StandardCharsets.UTF_8;
 
+import com.google.common.base.VerifyException;
 import com.google.re2j.Pattern;
 import java.io.ByteArrayOutputStream;
 import javax.annotation.concurrent.NotThreadSafe;
@@ -36,7 +36,7 @@ public final class XmlFragmentMarshaller {
 
   private static final Pattern XMLNS_PATTERN = Pattern.compile(" xmlns:\\w+=\"[^\"]+\"");
 
-  private final ByteArrayOutputStream os = new ByteArrayOutputStream();
+  private final FragmentOutputStream os = new FragmentOutputStream();
   private final Marshaller marshaller;
   private final Schema schema;
 
@@ -85,11 +85,37 @@ public final class XmlFragmentMarshaller {
       throwIfInstanceOf(e, MarshalException.class);
       throw new RuntimeException("Mysterious XML exception", e);
     }
-    String fragment = new String(os.toByteArray(), UTF_8);
-    int endOfFirstLine = fragment.indexOf(">\n");
-    verify(endOfFirstLine > 0, "Bad XML fragment:\n%s", fragment);
-    String firstLine = fragment.substring(0, endOfFirstLine + 2);
-    String rest = fragment.substring(firstLine.length());
-    return XMLNS_PATTERN.matcher(firstLine).replaceAll("") + rest;
+    // Decode straight out of the stream's buffer rather than copying it first. Only the first line
+    // (which carries the namespace declarations we strip) is decoded separately, so the fragment
+    // body is only copied once before the final concatenation.
+    int startOfRest = os.indexOfEndOfFirstLine();
+    if (startOfRest <= 0) {
+      // Only decode the whole fragment when it's needed for the error message.
+      throw new VerifyException("Bad XML fragment:\n" + os.decode(0));
+    }
+    String firstLine = os.decode(0, startOfRest);
+    return XMLNS_PATTERN.matcher(firstLine).replaceAll("").concat(os.decode(startOfRest));
+  }
+
+  /** {@link ByteArrayOutputStream} that allows decoding its contents without copying them. */
+  private static final class FragmentOutputStream extends ByteArrayOutputStream {
+
+    /** Returns the index just past the first {@code ">\n"}, or -1 if there isn't one. */
+    int indexOfEndOfFirstLine() {
+      for (int i = 1; i < count; i++) {
+        if (buf[i] == '\n' && buf[i - 1] == '>') {
+          return i + 1;
+        }
+      }
+      return -1;
+    }
+
+    String decode(int start) {
+      return decode(start, count);
+    }
+
+    String decode(int start, int end) {
+      return new String(buf, start, end - start, UTF_8);
+    }
   }
 }
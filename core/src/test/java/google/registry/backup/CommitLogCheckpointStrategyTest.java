@@ -84,6 +84,7 @@ public class CommitLogCheckpointStrategyTest {
   void beforeEach() {
     strategy.clock = clock;
     strategy.ofy = ofy;
+    strategy.metrics = new CommitLogCheckpointMetrics();
 
     // Need to inject clock into Ofy so that createTld() below will get the right time.
     inject.setStaticField(Ofy.class, "clock", clock);
@@ -81,6 +81,7 @@ public final class CommitLogExports {
     CommitLogCheckpointStrategy strategy = new CommitLogCheckpointStrategy();
     strategy.clock = clock;
     strategy.ofy = ofy();
+    strategy.metrics = new CommitLogCheckpointMetrics();
 
     CommitLogCheckpoint checkpoint = strategy.computeCheckpoint();
     tm().transact(
@@ -0,0 +1,193 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.backup;
+
+import static com.google.common.collect.ImmutableList.toImmutableList;
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.backup.BackupUtils.serializeEntity;
+import static google.registry.backup.RestoreCommitLogsActionTest.createCheckpoint;
+import static google.registry.model.ofy.CommitLogBucket.getBucketKey;
+import static org.joda.time.DateTimeZone.UTC;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import google.registry.model.ImmutableObject;
+import google.registry.model.ofy.CommitLogManifest;
+import google.registry.model.ofy.CommitLogMutation;
+import google.registry.testing.AppEngineExtension;
+import google.registry.testing.TestObject;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Iterator;
+import java.util.Optional;
+import java.util.stream.Stream;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link CommitLogImports}. */
+class CommitLogImportsTest {
+
+  private final DateTime now = DateTime.now(UTC);
+  private final Key<CommitLogManifest> manifest1Key =
+      CommitLogManifest.createKey(getBucketKey(1), now.minusMinutes(3));
+  private final Key<CommitLogManifest> manifest3Key =
+      CommitLogManifest.createKey(getBucketKey(1), now.minusMinutes(1));
+
+  @RegisterExtension
+  final AppEngineExtension appEngine =
+      AppEngineExtension.builder()
+          .withDatastoreAndCloudSql()
+          .withOfyTestEntities(TestObject.class)
+          .build();
+
+  @Test
+  void testStreamEntitiesByTransaction_matchesLoadEntitiesByTransaction() throws Exception {
+    byte[] commitLogs = createCommitLogs();
+    ImmutableList<ImmutableList<VersionedEntity>> expected =
+        CommitLogImports.loadEntitiesByTransaction(new ByteArrayInputStream(commitLogs));
+    try (Stream<ImmutableList<VersionedEntity>> transactions =
+        CommitLogImports.streamEntitiesByTransaction(new ByteArrayInputStream(commitLogs))) {
+      assertThat(transactions.collect(toImmutableList())).isEqualTo(expected);
+    }
+    // The empty second transaction is skipped.
+    assertThat(expected).hasSize(2);
+    assertThat(expected.get(0)).hasSize(3);
+    assertThat(expected.get(0).get(0).isDelete()).isTrue();
+    assertThat(expected.get(0).stream().map(VersionedEntity::commitTimeMills))
+        .containsExactly(manifest1Key.getId(), manifest1Key.getId(), manifest1Key.getId());
+    assertThat(expected.get(1)).hasSize(1);
+    assertThat(expected.get(1).get(0).isDelete()).isFalse();
+  }
+
+  @Test
+  void testStreamEntities_matchesLoadEntities() throws Exception {
+    byte[] commitLogs = createCommitLogs();
+    try (Stream<VersionedEntity> entities =
+        CommitLogImports.streamEntities(new ByteArrayInputStream(commitLogs))) {
+      assertThat(entities.collect(toImmutableList()))
+          .isEqualTo(CommitLogImports.loadEntities(new ByteArrayInputStream(commitLogs)));
+    }
+  }
+
+  @Test
+  void testStreamEntitiesByTransaction_onlyEmptyTransactions_isEmpty() throws Exception {
+    CloseTrackingInputStream input =
+        new CloseTrackingInputStream(
+            new ByteArrayInputStream(
+                serialize(
+                    createCheckpoint(now),
+                    CommitLogManifest.create(getBucketKey(1), now.minusMinutes(2), null),
+                    CommitLogManifest.create(getBucketKey(2), now.minusMinutes(1), null))));
+    try (Stream<ImmutableList<VersionedEntity>> transactions =
+        CommitLogImports.streamEntitiesByTransaction(input)) {
+      assertThat(transactions.count()).isEqualTo(0);
+    }
+    assertThat(input.closed).isTrue();
+  }
+
+  @Test
+  void testStreamEntitiesByTransaction_closesInputWhenExhausted() throws Exception {
+    CloseTrackingInputStream input =
+        new CloseTrackingInputStream(new ByteArrayInputStream(createCommitLogs()));
+    // Deliberately don't close the stream, so that only exhausting it can close the input.
+    Iterator<ImmutableList<VersionedEntity>> transactions =
+        CommitLogImports.streamEntitiesByTransaction(input).iterator();
+    transactions.next();
+    assertThat(input.closed).isFalse();
+    transactions.next();
+    assertThat(transactions.hasNext()).isFalse();
+    assertThat(input.closed).isTrue();
+  }
+
+  @Test
+  void testStreamEntitiesByTransaction_isLazy_andClosesInputWhenClosedEarly() throws Exception {
+    // Everything up to the start of the second transaction, which is read to find the end of the
+    // first, followed by a stream that fails if anything past that is read.
+    byte[] firstTransaction =
+        serialize(
+            createCheckpoint(now),
+            CommitLogManifest.create(getBucketKey(1), now.minusMinutes(3), null),
+            CommitLogMutation.create(manifest1Key, TestObject.create("a")),
+            CommitLogManifest.create(getBucketKey(1), now.minusMinutes(1), null));
+    InputStream failingInput =
+        new InputStream() {
+          @Override
+          public int read() {
+            throw new IllegalStateException("Read past the start of the second transaction");
+          }
+        };
+    CloseTrackingInputStream input =
+        new CloseTrackingInputStream(
+            new SequenceInputStream(new ByteArrayInputStream(firstTransaction), failingInput));
+    Optional<ImmutableList<VersionedEntity>> transaction;
+    try (Stream<ImmutableList<VersionedEntity>> transactions =
+        CommitLogImports.streamEntitiesByTransaction(input)) {
+      transaction = transactions.findFirst();
+      assertThat(input.closed).isFalse();
+    }
+    assertThat(transaction).isPresent();
+    assertThat(transaction.get()).hasSize(1);
+    assertThat(input.closed).isTrue();
+  }
+
+  /**
+   * Returns a CommitLog file with three transactions: one that deletes an entity and saves two,
+   * an empty one, and one that saves a single entity.
+   */
+  private byte[] createCommitLogs() throws IOException {
+    return serialize(
+        createCheckpoint(now),
+        CommitLogManifest.create(
+            getBucketKey(1),
+            now.minusMinutes(3),
+            ImmutableSet.of(Key.create(TestObject.create("previous")))),
+        CommitLogMutation.create(manifest1Key, TestObject.create("a")),
+        CommitLogMutation.create(manifest1Key, TestObject.create("b")),
+        CommitLogManifest.create(getBucketKey(2), now.minusMinutes(2), null),
+        CommitLogManifest.create(getBucketKey(1), now.minusMinutes(1), null),
+        CommitLogMutation.create(manifest3Key, TestObject.create("c")));
+  }
+
+  private static byte[] serialize(ImmutableObject... entities) throws IOException {
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    for (ImmutableObject entity : entities) {
+      serializeEntity(entity, output);
+    }
+    return output.toByteArray();
+  }
+
+  /** An {@link InputStream} that records whether it has been closed. */
+  private static class CloseTrackingInputStream extends FilterInputStream {
+
+    boolean closed;
+
+    CloseTrackingInputStream(InputStream in) {
+      super(in);
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      super.close();
+    }
+  }
+}
@@ -43,6 +43,7 @@ import com.google.common.collect.ImmutableSet;
 import com.google.common.truth.Truth8;
 import com.googlecode.objectify.Key;
 import google.registry.config.RegistryConfig;
+import google.registry.model.ImmutableObject;
 import google.registry.model.common.Cursor;
 import google.registry.model.common.Cursor.CursorType;
 import google.registry.model.contact.ContactResource;
@@ -68,6 +69,7 @@ import google.registry.testing.FakeResponse;
 import google.registry.testing.TestObject;
 import google.registry.util.RequestStatusChecker;
 import java.io.IOException;
+import org.hibernate.Session;
 import org.joda.time.DateTime;
 import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeAll;
@@ -125,6 +127,7 @@ public class ReplayCommitLogsToSqlActionTest {
     action.diffLister.gcsService = gcsService;
     action.diffLister.gcsBucket = GCS_BUCKET;
     action.diffLister.executor = newDirectExecutorService();
+    action.executor = newDirectExecutorService();
     RegistryConfig.overrideCloudSqlReplayCommitLogs(true);
   }
 
@@ -249,6 +252,49 @@ public class ReplayCommitLogsToSqlActionTest {
     assertThat(fromDatabase.getField()).isEqualTo("b");
   }
 
+  @Test
+  void testReplay_moreWritesThanOneJdbcBatch() throws Exception {
+    DateTime now = fakeClock.nowUtc();
+    jpaTm()
+        .transact(
+            () -> {
+              jpaTm().put(TestObject.create("existing", "a"));
+              jpaTm().put(TestObject.create("previous to delete"));
+            });
+    Key<CommitLogManifest> manifestKey = CommitLogManifest.createKey(getBucketKey(1), now);
+    saveDiffFileNotToRestore(gcsService, now.minusMinutes(1).minusMillis(1));
+    jpaTm().transact(() -> SqlReplayCheckpoint.set(now.minusMinutes(1)));
+    // Enough inserts to the same table to fill several JDBC batches, plus an update and a delete.
+    ImmutableList.Builder<ImmutableObject> entities =
+        new ImmutableList.Builder<ImmutableObject>()
+            .add(
+                CommitLogManifest.create(
+                    getBucketKey(1),
+                    now,
+                    ImmutableSet.of(Key.create(TestObject.create("previous to delete")))))
+            .add(CommitLogMutation.create(manifestKey, TestObject.create("existing", "b")));
+    ImmutableList.Builder<String> expectedIds = new ImmutableList.Builder<String>().add("existing");
+    for (int i = 0; i < 120; i++) {
+      entities.add(CommitLogMutation.create(manifestKey, TestObject.create("new" + i)));
+      expectedIds.add("new" + i);
+    }
+    saveDiffFile(
+        gcsService,
+        createCheckpoint(now.minusMillis(1)),
+        entities.build().toArray(new ImmutableObject[0]));
+    runAndAssertSuccess(now.minusMillis(1));
+    assertExpectedIds(expectedIds.build().toArray(new String[0]));
+    TestObject fromDatabase =
+        jpaTm().transact(() -> jpaTm().loadByKey(VKey.createSql(TestObject.class, "existing")));
+    assertThat(fromDatabase.getField()).isEqualTo("b");
+    // Batching is only turned on for the replay transactions.
+    assertThat(
+            jpaTm()
+                .transact(
+                    () -> jpaTm().getEntityManager().unwrap(Session.class).getJdbcBatchSize()))
+        .isNull();
+  }
+
   // This should be harmless
   @Test
   void testReplay_deleteMissingEntity() throws Exception {
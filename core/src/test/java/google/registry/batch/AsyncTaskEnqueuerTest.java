@@ -14,8 +14,10 @@
 
 package google.registry.batch;
 
-import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.batch.AsyncTaskEnqueuer.PARAM_HOST_KEY;
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_REQUESTED_TIME;
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_RESAVE_TIMES;
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_RESOURCE_KEY;
@@ -23,11 +25,16 @@ import static google.registry.batch.AsyncTaskEnqueuer.PATH_RESAVE_ENTITY;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_ACTIONS;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_DELETE;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_HOST_RENAME;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.testing.AsyncTaskEnqueuerHelper.createForTesting;
 import static google.registry.testing.DatabaseHelper.persistActiveContact;
+import static google.registry.testing.DatabaseHelper.persistActiveHost;
 import static google.registry.testing.SqlHelper.saveRegistryLock;
 import static google.registry.testing.TaskQueueHelper.assertNoTasksEnqueued;
 import static google.registry.testing.TaskQueueHelper.assertTasksEnqueued;
 import static google.registry.testing.TestLogHandlerUtils.assertLogMessage;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_CLAIMS;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_SUNRISE;
 import static org.joda.time.Duration.standardDays;
 import static org.joda.time.Duration.standardHours;
 import static org.joda.time.Duration.standardSeconds;
@@ -38,18 +45,17 @@ import com.google.common.collect.ImmutableSortedSet;
 import com.google.common.flogger.LoggerConfig;
 import com.googlecode.objectify.Key;
 import google.registry.model.contact.ContactResource;
+import google.registry.model.host.HostResource;
+import google.registry.model.server.PendingTask;
 import google.registry.schema.domain.RegistryLock;
 import google.registry.testing.AppEngineExtension;
 import google.registry.testing.FakeClock;
-import google.registry.testing.FakeSleeper;
 import google.registry.testing.InjectExtension;
 import google.registry.testing.TaskQueueHelper.TaskMatcher;
 import google.registry.util.AppEngineServiceUtils;
 import google.registry.util.CapturingLogHandler;
-import google.registry.util.Retrier;
 import java.util.logging.Level;
 import org.joda.time.DateTime;
-import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.ExtendWith;
@@ -82,17 +88,6 @@ public class AsyncTaskEnqueuerTest {
     asyncTaskEnqueuer = createForTesting(appEngineServiceUtils, clock, standardSeconds(90));
   }
 
-  public static AsyncTaskEnqueuer createForTesting(
-      AppEngineServiceUtils appEngineServiceUtils, FakeClock clock, Duration asyncDeleteDelay) {
-    return new AsyncTaskEnqueuer(
-        getQueue(QUEUE_ASYNC_ACTIONS),
-        getQueue(QUEUE_ASYNC_DELETE),
-        getQueue(QUEUE_ASYNC_HOST_RENAME),
-        asyncDeleteDelay,
-        appEngineServiceUtils,
-        new Retrier(new FakeSleeper(clock), 1));
-  }
-
   @Test
   void test_enqueueAsyncResave_success() {
     ContactResource contact = persistActiveContact("jd23456");
@@ -143,6 +138,116 @@ public class AsyncTaskEnqueuerTest {
     assertLogMessage(logHandler, Level.INFO, "Ignoring async re-save");
   }
 
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void test_enqueueAsyncResave_withOutbox_savesPendingTask() {
+    asyncTaskEnqueuer =
+        createForTesting(appEngineServiceUtils, clock, standardSeconds(90), true);
+    ContactResource contact = persistActiveContact("jd23456");
+    DateTime now = clock.nowUtc();
+    asyncTaskEnqueuer.enqueueAsyncResave(contact, now, now.plusDays(5));
+    assertNoTasksEnqueued(QUEUE_ASYNC_ACTIONS);
+    PendingTask pendingTask = getOnlyElement(ofy().load().type(PendingTask.class));
+    assertThat(pendingTask.getQueueName()).isEqualTo(QUEUE_ASYNC_ACTIONS);
+    assertThat(pendingTask.getPath()).hasValue(PATH_RESAVE_ENTITY);
+    assertThat(pendingTask.getEta()).isEqualTo(now.plusDays(5));
+    assertThat(pendingTask.getParams())
+        .containsExactly(
+            PARAM_RESOURCE_KEY, Key.create(contact).getString(),
+            PARAM_REQUESTED_TIME, now.toString());
+  }
+
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void test_enqueueLordnTask_success() {
+    asyncTaskEnqueuer.enqueueLordnTask(QUEUE_SUNRISE, "example", "csvLine", clock.nowUtc());
+    assertTasksEnqueued(
+        QUEUE_SUNRISE, new TaskMatcher().method("PULL").tag("example").payload("csvLine"));
+    assertNoTasksEnqueued(QUEUE_CLAIMS);
+  }
+
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void test_enqueueLordnTask_withOutbox_addsTaskDirectly() {
+    asyncTaskEnqueuer =
+        createForTesting(appEngineServiceUtils, clock, standardSeconds(90), true);
+    asyncTaskEnqueuer.enqueueLordnTask(QUEUE_CLAIMS, "example", "csvLine", clock.nowUtc());
+    assertTasksEnqueued(
+        QUEUE_CLAIMS, new TaskMatcher().method("PULL").tag("example").payload("csvLine"));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
+  @Test
+  void test_enqueueAsyncDnsRefresh_withOutbox_addsTaskDirectly() {
+    asyncTaskEnqueuer =
+        createForTesting(appEngineServiceUtils, clock, standardSeconds(90), true);
+    HostResource host = persistActiveHost("ns1.example.tld");
+    DateTime now = clock.nowUtc();
+    asyncTaskEnqueuer.enqueueAsyncDnsRefresh(host, now);
+    // The task is due right away, so it isn't held back until the next dispatch.
+    assertTasksEnqueued(
+        QUEUE_ASYNC_HOST_RENAME,
+        new TaskMatcher()
+            .param(PARAM_HOST_KEY, Key.create(host).getString())
+            .param(PARAM_REQUESTED_TIME, now.toString()));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
+  @Test
+  void test_enqueueAsyncResave_withOutbox_dueNow_addsTaskDirectly() {
+    asyncTaskEnqueuer =
+        createForTesting(appEngineServiceUtils, clock, standardSeconds(90), true);
+    ContactResource contact = persistActiveContact("jd23456");
+    DateTime now = clock.nowUtc();
+    asyncTaskEnqueuer.enqueueAsyncResave(contact, now, now);
+    assertTasksEnqueued(
+        QUEUE_ASYNC_ACTIONS,
+        new TaskMatcher()
+            .url(PATH_RESAVE_ENTITY)
+            .method("POST")
+            .header("Host", "backend.hostname.fake")
+            .param(PARAM_RESOURCE_KEY, Key.create(contact).getString())
+            .param(PARAM_REQUESTED_TIME, now.toString()));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void test_enqueueLordnTask_notLordnQueue_throws() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                asyncTaskEnqueuer.enqueueLordnTask(
+                    QUEUE_ASYNC_DELETE, "example", "csvLine", clock.nowUtc()));
+    assertThat(thrown).hasMessageThat().isEqualTo("Not a LORDN queue: async-delete-pull");
+  }
+
+  @MockitoSettings(strictness = Strictness.LENIENT)
+  @Test
+  void test_enqueueAsyncResave_withOutbox_mergesPendingResavesOfSameEntity() {
+    asyncTaskEnqueuer =
+        createForTesting(appEngineServiceUtils, clock, standardSeconds(90), true);
+    ContactResource contact = persistActiveContact("jd23456");
+    DateTime firstRequestTime = clock.nowUtc();
+    asyncTaskEnqueuer.enqueueAsyncResave(
+        contact,
+        firstRequestTime,
+        ImmutableSortedSet.of(firstRequestTime.plusDays(5), firstRequestTime.plusDays(10)));
+    clock.advanceBy(standardDays(1));
+    asyncTaskEnqueuer.enqueueAsyncResave(
+        contact,
+        clock.nowUtc(),
+        ImmutableSortedSet.of(firstRequestTime.plusDays(3), firstRequestTime.plusDays(10)));
+    PendingTask pendingTask = getOnlyElement(ofy().load().type(PendingTask.class));
+    assertThat(pendingTask.getEta()).isEqualTo(firstRequestTime.plusDays(3));
+    assertThat(pendingTask.getParams())
+        .containsExactly(
+            PARAM_RESOURCE_KEY, Key.create(contact).getString(),
+            PARAM_REQUESTED_TIME, firstRequestTime.toString(),
+            PARAM_RESAVE_TIMES, "2015-05-23T12:34:56.000Z,2015-05-28T12:34:56.000Z");
+  }
+
   @Test
   void testEnqueueRelock() {
     RegistryLock lock =
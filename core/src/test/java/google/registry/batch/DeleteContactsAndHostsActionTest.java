@@ -20,6 +20,8 @@ import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_DELETE;
 import static google.registry.batch.AsyncTaskMetrics.OperationResult.STALE;
+import static google.registry.batch.DeleteContactsAndHostsAction.INDEXED_LOOKUP_LIMIT;
+import static google.registry.batch.DeleteContactsAndHostsAction.lookUpActiveReferences;
 import static google.registry.model.EppResourceUtils.loadByForeignKey;
 import static google.registry.model.eppcommon.StatusValue.PENDING_DELETE;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -68,6 +70,7 @@ import com.googlecode.objectify.Key;
 import google.registry.batch.AsyncTaskMetrics.OperationResult;
 import google.registry.batch.AsyncTaskMetrics.OperationType;
 import google.registry.batch.DeleteContactsAndHostsAction.DeleteEppResourceReducer;
+import google.registry.batch.DeleteContactsAndHostsAction.ReferenceLookupResult;
 import google.registry.model.EppResource;
 import google.registry.model.contact.ContactAddress;
 import google.registry.model.contact.ContactPhoneNumber;
@@ -91,6 +94,7 @@ import google.registry.model.transfer.ContactTransferData;
 import google.registry.model.transfer.TransferData;
 import google.registry.model.transfer.TransferResponse;
 import google.registry.model.transfer.TransferStatus;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
 import google.registry.testing.FakeSleeper;
@@ -147,7 +151,7 @@ public class DeleteContactsAndHostsActionTest
   void beforeEach() {
     inject.setStaticField(Ofy.class, "clock", clock);
     enqueuer =
-        AsyncTaskEnqueuerTest.createForTesting(
+        AsyncTaskEnqueuerHelper.createForTesting(
             mock(AppEngineServiceUtils.class), clock, Duration.ZERO);
     AsyncTaskMetrics asyncTaskMetricsMock = mock(AsyncTaskMetrics.class);
     action = new DeleteContactsAndHostsAction();
@@ -227,8 +231,9 @@ public class DeleteContactsAndHostsActionTest
 
   @Test
   void test_mapreduceHasWorkToDo_lockIsAcquired() {
+    // An unreferenced contact can't be settled by an indexed lookup in Datastore, so this needs
+    // the mapreduce.
     ContactResource contact = persistContactPendingDelete("blah8221");
-    persistResource(newDomainBase("example.tld", contact));
     DateTime timeEnqueued = clock.nowUtc();
     enqueuer.enqueueAsyncDelete(
         contact,
@@ -240,6 +245,84 @@ public class DeleteContactsAndHostsActionTest
     assertThat(acquireLock()).isEmpty();
   }
 
+  @Test
+  void test_referencedContact_isProcessedWithoutMapreduce() {
+    ContactResource contact = persistContactPendingDelete("blah8221");
+    persistResource(newDomainBase("example.tld", contact));
+    DateTime timeEnqueued = clock.nowUtc();
+    enqueuer.enqueueAsyncDelete(
+        contact,
+        timeEnqueued,
+        "TheRegistrar",
+        Trid.create("fakeClientTrid", "fakeServerTrid"),
+        false);
+    enqueueMapreduceOnly();
+    assertThat(fakeResponse.getPayload())
+        .isEqualTo("Processed all async deletions using indexed reference lookups.");
+    assertThat(acquireLock()).isPresent();
+    ContactResource contactUpdated =
+        loadByForeignKey(ContactResource.class, "blah8221", clock.nowUtc()).get();
+    assertAboutContacts()
+        .that(contactUpdated)
+        .doesNotHaveStatusValue(PENDING_DELETE)
+        .and()
+        .hasDeletionTime(END_OF_TIME);
+    assertNoTasksEnqueued(QUEUE_ASYNC_DELETE);
+  }
+
+  @Test
+  void test_lookUpActiveReferences_fewInactiveLinkedDomains_isUnreferenced() {
+    ContactResource contact = persistContactPendingDelete("blah8221");
+    persistInactiveLinkedDomains(contact, INDEXED_LOOKUP_LIMIT - 1);
+    assertThat(lookUpActiveReferences(Key.create(contact), clock.nowUtc()))
+        .isEqualTo(ReferenceLookupResult.UNREFERENCED);
+  }
+
+  @Test
+  void test_lookUpActiveReferences_limitReachedWithoutActiveDomain_isInconclusive() {
+    ContactResource contact = persistContactPendingDelete("blah8221");
+    persistInactiveLinkedDomains(contact, INDEXED_LOOKUP_LIMIT + 1);
+    assertThat(lookUpActiveReferences(Key.create(contact), clock.nowUtc()))
+        .isEqualTo(ReferenceLookupResult.INCONCLUSIVE);
+  }
+
+  @Test
+  void testSuccess_contact_manyInactiveLinkedDomainsAndOneActive_doesNotGetDeleted()
+      throws Exception {
+    ContactResource contact = persistContactPendingDelete("blah8221");
+    persistInactiveLinkedDomains(contact, INDEXED_LOOKUP_LIMIT + 1);
+    persistResource(newDomainBase("example.tld", contact));
+    // Whichever domains the lookup returns, it mustn't conclude that the contact is unreferenced.
+    assertThat(lookUpActiveReferences(Key.create(contact), clock.nowUtc()))
+        .isNotEqualTo(ReferenceLookupResult.UNREFERENCED);
+    enqueuer.enqueueAsyncDelete(
+        contact,
+        clock.nowUtc(),
+        "TheRegistrar",
+        Trid.create("fakeClientTrid", "fakeServerTrid"),
+        false);
+    runMapreduce();
+    ContactResource contactUpdated =
+        loadByForeignKey(ContactResource.class, "blah8221", clock.nowUtc()).get();
+    assertAboutContacts()
+        .that(contactUpdated)
+        .doesNotHaveStatusValue(PENDING_DELETE)
+        .and()
+        .hasDeletionTime(END_OF_TIME);
+    assertNoTasksEnqueued(QUEUE_ASYNC_DELETE);
+  }
+
+  /** Persists domains that link to the contact, but that were created after it was updated. */
+  private void persistInactiveLinkedDomains(ContactResource contact, int count) {
+    for (int i = 0; i < count; i++) {
+      persistResource(
+          newDomainBase(String.format("inactive%d.tld", i), contact)
+              .asBuilder()
+              .setCreationTimeForTest(clock.nowUtc().plusDays(1))
+              .build());
+    }
+  }
+
   @Test
   void test_noTasksToLease_releasesLockImmediately() {
     enqueueMapreduceOnly();
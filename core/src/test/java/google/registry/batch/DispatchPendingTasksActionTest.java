@@ -0,0 +1,157 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.batch;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.batch.AsyncTaskEnqueuer.PARAM_HOST_KEY;
+import static google.registry.batch.AsyncTaskEnqueuer.PARAM_REQUESTED_TIME;
+import static google.registry.batch.AsyncTaskEnqueuer.PARAM_RESOURCE_KEY;
+import static google.registry.batch.AsyncTaskEnqueuer.PATH_RESAVE_ENTITY;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_ACTIONS;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_DELETE;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_HOST_RENAME;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.testing.DatabaseHelper.persistActiveContact;
+import static google.registry.testing.DatabaseHelper.persistActiveHost;
+import static google.registry.testing.TaskQueueHelper.assertNoTasksEnqueued;
+import static google.registry.testing.TaskQueueHelper.assertTasksEnqueued;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_SUNRISE;
+import static org.joda.time.Duration.standardDays;
+import static org.joda.time.Duration.standardSeconds;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+import com.googlecode.objectify.Key;
+import google.registry.model.contact.ContactResource;
+import google.registry.model.eppcommon.Trid;
+import google.registry.model.host.HostResource;
+import google.registry.model.server.PendingTask;
+import google.registry.testing.AppEngineExtension;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
+import google.registry.testing.FakeClock;
+import google.registry.testing.TaskQueueHelper.TaskMatcher;
+import google.registry.util.AppEngineServiceUtils;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link DispatchPendingTasksAction}. */
+public class DispatchPendingTasksActionTest {
+
+  @RegisterExtension
+  public final AppEngineExtension appEngine =
+      AppEngineExtension.builder().withDatastoreAndCloudSql().withTaskQueue().build();
+
+  private final FakeClock clock = new FakeClock(DateTime.parse("2015-05-18T12:34:56Z"));
+  private final DispatchPendingTasksAction action = new DispatchPendingTasksAction();
+  private AsyncTaskEnqueuer asyncTaskEnqueuer;
+
+  @BeforeEach
+  void beforeEach() {
+    asyncTaskEnqueuer = createOutboxEnqueuer(clock);
+    action.asyncTaskEnqueuer = asyncTaskEnqueuer;
+    action.clock = clock;
+  }
+
+  /** Dispatches all pending tasks that are due as of the given clock, as the cron job would. */
+  public static void dispatchPendingTasks(FakeClock clock) {
+    DispatchPendingTasksAction action = new DispatchPendingTasksAction();
+    action.asyncTaskEnqueuer = createOutboxEnqueuer(clock);
+    action.clock = clock;
+    action.run();
+  }
+
+  private static AsyncTaskEnqueuer createOutboxEnqueuer(FakeClock clock) {
+    AppEngineServiceUtils appEngineServiceUtils = mock(AppEngineServiceUtils.class);
+    when(appEngineServiceUtils.getServiceHostname("backend")).thenReturn("backend.hostname.fake");
+    return AsyncTaskEnqueuerHelper.createForTesting(
+        appEngineServiceUtils, clock, standardSeconds(90), true);
+  }
+
+  @Test
+  void testSuccess_dispatchesDueTasks() {
+    ContactResource contact = persistActiveContact("jd23456");
+    HostResource host = persistActiveHost("ns1.example.tld");
+    DateTime now = clock.nowUtc();
+    tm().transact(
+            () -> {
+              asyncTaskEnqueuer.enqueueAsyncDelete(
+                  contact,
+                  now,
+                  "TheRegistrar",
+                  Trid.create("fakeClientTrid", "fakeServerTrid"),
+                  false);
+              asyncTaskEnqueuer.enqueueAsyncDnsRefresh(host, now);
+            });
+    // The DNS refresh is already due, so it skips the outbox.
+    assertTasksEnqueued(
+        QUEUE_ASYNC_HOST_RENAME,
+        new TaskMatcher()
+            .param(PARAM_HOST_KEY, Key.create(host).getString())
+            .param(PARAM_REQUESTED_TIME, now.toString()));
+    assertNoTasksEnqueued(QUEUE_ASYNC_DELETE);
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(1);
+
+    action.run();
+
+    assertTasksEnqueued(
+        QUEUE_ASYNC_DELETE,
+        new TaskMatcher()
+            .param(PARAM_RESOURCE_KEY, Key.create(contact).getString())
+            .param(PARAM_REQUESTED_TIME, now.toString())
+            .etaDelta(standardSeconds(75), standardSeconds(105)));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
+  @Test
+  void testSuccess_dispatchesLordnPullTaskWithTagAndPayload() {
+    ofy()
+        .saveWithoutBackup()
+        .entity(PendingTask.createPullTask(QUEUE_SUNRISE, "example", "csvLine", clock.nowUtc()))
+        .now();
+
+    action.run();
+
+    assertTasksEnqueued(
+        QUEUE_SUNRISE, new TaskMatcher().method("PULL").tag("example").payload("csvLine"));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
+  @Test
+  void testSuccess_leavesFutureTasksPendingUntilDue() {
+    ContactResource contact = persistActiveContact("jd23456");
+    DateTime now = clock.nowUtc();
+    asyncTaskEnqueuer.enqueueAsyncResave(contact, now, now.plusDays(5));
+
+    action.run();
+    assertNoTasksEnqueued(QUEUE_ASYNC_ACTIONS);
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(1);
+
+    clock.advanceBy(standardDays(5).minus(standardSeconds(60)));
+    action.run();
+    assertTasksEnqueued(
+        QUEUE_ASYNC_ACTIONS,
+        new TaskMatcher()
+            .url(PATH_RESAVE_ENTITY)
+            .method("POST")
+            .header("Host", "backend.hostname.fake")
+            .param(PARAM_RESOURCE_KEY, Key.create(contact).getString())
+            .param(PARAM_REQUESTED_TIME, now.toString())
+            .etaDelta(standardSeconds(30), standardSeconds(90)));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+}
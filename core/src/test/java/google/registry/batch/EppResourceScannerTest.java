@@ -0,0 +1,127 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.batch;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.newDomainBase;
+import static google.registry.testing.DatabaseHelper.persistActiveContact;
+import static google.registry.testing.DatabaseHelper.persistActiveHost;
+import static google.registry.testing.DatabaseHelper.persistResource;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import google.registry.model.EppResource;
+import google.registry.model.contact.ContactResource;
+import google.registry.model.domain.DomainBase;
+import google.registry.persistence.VKey;
+import google.registry.testing.AppEngineExtension;
+import google.registry.testing.DualDatabaseTest;
+import google.registry.testing.TestOfyAndSql;
+import java.util.ArrayList;
+import java.util.List;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link EppResourceScanner}. */
+@DualDatabaseTest
+class EppResourceScannerTest {
+
+  @RegisterExtension
+  public final AppEngineExtension appEngine =
+      AppEngineExtension.builder().withDatastoreAndCloudSql().build();
+
+  private final EppResourceScanner scanner =
+      new EppResourceScanner().setThreadCount(3).setBatchSize(2);
+  private final List<ImmutableList<VKey<? extends EppResource>>> batches = new ArrayList<>();
+
+  private ImmutableSet<Key<?>> expectedKeys;
+  private ImmutableSet<Key<?>> domainKeys;
+
+  @BeforeEach
+  void beforeEach() {
+    createTld("tld");
+    ContactResource contact = persistActiveContact("jd1234");
+    ImmutableSet.Builder<Key<?>> domainKeysBuilder = new ImmutableSet.Builder<>();
+    for (int i = 0; i < 7; i++) {
+      domainKeysBuilder.add(
+          Key.create(persistResource(newDomainBase(String.format("example%d.tld", i), contact))));
+    }
+    domainKeys = domainKeysBuilder.build();
+    expectedKeys =
+        new ImmutableSet.Builder<Key<?>>()
+            .addAll(domainKeys)
+            .add(Key.create(contact))
+            .add(Key.create(persistActiveHost("ns1.example.net")))
+            .build();
+  }
+
+  @TestOfyAndSql
+  void testScan_allResources() {
+    assertThat(scanner.scan(ImmutableSet.of(EppResource.class), batches::add)).isEqualTo(9);
+    assertThat(getScannedKeys()).containsExactlyElementsIn(expectedKeys);
+    batches.forEach(batch -> assertThat(batch.size()).isAtMost(2));
+  }
+
+  @TestOfyAndSql
+  void testScan_filtersByType() {
+    assertThat(scanner.scan(ImmutableSet.of(DomainBase.class), batches::add)).isEqualTo(7);
+    assertThat(getScannedKeys()).containsExactlyElementsIn(domainKeys);
+  }
+
+  @TestOfyAndSql
+  void testScan_bucketsSpanSeveralPages() {
+    ContactResource contact = persistActiveContact("jd5678");
+    ImmutableSet.Builder<Key<?>> moreDomainKeys = new ImmutableSet.Builder<>();
+    for (int i = 0; i < 20; i++) {
+      moreDomainKeys.add(
+          Key.create(persistResource(newDomainBase(String.format("more%d.tld", i), contact))));
+    }
+    ImmutableSet<Key<?>> allKeys =
+        new ImmutableSet.Builder<Key<?>>()
+            .addAll(expectedKeys)
+            .addAll(moreDomainKeys.build())
+            .add(Key.create(contact))
+            .build();
+    // The 30 resources are spread over 3 buckets in Datastore, so at least one bucket holds at
+    // least 10 keys, which are read in 5 or more pages of 2.
+    assertThat(scanner.scan(ImmutableSet.of(EppResource.class), batches::add))
+        .isEqualTo(allKeys.size());
+    assertThat(getScannedKeys()).containsExactlyElementsIn(allKeys);
+    batches.forEach(batch -> assertThat(batch.size()).isAtMost(2));
+  }
+
+  @TestOfyAndSql
+  void testScan_processorFailure_isRethrown() {
+    RuntimeException thrown =
+        assertThrows(
+            RuntimeException.class,
+            () ->
+                scanner.scan(
+                    ImmutableSet.of(EppResource.class),
+                    batch -> {
+                      throw new IllegalStateException("processing failed");
+                    }));
+    assertThat(thrown).hasMessageThat().contains("processing failed");
+  }
+
+  private ImmutableList<Key<?>> getScannedKeys() {
+    ImmutableList.Builder<Key<?>> keys = new ImmutableList.Builder<>();
+    batches.forEach(batch -> batch.forEach(key -> keys.add(key.getOfyKey())));
+    return keys.build();
+  }
+}
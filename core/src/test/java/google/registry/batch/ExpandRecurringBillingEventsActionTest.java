@@ -352,6 +352,71 @@ public class ExpandRecurringBillingEventsActionTest
     assertCursorAt(testTime);
   }
 
+  @Test
+  void testSuccess_expandSingleEvent_billingTimeAtExecutionTime_expandedOnNextRun()
+      throws Exception {
+    DateTime billingTime = DateTime.parse("2000-02-19T00:00:00Z");
+    persistResource(recurring);
+    saveCursor(START_OF_TIME);
+    clock.setTo(billingTime);
+    runMapreduce();
+    // The window is open on the execution time, so nothing is billed yet.
+    assertThat(getHistoryEntriesOfType(domain, DOMAIN_AUTORENEW)).isEmpty();
+    assertBillingEventsForResource(domain, recurring);
+    assertCursorAt(billingTime);
+    // The next window starts exactly at the billing time.
+    clock.setTo(beginningOfTest);
+    runMapreduce();
+    HistoryEntry persistedEntry = getOnlyHistoryEntryOfType(domain, DOMAIN_AUTORENEW);
+    assertHistoryEntryMatches(domain, persistedEntry, "TheRegistrar", billingTime, true);
+    BillingEvent.OneTime expected = defaultOneTimeBuilder().setParent(persistedEntry).build();
+    assertBillingEventsForResource(domain, expected, recurring);
+    assertCursorAt(beginningOfTest);
+  }
+
+  @Test
+  void testSuccess_expandSingleEvent_existingOneTimeAtCursorTime_isNotDuplicated()
+      throws Exception {
+    persistResource(recurring);
+    BillingEvent.OneTime persisted =
+        persistResource(defaultOneTimeBuilder().setParent(historyEntry).build());
+    // Only OneTimes billed within the window are loaded, and the window is closed on the cursor
+    // time, so the existing OneTime is still found.
+    action.cursorTimeParam = Optional.of(DateTime.parse("2000-02-19T00:00:00Z"));
+    runMapreduce();
+    assertThat(getHistoryEntriesOfType(domain, DOMAIN_AUTORENEW)).isEmpty();
+    assertBillingEventsForResource(domain, persisted, recurring);
+    assertCursorAt(beginningOfTest);
+  }
+
+  @Test
+  void testSuccess_skipsRecurringWithNoBillingTimeInWindow() throws Exception {
+    // This recurrence was only billed on 2000-02-19 so far, which is before the cursor time.
+    persistResource(recurring);
+    BillingEvent.Recurring recurring2 =
+        persistResource(
+            recurring
+                .asBuilder()
+                .setEventTime(recurring.getEventTime().plusMonths(3))
+                .setId(3L)
+                .build());
+    action.cursorTimeParam = Optional.of(DateTime.parse("2000-03-01T00:00:00Z"));
+    runMapreduce();
+    // Only the recurrence billed within the window is expanded.
+    HistoryEntry persistedEntry = getOnlyHistoryEntryOfType(domain, DOMAIN_AUTORENEW);
+    assertHistoryEntryMatches(
+        domain, persistedEntry, "TheRegistrar", DateTime.parse("2000-05-20T00:00:00Z"), true);
+    BillingEvent.OneTime expected =
+        defaultOneTimeBuilder()
+            .setBillingTime(DateTime.parse("2000-05-20T00:00:00Z"))
+            .setEventTime(DateTime.parse("2000-04-05T00:00:00Z"))
+            .setParent(persistedEntry)
+            .setCancellationMatchingBillingEvent(recurring2.createVKey())
+            .build();
+    assertBillingEventsForResource(domain, expected, recurring, recurring2);
+    assertCursorAt(beginningOfTest);
+  }
+
   @Test
   void testSuccess_expandSingleEvent_multipleYearCreate() throws Exception {
     DateTime testTime = beginningOfTest.plusYears(2);
@@ -47,6 +47,7 @@ import google.registry.batch.AsyncTaskMetrics.OperationResult;
 import google.registry.batch.RefreshDnsOnHostRenameAction.RefreshDnsOnHostRenameReducer;
 import google.registry.model.host.HostResource;
 import google.registry.model.server.Lock;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
 import google.registry.testing.FakeSleeper;
@@ -81,7 +82,7 @@ public class RefreshDnsOnHostRenameActionTest
   void beforeEach() {
     createTld("tld");
     enqueuer =
-        AsyncTaskEnqueuerTest.createForTesting(
+        AsyncTaskEnqueuerHelper.createForTesting(
             mock(AppEngineServiceUtils.class), clock, Duration.ZERO);
     AsyncTaskMetrics asyncTaskMetricsMock = mock(AsyncTaskMetrics.class);
     action = new RefreshDnsOnHostRenameAction();
@@ -44,6 +44,7 @@ import google.registry.model.domain.DomainBase;
 import google.registry.model.host.HostResource;
 import google.registry.schema.domain.RegistryLock;
 import google.registry.testing.AppEngineExtension;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.DeterministicStringGenerator;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
@@ -80,7 +81,7 @@ public class RelockDomainActionTest {
       new DomainLockUtils(
           new DeterministicStringGenerator(Alphabets.BASE_58),
           "adminreg",
-          AsyncTaskEnqueuerTest.createForTesting(
+          AsyncTaskEnqueuerHelper.createForTesting(
               mock(AppEngineServiceUtils.class), clock, Duration.ZERO));
 
   @RegisterExtension
@@ -117,7 +118,7 @@ public class RelockDomainActionTest {
         .thenReturn("backend.hostname.fake");
 
     asyncTaskEnqueuer =
-        AsyncTaskEnqueuerTest.createForTesting(appEngineServiceUtils, clock, Duration.ZERO);
+        AsyncTaskEnqueuerHelper.createForTesting(appEngineServiceUtils, clock, Duration.ZERO);
     action = createAction(oldLock.getRevisionId());
   }
 
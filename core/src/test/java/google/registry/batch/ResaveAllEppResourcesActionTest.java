@@ -16,26 +16,40 @@ package google.registry.batch;
 
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
+import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.persistActiveContact;
+import static google.registry.testing.DatabaseHelper.persistActiveDomain;
+import static google.registry.testing.DatabaseHelper.persistActiveHost;
 import static google.registry.testing.DatabaseHelper.persistContactWithPendingTransfer;
+import static google.registry.testing.DatabaseHelper.persistResource;
 import static org.joda.time.DateTimeZone.UTC;
 
+import com.google.appengine.api.datastore.DatastoreService;
+import com.google.appengine.api.datastore.DatastoreServiceFactory;
+import com.google.appengine.api.datastore.Entity;
+import com.googlecode.objectify.Key;
 import google.registry.model.contact.ContactResource;
 import google.registry.model.transfer.TransferStatus;
+import google.registry.testing.DualDatabaseTest;
 import google.registry.testing.FakeResponse;
+import google.registry.testing.TestOfyOnly;
+import google.registry.testing.TestSqlOnly;
 import google.registry.testing.mapreduce.MapreduceTestCase;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
 
 /** Unit tests for {@link ResaveAllEppResourcesAction}. */
+@DualDatabaseTest
 class ResaveAllEppResourcesActionTest extends MapreduceTestCase<ResaveAllEppResourcesAction> {
 
   @BeforeEach
   void beforeEach() {
     action = new ResaveAllEppResourcesAction();
     action.mrRunner = makeDefaultRunner();
+    action.scanner = new EppResourceScanner().setThreadCount(2).setBatchSize(2);
     action.response = new FakeResponse();
+    action.maxWritesPerSecond = 1000;
   }
 
   private void runMapreduce() throws Exception {
@@ -43,7 +57,7 @@ class ResaveAllEppResourcesActionTest extends MapreduceTestCase<ResaveAllEppReso
     executeTasksUntilEmpty("mapreduce");
   }
 
-  @Test
+  @TestOfyOnly
   void test_mapreduceSuccessfullyResavesEntity() throws Exception {
     ContactResource contact = persistActiveContact("test123");
     DateTime creationTime = contact.getUpdateTimestamp().getTimestamp();
@@ -55,7 +69,7 @@ class ResaveAllEppResourcesActionTest extends MapreduceTestCase<ResaveAllEppReso
         .isGreaterThan(creationTime);
   }
 
-  @Test
+  @TestOfyOnly
   void test_fastMode_doesNotResaveEntityWithNoChanges() throws Exception {
     ContactResource contact = persistActiveContact("test123");
     DateTime creationTime = contact.getUpdateTimestamp().getTimestamp();
@@ -68,7 +82,46 @@ class ResaveAllEppResourcesActionTest extends MapreduceTestCase<ResaveAllEppReso
         .isEqualTo(creationTime);
   }
 
-  @Test
+  @TestOfyOnly
+  void test_fastMode_doesNotResaveEntityWithSeveralRevisions() throws Exception {
+    ContactResource contact = persistActiveContact("test123");
+    contact = persistResource(contact.asBuilder().setEmailAddress("jd@example.tld").build());
+    DateTime updateTime = contact.getUpdateTimestamp().getTimestamp();
+    DatastoreService datastoreService = DatastoreServiceFactory.getDatastoreService();
+    Entity storedEntity = datastoreService.get(Key.create(contact).getRaw());
+    assertThat(storedEntity.getProperties()).containsKey("revisions.key");
+    ofy().clearSessionCache();
+    action.isFast = true;
+    runMapreduce();
+    ofy().clearSessionCache();
+    assertThat(ofy().load().entity(contact).now().getUpdateTimestamp().getTimestamp())
+        .isEqualTo(updateTime);
+    // The revisions map would have gained an entry for the skipped save.
+    assertThat(datastoreService.get(Key.create(contact).getRaw()).getProperties())
+        .isEqualTo(storedEntity.getProperties());
+  }
+
+  @TestOfyOnly
+  void test_fastMode_resavesEntityWithChangedStoredForm() throws Exception {
+    ContactResource contact = persistActiveContact("test123");
+    DateTime creationTime = contact.getUpdateTimestamp().getTimestamp();
+    // Simulate a property left behind by a field that has since been removed from the model, which
+    // Objectify ignores on load and so isn't visible in the loaded resource.
+    DatastoreService datastoreService = DatastoreServiceFactory.getDatastoreService();
+    Entity rawEntity = datastoreService.get(Key.create(contact).getRaw());
+    rawEntity.setProperty("obsoleteField", "obsoleteValue");
+    datastoreService.put(rawEntity);
+    ofy().clearSessionCache();
+    action.isFast = true;
+    runMapreduce();
+    ofy().clearSessionCache();
+    assertThat(ofy().load().entity(contact).now().getUpdateTimestamp().getTimestamp())
+        .isGreaterThan(creationTime);
+    assertThat(datastoreService.get(Key.create(contact).getRaw()).hasProperty("obsoleteField"))
+        .isFalse();
+  }
+
+  @TestOfyOnly
   void test_mapreduceResolvesPendingTransfer() throws Exception {
     DateTime now = DateTime.now(UTC);
     // Set up a contact with a transfer that implicitly completed five days ago.
@@ -88,4 +141,47 @@ class ResaveAllEppResourcesActionTest extends MapreduceTestCase<ResaveAllEppReso
     assertThat(resavedContact.getTransferData().getTransferStatus())
         .isEqualTo(TransferStatus.SERVER_APPROVED);
   }
+
+  @TestSqlOnly
+  void testScanner_resavesAllResources() {
+    createTld("tld");
+    persistActiveContact("test123");
+    persistActiveHost("ns1.example.tld");
+    persistActiveDomain("example.tld");
+    action.run();
+    // The domain also creates a contact of its own.
+    assertThat(((FakeResponse) action.response).getPayload())
+        .isEqualTo("Re-saved 4 of 4 EPP resources, skipped 0 with no changes.");
+  }
+
+  @TestSqlOnly
+  void testScanner_fastMode_doesNotResaveResourcesWithNoChanges() {
+    persistActiveContact("test123");
+    persistActiveContact("test456");
+    action.isFast = true;
+    action.run();
+    assertThat(((FakeResponse) action.response).getPayload())
+        .isEqualTo("Re-saved 0 of 2 EPP resources, skipped 2 with no changes.");
+  }
+
+  @TestSqlOnly
+  void testScanner_fastMode_resolvesPendingTransfer() {
+    DateTime now = DateTime.now(UTC);
+    persistActiveContact("test123");
+    // Set up a contact with a transfer that implicitly completed five days ago.
+    ContactResource contact =
+        persistContactWithPendingTransfer(
+            persistActiveContact("meh789"),
+            now.minusDays(10),
+            now.minusDays(10),
+            now.minusDays(10));
+    assertThat(contact.getTransferData().getTransferStatus()).isEqualTo(TransferStatus.PENDING);
+    action.isFast = true;
+    action.run();
+    assertThat(((FakeResponse) action.response).getPayload())
+        .isEqualTo("Re-saved 1 of 2 EPP resources, skipped 1 with no changes.");
+    ContactResource resavedContact = tm().transact(() -> tm().loadByEntity(contact));
+    assertThat(resavedContact.getTransferData().getTransferStatus())
+        .isEqualTo(TransferStatus.SERVER_APPROVED);
+  }
 }
@@ -16,7 +16,9 @@ package google.registry.config;
 
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.config.RegistryConfig.CONFIG_SETTINGS;
+import static google.registry.config.RegistryConfig.ConfigModule.provideRdeCompressionLevel;
 import static google.registry.config.RegistryConfig.ConfigModule.provideReservedTermsExportDisclaimer;
+import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import org.junit.jupiter.api.Test;
 
@@ -28,4 +30,30 @@ class RegistryConfigTest {
     assertThat(provideReservedTermsExportDisclaimer(CONFIG_SETTINGS.get()))
         .isEqualTo("# Disclaimer line 1.\n" + "# Line 2 is this 1.");
   }
+
+  @Test
+  void test_rdeCompressionLevel_acceptsDeflaterLevels() {
+    assertThat(provideRdeCompressionLevel(createRdeSettings(-1))).isEqualTo(-1);
+    assertThat(provideRdeCompressionLevel(createRdeSettings(9))).isEqualTo(9);
+  }
+
+  @Test
+  void test_rdeCompressionLevel_outOfRange_throws() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> provideRdeCompressionLevel(createRdeSettings(10)));
+    assertThat(thrown)
+        .hasMessageThat()
+        .isEqualTo("rde.compressionLevel must be between -1 and 9, but was 10");
+    assertThrows(
+        IllegalArgumentException.class, () -> provideRdeCompressionLevel(createRdeSettings(-2)));
+  }
+
+  private static RegistryConfigSettings createRdeSettings(int compressionLevel) {
+    RegistryConfigSettings settings = new RegistryConfigSettings();
+    settings.rde = new RegistryConfigSettings.Rde();
+    settings.rde.compressionLevel = compressionLevel;
+    return settings;
+  }
 }
@@ -18,7 +18,10 @@ import static com.google.appengine.tools.cloudstorage.GcsServiceFactory.createGc
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.export.ExportDomainListsAction.ExportDomainListsReducer.EXPORT_MIME_TYPE;
 import static google.registry.export.ExportDomainListsAction.ExportDomainListsReducer.REGISTERED_DOMAINS_FILENAME;
+import static google.registry.model.common.Cursor.CursorType.EXPORT_DOMAIN_LISTS;
+import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.newDomainBase;
 import static google.registry.testing.DatabaseHelper.persistActiveDomain;
 import static google.registry.testing.DatabaseHelper.persistDeletedDomain;
 import static google.registry.testing.DatabaseHelper.persistResource;
@@ -27,6 +30,7 @@ import static java.nio.charset.StandardCharsets.UTF_8;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.verifyNoMoreInteractions;
 
@@ -35,24 +39,33 @@ import com.google.appengine.tools.cloudstorage.GcsService;
 import com.google.appengine.tools.cloudstorage.ListOptions;
 import com.google.appengine.tools.cloudstorage.ListResult;
 import google.registry.export.ExportDomainListsAction.ExportDomainListsReducer;
+import google.registry.gcs.GcsUtils;
+import google.registry.model.common.Cursor;
+import google.registry.model.domain.DomainBase;
 import google.registry.model.registry.Registry;
 import google.registry.model.registry.Registry.TldType;
 import google.registry.storage.drive.DriveConnection;
+import google.registry.testing.DualDatabaseTest;
+import google.registry.testing.FakeClock;
 import google.registry.testing.FakeResponse;
+import google.registry.testing.TestOfyAndSql;
+import google.registry.testing.TestOfyOnly;
 import google.registry.testing.mapreduce.MapreduceTestCase;
 import java.io.FileNotFoundException;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
-import org.junit.jupiter.api.Test;
 import org.mockito.ArgumentCaptor;
 
 /** Unit tests for {@link ExportDomainListsAction}. */
+@DualDatabaseTest
 class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAction> {
 
   private GcsService gcsService;
   private DriveConnection driveConnection = mock(DriveConnection.class);
   private ArgumentCaptor<byte[]> bytesExportedToDrive = ArgumentCaptor.forClass(byte[].class);
   private final FakeResponse response = new FakeResponse();
+  private final FakeClock clock = new FakeClock(DateTime.parse("2020-10-01T00:00:00Z"));
 
   @BeforeEach
   void beforeEach() {
@@ -68,7 +81,10 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
     action.response = response;
     action.gcsBucket = "outputbucket";
     action.gcsBufferSize = 500;
+    action.clock = clock;
+    action.threadCount = 2;
     gcsService = createGcsService();
+    action.gcsUtils = new GcsUtils(gcsService, 500);
   }
 
   private void runMapreduce() throws Exception {
@@ -76,6 +92,22 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
     executeTasksUntilEmpty("mapreduce");
   }
 
+  private void runIncrementally() {
+    action.incremental = true;
+    action.run();
+  }
+
+  private String readTldFile(String tld) throws Exception {
+    return new String(
+        readGcsFile(gcsService, new GcsFilename("outputbucket", tld + ".txt")), UTF_8);
+  }
+
+  private void assertCursorIsAtCurrentTime() {
+    Cursor cursor =
+        ofy().load().key(Cursor.createKey(EXPORT_DOMAIN_LISTS, Registry.get("tld"))).now();
+    assertThat(cursor.getCursorTime()).isEqualTo(clock.nowUtc());
+  }
+
   private void verifyExportedToDrive(String folderId, String domains) throws Exception {
     verify(driveConnection)
         .createOrUpdateFile(
@@ -86,7 +118,7 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
     assertThat(new String(bytesExportedToDrive.getValue(), UTF_8)).isEqualTo(domains);
   }
 
-  @Test
+  @TestOfyOnly
   void test_writesLinkToMapreduceConsoleToResponse() throws Exception {
     runMapreduce();
     assertThat(response.getPayload())
@@ -95,7 +127,7 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
                 + "/_ah/pipeline/status.html?root=");
   }
 
-  @Test
+  @TestOfyOnly
   void test_outputsOnlyActiveDomains() throws Exception {
     persistActiveDomain("onetwo.tld");
     persistActiveDomain("rudnitzky.tld");
@@ -109,7 +141,7 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
     verifyNoMoreInteractions(driveConnection);
   }
 
-  @Test
+  @TestOfyOnly
   void test_outputsOnlyDomainsOnRealTlds() throws Exception {
     persistActiveDomain("onetwo.tld");
     persistActiveDomain("rudnitzky.tld");
@@ -130,7 +162,7 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
     verifyNoMoreInteractions(driveConnection);
   }
 
-  @Test
+  @TestOfyOnly
   void test_outputsDomainsFromDifferentTldsToMultipleFiles() throws Exception {
     createTld("tldtwo");
     persistResource(Registry.get("tldtwo").asBuilder().setDriveFolderId("hooray").build());
@@ -158,4 +190,96 @@ class ExportDomainListsActionTest extends MapreduceTestCase<ExportDomainListsAct
     // tldthree does not have a drive id, so no export to drive is performed.
     verifyNoMoreInteractions(driveConnection);
   }
+
+  @TestOfyAndSql
+  void test_incremental_withoutCursor_exportsAllActiveDomains() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    persistActiveDomain("rudnitzky.tld");
+    persistDeletedDomain("mortuary.tld", DateTime.parse("2001-03-14T10:11:12Z"));
+    persistActiveDomain("wontgo.testtld");
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld\nrudnitzky.tld");
+    GcsFilename nonexistentFile = new GcsFilename("outputbucket", "testtld.txt");
+    assertThrows(FileNotFoundException.class, () -> readGcsFile(gcsService, nonexistentFile));
+    verifyExportedToDrive("brouhaha", "onetwo.tld\nrudnitzky.tld");
+    verifyNoMoreInteractions(driveConnection);
+    assertCursorIsAtCurrentTime();
+    assertThat(response.getPayload()).isEqualTo("Exported 2 domains on 1 TLDs.");
+  }
+
+  @TestOfyAndSql
+  void test_incremental_appliesChangesSinceCursor() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    DomainBase rudnitzky = persistActiveDomain("rudnitzky.tld");
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld\nrudnitzky.tld");
+
+    clock.advanceBy(Duration.standardHours(12));
+    persistActiveDomain("dasher.tld", clock.nowUtc().minusHours(1));
+    persistResource(rudnitzky.asBuilder().setDeletionTime(clock.nowUtc().minusHours(2)).build());
+    // Domains in pending delete stay on the list until their deletion time.
+    persistResource(
+        newDomainBase("prancer.tld")
+            .asBuilder()
+            .setCreationTimeForTest(clock.nowUtc().minusHours(3))
+            .setDeletionTime(clock.nowUtc().plusDays(5))
+            .build());
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEqualTo("dasher.tld\nonetwo.tld\nprancer.tld");
+    verify(driveConnection, times(2))
+        .createOrUpdateFile(
+            eq(REGISTERED_DOMAINS_FILENAME),
+            eq(EXPORT_MIME_TYPE),
+            eq("brouhaha"),
+            bytesExportedToDrive.capture());
+    assertThat(new String(bytesExportedToDrive.getValue(), UTF_8))
+        .isEqualTo("dasher.tld\nonetwo.tld\nprancer.tld");
+    assertCursorIsAtCurrentTime();
+  }
+
+  @TestOfyAndSql
+  void test_incremental_nameDeletedAndRecreatedSinceCursor_staysOnList() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    DomainBase rudnitzky = persistActiveDomain("rudnitzky.tld");
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld\nrudnitzky.tld");
+
+    clock.advanceBy(Duration.standardHours(12));
+    // The old domain and its drop-catch replacement both show up as changed, and whichever order
+    // they're applied in, the name must stay on the list.
+    persistResource(rudnitzky.asBuilder().setDeletionTime(clock.nowUtc().minusHours(2)).build());
+    persistActiveDomain("rudnitzky.tld", clock.nowUtc().minusHours(1));
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld\nrudnitzky.tld");
+    assertCursorIsAtCurrentTime();
+  }
+
+  @TestOfyAndSql
+  void test_incremental_noChanges_doesNotRewriteList() throws Exception {
+    persistActiveDomain("onetwo.tld");
+    persistActiveDomain("rudnitzky.tld");
+    runIncrementally();
+    clock.advanceBy(Duration.standardHours(12));
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEqualTo("onetwo.tld\nrudnitzky.tld");
+    // Only the first run wrote the list to Drive.
+    verifyExportedToDrive("brouhaha", "onetwo.tld\nrudnitzky.tld");
+    verifyNoMoreInteractions(driveConnection);
+    assertCursorIsAtCurrentTime();
+  }
+
+  @TestOfyAndSql
+  void test_incremental_noActiveDomains_doesNotRebuildEmptyList() throws Exception {
+    persistDeletedDomain("mortuary.tld", DateTime.parse("2001-03-14T10:11:12Z"));
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEmpty();
+    clock.advanceBy(Duration.standardHours(12));
+    runIncrementally();
+    assertThat(readTldFile("tld")).isEmpty();
+    // The empty list written by the first run is the starting point for the second one.
+    verifyExportedToDrive("brouhaha", "");
+    verifyNoMoreInteractions(driveConnection);
+    assertCursorIsAtCurrentTime();
+    assertThat(response.getPayload()).isEqualTo("Exported 0 domains on 1 TLDs.");
+  }
 }
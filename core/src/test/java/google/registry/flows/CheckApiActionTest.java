@@ -16,6 +16,9 @@ package google.registry.flows;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.flows.CheckApiMetrics.Lookup.PRICING;
+import static google.registry.flows.CheckApiMetrics.Lookup.REGISTRATION;
+import static google.registry.flows.CheckApiMetrics.Lookup.RESERVATION;
 import static google.registry.model.registry.Registry.TldState.PREDELEGATION;
 import static google.registry.monitoring.whitebox.CheckApiMetric.Availability.AVAILABLE;
 import static google.registry.monitoring.whitebox.CheckApiMetric.Availability.REGISTERED;
@@ -24,8 +27,12 @@ import static google.registry.monitoring.whitebox.CheckApiMetric.Tier.PREMIUM;
 import static google.registry.monitoring.whitebox.CheckApiMetric.Tier.STANDARD;
 import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.persistActiveDomain;
+import static google.registry.testing.DatabaseHelper.persistPremiumList;
 import static google.registry.testing.DatabaseHelper.persistReservedList;
 import static google.registry.testing.DatabaseHelper.persistResource;
+import static org.mockito.ArgumentMatchers.anyLong;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 
 import google.registry.model.registry.Registry;
@@ -282,6 +289,61 @@ class CheckApiActionTest {
     verifySuccessMetric(PREMIUM, RESERVED);
   }
 
+  @Test
+  void testSuccess_reservedListUpdated_reservedOnNextCheck() {
+    assertThat(getCheckResponse("somedomain.example")).containsEntry("available", true);
+    persistReservedList("example-reserved", "somedomain,NAME_COLLISION");
+    assertThat(getCheckResponse("somedomain.example"))
+        .containsExactly(
+            "tier", "standard",
+            "status", "success",
+            "available", false,
+            "reason", "Cannot be delegated");
+  }
+
+  @Test
+  void testSuccess_premiumListUpdated_premiumOnNextCheck() {
+    assertThat(getCheckResponse("somedomain.example")).containsEntry("tier", "standard");
+    persistResource(
+        Registry.get("example")
+            .asBuilder()
+            .setPremiumList(persistPremiumList("example", "somedomain,USD 70"))
+            .build());
+    assertThat(getCheckResponse("somedomain.example")).containsEntry("tier", "premium");
+  }
+
+  @Test
+  void testSuccess_noPremiumList_standard() {
+    persistResource(Registry.get("example").asBuilder().setPremiumList(null).build());
+    assertThat(getCheckResponse("rich.example")).containsEntry("tier", "standard");
+  }
+
+  @Test
+  void testFailure_otherPricingEngine_usesPricingEngine() {
+    persistResource(Registry.get("example").asBuilder().setPremiumPricingEngine("fake").build());
+    assertThat(getCheckResponse("rich.example"))
+        .containsExactly(
+            "status", "error",
+            "reason", "Invalid request");
+  }
+
+  @Test
+  void testSuccess_available_recordsLookupTimes() {
+    getCheckResponse("somedomain.example");
+    verify(checkApiMetrics).recordLookupTime(REGISTRATION, 0L);
+    verify(checkApiMetrics).recordLookupTime(RESERVATION, 0L);
+    verify(checkApiMetrics).recordLookupTime(PRICING, 0L);
+  }
+
+  @Test
+  void testSuccess_registered_doesNotRecordReservationLookupTime() {
+    persistActiveDomain("somedomain.example");
+    getCheckResponse("somedomain.example");
+    verify(checkApiMetrics).recordLookupTime(REGISTRATION, 0L);
+    verify(checkApiMetrics, never()).recordLookupTime(eq(RESERVATION), anyLong());
+    verify(checkApiMetrics).recordLookupTime(PRICING, 0L);
+  }
+
   private void verifySuccessMetric(Tier tier, Availability availability) {
     verify(checkApiMetrics).incrementCheckApiRequest(metricCaptor.capture());
     CheckApiMetric metric = metricCaptor.getValue();
@@ -23,7 +23,6 @@ import dagger.Module;
 import dagger.Provides;
 import dagger.Subcomponent;
 import google.registry.batch.AsyncTaskEnqueuer;
-import google.registry.batch.AsyncTaskEnqueuerTest;
 import google.registry.config.RegistryConfig.ConfigModule;
 import google.registry.config.RegistryConfig.ConfigModule.TmchCaMode;
 import google.registry.dns.DnsQueue;
@@ -33,6 +32,7 @@ import google.registry.flows.domain.DomainFlowTmchUtils;
 import google.registry.monitoring.whitebox.EppMetric;
 import google.registry.request.RequestScope;
 import google.registry.request.lock.LockHandler;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.FakeClock;
 import google.registry.testing.FakeLockHandler;
 import google.registry.testing.FakeSleeper;
@@ -77,11 +77,20 @@ public interface EppTestComponent {
 
     public static FakesAndMocksModule create(
         FakeClock clock, EppMetric.Builder eppMetricBuilder, TmchXmlSignature tmchXmlSignature) {
+      return create(clock, eppMetricBuilder, tmchXmlSignature, false);
+    }
+
+    public static FakesAndMocksModule create(
+        FakeClock clock,
+        EppMetric.Builder eppMetricBuilder,
+        TmchXmlSignature tmchXmlSignature,
+        boolean asyncTaskOutboxEnabled) {
       FakesAndMocksModule instance = new FakesAndMocksModule();
       AppEngineServiceUtils appEngineServiceUtils = mock(AppEngineServiceUtils.class);
       when(appEngineServiceUtils.getServiceHostname("backend")).thenReturn("backend.hostname.fake");
       instance.asyncTaskEnqueuer =
-          AsyncTaskEnqueuerTest.createForTesting(appEngineServiceUtils, clock, standardSeconds(90));
+          AsyncTaskEnqueuerHelper.createForTesting(
+              appEngineServiceUtils, clock, standardSeconds(90), asyncTaskOutboxEnabled);
       instance.clock = clock;
       instance.domainFlowTmchUtils = new DomainFlowTmchUtils(tmchXmlSignature);
       instance.sleeper = new FakeSleeper(clock);
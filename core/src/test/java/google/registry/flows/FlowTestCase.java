@@ -88,6 +88,12 @@ public abstract class FlowTestCase<F extends Flow> {
   protected EppRequestSource eppRequestSource = EppRequestSource.UNIT_TEST;
   private TmchXmlSignature testTmchXmlSignature = null;
 
+  /**
+   * Whether flows write their async tasks to the {@link google.registry.model.server.PendingTask}
+   * outbox, as they do in production on Datastore, rather than enqueuing them directly.
+   */
+  protected boolean asyncTaskOutboxEnabled = false;
+
   private EppMetric.Builder eppMetricBuilder;
 
   // Set the clock for transactional flows.  We have to order this before the AppEngineExtension
@@ -231,7 +237,9 @@ public abstract class FlowTestCase<F extends Flow> {
             ? testTmchXmlSignature
             : new TmchXmlSignature(new TmchCertificateAuthority(tmchCaMode, clock));
     return DaggerEppTestComponent.builder()
-        .fakesAndMocksModule(FakesAndMocksModule.create(clock, eppMetricBuilder, tmchXmlSignature))
+        .fakesAndMocksModule(
+            FakesAndMocksModule.create(
+                clock, eppMetricBuilder, tmchXmlSignature, asyncTaskOutboxEnabled))
         .build()
         .startRequest()
         .flowComponentBuilder()
@@ -15,6 +15,7 @@
 package google.registry.flows.contact;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.batch.DispatchPendingTasksActionTest.dispatchPendingTasks;
 import static google.registry.testing.ContactResourceSubject.assertAboutContacts;
 import static google.registry.testing.DatabaseHelper.assertNoBillingEvents;
 import static google.registry.testing.DatabaseHelper.createTld;
@@ -24,6 +25,7 @@ import static google.registry.testing.DatabaseHelper.persistActiveContact;
 import static google.registry.testing.DatabaseHelper.persistDeletedContact;
 import static google.registry.testing.DatabaseHelper.persistResource;
 import static google.registry.testing.EppExceptionSubject.assertAboutEppExceptions;
+import static google.registry.testing.TaskQueueHelper.assertNoTasksEnqueued;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 
 import com.google.common.collect.ImmutableSet;
@@ -40,6 +42,7 @@ import google.registry.model.reporting.HistoryEntry;
 import google.registry.testing.DualDatabaseTest;
 import google.registry.testing.ReplayExtension;
 import google.registry.testing.TestOfyAndSql;
+import google.registry.testing.TestOfyOnly;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Order;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -80,6 +83,20 @@ class ContactDeleteFlowTest extends ResourceFlowTestCase<ContactDeleteFlow, Cont
     assertNoBillingEvents();
   }
 
+  @TestOfyOnly
+  void testSuccess_withOutbox_enqueuesDeletionTaskOnDispatch() throws Exception {
+    asyncTaskOutboxEnabled = true;
+    persistActiveContact(getUniqueIdFromCommand());
+    clock.advanceOneMilli();
+    runFlowAssertResponse(loadFile("contact_delete_response.xml"));
+    ContactResource deletedContact = reloadResourceByForeignKey();
+    assertAboutContacts().that(deletedContact).hasStatusValue(StatusValue.PENDING_DELETE);
+    assertNoTasksEnqueued("async-delete-pull");
+    dispatchPendingTasks(clock);
+    assertAsyncDeletionTaskEnqueued(
+        deletedContact, "TheRegistrar", Trid.create("ABC-12345", "server-trid"), false);
+  }
+
   @TestOfyAndSql
   void testSuccess_clTridNotSpecified() throws Exception {
     setEppInput("contact_delete_no_cltrid.xml");
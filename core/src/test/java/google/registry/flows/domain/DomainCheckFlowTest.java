@@ -14,6 +14,7 @@
 
 package google.registry.flows.domain;
 
+import static com.google.monitoring.metrics.contrib.DistributionMetricSubject.assertThat;
 import static google.registry.model.domain.token.AllocationToken.TokenType.SINGLE_USE;
 import static google.registry.model.domain.token.AllocationToken.TokenType.UNLIMITED_USE;
 import static google.registry.model.eppoutput.CheckData.DomainCheck.create;
@@ -765,6 +766,19 @@ class DomainCheckFlowTest extends ResourceCheckFlowTestCase<DomainCheckFlow, Dom
     runFlowAssertResponse(loadFile("domain_check_fee_multiple_commands_response_v12.xml"));
   }
 
+  @Test
+  void testFeeExtension_multipleCommands_recordsPricingMetrics() throws Exception {
+    FeeCheckMetrics.pricingTime.reset();
+    FeeCheckMetrics.priceCount.reset();
+    setEppInput("domain_check_fee_multiple_commands_v12.xml");
+    runFlow();
+    assertThat(FeeCheckMetrics.priceCount)
+        .hasDataSetForLabels(ImmutableSet.of(5), "tld")
+        .and()
+        .hasNoOtherValues();
+    assertThat(FeeCheckMetrics.pricingTime).hasAnyValueForLabels("tld").and().hasNoOtherValues();
+  }
+
   /** Test the same as {@link #testFeeExtension_multipleCommands_v06} with premium labels. */
   @Test
   void testFeeExtension_premiumLabels_v06() throws Exception {
@@ -161,6 +161,7 @@ import google.registry.model.registry.Registry.TldType;
 import google.registry.model.reporting.DomainTransactionRecord;
 import google.registry.model.reporting.DomainTransactionRecord.TransactionReportField;
 import google.registry.model.reporting.HistoryEntry;
+import google.registry.model.server.PendingTask;
 import google.registry.monitoring.whitebox.EppMetric;
 import google.registry.testing.ReplayExtension;
 import google.registry.testing.TaskQueueHelper.TaskMatcher;
@@ -893,6 +894,19 @@ class DomainCreateFlowTest extends ResourceFlowTestCase<DomainCreateFlow, Domain
     assertClaimsLordn();
   }
 
+  @Test
+  void testSuccess_claimsNotice_withOutbox_enqueuesLordnTaskDirectly() throws Exception {
+    asyncTaskOutboxEnabled = true;
+    clock.setTo(DateTime.parse("2009-08-16T09:00:00.0Z"));
+    setEppInput("domain_create_claim_notice.xml");
+    persistContactsAndHosts();
+    runFlowAssertResponse(loadFile("domain_create_response_claims.xml"));
+    assertSuccessfulCreate("tld", ImmutableSet.of());
+    // The LORDN row is due right away, so it doesn't wait for the next dispatch.
+    assertClaimsLordn();
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
   @Test
   void testSuccess_claimsNoticeInQuietPeriod() throws Exception {
     allocationToken =
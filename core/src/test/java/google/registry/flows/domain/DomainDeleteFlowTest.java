@@ -14,6 +14,7 @@
 
 package google.registry.flows.domain;
 
+import static com.google.common.collect.Iterables.getOnlyElement;
 import static com.google.common.collect.MoreCollectors.onlyElement;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_REQUESTED_TIME;
@@ -21,6 +22,7 @@ import static google.registry.batch.AsyncTaskEnqueuer.PARAM_RESAVE_TIMES;
 import static google.registry.batch.AsyncTaskEnqueuer.PARAM_RESOURCE_KEY;
 import static google.registry.batch.AsyncTaskEnqueuer.PATH_RESAVE_ENTITY;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_ACTIONS;
+import static google.registry.batch.DispatchPendingTasksActionTest.dispatchPendingTasks;
 import static google.registry.flows.domain.DomainTransferFlowTestCase.persistWithPendingTransfer;
 import static google.registry.model.EppResourceUtils.loadByForeignKey;
 import static google.registry.model.ofy.ObjectifyService.ofy;
@@ -52,6 +54,7 @@ import static google.registry.testing.DomainBaseSubject.assertAboutDomains;
 import static google.registry.testing.EppExceptionSubject.assertAboutEppExceptions;
 import static google.registry.testing.HistoryEntrySubject.assertAboutHistoryEntries;
 import static google.registry.testing.TaskQueueHelper.assertDnsTasksEnqueued;
+import static google.registry.testing.TaskQueueHelper.assertNoTasksEnqueued;
 import static google.registry.testing.TaskQueueHelper.assertTasksEnqueued;
 import static google.registry.util.DateTimeUtils.END_OF_TIME;
 import static google.registry.util.DateTimeUtils.START_OF_TIME;
@@ -92,6 +95,7 @@ import google.registry.model.registry.Registry;
 import google.registry.model.registry.Registry.TldType;
 import google.registry.model.reporting.DomainTransactionRecord;
 import google.registry.model.reporting.HistoryEntry;
+import google.registry.model.server.PendingTask;
 import google.registry.model.transfer.DomainTransferData;
 import google.registry.model.transfer.TransferResponse;
 import google.registry.model.transfer.TransferStatus;
@@ -309,6 +313,47 @@ class DomainDeleteFlowTest extends ResourceFlowTestCase<DomainDeleteFlow, Domain
             .etaDelta(when.minus(standardSeconds(30)), when.plus(standardSeconds(30))));
   }
 
+  @Test
+  void testSuccess_withOutbox_savesResaveAsPendingTaskUntilDue() throws Exception {
+    asyncTaskOutboxEnabled = true;
+    persistResource(
+        Registry.get("tld")
+            .asBuilder()
+            .setRedemptionGracePeriodLength(standardDays(3))
+            .setPendingDeleteLength(standardDays(2))
+            .build());
+    setUpSuccessfulTest();
+    clock.advanceOneMilli();
+    runFlowAssertResponse(loadFile("domain_delete_response_pending.xml"));
+    DateTime requestedTime = clock.nowUtc();
+    assertNoTasksEnqueued(QUEUE_ASYNC_ACTIONS);
+    PendingTask pendingTask = getOnlyElement(ofy().load().type(PendingTask.class));
+    assertThat(pendingTask.getQueueName()).isEqualTo(QUEUE_ASYNC_ACTIONS);
+    assertThat(pendingTask.getPath()).hasValue(PATH_RESAVE_ENTITY);
+    assertThat(pendingTask.getEta()).isEqualTo(requestedTime.plusDays(3));
+    assertThat(pendingTask.getParams())
+        .containsExactly(
+            PARAM_RESOURCE_KEY, Key.create(domain).getString(),
+            PARAM_REQUESTED_TIME, requestedTime.toString(),
+            PARAM_RESAVE_TIMES, requestedTime.plusDays(5).toString());
+    // The resave is three days out, which is past the dispatch horizon.
+    dispatchPendingTasks(clock);
+    assertNoTasksEnqueued(QUEUE_ASYNC_ACTIONS);
+
+    clock.advanceBy(standardDays(3));
+    dispatchPendingTasks(clock);
+    assertTasksEnqueued(
+        QUEUE_ASYNC_ACTIONS,
+        new TaskMatcher()
+            .url(PATH_RESAVE_ENTITY)
+            .method("POST")
+            .header("Host", "backend.hostname.fake")
+            .param(PARAM_RESOURCE_KEY, Key.create(domain).getString())
+            .param(PARAM_REQUESTED_TIME, requestedTime.toString())
+            .param(PARAM_RESAVE_TIMES, requestedTime.plusDays(5).toString()));
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+  }
+
   @Test
   void testDryRun() throws Exception {
     setUpSuccessfulTest();
@@ -0,0 +1,106 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.flows.domain;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.testing.DatabaseHelper.createTld;
+import static google.registry.testing.DatabaseHelper.persistPremiumList;
+import static google.registry.testing.DatabaseHelper.persistResource;
+
+import com.google.common.collect.HashMultiset;
+import com.google.common.collect.ImmutableMultiset;
+import com.google.common.collect.Multiset;
+import google.registry.flows.custom.DomainPricingCustomLogic;
+import google.registry.model.registry.Registry;
+import google.registry.model.registry.label.PremiumList;
+import google.registry.pricing.PricingEngineProxy;
+import google.registry.testing.AppEngineExtension;
+import java.util.Optional;
+import org.joda.money.Money;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link DomainPricingLogic}. */
+class DomainPricingLogicTest {
+
+  @RegisterExtension
+  final AppEngineExtension appEngine =
+      AppEngineExtension.builder().withDatastoreAndCloudSql().build();
+
+  private final DateTime now = DateTime.parse("2020-03-17T12:01:00Z");
+  private final Multiset<String> pricingEngineLookups = HashMultiset.create();
+  private final DomainPricingLogic domainPricingLogic = new DomainPricingLogic();
+
+  private Registry registry;
+
+  @BeforeEach
+  void beforeEach() {
+    PremiumList premiumList = persistPremiumList("rich,USD 100");
+    createTld("example");
+    registry =
+        persistResource(Registry.get("example").asBuilder().setPremiumList(premiumList).build());
+    domainPricingLogic.customLogic = new DomainPricingCustomLogic(null, null, null) {};
+    domainPricingLogic.pricingEngineLookup =
+        (domainName, dateTime) -> {
+          pricingEngineLookups.add(domainName);
+          return PricingEngineProxy.getPricesForDomainName(domainName, dateTime);
+        };
+  }
+
+  @Test
+  void testMultipleCommands_looksUpPricesOncePerName() throws Exception {
+    for (String domainName : new String[] {"rich.example", "plain.example"}) {
+      domainPricingLogic.getCreatePrice(registry, domainName, now, 1, false, Optional.empty());
+      domainPricingLogic.getCreatePrice(registry, domainName, now, 2, false, Optional.empty());
+      domainPricingLogic.getRenewPrice(registry, domainName, now, 1);
+      domainPricingLogic.getRenewPrice(registry, domainName, now, 2);
+      domainPricingLogic.getRestorePrice(registry, domainName, now, true);
+      domainPricingLogic.getTransferPrice(registry, domainName, now);
+    }
+    assertThat(pricingEngineLookups)
+        .containsExactlyElementsIn(ImmutableMultiset.of("rich.example", "plain.example"));
+  }
+
+  @Test
+  void testMultipleCommands_returnsPricesOfEachName() throws Exception {
+    assertThat(
+            domainPricingLogic
+                .getCreatePrice(registry, "rich.example", now, 2, false, Optional.empty())
+                .getCreateCost())
+        .isEqualTo(Money.parse("USD 200"));
+    assertThat(domainPricingLogic.getRenewPrice(registry, "rich.example", now, 1).getRenewCost())
+        .isEqualTo(Money.parse("USD 100"));
+    assertThat(
+            domainPricingLogic
+                .getCreatePrice(registry, "plain.example", now, 2, false, Optional.empty())
+                .getCreateCost())
+        .isEqualTo(Money.parse("USD 26"));
+    assertThat(domainPricingLogic.getRenewPrice(registry, "plain.example", now, 1).getRenewCost())
+        .isEqualTo(Money.parse("USD 11"));
+    assertThat(pricingEngineLookups)
+        .containsExactlyElementsIn(ImmutableMultiset.of("rich.example", "plain.example"));
+  }
+
+  @Test
+  void testDifferentPriceTimes_looksUpPricesForEachTime() throws Exception {
+    domainPricingLogic.getRenewPrice(registry, "rich.example", now, 1);
+    domainPricingLogic.getRenewPrice(registry, "rich.example", now.plusYears(1), 1);
+    domainPricingLogic.getRenewPrice(registry, "rich.example", now, 1);
+    assertThat(pricingEngineLookups)
+        .containsExactlyElementsIn(ImmutableMultiset.of("rich.example", "rich.example"));
+  }
+}
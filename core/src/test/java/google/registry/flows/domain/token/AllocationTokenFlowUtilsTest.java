@@ -217,6 +217,55 @@ class AllocationTokenFlowUtilsTest {
         .inOrder();
   }
 
+  @Test
+  void test_checkDomainsWithToken_showsDomainSpecificFailuresFirst() {
+    persistResource(
+        createOneMonthPromoTokenBuilder(DateTime.now(UTC).plusDays(1))
+            .setAllowedTlds(ImmutableSet.of("tld"))
+            .build());
+    assertThat(
+            flowUtils
+                .checkDomainsWithToken(
+                    ImmutableList.of(
+                        InternetDomainName.from("blah.tld"), InternetDomainName.from("a.nottld")),
+                    "tokeN",
+                    "TheRegistrar",
+                    DateTime.now(UTC))
+                .domainCheckResults())
+        .containsExactlyEntriesIn(
+            ImmutableMap.of(
+                InternetDomainName.from("blah.tld"),
+                "Alloc token not in promo period",
+                InternetDomainName.from("a.nottld"),
+                "Alloc token invalid for TLD"))
+        .inOrder();
+  }
+
+  @Test
+  void test_checkDomainsWithToken_showsRegistrarFailureForAllDomains() {
+    persistResource(
+        createOneMonthPromoTokenBuilder(DateTime.now(UTC).plusDays(1))
+            .setAllowedTlds(ImmutableSet.of("tld"))
+            .setAllowedRegistrarIds(ImmutableSet.of("NewRegistrar"))
+            .build());
+    assertThat(
+            flowUtils
+                .checkDomainsWithToken(
+                    ImmutableList.of(
+                        InternetDomainName.from("blah.tld"), InternetDomainName.from("a.nottld")),
+                    "tokeN",
+                    "TheRegistrar",
+                    DateTime.now(UTC))
+                .domainCheckResults())
+        .containsExactlyEntriesIn(
+            ImmutableMap.of(
+                InternetDomainName.from("blah.tld"),
+                "Alloc token invalid for client",
+                InternetDomainName.from("a.nottld"),
+                "Alloc token invalid for client"))
+        .inOrder();
+  }
+
   @Test
   void test_checkDomainsWithToken_callsCustomLogic() {
     persistResource(
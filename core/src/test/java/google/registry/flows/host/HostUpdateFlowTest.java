@@ -18,6 +18,7 @@ import static com.google.common.base.Strings.nullToEmpty;
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_HOST_RENAME;
 import static google.registry.model.EppResourceUtils.loadByForeignKey;
+import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.persistence.transaction.TransactionManagerFactory.tm;
 import static google.registry.persistence.transaction.TransactionManagerUtil.transactIfJpaTm;
 import static google.registry.testing.DatabaseHelper.assertNoBillingEvents;
@@ -76,11 +77,13 @@ import google.registry.model.host.HostResource;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.registry.Registry;
 import google.registry.model.reporting.HistoryEntry;
+import google.registry.model.server.PendingTask;
 import google.registry.model.transfer.DomainTransferData;
 import google.registry.model.transfer.TransferStatus;
 import google.registry.testing.DualDatabaseTest;
 import google.registry.testing.TaskQueueHelper.TaskMatcher;
 import google.registry.testing.TestOfyAndSql;
+import google.registry.testing.TestOfyOnly;
 import javax.annotation.Nullable;
 import org.joda.time.DateTime;
 
@@ -216,6 +219,30 @@ class HostUpdateFlowTest extends ResourceFlowTestCase<HostUpdateFlow, HostResour
             .param("requestedTime", clock.nowUtc().toString()));
   }
 
+  @TestOfyOnly
+  void testSuccess_withReferencingDomain_withOutbox_enqueuesRenameTaskDirectly()
+      throws Exception {
+    asyncTaskOutboxEnabled = true;
+    createTld("tld");
+    createTld("xn--q9jyb4c");
+    HostResource host =
+        persistActiveSubordinateHost(oldHostName(), persistActiveDomain("example.tld"));
+    persistResource(
+        newDomainBase("test.xn--q9jyb4c")
+            .asBuilder()
+            .setDeletionTime(END_OF_TIME)
+            .setNameservers(ImmutableSet.of(host.createVKey()))
+            .build());
+    HostResource renamedHost = doSuccessfulTest();
+    // The DNS refresh is due right away, so it doesn't wait for the next dispatch.
+    assertThat(ofy().load().type(PendingTask.class).count()).isEqualTo(0);
+    assertTasksEnqueued(
+        QUEUE_ASYNC_HOST_RENAME,
+        new TaskMatcher()
+            .param("hostKey", Key.create(renamedHost).getString())
+            .param("requestedTime", clock.nowUtc().toString()));
+  }
+
   @TestOfyAndSql
   void testSuccess_nameUnchanged_superordinateDomainNeverTransferred() throws Exception {
     setEppInput("host_update_name_unchanged.xml");
@@ -0,0 +1,118 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.CacheUtils.tryMemoizeWithRefresh;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.base.Supplier;
+import com.google.common.testing.FakeTicker;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.joda.time.Duration;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link CacheUtils}. */
+class CacheUtilsTest {
+
+  private final AtomicInteger loads = new AtomicInteger();
+
+  @Test
+  void testTryMemoizeWithRefresh_loadsOnce() {
+    Supplier<Integer> supplier =
+        tryMemoizeWithRefresh(Duration.standardDays(1), loads::incrementAndGet);
+    assertThat(supplier.get()).isEqualTo(1);
+    assertThat(supplier.get()).isEqualTo(1);
+    assertThat(loads.get()).isEqualTo(1);
+  }
+
+  @Test
+  void testTryMemoizeWithRefresh_zeroDuration_doesNotMemoize() {
+    Supplier<Integer> supplier = tryMemoizeWithRefresh(Duration.ZERO, loads::incrementAndGet);
+    assertThat(supplier.get()).isEqualTo(1);
+    assertThat(supplier.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testTryMemoizeWithRefresh_failedLoad_throwsOriginalException() {
+    Supplier<Integer> supplier =
+        tryMemoizeWithRefresh(
+            Duration.standardDays(1),
+            () -> {
+              if (loads.incrementAndGet() == 1) {
+                throw new IllegalStateException("Database unavailable");
+              }
+              return loads.get();
+            });
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, supplier::get);
+    assertThat(thrown).hasMessageThat().isEqualTo("Database unavailable");
+    assertThat(supplier.get()).isEqualTo(2);
+    assertThat(supplier.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testTryMemoizeWithRefresh_staleValue_servedWhileAnotherCallerReloads() throws Exception {
+    FakeTicker ticker = new FakeTicker();
+    CountDownLatch reloadStarted = new CountDownLatch(1);
+    CountDownLatch finishReload = new CountDownLatch(1);
+    Supplier<Integer> supplier =
+        tryMemoizeWithRefresh(
+            Duration.standardMinutes(1),
+            () -> {
+              if (loads.incrementAndGet() == 2) {
+                reloadStarted.countDown();
+                Uninterruptibles.awaitUninterruptibly(finishReload);
+              }
+              return loads.get();
+            },
+            ticker);
+    assertThat(supplier.get()).isEqualTo(1);
+    ticker.advance(61, SECONDS);
+    Thread reloader = new Thread(supplier::get);
+    reloader.start();
+    reloadStarted.await();
+    // The value is stale and being reloaded, but other callers don't wait for the reload.
+    assertThat(supplier.get()).isEqualTo(1);
+    finishReload.countDown();
+    reloader.join();
+    assertThat(supplier.get()).isEqualTo(2);
+    assertThat(loads.get()).isEqualTo(2);
+  }
+
+  @Test
+  void testTryMemoizeWithRefresh_failedReload_keepsPreviousValue() {
+    FakeTicker ticker = new FakeTicker();
+    Supplier<Integer> supplier =
+        tryMemoizeWithRefresh(
+            Duration.standardMinutes(1),
+            () -> {
+              if (loads.incrementAndGet() == 2) {
+                throw new IllegalStateException("Database unavailable");
+              }
+              return loads.get();
+            },
+            ticker);
+    assertThat(supplier.get()).isEqualTo(1);
+    ticker.advance(61, SECONDS);
+    // The reload fails, so the previous value is returned instead of the exception.
+    assertThat(supplier.get()).isEqualTo(1);
+    // The value is still stale, so the next caller tries to reload it again.
+    assertThat(supplier.get()).isEqualTo(3);
+    assertThat(supplier.get()).isEqualTo(3);
+  }
+}
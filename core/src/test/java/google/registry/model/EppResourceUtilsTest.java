@@ -16,6 +16,7 @@ package google.registry.model;
 
 import static com.google.common.truth.Truth.assertThat;
 import static google.registry.model.EppResourceUtils.loadAtPointInTime;
+import static google.registry.model.EppResourceUtils.loadAtPointsInTime;
 import static google.registry.testing.DatabaseHelper.createTld;
 import static google.registry.testing.DatabaseHelper.newHostResource;
 import static google.registry.testing.DatabaseHelper.persistNewRegistrars;
@@ -24,6 +25,9 @@ import static google.registry.testing.DatabaseHelper.persistResourceWithCommitLo
 import static google.registry.util.DateTimeUtils.START_OF_TIME;
 import static org.joda.time.DateTimeZone.UTC;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Result;
 import google.registry.model.host.HostResource;
 import google.registry.model.ofy.Ofy;
 import google.registry.testing.AppEngineExtension;
@@ -176,4 +180,32 @@ class EppResourceUtilsTest {
                 .getTimestamp())
         .isEqualTo(host.getRevisions().firstKey());
   }
+
+  @TestOfyOnly
+  void testLoadAtPointsInTime_mixOfCurrentAndHistoricalTimes() {
+    persistNewRegistrars("OLD", "NEW");
+    clock.advanceOneMilli();
+    DateTime beforeCreation = clock.nowUtc().minusMillis(1);
+    HostResource oldHost = persistResourceWithCommitLog(
+        newHostResource("ns1.cat.tld").asBuilder()
+            .setCreationTimeForTest(clock.nowUtc())
+            .setPersistedCurrentSponsorClientId("OLD")
+            .build());
+    // Advance a day so that the next created revision entry doesn't overwrite the existing one.
+    clock.advanceBy(Duration.standardDays(1));
+    HostResource currentHost = persistResource(oldHost.asBuilder()
+        .setPersistedCurrentSponsorClientId("NEW")
+        .build());
+    DateTime justBeforeUpdate = clock.nowUtc().minusMillis(1);
+    DateTime twoBeforeUpdate = clock.nowUtc().minusMillis(2);
+    ImmutableMap<DateTime, Result<HostResource>> results =
+        loadAtPointsInTime(
+            currentHost,
+            ImmutableSet.of(beforeCreation, twoBeforeUpdate, justBeforeUpdate, clock.nowUtc()));
+    assertThat(results.get(beforeCreation).now()).isNull();
+    // Both of these resolve to the same revision.
+    assertThat(results.get(twoBeforeUpdate).now()).isEqualTo(oldHost);
+    assertThat(results.get(justBeforeUpdate).now()).isEqualTo(oldHost);
+    assertThat(results.get(clock.nowUtc()).now()).isEqualTo(currentHost);
+  }
 }
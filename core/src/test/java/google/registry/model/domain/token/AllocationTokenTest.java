@@ -40,15 +40,22 @@ import google.registry.model.domain.token.AllocationToken.TokenStatus;
 import google.registry.model.domain.token.AllocationToken.TokenType;
 import google.registry.model.reporting.HistoryEntry;
 import google.registry.testing.DualDatabaseTest;
+import google.registry.testing.TestCacheExtension;
 import google.registry.testing.TestOfyAndSql;
 import google.registry.testing.TestOfyOnly;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.extension.RegisterExtension;
 
 /** Unit tests for {@link AllocationToken}. */
 @DualDatabaseTest
 public class AllocationTokenTest extends EntityTestCase {
 
+  @RegisterExtension
+  public final TestCacheExtension testCacheExtension =
+      new TestCacheExtension.Builder().withAllocationTokenCache(Duration.standardDays(1)).build();
+
   public AllocationTokenTest() {
     super(JpaEntityCoverageCheck.ENABLED);
   }
@@ -58,6 +65,53 @@ public class AllocationTokenTest extends EntityTestCase {
     createTld("foo");
   }
 
+  @TestOfyAndSql
+  void testLoadCached_unlimitedUseToken_ignoresChange() {
+    AllocationToken originalToken =
+        persistResource(
+            new AllocationToken.Builder()
+                .setToken("abc123Unlimited")
+                .setTokenType(UNLIMITED_USE)
+                .setAllowedTlds(ImmutableSet.of("foo"))
+                .build());
+    assertThat(transactIfJpaTm(() -> AllocationToken.loadCached("abc123Unlimited")))
+        .hasValue(originalToken);
+    AllocationToken modifiedToken =
+        persistResource(originalToken.asBuilder().setAllowedTlds(ImmutableSet.of("bar")).build());
+    assertThat(transactIfJpaTm(() -> AllocationToken.loadCached("abc123Unlimited")))
+        .hasValue(originalToken);
+    assertThat(transactIfJpaTm(() -> tm().loadByEntity(originalToken))).isEqualTo(modifiedToken);
+  }
+
+  @TestOfyAndSql
+  void testLoadCached_singleUseToken_isNotCached() {
+    AllocationToken originalToken =
+        persistResource(
+            new AllocationToken.Builder()
+                .setToken("abc123Single")
+                .setTokenType(SINGLE_USE)
+                .build());
+    assertThat(transactIfJpaTm(() -> AllocationToken.loadCached("abc123Single")))
+        .hasValue(originalToken);
+    AllocationToken modifiedToken =
+        persistResource(originalToken.asBuilder().setDiscountFraction(0.5).build());
+    assertThat(transactIfJpaTm(() -> AllocationToken.loadCached("abc123Single")))
+        .hasValue(modifiedToken);
+  }
+
+  @TestOfyAndSql
+  void testLoadCached_missingToken_isNotCached() {
+    assertThat(transactIfJpaTm(() -> AllocationToken.loadCached("abc123Unlimited"))).isEmpty();
+    AllocationToken token =
+        persistResource(
+            new AllocationToken.Builder()
+                .setToken("abc123Unlimited")
+                .setTokenType(UNLIMITED_USE)
+                .build());
+    assertThat(transactIfJpaTm(() -> AllocationToken.loadCached("abc123Unlimited")))
+        .hasValue(token);
+  }
+
   @TestOfyAndSql
   void testPersistence() {
     AllocationToken unlimitedUseToken =
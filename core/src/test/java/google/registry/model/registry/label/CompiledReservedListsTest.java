@@ -0,0 +1,106 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry.label;
+
+import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.registry.label.ReservationType.ALLOWED_IN_SUNRISE;
+import static google.registry.model.registry.label.ReservationType.FULLY_BLOCKED;
+import static google.registry.model.registry.label.ReservationType.NAME_COLLISION;
+
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.googlecode.objectify.Key;
+import google.registry.model.registry.label.CompiledReservedLists.Reservations;
+import google.registry.model.registry.label.DomainLabelMetrics.MetricsReservedListMatch;
+import google.registry.testing.AppEngineExtension;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.extension.RegisterExtension;
+
+/** Unit tests for {@link CompiledReservedLists}. */
+class CompiledReservedListsTest {
+
+  @RegisterExtension
+  final AppEngineExtension appEngine =
+      AppEngineExtension.builder().withDatastoreAndCloudSql().build();
+
+  private ReservedList list1;
+  private ReservedList list2;
+  private ImmutableSet<Key<ReservedList>> listKeys;
+  private CompiledReservedLists compiledLists;
+
+  @BeforeEach
+  void beforeEach() {
+    list1 = createList("reserved1", "lol,FULLY_BLOCKED", "cat,ALLOWED_IN_SUNRISE");
+    list2 = createList("reserved2", "lol,NAME_COLLISION", "cat,ALLOWED_IN_SUNRISE");
+    listKeys = ImmutableSet.of(Key.create(list1), Key.create(list2));
+    compiledLists = CompiledReservedLists.compile(listKeys, ImmutableList.of(list1, list2));
+  }
+
+  private static ReservedList createList(String name, String... lines) {
+    return new ReservedList.Builder()
+        .setName(name)
+        .setReservedListMapFromLines(ImmutableList.copyOf(lines))
+        .build();
+  }
+
+  @Test
+  void testGet_mergesReservationsFromAllLists() {
+    Reservations reservations = compiledLists.get("lol");
+    assertThat(reservations.reservationTypes()).containsExactly(FULLY_BLOCKED, NAME_COLLISION);
+    assertThat(reservations.metricMatches())
+        .containsExactly(
+            MetricsReservedListMatch.create("reserved1", FULLY_BLOCKED),
+            MetricsReservedListMatch.create("reserved2", NAME_COLLISION));
+  }
+
+  @Test
+  void testGet_deduplicatesReservationTypes() {
+    Reservations reservations = compiledLists.get("cat");
+    assertThat(reservations.reservationTypes()).containsExactly(ALLOWED_IN_SUNRISE);
+    assertThat(reservations.metricMatches()).hasSize(2);
+  }
+
+  @Test
+  void testGet_unreservedLabel_returnsEmptyReservations() {
+    Reservations reservations = compiledLists.get("doodle");
+    assertThat(reservations.reservationTypes()).isEmpty();
+    assertThat(reservations.metricMatches()).isEmpty();
+  }
+
+  @Test
+  void testIsCompiledFrom_sameRevisions() {
+    ImmutableMap<Key<ReservedList>, ReservedList> loadedLists =
+        ImmutableMap.of(Key.create(list1), list1, Key.create(list2), list2);
+    assertThat(compiledLists.isCompiledFrom(listKeys, loadedLists::get)).isTrue();
+  }
+
+  @Test
+  void testIsCompiledFrom_reloadedList() {
+    ReservedList reloadedList2 = list2.asBuilder().build();
+    ImmutableMap<Key<ReservedList>, ReservedList> loadedLists =
+        ImmutableMap.of(Key.create(list1), list1, Key.create(list2), reloadedList2);
+    assertThat(compiledLists.isCompiledFrom(listKeys, loadedLists::get)).isFalse();
+  }
+
+  @Test
+  void testIsCompiledFrom_differentLists() {
+    ImmutableMap<Key<ReservedList>, ReservedList> loadedLists =
+        ImmutableMap.of(Key.create(list1), list1);
+    assertThat(compiledLists.isCompiledFrom(ImmutableSet.of(Key.create(list1)), loadedLists::get))
+        .isFalse();
+  }
+}
@@ -20,7 +20,6 @@ import static com.google.common.truth.Truth8.assertThat;
 import static com.google.monitoring.metrics.contrib.DistributionMetricSubject.assertThat;
 import static com.google.monitoring.metrics.contrib.LongMetricSubject.assertThat;
 import static google.registry.model.ofy.ObjectifyService.ofy;
-import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.BLOOM_FILTER_NEGATIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.CACHED_NEGATIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.CACHED_POSITIVE;
 import static google.registry.model.registry.label.DomainLabelMetrics.PremiumListCheckOutcome.UNCACHED_NEGATIVE;
@@ -64,7 +63,7 @@ public class PremiumListDatastoreDaoTest {
   public final TestCacheExtension testCacheExtension =
       new TestCacheExtension.Builder()
           .withPremiumListsCache(standardDays(1))
-          .withPremiumListEntriesCache(standardDays(1))
+          .withPremiumPriceTablesCache(standardDays(1))
           .build();
 
   private PremiumList pl;
@@ -128,24 +127,25 @@ public class PremiumListDatastoreDaoTest {
   }
 
   @Test
-  void testGetPremiumPrice_comesFromBloomFilter() throws Exception {
+  void testGetPremiumPrice_comesFromPriceTable() {
+    assertThat(PremiumListDatastoreDao.getPremiumPrice("tld", "lol", "tld"))
+        .hasValue(Money.parse("USD 999"));
     PremiumList pl = PremiumListDatastoreDao.getLatestRevision("tld").get();
-    PremiumListEntry entry =
-        persistResource(
-            new PremiumListEntry.Builder()
-                .setParent(pl.getRevisionKey())
-                .setLabel("missingno")
-                .setPrice(Money.parse("USD 1000"))
-                .build());
-    // "missingno" shouldn't be in the Bloom filter, thus it should return not premium without
+    persistResource(
+        new PremiumListEntry.Builder()
+            .setParent(pl.getRevisionKey())
+            .setLabel("missingno")
+            .setPrice(Money.parse("USD 1000"))
+            .build());
+    // "missingno" was added behind the price table's back, so it should return not premium without
     // attempting to load the entity that is actually present.
     assertThat(PremiumListDatastoreDao.getPremiumPrice("tld", "missingno", "tld")).isEmpty();
-    // However, if we manually query the cache to force an entity load, it should be found.
-    assertThat(
-            PremiumListDatastoreDao.premiumListEntriesCache.get(
-                Key.create(pl.getRevisionKey(), PremiumListEntry.class, "missingno")))
-        .hasValue(entry);
-    assertMetricOutcomeCount(1, BLOOM_FILTER_NEGATIVE);
+    assertThat(premiumListChecks)
+        .hasValueForLabels(1, "tld", "tld", UNCACHED_POSITIVE.toString())
+        .and()
+        .hasValueForLabels(1, "tld", "tld", CACHED_NEGATIVE.toString())
+        .and()
+        .hasNoOtherValues();
   }
 
   @Test
@@ -169,8 +169,8 @@ public class PremiumListDatastoreDaoTest {
   }
 
   @Test
-  void testGetPremiumPrice_bloomFilterFalsePositive() {
-    // Remove one of the premium list entries from behind the Bloom filter's back.
+  void testGetPremiumPrice_entryRemovedBeforeLoad() {
+    // Remove one of the premium list entries before the price table is loaded.
     tm().transactNew(
             () ->
                 ofy()
@@ -218,16 +218,21 @@ public class PremiumListDatastoreDaoTest {
         .hasValue(Money.parse("USD 90"));
     assertThat(PremiumListDatastoreDao.getPremiumPrice("tld", "dolt", "tld")).isEmpty();
     // TODO(b/79888775): Assert that the old premium list is enqueued for later deletion.
+    // Each revision's price table is loaded by the first lookup in it.
     assertThat(premiumListChecks)
-        .hasValueForLabels(4, "tld", "tld", UNCACHED_POSITIVE.toString())
+        .hasValueForLabels(2, "tld", "tld", UNCACHED_POSITIVE.toString())
         .and()
-        .hasValueForLabels(1, "tld", "tld", BLOOM_FILTER_NEGATIVE.toString())
+        .hasValueForLabels(2, "tld", "tld", CACHED_POSITIVE.toString())
+        .and()
+        .hasValueForLabels(1, "tld", "tld", CACHED_NEGATIVE.toString())
         .and()
         .hasNoOtherValues();
     assertThat(premiumListProcessingTime)
         .hasAnyValueForLabels("tld", "tld", UNCACHED_POSITIVE.toString())
         .and()
-        .hasAnyValueForLabels("tld", "tld", BLOOM_FILTER_NEGATIVE.toString())
+        .hasAnyValueForLabels("tld", "tld", CACHED_POSITIVE.toString())
+        .and()
+        .hasAnyValueForLabels("tld", "tld", CACHED_NEGATIVE.toString())
         .and()
         .hasNoOtherValues();
   }
@@ -236,7 +241,12 @@ public class PremiumListDatastoreDaoTest {
   void testGetPremiumPrice_allLabelsAreNonPremium_whenNotInList() {
     assertThat(PremiumListDatastoreDao.getPremiumPrice("tld", "blah", "tld")).isEmpty();
     assertThat(PremiumListDatastoreDao.getPremiumPrice("tld", "slinge", "tld")).isEmpty();
-    assertMetricOutcomeCount(2, BLOOM_FILTER_NEGATIVE);
+    assertThat(premiumListChecks)
+        .hasValueForLabels(1, "tld", "tld", UNCACHED_NEGATIVE.toString())
+        .and()
+        .hasValueForLabels(1, "tld", "tld", CACHED_NEGATIVE.toString())
+        .and()
+        .hasNoOtherValues();
   }
 
   @Test
@@ -259,13 +269,13 @@ public class PremiumListDatastoreDaoTest {
     assertThat(premiumListChecks)
         .hasValueForLabels(1, "tld", "tld2", UNCACHED_POSITIVE.toString())
         .and()
-        .hasValueForLabels(1, "tld", "tld2", BLOOM_FILTER_NEGATIVE.toString())
+        .hasValueForLabels(1, "tld", "tld2", CACHED_NEGATIVE.toString())
         .and()
         .hasNoOtherValues();
     assertThat(premiumListProcessingTime)
         .hasAnyValueForLabels("tld", "tld2", UNCACHED_POSITIVE.toString())
         .and()
-        .hasAnyValueForLabels("tld", "tld2", BLOOM_FILTER_NEGATIVE.toString())
+        .hasAnyValueForLabels("tld", "tld2", CACHED_NEGATIVE.toString())
         .and()
         .hasNoOtherValues();
   }
@@ -315,6 +325,19 @@ public class PremiumListDatastoreDaoTest {
     assertThat(PremiumListDatastoreDao.premiumListCache.getIfPresent("tld")).isNull();
   }
 
+  @Test
+  void testGetPremiumPrice_listLargerThanQuarterOfCacheBound_staysCached() {
+    // Guava splits the bound across four segments by default, which would evict this table as
+    // soon as it was loaded.
+    PremiumListDatastoreDao.priceTablesCache =
+        PremiumListDatastoreDao.createPriceTablesCache(standardDays(1), 4000);
+    persistHumongousPremiumList("ginormous", 2500);
+    assertThat(PremiumListDatastoreDao.getPremiumPrice("ginormous", "1234", "tld")).isPresent();
+    Key<PremiumListRevision> revisionKey =
+        PremiumListDatastoreDao.getLatestRevision("ginormous").get().getRevisionKey();
+    assertThat(PremiumListDatastoreDao.priceTablesCache.getIfPresent(revisionKey)).isNotNull();
+  }
+
   /** Persists a premium list with a specified number of nonsense entries. */
   private PremiumList persistHumongousPremiumList(String name, int size) {
     String[] entries = new String[size];
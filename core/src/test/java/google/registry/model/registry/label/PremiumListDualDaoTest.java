@@ -34,6 +34,7 @@ import google.registry.testing.TestCacheExtension;
 import google.registry.testing.TestOfyAndSql;
 import google.registry.testing.TestOfyOnly;
 import google.registry.testing.TestSqlOnly;
+import org.joda.money.Money;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.extension.RegisterExtension;
 
@@ -50,7 +51,7 @@ public class PremiumListDualDaoTest {
   public final TestCacheExtension testCacheExtension =
       new TestCacheExtension.Builder()
           .withPremiumListsCache(standardDays(1))
-          .withPremiumListEntriesCache(standardDays(1))
+          .withPremiumPriceTablesCache(standardDays(1))
           .build();
 
   @BeforeEach
@@ -111,6 +112,27 @@ public class PremiumListDualDaoTest {
                 + "(Optional[USD 20.00]) and secondary Datastore db (Optional[USD 50.00]).");
   }
 
+  @TestOfyOnly
+  void testGetPremiumPriceFromPrimary_doesNotCompareWithSql() {
+    PremiumListSqlDao.save("tld", ImmutableList.of("brass,USD 50"));
+    Truth8.assertThat(PremiumListDualDao.getPremiumPriceFromPrimary("brass", Registry.get("tld")))
+        .hasValue(Money.parse("USD 20"));
+  }
+
+  @TestSqlOnly
+  void testGetPremiumPriceFromPrimary_doesNotCompareWithOfy() {
+    PremiumListDatastoreDao.save("tld", ImmutableList.of("brass,USD 50"));
+    Truth8.assertThat(PremiumListDualDao.getPremiumPriceFromPrimary("brass", Registry.get("tld")))
+        .hasValue(Money.parse("USD 20"));
+  }
+
+  @TestOfyAndSql
+  void testGetPremiumPriceFromPrimary_returnsNoneWhenNoPremiumListConfigured() {
+    persistResource(newRegistry("foobar", "FOOBAR").asBuilder().setPremiumList(null).build());
+    Truth8.assertThat(PremiumListDualDao.getPremiumPriceFromPrimary("rich", Registry.get("foobar")))
+        .isEmpty();
+  }
+
   @TestOfyAndSql
   void testGetPremiumPrice_returnsNoPriceWhenNoPremiumListConfigured() {
     createTld("ghost");
@@ -0,0 +1,103 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.registry.label;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static org.joda.money.CurrencyUnit.USD;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import org.joda.money.Money;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PremiumPriceTable}. */
+class PremiumPriceTableTest {
+
+  private final PremiumPriceTable table =
+      new PremiumPriceTable.Builder()
+          .put("rich", Money.parse("USD 1999"))
+          .put("lol", Money.parse("USD 999"))
+          .put("johnny-be-goode", Money.parse("USD 20.50"))
+          .put("icann", Money.parse("JPY 100"))
+          .put("xn--q9jyb4c", Money.parse("EUR 5.25"))
+          .put("a", Money.parse("USD 1"))
+          .build();
+
+  @Test
+  void testGetPrice_premiumLabels() {
+    assertThat(table.size()).isEqualTo(6);
+    assertThat(table.getPrice("rich")).hasValue(Money.parse("USD 1999"));
+    assertThat(table.getPrice("lol")).hasValue(Money.parse("USD 999"));
+    assertThat(table.getPrice("johnny-be-goode")).hasValue(Money.parse("USD 20.50"));
+    assertThat(table.getPrice("icann")).hasValue(Money.parse("JPY 100"));
+    assertThat(table.getPrice("xn--q9jyb4c")).hasValue(Money.parse("EUR 5.25"));
+    assertThat(table.getPrice("a")).hasValue(Money.parse("USD 1"));
+  }
+
+  @Test
+  void testGetPrice_nonPremiumLabels() {
+    assertThat(table.getPrice("")).isEmpty();
+    assertThat(table.getPrice("lo")).isEmpty();
+    assertThat(table.getPrice("lol ")).isEmpty();
+    assertThat(table.getPrice("lolz")).isEmpty();
+    assertThat(table.getPrice("aa")).isEmpty();
+    assertThat(table.getPrice("zzz")).isEmpty();
+  }
+
+  @Test
+  void testGetPrice_nonAsciiLabels() {
+    PremiumPriceTable unicodeTable =
+        new PremiumPriceTable.Builder()
+            .put("みんな", Money.parse("USD 100"))
+            .put("zebra", Money.parse("USD 200"))
+            .put("é", Money.parse("USD 300"))
+            .build();
+    assertThat(unicodeTable.getPrice("みんな")).hasValue(Money.parse("USD 100"));
+    assertThat(unicodeTable.getPrice("zebra")).hasValue(Money.parse("USD 200"));
+    assertThat(unicodeTable.getPrice("é")).hasValue(Money.parse("USD 300"));
+    assertThat(unicodeTable.getPrice("e")).isEmpty();
+  }
+
+  @Test
+  void testGetPrice_emptyTable() {
+    PremiumPriceTable emptyTable = new PremiumPriceTable.Builder().build();
+    assertThat(emptyTable.size()).isEqualTo(0);
+    assertThat(emptyTable.getPrice("lol")).isEmpty();
+  }
+
+  @Test
+  void testGetPrice_manyLabels() {
+    PremiumPriceTable.Builder builder = new PremiumPriceTable.Builder();
+    for (int i = 0; i < 2500; i++) {
+      builder.put(Integer.toString(i), Money.ofMinor(USD, i));
+    }
+    PremiumPriceTable largeTable = builder.build();
+    assertThat(largeTable.size()).isEqualTo(2500);
+    for (int i = 0; i < 2500; i++) {
+      assertThat(largeTable.getPrice(Integer.toString(i))).hasValue(Money.ofMinor(USD, i));
+    }
+    assertThat(largeTable.getPrice("2500")).isEmpty();
+  }
+
+  @Test
+  void testFailure_duplicateLabel() {
+    PremiumPriceTable.Builder builder =
+        new PremiumPriceTable.Builder().put("lol", Money.parse("USD 999"));
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class, () -> builder.put("lol", Money.parse("USD 1")));
+    assertThat(thrown).hasMessageThat().contains("Duplicate premium label lol");
+  }
+}
@@ -236,4 +236,81 @@ public class SignedMarkRevocationListDaoTest extends EntityTestCase {
             "SignedMarkRevocationList in Datastore is empty while it is not empty in the"
                 + " primary database.");
   }
+
+  @TestOfyAndSql
+  void testSaveIfChanged_datastorePrimary_newList_isSaved() {
+    SignedMarkRevocationList list =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    assertThat(SignedMarkRevocationListDao.saveIfChanged(list)).isTrue();
+    SignedMarkRevocationList fromDb = SignedMarkRevocationListDao.load();
+    assertAboutImmutableObjects().that(fromDb).isEqualExceptFields(list, "revisionId");
+    assertThat(countCloudSqlRevisions()).isEqualTo(1);
+  }
+
+  @TestOfyAndSql
+  void testSaveIfChanged_datastorePrimary_sameList_isNotResaved() {
+    SignedMarkRevocationListDao.save(
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1))));
+    SignedMarkRevocationList sameList =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    assertThat(SignedMarkRevocationListDao.saveIfChanged(sameList)).isFalse();
+    assertThat(countCloudSqlRevisions()).isEqualTo(1);
+  }
+
+  @TestOfyAndSql
+  void testSaveIfChanged_datastorePrimary_missingFromCloudSql_isSavedToCloudSql() {
+    SignedMarkRevocationList list =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    SignedMarkRevocationListDao.save(list);
+    jpaTm().transact(() -> jpaTm().delete(list));
+    SignedMarkRevocationList sameList =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    assertThat(SignedMarkRevocationListDao.saveIfChanged(sameList)).isFalse();
+    assertThat(countCloudSqlRevisions()).isEqualTo(1);
+    SignedMarkRevocationList fromDb = SignedMarkRevocationListDao.load();
+    assertAboutImmutableObjects().that(fromDb).isEqualExceptFields(list, "revisionId");
+  }
+
+  @TestOfyAndSql
+  void testSaveIfChanged_cloudSqlPrimary_noList_isSaved() {
+    fakeClock.advanceBy(Duration.standardDays(5));
+    SignedMarkRevocationList list =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    assertThat(SignedMarkRevocationListDao.saveIfChanged(list)).isTrue();
+    SignedMarkRevocationList fromDb = SignedMarkRevocationListDao.load();
+    assertAboutImmutableObjects().that(fromDb).isEqualExceptFields(list, "revisionId");
+  }
+
+  @TestOfyAndSql
+  void testSaveIfChanged_cloudSqlPrimary_missingFromDatastore_isSavedToDatastore() {
+    fakeClock.advanceBy(Duration.standardDays(5));
+    SignedMarkRevocationList list =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    jpaTm().transact(() -> jpaTm().put(list));
+    SignedMarkRevocationList sameList =
+        SignedMarkRevocationList.create(
+            fakeClock.nowUtc(), ImmutableMap.of("mark", fakeClock.nowUtc().minusHours(1)));
+    assertThat(SignedMarkRevocationListDao.saveIfChanged(sameList)).isFalse();
+    assertThat(countCloudSqlRevisions()).isEqualTo(1);
+    // Loading compares against Datastore, and would fail if the list hadn't been written there.
+    SignedMarkRevocationList fromDb = SignedMarkRevocationListDao.load();
+    assertAboutImmutableObjects().that(fromDb).isEqualExceptFields(list, "revisionId");
+  }
+
+  private static long countCloudSqlRevisions() {
+    return jpaTm()
+        .transact(
+            () ->
+                jpaTm()
+                    .getEntityManager()
+                    .createQuery("SELECT COUNT(*) FROM SignedMarkRevocationList", Long.class)
+                    .getSingleResult());
+  }
 }
@@ -15,7 +15,6 @@
 package google.registry.model.smd;
 
 import static com.google.common.truth.Truth.assertThat;
-import static google.registry.model.ImmutableObjectSubject.assertAboutImmutableObjects;
 import static google.registry.model.ofy.ObjectifyService.ofy;
 import static google.registry.model.smd.SignedMarkRevocationList.SHARD_SIZE;
 import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
@@ -61,8 +60,9 @@ public class SignedMarkRevocationListTest {
   @Test
   void testEmpty() {
     // When Datastore is empty, it should give us an empty thing.
-    assertThat(SignedMarkRevocationList.get())
-        .isEqualTo(SignedMarkRevocationList.create(START_OF_TIME, ImmutableMap.of()));
+    SignedMarkRevocationList smdrl = SignedMarkRevocationList.get();
+    assertThat(smdrl.getCreationTime()).isEqualTo(START_OF_TIME);
+    assertThat(smdrl.getRevokes()).isEmpty();
   }
 
   @Test
@@ -76,9 +76,9 @@ public class SignedMarkRevocationListTest {
     // Save it with sharding, and make sure that reloading it works.
     SignedMarkRevocationList unsharded =
         SignedMarkRevocationList.create(clock.nowUtc(), revokes.build()).save();
-    assertAboutImmutableObjects()
-        .that(SignedMarkRevocationList.get())
-        .isEqualExceptFields(unsharded, "revisionId");
+    assertThat(SignedMarkRevocationList.get().getCreationTime())
+        .isEqualTo(unsharded.getCreationTime());
+    assertThat(SignedMarkRevocationList.get().getRevokes()).isEqualTo(unsharded.getRevokes());
     assertThat(ofy().load().type(SignedMarkRevocationList.class).count()).isEqualTo(2);
   }
 
@@ -94,9 +94,9 @@ public class SignedMarkRevocationListTest {
     SignedMarkRevocationList unsharded = SignedMarkRevocationList
         .create(clock.nowUtc(), revokes.build())
         .save();
-    assertAboutImmutableObjects()
-        .that(SignedMarkRevocationList.get())
-        .isEqualExceptFields(unsharded, "revisionId");
+    assertThat(SignedMarkRevocationList.get().getCreationTime())
+        .isEqualTo(unsharded.getCreationTime());
+    assertThat(SignedMarkRevocationList.get().getRevokes()).isEqualTo(unsharded.getRevokes());
     assertThat(ofy().load().type(SignedMarkRevocationList.class).count()).isEqualTo(4);
   }
 
@@ -111,6 +111,16 @@ public class SignedMarkRevocationListTest {
     return res;
   }
 
+  @Test
+  void testSaveOfLoadedListFails() {
+    createSaveGetHelper(1);
+    IllegalStateException thrown =
+        assertThrows(IllegalStateException.class, () -> SignedMarkRevocationList.get().save());
+    assertThat(thrown)
+        .hasMessageThat()
+        .contains("Cannot save a revocation list that was loaded by get()");
+  }
+
   @Test
   void test_isSmdRevoked_null() {
     assertThrows(
@@ -167,6 +177,21 @@ public class SignedMarkRevocationListTest {
     assertThat(smdrl.isSmdRevoked(Integer.toString(rows), clock.nowUtc())).isFalse();
   }
 
+  @Test
+  void test_isSmdRevoked_packedIds() {
+    SignedMarkRevocationList.create(
+            clock.nowUtc(),
+            ImmutableMap.of(
+                "0000001681375789102250-65535", clock.nowUtc(),
+                "0000001691375789102379-65535", clock.nowUtc().plusDays(1)))
+        .save();
+    SignedMarkRevocationList smdrl = SignedMarkRevocationList.get();
+    assertThat(smdrl.isSmdRevoked("0000001681375789102250-65535", clock.nowUtc())).isTrue();
+    assertThat(smdrl.isSmdRevoked("0000001691375789102379-65535", clock.nowUtc())).isFalse();
+    assertThat(smdrl.isSmdRevoked("1681375789102250-65535", clock.nowUtc())).isFalse();
+    assertThat(smdrl.isSmdRevoked("0000001681375789102250-65536", clock.nowUtc())).isFalse();
+  }
+
   @Test
   void test_isSmdRevoked_future() {
     final int rows = SHARD_SIZE;
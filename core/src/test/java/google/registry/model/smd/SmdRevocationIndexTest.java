@@ -0,0 +1,116 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.smd;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link SmdRevocationIndex}. */
+class SmdRevocationIndexTest {
+
+  private static final DateTime TIME_1 = DateTime.parse("2013-08-09T12:00:00.000Z");
+  private static final DateTime TIME_2 = DateTime.parse("2013-08-10T00:00:00.000Z");
+
+  private static final ImmutableMap<String, DateTime> REVOKES =
+      new ImmutableMap.Builder<String, DateTime>()
+          .put("0000001681375789102250-65535", TIME_1)
+          .put("0000001691375789102379-65535", TIME_2)
+          .put("1681375789102250-65535", TIME_2)
+          .put("0-0", TIME_1)
+          .put("999999999999999999-1", TIME_1)
+          .put("1234567890123456789012-1", TIME_2)
+          .put("mark", TIME_1)
+          .put("31337", TIME_2)
+          .build();
+
+  @Test
+  void testGetRevocationTime_acrossShards() {
+    SmdRevocationIndex index =
+        new SmdRevocationIndex.Builder()
+            .putAll(ImmutableMap.of("0000001681375789102250-65535", TIME_1, "mark", TIME_1))
+            .putAll(
+                ImmutableMap.of(
+                    "0000001691375789102379-65535", TIME_2,
+                    "1681375789102250-65535", TIME_2,
+                    "1234567890123456789012-1", TIME_2,
+                    "31337", TIME_2))
+            .build();
+    assertThat(index.size()).isEqualTo(6);
+    assertThat(index.getRevocationTime("0000001681375789102250-65535")).hasValue(TIME_1);
+    assertThat(index.getRevocationTime("0000001691375789102379-65535")).hasValue(TIME_2);
+    assertThat(index.getRevocationTime("1681375789102250-65535")).hasValue(TIME_2);
+    assertThat(index.getRevocationTime("1234567890123456789012-1")).hasValue(TIME_2);
+    assertThat(index.getRevocationTime("mark")).hasValue(TIME_1);
+    assertThat(index.getRevocationTime("31337")).hasValue(TIME_2);
+  }
+
+  @Test
+  void testGetRevocationTime_notRevoked() {
+    SmdRevocationIndex index = new SmdRevocationIndex.Builder().putAll(REVOKES).build();
+    assertThat(index.getRevocationTime("")).isEmpty();
+    assertThat(index.getRevocationTime("-")).isEmpty();
+    assertThat(index.getRevocationTime("0-")).isEmpty();
+    assertThat(index.getRevocationTime("00-0")).isEmpty();
+    assertThat(index.getRevocationTime("001681375789102250-65535")).isEmpty();
+    assertThat(index.getRevocationTime("0000001681375789102250-065535")).isEmpty();
+    assertThat(index.getRevocationTime("0000001681375789102250-65536")).isEmpty();
+    assertThat(index.getRevocationTime("0000001681375789102250-65535-1")).isEmpty();
+    assertThat(index.getRevocationTime("1234567890123456789013-1")).isEmpty();
+    assertThat(index.getRevocationTime("rofl")).isEmpty();
+  }
+
+  @Test
+  void testToMap_returnsAllRevocations() {
+    SmdRevocationIndex index = new SmdRevocationIndex.Builder().putAll(REVOKES).build();
+    assertThat(index.size()).isEqualTo(REVOKES.size());
+    assertThat(index.toMap()).isEqualTo(REVOKES);
+  }
+
+  @Test
+  void testEmptyIndex() {
+    SmdRevocationIndex index = new SmdRevocationIndex.Builder().build();
+    assertThat(index.size()).isEqualTo(0);
+    assertThat(index.getRevocationTime("0000001681375789102250-65535")).isEmpty();
+    assertThat(index.toMap()).isEmpty();
+  }
+
+  @Test
+  void testFailure_duplicatePackedId() {
+    SmdRevocationIndex.Builder builder =
+        new SmdRevocationIndex.Builder()
+            .putAll(ImmutableMap.of("0000001681375789102250-65535", TIME_1))
+            .putAll(ImmutableMap.of("0000001681375789102250-65535", TIME_2));
+    IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, builder::build);
+    assertThat(thrown)
+        .hasMessageThat()
+        .contains("Duplicate revoked SMD ID 0000001681375789102250-65535");
+  }
+
+  @Test
+  void testFailure_duplicateUnpackedId() {
+    SmdRevocationIndex.Builder builder =
+        new SmdRevocationIndex.Builder().putAll(ImmutableMap.of("mark", TIME_1));
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> builder.putAll(ImmutableMap.of("mark", TIME_2)));
+    assertThat(thrown).hasMessageThat().contains("Duplicate revoked SMD ID mark");
+  }
+}
@@ -0,0 +1,77 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.model.tmch;
+
+import static com.google.common.truth.Truth.assertThat;
+import static com.google.common.truth.Truth8.assertThat;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link ClaimsIndex}. */
+class ClaimsIndexTest {
+
+  private static final ImmutableMap<String, String> CLAIMS =
+      ImmutableMap.of(
+          "lolcat", "2013112500/7/4/8/dIHW0DiuybvhdP8kIz",
+          "xn----7sbejwbn3axu3d", "2013112500/7/4/8/zLOCYPdxSU9BPSUzIx",
+          "anchor", "2013112500/1/2/3/aAbBcCdDeEfFgGhHiI",
+          "a", "nodirectory");
+
+  @Test
+  void testGetClaimKey_acrossShards() {
+    ClaimsIndex index =
+        new ClaimsIndex.Builder()
+            .putAll(ImmutableMap.of("lolcat", CLAIMS.get("lolcat"), "a", CLAIMS.get("a")))
+            .putAll(
+                ImmutableMap.of(
+                    "xn----7sbejwbn3axu3d",
+                    CLAIMS.get("xn----7sbejwbn3axu3d"),
+                    "anchor",
+                    CLAIMS.get("anchor")))
+            .build();
+    assertThat(index.size()).isEqualTo(4);
+    CLAIMS.forEach((label, claimKey) -> assertThat(index.getClaimKey(label)).hasValue(claimKey));
+    assertThat(index.getClaimKey("")).isEmpty();
+    assertThat(index.getClaimKey("lol")).isEmpty();
+    assertThat(index.getClaimKey("lolcats")).isEmpty();
+    assertThat(index.getClaimKey("zzz")).isEmpty();
+  }
+
+  @Test
+  void testToMap_returnsAllClaims() {
+    ClaimsIndex index = new ClaimsIndex.Builder().putAll(CLAIMS).build();
+    assertThat(index.toMap()).isEqualTo(CLAIMS);
+  }
+
+  @Test
+  void testEmptyIndex() {
+    ClaimsIndex index = new ClaimsIndex.Builder().build();
+    assertThat(index.size()).isEqualTo(0);
+    assertThat(index.getClaimKey("lolcat")).isEmpty();
+    assertThat(index.toMap()).isEmpty();
+  }
+
+  @Test
+  void testFailure_duplicateLabel() {
+    ClaimsIndex.Builder builder =
+        new ClaimsIndex.Builder()
+            .putAll(ImmutableMap.of("lolcat", "1"))
+            .putAll(ImmutableMap.of("lolcat", "2"));
+    IllegalArgumentException thrown = assertThrows(IllegalArgumentException.class, builder::build);
+    assertThat(thrown).hasMessageThat().contains("Duplicate claims label lolcat");
+  }
+}
@@ -88,6 +88,35 @@ public class ClaimsListDaoTest {
     assertClaimsListEquals(newClaimsList, ClaimsListDao.getLatestRevision().get());
   }
 
+  @Test
+  void trySaveIfMissing_sameListAlreadySaved_doesNotSaveAgain() {
+    ClaimsListShard claimsList =
+        ClaimsListShard.create(fakeClock.nowUtc(), ImmutableMap.of("label1", "key1"));
+    ClaimsListDao.trySave(claimsList);
+    ClaimsListDao.trySaveIfMissing(
+        ClaimsListShard.create(fakeClock.nowUtc(), ImmutableMap.of("label1", "key1")));
+    assertThat(ClaimsListDao.getLatestRevision().get().getRevisionId())
+        .isEqualTo(claimsList.getRevisionId());
+  }
+
+  @Test
+  void trySaveIfMissing_newerList_isSaved() {
+    ClaimsListDao.trySave(
+        ClaimsListShard.create(fakeClock.nowUtc(), ImmutableMap.of("label1", "key1")));
+    ClaimsListShard newClaimsList =
+        ClaimsListShard.create(fakeClock.nowUtc().plusDays(1), ImmutableMap.of("label2", "key2"));
+    ClaimsListDao.trySaveIfMissing(newClaimsList);
+    assertClaimsListEquals(newClaimsList, ClaimsListDao.getLatestRevision().get());
+  }
+
+  @Test
+  void trySaveIfMissing_emptyTable_savesList() {
+    ClaimsListShard claimsList =
+        ClaimsListShard.create(fakeClock.nowUtc(), ImmutableMap.of("label1", "key1"));
+    ClaimsListDao.trySaveIfMissing(claimsList);
+    assertClaimsListEquals(claimsList, ClaimsListDao.getLatestRevision().get());
+  }
+
   private void assertClaimsListEquals(ClaimsListShard left, ClaimsListShard right) {
     assertThat(left.getRevisionId()).isEqualTo(right.getRevisionId());
     assertThat(left.getTmdbGenerationTime()).isEqualTo(right.getTmdbGenerationTime());
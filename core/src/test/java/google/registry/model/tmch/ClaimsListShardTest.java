@@ -62,10 +62,23 @@ public class ClaimsListShardTest {
 
   @Test
   void testGet_safelyLoadsEmptyClaimsList_whenNoShardsExist() {
-    assertThat(ClaimsListShard.get().labelsToKeys).isEmpty();
+    assertThat(ClaimsListShard.get().getLabelsToKeys()).isEmpty();
     assertThat(ClaimsListShard.get().creationTime).isEqualTo(START_OF_TIME);
   }
 
+  @Test
+  void testGetCurrentTmdbGenerationTime_noList() {
+    assertThat(ClaimsListShard.getCurrentTmdbGenerationTime()).isEmpty();
+  }
+
+  @Test
+  void testGetCurrentTmdbGenerationTime_returnsLatestRevision() {
+    DateTime now = DateTime.now(UTC);
+    ClaimsListShard.create(now.minusDays(1), ImmutableMap.of("a", "b")).saveToDatastore(shardSize);
+    ClaimsListShard.create(now, ImmutableMap.of("a", "c")).saveToDatastore(shardSize);
+    assertThat(ClaimsListShard.getCurrentTmdbGenerationTime()).hasValue(now);
+  }
+
   @Test
   void test_savesAndGets_withSharding() {
     // Create a ClaimsList that will need 4 shards to save.
@@ -77,7 +90,7 @@ public class ClaimsListShardTest {
     // Save it with sharding, and make sure that reloading it works.
     ClaimsListShard unsharded = ClaimsListShard.create(now, ImmutableMap.copyOf(labelsToKeys));
     unsharded.saveToDatastore(shardSize);
-    assertThat(ClaimsListShard.get().labelsToKeys).isEqualTo(unsharded.labelsToKeys);
+    assertThat(ClaimsListShard.get().getLabelsToKeys()).isEqualTo(unsharded.labelsToKeys);
     List<ClaimsListShard> shards1 = ofy().load().type(ClaimsListShard.class).list();
     assertThat(shards1).hasSize(4);
     assertThat(ClaimsListShard.get().getClaimKey("1")).hasValue("1");
@@ -92,8 +105,8 @@ public class ClaimsListShardTest {
     unsharded = ClaimsListShard.create(now.plusDays(1), ImmutableMap.copyOf(labelsToKeys));
     unsharded.saveToDatastore(shardSize);
     ofy().clearSessionCache();
-    assertThat(ClaimsListShard.get().labelsToKeys).hasSize(unsharded.labelsToKeys.size());
-    assertThat(ClaimsListShard.get().labelsToKeys).isEqualTo(unsharded.labelsToKeys);
+    assertThat(ClaimsListShard.get().getLabelsToKeys()).hasSize(unsharded.labelsToKeys.size());
+    assertThat(ClaimsListShard.get().getLabelsToKeys()).isEqualTo(unsharded.labelsToKeys);
     List<ClaimsListShard> shards2 = ofy().load().type(ClaimsListShard.class).list();
     assertThat(shards2).hasSize(2);
 
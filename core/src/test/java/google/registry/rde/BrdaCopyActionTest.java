@@ -19,6 +19,7 @@ import static com.google.common.truth.Truth.assertWithMessage;
 import static google.registry.testing.GcsTestingUtils.readGcsFile;
 import static google.registry.testing.SystemInfo.hasCommand;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.zip.Deflater.DEFAULT_COMPRESSION;
 import static org.junit.jupiter.api.Assumptions.assumeTrue;
 
 import com.google.appengine.tools.cloudstorage.GcsFilename;
@@ -99,6 +100,7 @@ public class BrdaCopyActionTest {
     action.tld = "lol";
     action.watermark = DateTime.parse("2010-10-17TZ");
     action.brdaBucket = "tub";
+    action.compressionLevel = DEFAULT_COMPRESSION;
     action.stagingBucket = "keg";
     action.receiverKey = receiverKey;
     action.signingKey = signingKey;
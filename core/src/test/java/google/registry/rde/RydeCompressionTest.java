@@ -16,6 +16,7 @@ package google.registry.rde;
 
 import static com.google.common.truth.Truth.assertThat;
 import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.zip.Deflater.BEST_SPEED;
 
 import com.google.common.io.ByteStreams;
 import java.io.ByteArrayInputStream;
@@ -42,4 +43,20 @@ final class RydeCompressionTest {
       assertThat(ByteStreams.toByteArray(decompressor)).isEqualTo(expected);
     }
   }
+
+  @Test
+  void testCompression_fastestLevel_decompression() throws Exception {
+    byte[] expected = "Testing 1, 2, 3".getBytes(UTF_8);
+
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (OutputStream compressor = RydeCompression.openCompressor(output, BEST_SPEED)) {
+      compressor.write(expected);
+    }
+    byte[] compressed = output.toByteArray();
+
+    ByteArrayInputStream input = new ByteArrayInputStream(compressed);
+    try (InputStream decompressor = RydeCompression.openDecompressor(input)) {
+      assertThat(ByteStreams.toByteArray(decompressor)).isEqualTo(expected);
+    }
+  }
 }
@@ -58,7 +58,7 @@ public class PremiumListSqlDaoTest {
   public final TestCacheExtension testCacheExtension =
       new TestCacheExtension.Builder()
           .withPremiumListsCache(standardDays(1))
-          .withPremiumListEntriesCache(standardDays(1))
+          .withPremiumPriceTablesCache(standardDays(1))
           .build();
 
   private ImmutableMap<String, BigDecimal> testPrices;
@@ -246,6 +246,21 @@ public class PremiumListSqlDaoTest {
     assertThat(PremiumListSqlDao.premiumListCache.getIfPresent("testname")).isNull();
   }
 
+  @Test
+  void testGetPremiumPrice_listLargerThanQuarterOfCacheBound_staysCached() {
+    // Guava splits the bound across four segments by default, which would evict this table as
+    // soon as it was loaded.
+    PremiumListSqlDao.priceTablesCache =
+        PremiumListSqlDao.createPriceTablesCache(standardDays(1), 4000);
+    ImmutableList.Builder<String> entries = new ImmutableList.Builder<>();
+    for (int i = 0; i < 2500; i++) {
+      entries.add(String.format("%d,USD 100", i));
+    }
+    PremiumList large = PremiumListSqlDao.save("ginormous", entries.build());
+    assertThat(PremiumListSqlDao.getPremiumPrice("ginormous", "1234")).isPresent();
+    assertThat(PremiumListSqlDao.priceTablesCache.getIfPresent(large.getRevisionId())).isNotNull();
+  }
+
   private static Money moneyOf(CurrencyUnit unit, double amount) {
     return Money.of(unit, BigDecimal.valueOf(amount).setScale(unit.getDecimalPlaces()));
   }
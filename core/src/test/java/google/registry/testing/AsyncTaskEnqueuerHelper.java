@@ -0,0 +1,60 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.testing;
+
+import static com.google.appengine.api.taskqueue.QueueFactory.getQueue;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_ACTIONS;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_DELETE;
+import static google.registry.batch.AsyncTaskEnqueuer.QUEUE_ASYNC_HOST_RENAME;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_CLAIMS;
+import static google.registry.tmch.LordnTaskUtils.QUEUE_SUNRISE;
+
+import google.registry.batch.AsyncTaskEnqueuer;
+import google.registry.util.AppEngineServiceUtils;
+import google.registry.util.Retrier;
+import org.joda.time.Duration;
+
+/** Static utility functions for creating {@link AsyncTaskEnqueuer}s in tests. */
+public final class AsyncTaskEnqueuerHelper {
+
+  /** Returns an {@link AsyncTaskEnqueuer} that adds its tasks to queues directly. */
+  public static AsyncTaskEnqueuer createForTesting(
+      AppEngineServiceUtils appEngineServiceUtils, FakeClock clock, Duration asyncDeleteDelay) {
+    return createForTesting(appEngineServiceUtils, clock, asyncDeleteDelay, false);
+  }
+
+  /**
+   * Returns an {@link AsyncTaskEnqueuer} that saves tasks due in the future to the outbox if
+   * {@code asyncTaskOutboxEnabled} is set.
+   */
+  public static AsyncTaskEnqueuer createForTesting(
+      AppEngineServiceUtils appEngineServiceUtils,
+      FakeClock clock,
+      Duration asyncDeleteDelay,
+      boolean asyncTaskOutboxEnabled) {
+    return new AsyncTaskEnqueuer(
+        getQueue(QUEUE_ASYNC_ACTIONS),
+        getQueue(QUEUE_ASYNC_DELETE),
+        getQueue(QUEUE_ASYNC_HOST_RENAME),
+        getQueue(QUEUE_SUNRISE),
+        getQueue(QUEUE_CLAIMS),
+        asyncDeleteDelay,
+        asyncTaskOutboxEnabled,
+        appEngineServiceUtils,
+        new Retrier(new FakeSleeper(clock), 1));
+  }
+
+  private AsyncTaskEnqueuerHelper() {}
+}
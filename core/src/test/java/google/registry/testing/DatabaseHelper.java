@@ -50,6 +50,7 @@ import static google.registry.util.ResourceUtils.readResourceUtf8;
 import static java.util.Arrays.asList;
 import static org.joda.money.CurrencyUnit.USD;
 import static org.junit.jupiter.api.Assertions.fail;
+import static org.mockito.Mockito.mock;
 
 import com.google.common.base.Ascii;
 import com.google.common.base.Splitter;
@@ -63,6 +64,7 @@ import com.google.common.collect.Streams;
 import com.google.common.net.InetAddresses;
 import com.googlecode.objectify.Key;
 import com.googlecode.objectify.cmd.Saver;
+import google.registry.batch.AsyncTaskEnqueuer;
 import google.registry.dns.writer.VoidDnsWriter;
 import google.registry.model.Buildable;
 import google.registry.model.EppResource;
@@ -112,6 +114,7 @@ import google.registry.model.transfer.TransferData;
 import google.registry.model.transfer.TransferStatus;
 import google.registry.persistence.VKey;
 import google.registry.tmch.LordnTaskUtils;
+import google.registry.util.AppEngineServiceUtils;
 import java.util.Comparator;
 import java.util.List;
 import java.util.Map;
@@ -122,6 +125,7 @@ import org.joda.money.CurrencyUnit;
 import org.joda.money.Money;
 import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
+import org.joda.time.Duration;
 
 /** Static utils for setting up test resources. */
 public class DatabaseHelper {
@@ -335,9 +339,13 @@ public class DatabaseHelper {
   public static DomainBase persistDomainAndEnqueueLordn(final DomainBase domain) {
     final DomainBase persistedDomain = persistResource(domain);
     // Calls {@link LordnTaskUtils#enqueueDomainBaseTask} wrapped in an ofy transaction so that
-    // the
-    // transaction time is set correctly.
-    tm().transactNew(() -> LordnTaskUtils.enqueueDomainBaseTask(persistedDomain));
+    // the transaction time is set correctly. The task is added to its queue directly, as it would
+    // be without the async task outbox.
+    AsyncTaskEnqueuer asyncTaskEnqueuer =
+        AsyncTaskEnqueuerHelper.createForTesting(
+            mock(AppEngineServiceUtils.class), new FakeClock(), Duration.ZERO);
+    tm().transactNew(
+            () -> LordnTaskUtils.enqueueDomainBaseTask(asyncTaskEnqueuer, persistedDomain));
     maybeAdvanceClock();
     return persistedDomain;
   }
@@ -17,6 +17,7 @@ package google.registry.testing;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import google.registry.model.EppResource;
+import google.registry.model.domain.token.AllocationToken;
 import google.registry.model.index.ForeignKeyIndex;
 import google.registry.model.registry.label.PremiumListDatastoreDao;
 import google.registry.schema.tld.PremiumListSqlDao;
@@ -79,10 +80,20 @@ public class TestCacheExtension implements BeforeEachCallback, AfterEachCallback
       return this;
     }
 
-    public Builder withPremiumListEntriesCache(Duration expiry) {
+    public Builder withPremiumPriceTablesCache(Duration expiry) {
       cacheHandlerMap.put(
-          "PremiumList.cachePremiumListEntries",
-          new TestCacheHandler(PremiumListDatastoreDao::setPremiumListEntriesCacheForTest, expiry));
+          "PremiumListSqlDao.priceTablesCache",
+          new TestCacheHandler(PremiumListSqlDao::setPriceTablesCacheForTest, expiry));
+      cacheHandlerMap.put(
+          "PremiumListDatastoreDao.priceTablesCache",
+          new TestCacheHandler(PremiumListDatastoreDao::setPriceTablesCacheForTest, expiry));
+      return this;
+    }
+
+    public Builder withAllocationTokenCache(Duration expiry) {
+      cacheHandlerMap.put(
+          "AllocationToken.unlimitedUseTokenCache",
+          new TestCacheHandler(AllocationToken::setUnlimitedUseTokenCacheForTest, expiry));
       return this;
     }
 
@@ -23,17 +23,21 @@ import static google.registry.testing.DatabaseHelper.persistActiveContact;
 import static google.registry.testing.DatabaseHelper.persistDomainAndEnqueueLordn;
 import static google.registry.testing.TaskQueueHelper.assertTasksEnqueued;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.mockito.Mockito.mock;
 
 import google.registry.model.domain.DomainBase;
 import google.registry.model.domain.launch.LaunchNotice;
 import google.registry.model.ofy.Ofy;
 import google.registry.model.registrar.Registrar.Type;
 import google.registry.testing.AppEngineExtension;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.FakeClock;
 import google.registry.testing.InjectExtension;
 import google.registry.testing.TaskQueueHelper.TaskMatcher;
+import google.registry.util.AppEngineServiceUtils;
 import google.registry.util.Clock;
 import org.joda.time.DateTime;
+import org.joda.time.Duration;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.extension.RegisterExtension;
@@ -125,6 +129,14 @@ public class LordnTaskUtilsTest {
   void test_enqueueDomainBaseTask_throwsNpeOnNullDomain() {
     assertThrows(
         NullPointerException.class,
-        () -> tm().transactNew(() -> LordnTaskUtils.enqueueDomainBaseTask(null)));
+        () ->
+            tm().transactNew(
+                    () ->
+                        LordnTaskUtils.enqueueDomainBaseTask(
+                            AsyncTaskEnqueuerHelper.createForTesting(
+                                mock(AppEngineServiceUtils.class),
+                                new FakeClock(),
+                                Duration.ZERO),
+                            null)));
   }
 }
@@ -47,6 +47,15 @@ class SmdrlCsvParserTest {
     assertThat(smdrl.getCreationTime()).isEqualTo(DateTime.parse("2013-11-24T23:30:04.3Z"));
   }
 
+  @Test
+  void testParse_fromCharSource() throws Exception {
+    SignedMarkRevocationList smdrl = SmdrlCsvParser.parse(SMDRL_LATEST_CSV);
+    assertThat(smdrl.size()).isEqualTo(150);
+    assertThat(smdrl.getCreationTime()).isEqualTo(DateTime.parse("2013-11-24T23:30:04.3Z"));
+    clock.setTo(DateTime.parse("2013-08-09T12:00:00.0Z"));
+    assertThat(smdrl.isSmdRevoked("0000001681375789102250-65535", clock.nowUtc())).isTrue();
+  }
+
   @Test
   void testFirstRow() throws Exception {
     SignedMarkRevocationList smdrl = SmdrlCsvParser.parse(SMDRL_LATEST_CSV.readLines());
@@ -144,4 +153,27 @@ class SmdrlCsvParserTest {
                         "0000001681375789102250-65535,haha,2013-08-09T12:00:00.0Z")));
     assertThat(thrown).hasMessageThat().contains("elements");
   }
+
+  @Test
+  void testFail_tooFewColumns() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () ->
+                SmdrlCsvParser.parse(
+                    ImmutableList.of(
+                        "1,2013-11-24T23:30:04.3Z",
+                        "smd-id,insertion-datetime",
+                        "0000001681375789102250-65535")));
+    assertThat(thrown).hasMessageThat().isEqualTo("Line 3: Expected 2 elements, found 1");
+  }
+
+  @Test
+  void testFail_missingHeader() {
+    IllegalArgumentException thrown =
+        assertThrows(
+            IllegalArgumentException.class,
+            () -> SmdrlCsvParser.parse(ImmutableList.of("1,2013-11-24T23:30:04.3Z")));
+    assertThat(thrown).hasMessageThat().contains("Expected at least 2 lines");
+  }
 }
@@ -16,11 +16,15 @@ package google.registry.tmch;
 
 import static com.google.common.truth.Truth.assertThat;
 import static com.google.common.truth.Truth8.assertThat;
+import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.googlecode.objectify.Key;
+import google.registry.model.tmch.ClaimsListDao;
 import google.registry.model.tmch.ClaimsListShard;
+import google.registry.model.tmch.ClaimsListShard.ClaimsListRevision;
 import java.util.Optional;
 import org.joda.time.DateTime;
 import org.junit.jupiter.api.Test;
@@ -56,4 +60,54 @@ class TmchDnlActionTest extends TmchActionTestCase {
         .hasValue("2013112500/7/4/8/dIHW0DiuybvhdP8kIz");
     assertThat(claimsList.getClaimKey("lolcat")).isEmpty();
   }
+
+  @Test
+  void testDnl_sameListAgain_isNotResaved() throws Exception {
+    when(httpResponse.getContent())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.csv").read())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.sig").read())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.csv").read())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.sig").read());
+    newTmchDnlAction().run();
+    Key<ClaimsListRevision> revision = ClaimsListShard.getCurrentRevision();
+    newTmchDnlAction().run();
+    verify(fetchService, times(4)).fetch(httpRequest.capture());
+    assertThat(ClaimsListShard.getCurrentRevision()).isEqualTo(revision);
+    assertThat(ClaimsListShard.get().getClaimKey("xn----7sbejwbn3axu3d"))
+        .hasValue("2013112500/7/4/8/dIHW0DiuybvhdP8kIz");
+    assertThat(ClaimsListDao.getLatestRevision().get().getTmdbGenerationTime())
+        .isEqualTo(DateTime.parse("2013-11-24T23:15:37.4Z"));
+  }
+
+  @Test
+  void testDnl_sameListAgain_retriesFailedCloudSqlSave() throws Exception {
+    when(httpResponse.getContent())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.csv").read())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.sig").read())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.csv").read())
+        .thenReturn(TmchTestData.loadBytes("dnl-latest.sig").read());
+    newTmchDnlAction().run();
+    Key<ClaimsListRevision> revision = ClaimsListShard.getCurrentRevision();
+    // Simulate the Cloud SQL write of the first download having failed.
+    jpaTm()
+        .transact(
+            () -> {
+              jpaTm()
+                  .getEntityManager()
+                  .createNativeQuery("DELETE FROM \"ClaimsEntry\"")
+                  .executeUpdate();
+              jpaTm()
+                  .getEntityManager()
+                  .createNativeQuery("DELETE FROM \"ClaimsList\"")
+                  .executeUpdate();
+            });
+    assertThat(ClaimsListDao.getLatestRevision()).isEmpty();
+    newTmchDnlAction().run();
+    assertThat(ClaimsListShard.getCurrentRevision()).isEqualTo(revision);
+    ClaimsListShard cloudSqlList = ClaimsListDao.getLatestRevision().get();
+    assertThat(cloudSqlList.getTmdbGenerationTime())
+        .isEqualTo(DateTime.parse("2013-11-24T23:15:37.4Z"));
+    assertThat(cloudSqlList.getClaimKey("xn----7sbejwbn3axu3d"))
+        .hasValue("2013112500/7/4/8/dIHW0DiuybvhdP8kIz");
+  }
 }
@@ -15,11 +15,15 @@
 package google.registry.tmch;
 
 import static com.google.common.truth.Truth.assertThat;
+import static google.registry.model.ofy.ObjectifyService.ofy;
+import static google.registry.persistence.transaction.TransactionManagerFactory.jpaTm;
 import static google.registry.tmch.TmchTestData.loadBytes;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
+import com.google.common.collect.ImmutableList;
+import com.googlecode.objectify.Key;
 import google.registry.model.smd.SignedMarkRevocationList;
 import java.util.Optional;
 import org.joda.time.DateTime;
@@ -55,4 +59,59 @@ class TmchSmdrlActionTest extends TmchActionTestCase {
     assertThat(smdrl.isSmdRevoked("0000001681375789102250-65535", now)).isTrue();
     assertThat(smdrl.isSmdRevoked("0000001681375789102250-65536", now)).isFalse();
   }
+
+  @Test
+  void testSmdrl_sameListAgain_isNotResaved() throws Exception {
+    when(httpResponse.getContent())
+        .thenReturn(loadBytes("smdrl-latest.csv").read())
+        .thenReturn(loadBytes("smdrl-latest.sig").read())
+        .thenReturn(loadBytes("smdrl-latest.csv").read())
+        .thenReturn(loadBytes("smdrl-latest.sig").read());
+    newTmchSmdrlAction().run();
+    ImmutableList<Key<SignedMarkRevocationList>> shards = loadShardKeys();
+    newTmchSmdrlAction().run();
+    verify(fetchService, times(4)).fetch(httpRequest.capture());
+    assertThat(loadShardKeys()).isEqualTo(shards);
+    assertThat(SignedMarkRevocationList.get().isSmdRevoked("0000001681375789102250-65535", now))
+        .isTrue();
+  }
+
+  @Test
+  void testSmdrl_sameListAgain_retriesFailedCloudSqlSave() throws Exception {
+    when(httpResponse.getContent())
+        .thenReturn(loadBytes("smdrl-latest.csv").read())
+        .thenReturn(loadBytes("smdrl-latest.sig").read())
+        .thenReturn(loadBytes("smdrl-latest.csv").read())
+        .thenReturn(loadBytes("smdrl-latest.sig").read());
+    newTmchSmdrlAction().run();
+    ImmutableList<Key<SignedMarkRevocationList>> shards = loadShardKeys();
+    // Simulate the Cloud SQL write of the first download having failed.
+    jpaTm()
+        .transact(
+            () -> {
+              jpaTm()
+                  .getEntityManager()
+                  .createNativeQuery("DELETE FROM \"SignedMarkRevocationEntry\"")
+                  .executeUpdate();
+              jpaTm()
+                  .getEntityManager()
+                  .createNativeQuery("DELETE FROM \"SignedMarkRevocationList\"")
+                  .executeUpdate();
+            });
+    newTmchSmdrlAction().run();
+    assertThat(loadShardKeys()).isEqualTo(shards);
+    long cloudSqlRevisions =
+        jpaTm()
+            .transact(
+                () ->
+                    jpaTm()
+                        .getEntityManager()
+                        .createQuery("SELECT COUNT(*) FROM SignedMarkRevocationList", Long.class)
+                        .getSingleResult());
+    assertThat(cloudSqlRevisions).isEqualTo(1);
+  }
+
+  private static ImmutableList<Key<SignedMarkRevocationList>> loadShardKeys() {
+    return ImmutableList.copyOf(ofy().load().type(SignedMarkRevocationList.class).keys());
+  }
 }
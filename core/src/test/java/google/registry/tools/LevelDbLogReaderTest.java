@@ -27,8 +27,11 @@ import com.google.common.primitives.Bytes;
 import google.registry.tools.LevelDbLogReader.ChunkType;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.util.List;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
 /** Unit tests of {@link LevelDbLogReader}. */
 final class LevelDbLogReaderTest {
@@ -95,6 +98,65 @@ final class LevelDbLogReaderTest {
         .hasSize(block0.recordCount + block1.recordCount);
   }
 
+  @Test
+  void readFromFile_matchesStream(@TempDir Path tmpDir) throws IOException {
+    TestBlock block0 = makeBlockOfRepeatingBytes(0);
+    byte[] block1 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block1, 0, ChunkType.FIRST, MAX_RECORD, (byte) 1);
+    byte[] block2 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block2, 0, ChunkType.LAST, MAX_RECORD, (byte) 2);
+    Path file = tmpDir.resolve("data");
+    Files.write(file, Bytes.concat(block0.data, block1, block2));
+
+    ImmutableList<byte[]> records = ImmutableList.copyOf(LevelDbLogReader.from(file));
+    ImmutableList<byte[]> expected = readIncrementally(block0.data, block1, block2);
+    assertThat(records).hasSize(block0.recordCount + 1);
+    for (int i = 0; i < records.size(); i++) {
+      assertThat(records.get(i)).isEqualTo(expected.get(i));
+    }
+  }
+
+  @Test
+  void readFromFile_acrossMappingWindows_matchesStream(@TempDir Path tmpDir) throws IOException {
+    // With a mapping of two blocks, the windows start at blocks 0, 2, 4 and 6, so the record in
+    // blocks 1-3 and the one in blocks 5-6 are both split across a window boundary.
+    TestBlock block0 = makeBlockOfRepeatingBytes(0);
+    byte[] block1 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block1, 0, ChunkType.FIRST, MAX_RECORD, (byte) 1);
+    byte[] block2 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block2, 0, ChunkType.MIDDLE, MAX_RECORD, (byte) 2);
+    byte[] block3 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block3, 0, ChunkType.LAST, MAX_RECORD, (byte) 3);
+    TestBlock block4 = makeBlockOfRepeatingBytes(138);
+    byte[] block5 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block5, 0, ChunkType.FIRST, MAX_RECORD, (byte) 4);
+    byte[] block6 = new byte[LevelDbLogReader.BLOCK_SIZE];
+    addRecord(block6, 0, ChunkType.LAST, MAX_RECORD, (byte) 5);
+    byte[][] blocks = {block0.data, block1, block2, block3, block4.data, block5, block6};
+    Path file = tmpDir.resolve("data");
+    Files.write(file, Bytes.concat(blocks));
+
+    ImmutableList<byte[]> records =
+        ImmutableList.copyOf(LevelDbLogReader.from(file, 2 * LevelDbLogReader.BLOCK_SIZE));
+    ImmutableList<byte[]> expected = readIncrementally(blocks);
+    assertThat(records).hasSize(block0.recordCount + block4.recordCount + 2);
+    assertThat(records.get(block0.recordCount)).hasLength(3 * MAX_RECORD);
+    assertThat(records.get(records.size() - 1)).hasLength(2 * MAX_RECORD);
+    for (int i = 0; i < records.size(); i++) {
+      assertThat(records.get(i)).isEqualTo(expected.get(i));
+    }
+  }
+
+  @Test
+  void readFromFile_mappingSizeNotMultipleOfBlockSize_fails(@TempDir Path tmpDir)
+      throws IOException {
+    Path file = tmpDir.resolve("data");
+    Files.write(file, makeBlockOfRepeatingBytes(0).data);
+    assertThrows(
+        IllegalArgumentException.class,
+        () -> LevelDbLogReader.from(file, LevelDbLogReader.BLOCK_SIZE + 1));
+  }
+
   @Test
   void read_noData() throws IOException {
     assertThat(readIncrementally(new byte[0])).isEmpty();
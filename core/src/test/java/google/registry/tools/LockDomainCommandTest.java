@@ -27,9 +27,9 @@ import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.mock;
 
 import com.google.common.collect.ImmutableList;
-import google.registry.batch.AsyncTaskEnqueuerTest;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.registrar.Registrar.Type;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.DeterministicStringGenerator;
 import google.registry.util.AppEngineServiceUtils;
 import google.registry.util.StringGenerator.Alphabets;
@@ -52,7 +52,7 @@ class LockDomainCommandTest extends CommandTestCase<LockDomainCommand> {
         new DomainLockUtils(
             new DeterministicStringGenerator(Alphabets.BASE_58),
             "adminreg",
-            AsyncTaskEnqueuerTest.createForTesting(
+            AsyncTaskEnqueuerHelper.createForTesting(
                 mock(AppEngineServiceUtils.class), fakeClock, Duration.ZERO));
   }
 
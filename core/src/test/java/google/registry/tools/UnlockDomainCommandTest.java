@@ -29,10 +29,10 @@ import static org.mockito.Mockito.mock;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableSet;
-import google.registry.batch.AsyncTaskEnqueuerTest;
 import google.registry.model.domain.DomainBase;
 import google.registry.model.registrar.Registrar.Type;
 import google.registry.schema.domain.RegistryLock;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.DeterministicStringGenerator;
 import google.registry.util.AppEngineServiceUtils;
 import google.registry.util.StringGenerator.Alphabets;
@@ -55,7 +55,7 @@ class UnlockDomainCommandTest extends CommandTestCase<UnlockDomainCommand> {
         new DomainLockUtils(
             new DeterministicStringGenerator(Alphabets.BASE_58),
             "adminreg",
-            AsyncTaskEnqueuerTest.createForTesting(
+            AsyncTaskEnqueuerHelper.createForTesting(
                 mock(AppEngineServiceUtils.class), fakeClock, Duration.ZERO));
   }
 
@@ -33,7 +33,6 @@ import com.google.appengine.api.users.User;
 import com.google.appengine.api.users.UserService;
 import com.google.appengine.api.users.UserServiceFactory;
 import com.google.common.collect.ImmutableMap;
-import google.registry.batch.AsyncTaskEnqueuerTest;
 import google.registry.model.billing.BillingEvent;
 import google.registry.model.billing.BillingEvent.Reason;
 import google.registry.model.domain.DomainBase;
@@ -46,6 +45,7 @@ import google.registry.request.auth.UserAuthInfo;
 import google.registry.schema.domain.RegistryLock;
 import google.registry.security.XsrfTokenManager;
 import google.registry.testing.AppEngineExtension;
+import google.registry.testing.AsyncTaskEnqueuerHelper;
 import google.registry.testing.DatabaseHelper;
 import google.registry.testing.DeterministicStringGenerator;
 import google.registry.testing.FakeClock;
@@ -331,7 +331,7 @@ final class RegistryLockVerifyActionTest {
             new DomainLockUtils(
                 stringGenerator,
                 "adminreg",
-                AsyncTaskEnqueuerTest.createForTesting(
+                AsyncTaskEnqueuerHelper.createForTesting(
                     mock(AppEngineServiceUtils.class), fakeClock, Duration.ZERO)),
             lockVerificationCode,
             isLock);
@@ -0,0 +1,61 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.xml;
+
+import static com.google.common.truth.Truth.assertThat;
+
+import google.registry.xjc.XjcXmlTransformer;
+import google.registry.xjc.rdeidn.XjcRdeIdn;
+import google.registry.xjc.rdeidn.XjcRdeIdnElement;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link XmlFragmentMarshaller}. */
+class XmlFragmentMarshallerTest {
+
+  private static final String POLICY_URL = "https://www.registry.google/about/policies/";
+
+  private final XmlFragmentMarshaller marshaller =
+      XjcXmlTransformer.get().createFragmentMarshaller();
+
+  @Test
+  void testMarshal_stripsNamespaceDeclarations() throws Exception {
+    assertThat(marshaller.marshal(createIdnElement("extended_latin")).trim())
+        .isEqualTo(
+            "<rdeIDN:idnTableRef id=\"extended_latin\">\n"
+                + "    <rdeIDN:url>https://example.tld/extended_latin.txt</rdeIDN:url>\n"
+                + "    <rdeIDN:urlPolicy>"
+                + POLICY_URL
+                + "</rdeIDN:urlPolicy>\n"
+                + "</rdeIDN:idnTableRef>");
+  }
+
+  @Test
+  void testMarshal_reusedMarshaller_onlyContainsLatestFragment() throws Exception {
+    marshaller.marshal(createIdnElement("extended_latin"));
+    String xml = marshaller.marshal(createIdnElement("ja"));
+    assertThat(xml).startsWith("<rdeIDN:idnTableRef id=\"ja\">\n");
+    assertThat(xml).contains("<rdeIDN:url>https://example.tld/ja.txt</rdeIDN:url>");
+    assertThat(xml).doesNotContain("extended_latin");
+    assertThat(xml).doesNotContain("xmlns");
+  }
+
+  private static XjcRdeIdnElement createIdnElement(String id) {
+    XjcRdeIdn bean = new XjcRdeIdn();
+    bean.setId(id);
+    bean.setUrl("https://example.tld/" + id + ".txt");
+    bean.setUrlPolicy(POLICY_URL);
+    return new XjcRdeIdnElement(bean);
+  }
+}
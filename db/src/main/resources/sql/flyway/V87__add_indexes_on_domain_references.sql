@@ -0,0 +1,24 @@
+-- Copyright 2021 The Nomulus Authors. All Rights Reserved.
+--
+-- Licensed under the Apache License, Version 2.0 (the "License");
+-- you may not use this file except in compliance with the License.
+-- You may obtain a copy of the License at
+--
+--     http://www.apache.org/licenses/LICENSE-2.0
+--
+-- Unless required by applicable law or agreed to in writing, software
+-- distributed under the License is distributed on an "AS IS" BASIS,
+-- WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+-- See the License for the specific language governing permissions and
+-- limitations under the License.
+
+create index if not exists domain_admin_contact_idx ON "Domain"
+   using btree (admin_contact);
+create index if not exists domain_billing_contact_idx ON "Domain"
+   using btree (billing_contact);
+create index if not exists domain_registrant_contact_idx ON "Domain"
+   using btree (registrant_contact);
+create index if not exists domain_tech_contact_idx ON "Domain"
+   using btree (tech_contact);
+create index if not exists domainhost_host_repo_id_idx ON "DomainHost"
+   using btree (host_repo_id);
@@ -1469,6 +1469,41 @@ ALTER TABLE ONLY public."DomainHistoryHost"
 CREATE INDEX allocation_token_domain_name_idx ON public."AllocationToken" USING btree (domain_name);
 
 
+--
+-- Name: domain_admin_contact_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX domain_admin_contact_idx ON public."Domain" USING btree (admin_contact);
+
+
+--
+-- Name: domain_billing_contact_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX domain_billing_contact_idx ON public."Domain" USING btree (billing_contact);
+
+
+--
+-- Name: domain_registrant_contact_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX domain_registrant_contact_idx ON public."Domain" USING btree (registrant_contact);
+
+
+--
+-- Name: domain_tech_contact_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX domain_tech_contact_idx ON public."Domain" USING btree (tech_contact);
+
+
+--
+-- Name: domainhost_host_repo_id_idx; Type: INDEX; Schema: public; Owner: -
+--
+
+CREATE INDEX domainhost_host_repo_id_idx ON public."DomainHost" USING btree (host_repo_id);
+
+
 --
 -- Name: idx1iy7njgb7wjmj9piml4l2g0qi; Type: INDEX; Schema: public; Owner: -
 --
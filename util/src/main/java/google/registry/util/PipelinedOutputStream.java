@@ -0,0 +1,195 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.util;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.Uninterruptibles;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ThreadFactory;
+import javax.annotation.WillCloseWhenClosed;
+
+/**
+ * {@link OutputStream} that hands data off to a background thread which writes it to a delegate.
+ *
+ * <p>This is useful when the delegate does expensive CPU work (such as compression and encryption)
+ * and the producer is itself doing expensive work (such as reading and encoding records), since it
+ * lets both happen concurrently on separate cores. Writes are accumulated into chunks of {@code
+ * chunkSize} bytes, and at most {@code maxPendingChunks} chunks are buffered before the producer
+ * blocks.
+ *
+ * <p>The delegate sees exactly the same bytes in exactly the same order as it would if it were
+ * written to directly. Any exception thrown by the delegate is rethrown to the producer on the next
+ * call to {@link #write}, {@link #flush} or {@link #close}.
+ */
+public final class PipelinedOutputStream extends OutputStream {
+
+  /** Zero-length chunk signalling the background thread that no more data is coming. */
+  private static final byte[] END_OF_STREAM = new byte[0];
+
+  /** How often a blocked producer checks whether the background thread has died. */
+  private static final long FAILURE_POLL_INTERVAL_MILLIS = 100;
+
+  private final OutputStream delegate;
+  private final int chunkSize;
+  private final BlockingQueue<byte[]> queue;
+  private final Thread writerThread;
+
+  private byte[] buffer;
+  private int position;
+  private boolean isClosed;
+  private volatile Throwable failure;
+
+  public PipelinedOutputStream(
+      @WillCloseWhenClosed OutputStream delegate,
+      int chunkSize,
+      int maxPendingChunks,
+      ThreadFactory threadFactory) {
+    checkArgument(chunkSize > 0, "chunkSize must be positive");
+    checkArgument(maxPendingChunks > 0, "maxPendingChunks must be positive");
+    this.delegate = checkNotNull(delegate, "delegate");
+    this.chunkSize = chunkSize;
+    this.queue = new ArrayBlockingQueue<>(maxPendingChunks);
+    this.buffer = new byte[chunkSize];
+    this.writerThread = threadFactory.newThread(this::drain);
+    checkState(writerThread != null, "Thread factory did not create a thread");
+    writerThread.start();
+  }
+
+  @Override
+  public void write(int b) throws IOException {
+    checkOpen();
+    buffer[position++] = (byte) b;
+    if (position == chunkSize) {
+      handOff();
+    }
+  }
+
+  @Override
+  public void write(byte[] b, int off, int len) throws IOException {
+    checkOpen();
+    while (len > 0) {
+      int count = Math.min(len, chunkSize - position);
+      System.arraycopy(b, off, buffer, position, count);
+      position += count;
+      off += count;
+      len -= count;
+      if (position == chunkSize) {
+        handOff();
+      }
+    }
+  }
+
+  /**
+   * Hands any buffered bytes off to the background thread.
+   *
+   * <p>This does not wait for the delegate to be flushed.
+   */
+  @Override
+  public void flush() throws IOException {
+    checkOpen();
+    if (position > 0) {
+      handOff();
+    }
+  }
+
+  /** Waits for all buffered data to be written, then closes the delegate. */
+  @Override
+  public void close() throws IOException {
+    if (isClosed) {
+      return;
+    }
+    try {
+      if (position > 0) {
+        handOff();
+      }
+      enqueue(END_OF_STREAM);
+      Uninterruptibles.joinUninterruptibly(writerThread);
+      rethrowFailure();
+    } finally {
+      isClosed = true;
+      buffer = null;
+    }
+  }
+
+  private void checkOpen() throws IOException {
+    checkState(!isClosed, "outputstream closed");
+    rethrowFailure();
+  }
+
+  private void handOff() throws IOException {
+    byte[] chunk = (position == chunkSize) ? buffer : Arrays.copyOf(buffer, position);
+    enqueue(chunk);
+    buffer = new byte[chunkSize];
+    position = 0;
+  }
+
+  /** Blocks until there's room in the queue, or throws if the background thread has failed. */
+  private void enqueue(byte[] chunk) throws IOException {
+    while (!offerUninterruptibly(chunk)) {
+      rethrowFailure();
+    }
+    rethrowFailure();
+  }
+
+  private boolean offerUninterruptibly(byte[] chunk) {
+    boolean interrupted = false;
+    try {
+      while (true) {
+        try {
+          return queue.offer(chunk, FAILURE_POLL_INTERVAL_MILLIS, MILLISECONDS);
+        } catch (InterruptedException e) {
+          interrupted = true;
+        }
+      }
+    } finally {
+      if (interrupted) {
+        Thread.currentThread().interrupt();
+      }
+    }
+  }
+
+  private void rethrowFailure() throws IOException {
+    Throwable t = failure;
+    if (t != null) {
+      Throwables.throwIfInstanceOf(t, IOException.class);
+      Throwables.throwIfUnchecked(t);
+      throw new IOException(t);
+    }
+  }
+
+  /** Body of the background thread. */
+  private void drain() {
+    try (OutputStream out = delegate) {
+      for (byte[] chunk = Uninterruptibles.takeUninterruptibly(queue);
+          chunk != END_OF_STREAM;
+          chunk = Uninterruptibles.takeUninterruptibly(queue)) {
+        out.write(chunk);
+      }
+    } catch (Throwable t) {
+      // The producer will see this on its next call, and stops waiting for room in the queue.
+      failure = t;
+      queue.clear();
+    }
+  }
+}
@@ -0,0 +1,95 @@
+// Copyright 2020 The Nomulus Authors. All Rights Reserved.
+//
+// Licensed under the Apache License, Version 2.0 (the "License");
+// you may not use this file except in compliance with the License.
+// You may obtain a copy of the License at
+//
+//     http://www.apache.org/licenses/LICENSE-2.0
+//
+// Unless required by applicable law or agreed to in writing, software
+// distributed under the License is distributed on an "AS IS" BASIS,
+// WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+// See the License for the specific language governing permissions and
+// limitations under the License.
+
+package google.registry.util;
+
+import static com.google.common.truth.Truth.assertThat;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import org.junit.jupiter.api.Test;
+
+/** Unit tests for {@link PipelinedOutputStream}. */
+class PipelinedOutputStreamTest {
+
+  private final ThreadFactory threadFactory = Executors.defaultThreadFactory();
+
+  @Test
+  void testWrite_preservesBytesAndOrder() throws Exception {
+    ByteArrayOutputStream expected = new ByteArrayOutputStream();
+    ByteArrayOutputStream output = new ByteArrayOutputStream();
+    try (OutputStream pipe = new PipelinedOutputStream(output, 7, 2, threadFactory)) {
+      for (int i = 0; i < 1000; i++) {
+        byte[] data = ("record " + i + "\n").getBytes(UTF_8);
+        pipe.write(data);
+        expected.write(data);
+        pipe.write('!');
+        expected.write('!');
+      }
+      pipe.write("hello world".getBytes(UTF_8), 6, 5);
+      expected.write("hello world".getBytes(UTF_8), 6, 5);
+    }
+    assertThat(output.toByteArray()).isEqualTo(expected.toByteArray());
+  }
+
+  @Test
+  void testClose_closesDelegate() throws Exception {
+    boolean[] closed = new boolean[1];
+    OutputStream delegate =
+        new ByteArrayOutputStream() {
+          @Override
+          public void close() {
+            closed[0] = true;
+          }
+        };
+    new PipelinedOutputStream(delegate, 16, 1, threadFactory).close();
+    assertThat(closed[0]).isTrue();
+  }
+
+  @Test
+  void testWrite_delegateFailure_isRethrownToProducer() throws Exception {
+    OutputStream delegate =
+        new OutputStream() {
+          @Override
+          public void write(int b) throws IOException {
+            throw new IOException("disk on fire");
+          }
+        };
+    OutputStream pipe = new PipelinedOutputStream(delegate, 4, 1, threadFactory);
+    IOException thrown =
+        assertThrows(
+            IOException.class,
+            () -> {
+              for (int i = 0; i < 100; i++) {
+                pipe.write("abcdefgh".getBytes(UTF_8));
+              }
+              pipe.close();
+            });
+    assertThat(thrown).hasMessageThat().contains("disk on fire");
+  }
+
+  @Test
+  void testWrite_failsAfterClose() throws Exception {
+    OutputStream pipe =
+        new PipelinedOutputStream(new ByteArrayOutputStream(), 16, 1, threadFactory);
+    pipe.close();
+    IllegalStateException thrown = assertThrows(IllegalStateException.class, () -> pipe.write(1));
+    assertThat(thrown).hasMessageThat().contains("outputstream closed");
+  }
+}